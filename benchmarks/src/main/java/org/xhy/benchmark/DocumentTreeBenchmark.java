@@ -0,0 +1,61 @@
+package org.xhy.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xhy.domain.rag.model.ProcessedSegment;
+import org.xhy.domain.rag.strategy.context.ProcessingContext;
+import org.xhy.infrastructure.rag.processor.StructuralMarkdownProcessor;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** 结构化Markdown处理基准 原文模式覆盖AST解析、文档树构建与层次化分割，常规模式覆盖语义分段 */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocumentTreeBenchmark {
+
+    /** 一级章节数，每章含3个小节 */
+    @Param({"10", "100"})
+    private int sections;
+
+    /** 每个小节的段落数 */
+    @Param({"4", "16"})
+    private int paragraphs;
+
+    private StructuralMarkdownProcessor rawProcessor;
+    private StructuralMarkdownProcessor regularProcessor;
+    private ProcessingContext context;
+    private String markdown;
+
+    @Setup
+    public void setup() {
+        rawProcessor = new StructuralMarkdownProcessor();
+        rawProcessor.setRawMode(true);
+        regularProcessor = new StructuralMarkdownProcessor();
+        context = new ProcessingContext(null, null, null, "bench-user", "bench-file");
+        markdown = SyntheticCorpus.markdown(sections, paragraphs);
+    }
+
+    @Benchmark
+    public List<ProcessedSegment> rawTree() {
+        return rawProcessor.processToSegments(markdown, context);
+    }
+
+    @Benchmark
+    public List<ProcessedSegment> regularSegments() {
+        return regularProcessor.processToSegments(markdown, context);
+    }
+}
@@ -0,0 +1,56 @@
+package org.xhy.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xhy.infrastructure.rag.processor.MarkdownContentSplitter;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** 智能二次分割基准 覆盖段落、句子与强制截断三级分割 */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarkdownSplitterBenchmark {
+
+    /** 待分割文本的字符数 */
+    @Param({"4000", "40000", "400000"})
+    private int length;
+
+    private MarkdownContentSplitter splitter;
+    private String content;
+
+    @Setup
+    public void setup() throws Exception {
+        // 与application.yaml中rag.vector的默认值保持一致
+        splitter = new MarkdownContentSplitter();
+        setField("maxVectorLength", 1800);
+        setField("minVectorLength", 200);
+        setField("overlapSize", 100);
+        content = SyntheticCorpus.longText(length);
+    }
+
+    @Benchmark
+    public List<String> split() {
+        return splitter.splitIfNeeded(content, "第1章 > 1.1 小节");
+    }
+
+    private void setField(String name, int value) throws Exception {
+        Field field = MarkdownContentSplitter.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.setInt(splitter, value);
+    }
+}
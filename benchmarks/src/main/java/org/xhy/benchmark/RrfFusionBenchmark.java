@@ -0,0 +1,51 @@
+package org.xhy.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xhy.domain.rag.model.VectorStoreResult;
+import org.xhy.domain.rag.service.HybridSearchDomainService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** 混合检索RRF融合基准 两路召回的候选规模与重叠程度可调 */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RrfFusionBenchmark {
+
+    /** 每一路召回的候选数 */
+    @Param({"50", "500", "5000"})
+    private int candidates;
+
+    /** 文档ID空间与候选数之比，越小两路重叠越多 */
+    @Param({"1", "4"})
+    private int idSpaceFactor;
+
+    private List<VectorStoreResult> vectorResults;
+    private List<VectorStoreResult> keywordResults;
+
+    @Setup
+    public void setup() {
+        int idSpace = candidates * idSpaceFactor;
+        vectorResults = SyntheticCorpus.candidates(candidates, idSpace, 1);
+        keywordResults = SyntheticCorpus.candidates(candidates, idSpace, 2);
+    }
+
+    @Benchmark
+    public List<VectorStoreResult> fuse() {
+        return HybridSearchDomainService.fusionWithRRF(vectorResults, keywordResults, 15);
+    }
+}
@@ -0,0 +1,157 @@
+package org.xhy.benchmark;
+
+import org.xhy.domain.rag.constant.MetadataConstant;
+import org.xhy.domain.rag.model.VectorStoreResult;
+import org.xhy.domain.token.model.TokenMessage;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/** 基准测试用的合成语料 所有生成方法使用固定种子，同一参数在不同提交间产出完全相同的数据，结果可直接对比 */
+public final class SyntheticCorpus {
+
+    private static final long SEED = 20240601L;
+
+    private static final String[] ZH_SENTENCES = {"向量检索依赖嵌入模型将文本映射到高维空间。", "混合检索同时使用关键词和语义相似度。",
+            "文档被切分为多个段落后分别进行向量化。", "重排序模型会对召回结果进行二次打分！", "上下文窗口有限时需要丢弃或压缩早期消息。", "这一步骤是否可以并行执行？"};
+
+    private static final String[] EN_SENTENCES = {"The agent resolves tools before invoking the model.",
+            "Each segment keeps its heading path for context.", "Long histories are trimmed to fit the token budget!",
+            "Does the retriever honour the minimum score?", "Results are fused by reciprocal rank."};
+
+    private SyntheticCorpus() {
+    }
+
+    /** 生成多级标题的长Markdown文档，包含段落、列表、代码块与表格
+     *
+     * @param sections 一级章节数量
+     * @param paragraphsPerSection 每个叶子小节的段落数
+     * @return Markdown文本 */
+    public static String markdown(int sections, int paragraphsPerSection) {
+        Random random = new Random(SEED);
+        StringBuilder sb = new StringBuilder(sections * paragraphsPerSection * 1200);
+        sb.append("# 合成文档\n\n");
+        for (int s = 1; s <= sections; s++) {
+            sb.append("## 第").append(s).append("章\n\n");
+            appendParagraph(sb, random, 3);
+            for (int sub = 1; sub <= 3; sub++) {
+                sb.append("### ").append(s).append('.').append(sub).append(" 小节\n\n");
+                for (int p = 0; p < paragraphsPerSection; p++) {
+                    appendParagraph(sb, random, 4 + random.nextInt(12));
+                }
+                switch (random.nextInt(4)) {
+                    case 0 -> appendList(sb, random);
+                    case 1 -> appendCode(sb, random);
+                    case 2 -> appendTable(sb, random);
+                    default -> {
+                    }
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    /** 生成无段落分隔的长文本，用于触发句子级和强制截断分割
+     *
+     * @param length 目标字符数
+     * @return 文本 */
+    public static String longText(int length) {
+        Random random = new Random(SEED);
+        StringBuilder sb = new StringBuilder(length + 128);
+        while (sb.length() < length) {
+            sb.append(randomSentence(random));
+            if (random.nextInt(10) == 0) {
+                sb.append("\n\n");
+            }
+        }
+        return sb.toString();
+    }
+
+    /** 生成按时间递增的对话历史，入参顺序被打乱以覆盖排序开销
+     *
+     * @param size 消息条数
+     * @return 消息列表 */
+    public static List<TokenMessage> chatHistory(int size) {
+        Random random = new Random(SEED);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<TokenMessage> messages = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int tokens = 20 + random.nextInt(780);
+            TokenMessage message = new TokenMessage("msg-" + i, randomSentence(random),
+                    i % 2 == 0 ? "USER" : "ASSISTANT", tokens, start.plusSeconds(i * 7L));
+            message.setBodyTokenCount(tokens);
+            messages.add(message);
+        }
+        Collections.shuffle(messages, random);
+        return messages;
+    }
+
+    /** 生成一组检索候选，documentIds在[0, idSpace)中取值，两路候选通过共享ID空间产生重叠
+     *
+     * @param size 候选数量
+     * @param idSpace 文档ID空间大小
+     * @param salt 区分不同召回通道的种子偏移
+     * @return 按原始得分降序的候选列表 */
+    public static List<VectorStoreResult> candidates(int size, int idSpace, int salt) {
+        Random random = new Random(SEED + salt);
+        List<VectorStoreResult> results = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String documentId = "doc-" + random.nextInt(idSpace);
+            Map<String, Object> metadata = new HashMap<>();
+            metadata.put(MetadataConstant.DOCUMENT_ID, documentId);
+            metadata.put(MetadataConstant.FILE_ID, "file-" + (random.nextInt(idSpace) / 50));
+
+            VectorStoreResult result = new VectorStoreResult();
+            result.setEmbeddingId("emb-" + salt + "-" + i);
+            result.setText(randomSentence(random));
+            result.setMetadata(metadata);
+            result.setScore(1.0 - (double) i / size);
+            results.add(result);
+        }
+        return results;
+    }
+
+    private static void appendParagraph(StringBuilder sb, Random random, int sentences) {
+        for (int i = 0; i < sentences; i++) {
+            sb.append(randomSentence(random));
+        }
+        sb.append("\n\n");
+    }
+
+    private static void appendList(StringBuilder sb, Random random) {
+        for (int i = 0; i < 5; i++) {
+            sb.append("- ").append(randomSentence(random)).append('\n');
+        }
+        sb.append('\n');
+    }
+
+    private static void appendCode(StringBuilder sb, Random random) {
+        sb.append("```java\n");
+        int lines = 10 + random.nextInt(30);
+        for (int i = 0; i < lines; i++) {
+            sb.append("    int value").append(i).append(" = compute(").append(random.nextInt(1000)).append(");\n");
+        }
+        sb.append("```\n\n");
+    }
+
+    private static void appendTable(StringBuilder sb, Random random) {
+        sb.append("| 名称 | 数值 | 说明 |\n| --- | --- | --- |\n");
+        int rows = 5 + random.nextInt(20);
+        for (int i = 0; i < rows; i++) {
+            sb.append("| item").append(i).append(" | ").append(random.nextInt(10000)).append(" | ")
+                    .append(EN_SENTENCES[random.nextInt(EN_SENTENCES.length)]).append(" |\n");
+        }
+        sb.append('\n');
+    }
+
+    private static String randomSentence(Random random) {
+        return random.nextBoolean()
+                ? ZH_SENTENCES[random.nextInt(ZH_SENTENCES.length)]
+                : EN_SENTENCES[random.nextInt(EN_SENTENCES.length)] + " ";
+    }
+}
@@ -0,0 +1,64 @@
+package org.xhy.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xhy.domain.token.model.TokenMessage;
+import org.xhy.domain.token.model.TokenProcessResult;
+import org.xhy.domain.token.model.config.TokenOverflowConfig;
+import org.xhy.domain.token.service.impl.SlidingWindowTokenOverflowStrategy;
+import org.xhy.domain.token.service.impl.SummarizeTokenOverflowStrategy;
+import org.xhy.infrastructure.llm.LLMProviderService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** 上下文窗口选择基准 摘要策略只测量排序与窗口切分，不包含LLM摘要调用 */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenOverflowBenchmark {
+
+    /** 对话历史条数 */
+    @Param({"100", "1000", "10000"})
+    private int historySize;
+
+    /** 滑动窗口的最大Token数 */
+    @Param({"4096", "128000"})
+    private int maxTokens;
+
+    private SlidingWindowTokenOverflowStrategy slidingWindow;
+    private SummarizeTokenOverflowStrategy summarize;
+    private TokenOverflowConfig slidingConfig;
+    private List<TokenMessage> history;
+
+    @Setup
+    public void setup() {
+        slidingConfig = TokenOverflowConfig.createSlidingWindowConfig(maxTokens, 0.1);
+        slidingWindow = new SlidingWindowTokenOverflowStrategy(slidingConfig);
+        summarize = new SummarizeTokenOverflowStrategy(TokenOverflowConfig.createSummaryConfig(maxTokens, 20),
+                new LLMProviderService(null));
+        history = SyntheticCorpus.chatHistory(historySize);
+    }
+
+    @Benchmark
+    public TokenProcessResult slidingWindow() {
+        return slidingWindow.process(history, slidingConfig);
+    }
+
+    @Benchmark
+    public SummarizeTokenOverflowStrategy.MessageWindow summarizeWindow() {
+        return summarize.splitWindow(history);
+    }
+}
@@ -1,5 +1,7 @@
 package org.xhy.mcpweather;
 
+import java.util.Map;
+
 public class Config {
 
     private final String host;
@@ -20,6 +22,16 @@ public class Config {
     private final int dockerMaxMemoryMb;
     private final String dockerDefaultNetwork;
     private final boolean dockerReadonlyRootfs;
+    private final int workerThreads;
+    private final int toolThreads;
+    private final int maxSessions;
+    private final int heartbeatSec;
+    private final int sessionIdleTimeoutSec;
+    private final int sessionQueueLimit;
+    private final int sseWriteTimeoutSec;
+    private final int weatherCacheTtlSec;
+    private final int weatherCacheMaxEntries;
+    private final int weatherMaxRetries;
 
     private Config(String host, int port, String ssePath, String messagesPath,
             String weatherHost, String weatherPath, String appCode,
@@ -27,7 +39,10 @@ public class Config {
             int dockerDefaultTimeoutSec, int dockerMaxTimeoutSec,
             double dockerDefaultCpu, double dockerMaxCpu,
             int dockerDefaultMemoryMb, int dockerMaxMemoryMb,
-            String dockerDefaultNetwork, boolean dockerReadonlyRootfs) {
+            String dockerDefaultNetwork, boolean dockerReadonlyRootfs,
+            int workerThreads, int toolThreads, int maxSessions, int heartbeatSec,
+            int sessionIdleTimeoutSec, int sessionQueueLimit, int sseWriteTimeoutSec,
+            int weatherCacheTtlSec, int weatherCacheMaxEntries, int weatherMaxRetries) {
         this.host = host;
         this.port = port;
         this.ssePath = ssePath;
@@ -46,38 +61,65 @@ public class Config {
         this.dockerMaxMemoryMb = dockerMaxMemoryMb;
         this.dockerDefaultNetwork = dockerDefaultNetwork;
         this.dockerReadonlyRootfs = dockerReadonlyRootfs;
+        this.workerThreads = workerThreads;
+        this.toolThreads = toolThreads;
+        this.maxSessions = maxSessions;
+        this.heartbeatSec = heartbeatSec;
+        this.sessionIdleTimeoutSec = sessionIdleTimeoutSec;
+        this.sessionQueueLimit = sessionQueueLimit;
+        this.sseWriteTimeoutSec = sseWriteTimeoutSec;
+        this.weatherCacheTtlSec = weatherCacheTtlSec;
+        this.weatherCacheMaxEntries = weatherCacheMaxEntries;
+        this.weatherMaxRetries = weatherMaxRetries;
     }
 
     public static Config fromEnv() {
-        String host = getenvOr("MCP_HOST", "0.0.0.0");
-        int port = parseInt(getenvOr("MCP_PORT", "8086"), 8086);
-        String ssePath = normalizePath(getenvOr("MCP_SSE_PATH", "/mcp/sse"));
-        String messagesPath = normalizePath(getenvOr("MCP_MESSAGES_PATH", "/mcp/messages"));
-        String weatherHost = getenvOr("WEATHER_HOST", "https://tinaqi.market.alicloudapi.com");
-        String weatherPath = normalizePath(getenvOr("WEATHER_PATH", "/area-to-weather-date"));
-        String appCode = System.getenv("ALIYUN_APPCODE");
+        return from(System.getenv());
+    }
+
+    /** Reads the same keys as {@link #fromEnv()} from the given map. */
+    static Config from(Map<String, String> env) {
+        String host = getenvOr(env, "MCP_HOST", "0.0.0.0");
+        int port = parseInt(getenvOr(env, "MCP_PORT", "8086"), 8086);
+        String ssePath = normalizePath(getenvOr(env, "MCP_SSE_PATH", "/mcp/sse"));
+        String messagesPath = normalizePath(getenvOr(env, "MCP_MESSAGES_PATH", "/mcp/messages"));
+        String weatherHost = getenvOr(env, "WEATHER_HOST", "https://tinaqi.market.alicloudapi.com");
+        String weatherPath = normalizePath(getenvOr(env, "WEATHER_PATH", "/area-to-weather-date"));
+        String appCode = env.get("ALIYUN_APPCODE");
         if (appCode == null || appCode.isBlank()) {
             throw new IllegalArgumentException("Missing env ALIYUN_APPCODE");
         }
-        boolean dockerEnabled = parseBool(getenvOr("MCP_DOCKER_ENABLED", "false"));
-        String dockerImageAllowlist = getenvOr("MCP_DOCKER_ALLOWLIST", "");
-        boolean dockerPull = parseBool(getenvOr("MCP_DOCKER_PULL", "false"));
-        int dockerDefaultTimeoutSec = parseInt(getenvOr("MCP_DOCKER_TIMEOUT_SEC", "60"), 60);
-        int dockerMaxTimeoutSec = parseInt(getenvOr("MCP_DOCKER_MAX_TIMEOUT_SEC", "300"), 300);
-        double dockerDefaultCpu = parseDouble(getenvOr("MCP_DOCKER_DEFAULT_CPU", "1.0"), 1.0);
-        double dockerMaxCpu = parseDouble(getenvOr("MCP_DOCKER_MAX_CPU", "2.0"), 2.0);
-        int dockerDefaultMemoryMb = parseInt(getenvOr("MCP_DOCKER_DEFAULT_MEMORY_MB", "512"), 512);
-        int dockerMaxMemoryMb = parseInt(getenvOr("MCP_DOCKER_MAX_MEMORY_MB", "2048"), 2048);
-        String dockerDefaultNetwork = getenvOr("MCP_DOCKER_DEFAULT_NETWORK", "none");
-        boolean dockerReadonlyRootfs = parseBool(getenvOr("MCP_DOCKER_READONLY_ROOTFS", "true"));
+        boolean dockerEnabled = parseBool(getenvOr(env, "MCP_DOCKER_ENABLED", "false"));
+        String dockerImageAllowlist = getenvOr(env, "MCP_DOCKER_ALLOWLIST", "");
+        boolean dockerPull = parseBool(getenvOr(env, "MCP_DOCKER_PULL", "false"));
+        int dockerDefaultTimeoutSec = parseInt(getenvOr(env, "MCP_DOCKER_TIMEOUT_SEC", "60"), 60);
+        int dockerMaxTimeoutSec = parseInt(getenvOr(env, "MCP_DOCKER_MAX_TIMEOUT_SEC", "300"), 300);
+        double dockerDefaultCpu = parseDouble(getenvOr(env, "MCP_DOCKER_DEFAULT_CPU", "1.0"), 1.0);
+        double dockerMaxCpu = parseDouble(getenvOr(env, "MCP_DOCKER_MAX_CPU", "2.0"), 2.0);
+        int dockerDefaultMemoryMb = parseInt(getenvOr(env, "MCP_DOCKER_DEFAULT_MEMORY_MB", "512"), 512);
+        int dockerMaxMemoryMb = parseInt(getenvOr(env, "MCP_DOCKER_MAX_MEMORY_MB", "2048"), 2048);
+        String dockerDefaultNetwork = getenvOr(env, "MCP_DOCKER_DEFAULT_NETWORK", "none");
+        boolean dockerReadonlyRootfs = parseBool(getenvOr(env, "MCP_DOCKER_READONLY_ROOTFS", "true"));
+        int workerThreads = parseInt(getenvOr(env, "MCP_WORKER_THREADS", "4"), 4);
+        int toolThreads = parseInt(getenvOr(env, "MCP_TOOL_THREADS", "8"), 8);
+        int maxSessions = parseInt(getenvOr(env, "MCP_MAX_SESSIONS", "256"), 256);
+        int heartbeatSec = parseInt(getenvOr(env, "MCP_HEARTBEAT_SEC", "15"), 15);
+        int sessionIdleTimeoutSec = parseInt(getenvOr(env, "MCP_SESSION_IDLE_TIMEOUT_SEC", "600"), 600);
+        int sessionQueueLimit = parseInt(getenvOr(env, "MCP_SESSION_QUEUE_LIMIT", "256"), 256);
+        int sseWriteTimeoutSec = parseInt(getenvOr(env, "MCP_SSE_WRITE_TIMEOUT_SEC", "10"), 10);
+        int weatherCacheTtlSec = parseInt(getenvOr(env, "WEATHER_CACHE_TTL_SEC", "600"), 600);
+        int weatherCacheMaxEntries = parseInt(getenvOr(env, "WEATHER_CACHE_MAX_ENTRIES", "1000"), 1000);
+        int weatherMaxRetries = parseInt(getenvOr(env, "WEATHER_MAX_RETRIES", "2"), 2);
         return new Config(host, port, ssePath, messagesPath, weatherHost, weatherPath, appCode,
                 dockerEnabled, dockerImageAllowlist, dockerPull, dockerDefaultTimeoutSec, dockerMaxTimeoutSec,
                 dockerDefaultCpu, dockerMaxCpu, dockerDefaultMemoryMb, dockerMaxMemoryMb, dockerDefaultNetwork,
-                dockerReadonlyRootfs);
+                dockerReadonlyRootfs, workerThreads, toolThreads, maxSessions, heartbeatSec,
+                sessionIdleTimeoutSec, sessionQueueLimit, sseWriteTimeoutSec, weatherCacheTtlSec,
+                weatherCacheMaxEntries, weatherMaxRetries);
     }
 
-    private static String getenvOr(String key, String defaultValue) {
-        String v = System.getenv(key);
+    private static String getenvOr(Map<String, String> env, String key, String defaultValue) {
+        String v = env.get(key);
         return (v == null || v.isBlank()) ? defaultValue : v.trim();
     }
 
@@ -180,4 +222,44 @@ public class Config {
     public boolean isDockerReadonlyRootfs() {
         return dockerReadonlyRootfs;
     }
+
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    public int getToolThreads() {
+        return toolThreads;
+    }
+
+    public int getMaxSessions() {
+        return maxSessions;
+    }
+
+    public int getHeartbeatSec() {
+        return heartbeatSec;
+    }
+
+    public int getSessionIdleTimeoutSec() {
+        return sessionIdleTimeoutSec;
+    }
+
+    public int getSessionQueueLimit() {
+        return sessionQueueLimit;
+    }
+
+    public int getSseWriteTimeoutSec() {
+        return sseWriteTimeoutSec;
+    }
+
+    public int getWeatherCacheTtlSec() {
+        return weatherCacheTtlSec;
+    }
+
+    public int getWeatherCacheMaxEntries() {
+        return weatherCacheMaxEntries;
+    }
+
+    public int getWeatherMaxRetries() {
+        return weatherMaxRetries;
+    }
 }
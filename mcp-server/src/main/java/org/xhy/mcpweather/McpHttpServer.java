@@ -13,14 +13,27 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class McpHttpServer {
 
@@ -31,13 +44,34 @@ public class McpHttpServer {
     private final HttpServer server;
     private final WeatherClient weatherClient;
     private final DockerService dockerService;
-    private final CopyOnWriteArrayList<SseClient> sseClients = new CopyOnWriteArrayList<>();
+    /** Session id -> connected SSE client. */
+    private final ConcurrentHashMap<String, SseSession> sessions = new ConcurrentHashMap<>();
+    /** Sessions removed from {@link #sessions} whose connection is still being closed. */
+    private final Set<SseSession> closing = ConcurrentHashMap.newKeySet();
+
+    // The JDK server's dispatcher thread is the event loop: it multiplexes all connections on one selector.
+    // Handlers run on a small fixed pool and never park on an SSE stream; heartbeats and idle eviction share
+    // one scheduler, SSE writes share a small writer pool, and tool calls run on their own bounded pool.
+    // The scheduler never touches a socket: closes run on their own threads, and any socket write or close
+    // that outlasts the write timeout is aborted by the scheduler interrupting the blocked thread.
+    private final ThreadPoolExecutor workerPool;
+    private final ThreadPoolExecutor toolPool;
+    private final ExecutorService writerPool;
+    private final ExecutorService closerPool;
+    private final ScheduledExecutorService scheduler;
 
     public McpHttpServer(Config config) throws IOException {
         this.config = config;
         this.server = HttpServer.create(new InetSocketAddress(config.getHost(), config.getPort()), 0);
-        this.server.setExecutor(Executors.newCachedThreadPool());
-        this.weatherClient = new WeatherClient(config.getWeatherHost(), config.getWeatherPath(), config.getAppCode());
+        this.workerPool = boundedPool("mcp-http", config.getWorkerThreads(), 1024);
+        this.toolPool = boundedPool("mcp-tool", config.getToolThreads(), 256);
+        this.writerPool = Executors.newFixedThreadPool(Math.max(1, config.getWorkerThreads() / 2),
+                namedThreads("mcp-sse-writer"));
+        this.closerPool = Executors.newCachedThreadPool(namedThreads("mcp-sse-closer"));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(namedThreads("mcp-scheduler"));
+        this.server.setExecutor(workerPool);
+        this.weatherClient = new WeatherClient(config.getWeatherHost(), config.getWeatherPath(), config.getAppCode(),
+                config.getWeatherCacheTtlSec(), config.getWeatherCacheMaxEntries(), config.getWeatherMaxRetries());
         this.dockerService = config.isDockerEnabled() ? new DockerService(config) : null;
         this.server.createContext(config.getSsePath(), new SseHandler());
         this.server.createContext(config.getMessagesPath(), new MessagesHandler());
@@ -47,9 +81,33 @@ public class McpHttpServer {
         System.out.println("MCP Weather Server started at http://" + config.getHost() + ":" + config.getPort());
         System.out.println("SSE endpoint: " + config.getSsePath());
         System.out.println("Messages endpoint: " + config.getMessagesPath());
+        int heartbeat = Math.max(1, config.getHeartbeatSec());
+        scheduler.scheduleAtFixedRate(this::heartbeatAndEvict, heartbeat, heartbeat, TimeUnit.SECONDS);
         server.start();
     }
 
+    /** Address actually bound, useful when the configured port is 0. */
+    InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /** Number of connected SSE clients. */
+    int sessionCount() {
+        return sessions.size();
+    }
+
+    public void stop() {
+        server.stop(0);
+        scheduler.shutdownNow();
+        for (SseSession session : sessions.values()) {
+            closeSession(session);
+        }
+        toolPool.shutdownNow();
+        writerPool.shutdownNow();
+        closerPool.shutdown();
+        workerPool.shutdownNow();
+    }
+
     private final class SseHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
@@ -57,6 +115,10 @@ public class McpHttpServer {
                 sendText(exchange, 405, "Method Not Allowed");
                 return;
             }
+            if (sessions.size() >= config.getMaxSessions()) {
+                sendText(exchange, 503, "Too many sessions");
+                return;
+            }
 
             Headers headers = exchange.getResponseHeaders();
             headers.add("Content-Type", "text/event-stream; charset=utf-8");
@@ -65,27 +127,10 @@ public class McpHttpServer {
             headers.add("Access-Control-Allow-Origin", "*");
             exchange.sendResponseHeaders(200, 0);
 
-            OutputStream out = exchange.getResponseBody();
-            SseClient client = new SseClient(out);
-            sseClients.add(client);
-
-            client.sendEvent("endpoint", config.getMessagesPath());
-            client.flush();
-
-            try {
-                while (!client.isClosed()) {
-                    Thread.sleep(5000);
-                    client.sendComment("keepalive " + Instant.now());
-                    client.flush();
-                }
-            } catch (InterruptedException ignored) {
-                // ignore
-            } catch (IOException ioe) {
-                client.close();
-            } finally {
-                sseClients.remove(client);
-                client.close();
-            }
+            // The exchange stays open after this handler returns; later writes come from the writer pool.
+            SseSession session = new SseSession(UUID.randomUUID().toString(), exchange);
+            sessions.put(session.id, session);
+            session.enqueue(eventFrame("endpoint", config.getMessagesPath() + "?sessionId=" + session.id));
         }
     }
 
@@ -102,6 +147,17 @@ public class McpHttpServer {
                 return;
             }
 
+            // Clients that ignore the session id in the endpoint event still get responses by broadcast.
+            String sessionId = queryParam(exchange.getRequestURI().getRawQuery(), "sessionId");
+            SseSession session = sessionId != null ? sessions.get(sessionId) : null;
+            if (sessionId != null && session == null) {
+                sendText(exchange, 404, "Session not found");
+                return;
+            }
+            if (session != null) {
+                session.touch();
+            }
+
             JsonNode root = readJson(exchange.getRequestBody());
             String method = root.path("method").asText(null);
             Long id = root.has("id") && !root.get("id").isNull() ? root.get("id").asLong() : null;
@@ -116,7 +172,15 @@ public class McpHttpServer {
                 } else if ("TOOLS_LIST".equals(normalized)) {
                     response = handleToolsList(id);
                 } else if ("TOOLS_CALL".equals(normalized)) {
-                    response = handleToolsCall(id, root.path("params"));
+                    // Tool calls may block on upstream APIs or containers; run them off the HTTP workers.
+                    JsonNode params = root.path("params");
+                    try {
+                        toolPool.execute(() -> deliver(session, handleToolsCall(id, params)));
+                    } catch (RejectedExecutionException e) {
+                        deliver(session, toolTextResponse(id, "Server busy, please retry later", true));
+                    }
+                    sendText(exchange, 202, "");
+                    return;
                 } else if ("PING".equals(normalized)) {
                     response = okResponse(id, MAPPER.createObjectNode());
                 } else if ("NOTIFICATION_INITIALIZED".equals(normalized)
@@ -131,8 +195,8 @@ public class McpHttpServer {
             }
 
             // MCP over SSE expects responses via SSE "message" events.
-            broadcastMessage(response);
-            sendText(exchange, 200, "");
+            deliver(session, response);
+            sendText(exchange, 202, "");
         }
     }
 
@@ -390,7 +454,7 @@ public class McpHttpServer {
 
     private static void sendText(HttpExchange exchange, int status, String text) throws IOException {
         byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
-        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
         try (OutputStream out = exchange.getResponseBody()) {
             out.write(bytes);
         }
@@ -403,64 +467,229 @@ public class McpHttpServer {
         headers.add("Access-Control-Allow-Methods", "POST,GET,OPTIONS");
     }
 
-    private void broadcastMessage(JsonNode response) {
-        if (sseClients.isEmpty()) {
+    private void deliver(SseSession session, JsonNode response) {
+        String frame = eventFrame("message", response.toString());
+        if (session != null) {
+            session.enqueue(frame);
             return;
         }
-        String data = response.toString();
-        for (SseClient client : sseClients) {
-            try {
-                client.sendEvent("message", data);
-                client.flush();
-            } catch (IOException e) {
-                client.close();
-                sseClients.remove(client);
+        for (SseSession s : sessions.values()) {
+            s.enqueue(frame);
+        }
+    }
+
+    /**
+     * Runs on the shared scheduler: one heartbeat for every session, eviction of sessions with no successful
+     * write within the idle timeout, and aborting socket I/O that has been blocked past the write timeout.
+     * Nothing here blocks: heartbeats are queued for the writer pool and closes are handed to the closer pool.
+     */
+    private void heartbeatAndEvict() {
+        long idleLimitNanos = TimeUnit.SECONDS.toNanos(Math.max(1, config.getSessionIdleTimeoutSec()));
+        long writeLimitNanos = TimeUnit.SECONDS.toNanos(Math.max(1, config.getSseWriteTimeoutSec()));
+        long now = System.nanoTime();
+        String heartbeat = ": keepalive " + Instant.now() + "\n\n";
+        for (SseSession session : sessions.values()) {
+            if (session.abortStuckIo(now, writeLimitNanos)) {
+                continue;
+            }
+            if (now - session.lastActivityNanos > idleLimitNanos) {
+                closeSession(session);
+            } else {
+                session.enqueue(heartbeat);
+            }
+        }
+        for (SseSession session : closing) {
+            session.abortStuckIo(now, writeLimitNanos);
+        }
+    }
+
+    private void closeSession(SseSession session) {
+        sessions.remove(session.id, session);
+        session.close();
+    }
+
+    private static String eventFrame(String event, String data) {
+        return "event: " + event + "\n" + "data: " + data + "\n\n";
+    }
+
+    private static String queryParam(String rawQuery, String name) {
+        if (rawQuery == null) {
+            return null;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && name.equals(pair.substring(0, eq))) {
+                return URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
             }
         }
+        return null;
     }
 
-    private static final class SseClient {
+    private static ThreadPoolExecutor boundedPool(String name, int threads, int queueCapacity) {
+        int size = Math.max(1, threads);
+        return new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                namedThreads(name));
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * One connected SSE client. Frames are queued and drained by the shared writer pool, at most one drain
+     * per session at a time; a client that stops reading is dropped once its queue exceeds the limit.
+     * The {@code draining} flag also guards the final close, so the closing chunk never interleaves with a
+     * drain. Blocking socket calls are bracketed by {@link #beginIo()}/{@link #endIo()}; the socket channel is
+     * interruptible, so interrupting the thread aborts the write and drops the connection without flushing.
+     */
+    private final class SseSession {
+        private final String id;
+        private final HttpExchange exchange;
         private final OutputStream out;
+        private final ConcurrentLinkedQueue<String> outbound = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile long lastActivityNanos = System.nanoTime();
         private volatile boolean closed;
+        /** Thread blocked in socket I/O for this session, and since when; guarded by this session's lock. */
+        private Thread ioThread;
+        private long ioStartedNanos;
+
+        SseSession(String id, HttpExchange exchange) {
+            this.id = id;
+            this.exchange = exchange;
+            this.out = exchange.getResponseBody();
+        }
 
-        SseClient(OutputStream out) {
-            this.out = out;
+        void touch() {
+            lastActivityNanos = System.nanoTime();
         }
 
-        void sendEvent(String event, String data) throws IOException {
+        void enqueue(String frame) {
             if (closed) {
                 return;
             }
-            String payload = "event: " + event + "\n" + "data: " + data + "\n\n";
-            out.write(payload.getBytes(StandardCharsets.UTF_8));
+            if (pending.incrementAndGet() > config.getSessionQueueLimit()) {
+                closeSession(this);
+                return;
+            }
+            outbound.add(frame);
+            scheduleDrain();
         }
 
-        void sendComment(String comment) throws IOException {
-            if (closed) {
+        private void scheduleDrain() {
+            if (closed || !draining.compareAndSet(false, true)) {
                 return;
             }
-            String payload = ": " + comment + "\n\n";
-            out.write(payload.getBytes(StandardCharsets.UTF_8));
+            try {
+                writerPool.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                closeSession(this);
+            }
         }
 
-        void flush() throws IOException {
-            out.flush();
+        private void drain() {
+            beginIo();
+            try {
+                String frame;
+                while (!closed && (frame = outbound.poll()) != null) {
+                    pending.decrementAndGet();
+                    out.write(frame.getBytes(StandardCharsets.UTF_8));
+                    progress();
+                }
+                if (!closed) {
+                    out.flush();
+                    touch();
+                }
+            } catch (IOException e) {
+                // Also the path of a write aborted by the scheduler: the channel is already closed.
+                closeSession(this);
+            } finally {
+                endIo();
+            }
+            if (closed) {
+                // close() saw the drain in progress and left the close to it.
+                closeConnection();
+                return;
+            }
+            draining.set(false);
+            if (closed) {
+                if (draining.compareAndSet(false, true)) {
+                    closeLater();
+                }
+            } else if (!outbound.isEmpty()) {
+                // Frames enqueued after the last poll but before the flag was cleared.
+                scheduleDrain();
+            }
         }
 
+        /** Never blocks: the close itself runs on the closer pool, or at the end of an in-progress drain. */
         void close() {
             if (closed) {
                 return;
             }
             closed = true;
+            outbound.clear();
+            if (draining.compareAndSet(false, true)) {
+                closeLater();
+            }
+        }
+
+        private void closeLater() {
+            try {
+                closerPool.execute(this::closeConnection);
+            } catch (RejectedExecutionException e) {
+                // Server is stopping; the connection goes away with it.
+            }
+        }
+
+        /** Writes the closing chunk; bounded by the write timeout like any other socket write. */
+        private void closeConnection() {
+            closing.add(this);
+            beginIo();
             try {
                 out.close();
             } catch (IOException ignored) {
                 // ignore
+            } finally {
+                exchange.close();
+                endIo();
+                closing.remove(this);
             }
         }
 
-        boolean isClosed() {
-            return closed;
+        private synchronized void beginIo() {
+            ioStartedNanos = System.nanoTime();
+            ioThread = Thread.currentThread();
+        }
+
+        /** The write timeout applies per call, not to a whole drain. */
+        private synchronized void progress() {
+            ioStartedNanos = System.nanoTime();
+        }
+
+        private void endIo() {
+            synchronized (this) {
+                ioThread = null;
+            }
+            // An abort that raced with the end of the call must not leak into the pool thread's next task.
+            Thread.interrupted();
+        }
+
+        /** @return whether socket I/O had been blocked past the limit and was interrupted */
+        synchronized boolean abortStuckIo(long now, long limitNanos) {
+            if (ioThread == null || now - ioStartedNanos <= limitNanos) {
+                return false;
+            }
+            ioThread.interrupt();
+            ioThread = null;
+            return true;
         }
     }
 }
@@ -10,34 +10,159 @@ import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.Map;
 import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 
+/**
+ * Weather API client with a TTL response cache. Identical queries are served from the cache while fresh,
+ * and concurrent misses for the same query share a single upstream request. Connection errors, 429 and 5xx
+ * responses are retried a bounded number of times with a short backoff.
+ */
 public class WeatherClient {
 
+    private static final long RETRY_BACKOFF_MILLIS = 100;
+
     private final HttpClient httpClient;
     private final String host;
     private final String path;
     private final String appCode;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final int maxRetries;
+
+    /** Canonical query string -> cached successful response. */
+    private final ConcurrentHashMap<String, CachedResponse> cache = new ConcurrentHashMap<>();
+    /** Canonical query string -> upstream request in flight. */
+    private final ConcurrentHashMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
 
     public WeatherClient(String host, String path, String appCode) {
+        this(host, path, appCode, 0, 0);
+    }
+
+    public WeatherClient(String host, String path, String appCode, int cacheTtlSec, int cacheMaxEntries) {
+        this(host, path, appCode, cacheTtlSec, cacheMaxEntries, 0);
+    }
+
+    public WeatherClient(String host, String path, String appCode, int cacheTtlSec, int cacheMaxEntries,
+            int maxRetries) {
         this.host = host;
         this.path = path;
         this.appCode = appCode;
+        this.ttlNanos = Duration.ofSeconds(Math.max(0, cacheTtlSec)).toNanos();
+        this.maxEntries = Math.max(0, cacheMaxEntries);
+        this.maxRetries = Math.max(0, maxRetries);
         this.httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
     }
 
     public String query(Map<String, String> queryParams) throws IOException, InterruptedException {
-        String url = host + path + "?" + buildQuery(queryParams);
+        String queryString = buildQuery(queryParams);
+        if (ttlNanos <= 0 || maxEntries <= 0) {
+            return fetch(queryString).body;
+        }
+
+        CachedResponse cached = cache.get(queryString);
+        if (cached != null && !cached.isExpired(System.nanoTime())) {
+            return cached.body;
+        }
+
+        CompletableFuture<String> future = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(queryString, future);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            UpstreamResponse response = fetch(queryString);
+            if (response.status == 200) {
+                put(queryString, response.body);
+            }
+            future.complete(response.body);
+            return response.body;
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } catch (InterruptedException e) {
+            future.completeExceptionally(new IOException("Weather query interrupted", e));
+            throw e;
+        } finally {
+            inFlight.remove(queryString, future);
+        }
+    }
+
+    /** Sends the query, retrying transient failures; the last response or error is returned once retries run out. */
+    private UpstreamResponse fetch(String queryString) throws IOException, InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            boolean lastAttempt = attempt >= maxRetries;
+            try {
+                UpstreamResponse response = send(queryString);
+                if (lastAttempt || !isRetryable(response.status)) {
+                    return response;
+                }
+            } catch (IOException e) {
+                if (lastAttempt) {
+                    throw e;
+                }
+            }
+            Thread.sleep(RETRY_BACKOFF_MILLIS << attempt);
+        }
+    }
+
+    private static boolean isRetryable(int status) {
+        return status == 429 || status >= 500;
+    }
+
+    private UpstreamResponse send(String queryString) throws IOException, InterruptedException {
+        String url = host + path + "?" + queryString;
         HttpRequest request = HttpRequest.newBuilder(URI.create(url))
                 .header("Authorization", "APPCODE " + appCode)
+                .timeout(Duration.ofSeconds(15))
                 .GET()
                 .build();
         HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        return response.body();
+        return new UpstreamResponse(response.statusCode(), response.body());
     }
 
+    private void put(String queryString, String body) {
+        long now = System.nanoTime();
+        if (cache.size() >= maxEntries) {
+            cache.values().removeIf(entry -> entry.isExpired(now));
+        }
+        // Still full: drop the entry closest to expiry.
+        while (cache.size() >= maxEntries) {
+            Map.Entry<String, CachedResponse> oldest = null;
+            for (Map.Entry<String, CachedResponse> e : cache.entrySet()) {
+                if (oldest == null || e.getValue().expiresAtNanos - oldest.getValue().expiresAtNanos < 0) {
+                    oldest = e;
+                }
+            }
+            if (oldest == null) {
+                break;
+            }
+            cache.remove(oldest.getKey());
+        }
+        cache.put(queryString, new CachedResponse(body, now + ttlNanos));
+    }
+
+    private static String await(CompletableFuture<String> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /** Builds the query string with keys sorted, so it doubles as the cache key. */
     private static String buildQuery(Map<String, String> queryParams) {
         StringJoiner joiner = new StringJoiner("&");
-        for (Map.Entry<String, String> e : queryParams.entrySet()) {
+        for (Map.Entry<String, String> e : new TreeMap<>(queryParams).entrySet()) {
             if (e.getValue() == null) {
                 continue;
             }
@@ -47,4 +172,28 @@ public class WeatherClient {
         }
         return joiner.toString();
     }
+
+    private static final class UpstreamResponse {
+        private final int status;
+        private final String body;
+
+        UpstreamResponse(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    private static final class CachedResponse {
+        private final String body;
+        private final long expiresAtNanos;
+
+        CachedResponse(String body, long expiresAtNanos) {
+            this.body = body;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        boolean isExpired(long nowNanos) {
+            return nowNanos - expiresAtNanos >= 0;
+        }
+    }
 }
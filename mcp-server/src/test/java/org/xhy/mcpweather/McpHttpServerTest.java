@@ -0,0 +1,214 @@
+package org.xhy.mcpweather;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Session lifecycle of McpHttpServer, with the weather API served by an in-process stub. */
+class McpHttpServerTest {
+
+    private final HttpClient http = HttpClient.newHttpClient();
+    private HttpServer upstream;
+    private McpHttpServer server;
+    private String baseUrl;
+
+    @BeforeEach
+    void startUpstream() throws IOException {
+        upstream = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        upstream.createContext("/weather", exchange -> {
+            byte[] body = "{\"weather\":\"sunny\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        upstream.start();
+    }
+
+    @AfterEach
+    void stop() {
+        if (server != null) {
+            server.stop();
+        }
+        upstream.stop(0);
+    }
+
+    @Test
+    void endpointEventCarriesSessionIdAndResponsesGoToThatSession() throws Exception {
+        startServer(Map.of());
+        try (SseClient client = connect()) {
+            String endpoint = client.nextEvent("endpoint");
+            assertTrue(endpoint.startsWith("/mcp/messages?sessionId="));
+
+            assertEquals(202, post(endpoint, "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\"}"));
+
+            assertTrue(client.nextEvent("message").contains("\"protocolVersion\""));
+        }
+    }
+
+    @Test
+    void toolCallIsAnsweredFromUpstreamOverSse() throws Exception {
+        startServer(Map.of());
+        try (SseClient client = connect()) {
+            String endpoint = client.nextEvent("endpoint");
+
+            assertEquals(202, post(endpoint, "{\"jsonrpc\":\"2.0\",\"id\":7,\"method\":\"tools/call\",\"params\":"
+                    + "{\"name\":\"china_weather\",\"arguments\":{\"areaCode\":\"530700\",\"area\":\"Lijiang\","
+                    + "\"date\":\"20200319\"}}}"));
+
+            String message = client.nextEvent("message");
+            assertTrue(message.contains("\"id\":7"));
+            assertTrue(message.contains("sunny"));
+        }
+    }
+
+    @Test
+    void listeningSessionOutlivesIdleTimeoutWhileHeartbeatsSucceed() throws Exception {
+        startServer(Map.of("MCP_HEARTBEAT_SEC", "1", "MCP_SESSION_IDLE_TIMEOUT_SEC", "2"));
+        try (SseClient client = connect()) {
+            String endpoint = client.nextEvent("endpoint");
+
+            // Only listen, well past the idle timeout.
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (System.nanoTime() < deadline) {
+                client.readLine();
+            }
+
+            assertEquals(1, server.sessionCount());
+            assertEquals(202, post(endpoint, "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"ping\"}"));
+            assertTrue(client.nextEvent("message").contains("\"id\":2"));
+        }
+    }
+
+    @Test
+    void unknownSessionIsRejected() throws Exception {
+        startServer(Map.of());
+
+        assertEquals(404, post("/mcp/messages?sessionId=missing", "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"ping\"}"));
+    }
+
+    @Test
+    void disconnectedClientIsEvictedAndFreesItsSlot() throws Exception {
+        startServer(Map.of("MCP_MAX_SESSIONS", "1", "MCP_HEARTBEAT_SEC", "1"));
+        SseClient first = connect();
+        first.nextEvent("endpoint");
+
+        assertEquals(503, openStatus());
+
+        first.close();
+        waitUntil(() -> server.sessionCount() == 0);
+        try (SseClient second = connect()) {
+            assertTrue(second.nextEvent("endpoint").contains("sessionId="));
+        }
+    }
+
+    private void startServer(Map<String, String> overrides) throws IOException {
+        Map<String, String> env = new HashMap<>();
+        env.put("MCP_HOST", "127.0.0.1");
+        env.put("MCP_PORT", "0");
+        env.put("ALIYUN_APPCODE", "test");
+        env.put("WEATHER_HOST", "http://127.0.0.1:" + upstream.getAddress().getPort());
+        env.put("WEATHER_PATH", "/weather");
+        env.putAll(overrides);
+        server = new McpHttpServer(Config.from(env));
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private int post(String path, String json) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private SseClient connect() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + "/mcp/sse").openConnection();
+        connection.setReadTimeout(5000);
+        assertEquals(200, connection.getResponseCode());
+        return new SseClient(connection);
+    }
+
+    private int openStatus() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + "/mcp/sse").openConnection();
+        try {
+            return connection.getResponseCode();
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(15);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    /** Minimal SSE reader: skips heartbeat comments and returns the data of the next event of a given type. */
+    private static final class SseClient implements AutoCloseable {
+        private final HttpURLConnection connection;
+        private final BufferedReader reader;
+
+        SseClient(HttpURLConnection connection) throws IOException {
+            this.connection = connection;
+            this.reader = new BufferedReader(
+                    new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        String readLine() throws IOException {
+            String line = reader.readLine();
+            if (line == null) {
+                throw new IOException("SSE stream closed");
+            }
+            return line;
+        }
+
+        String nextEvent(String type) throws IOException {
+            String event = null;
+            String data = null;
+            while (true) {
+                String line = readLine();
+                if (line.startsWith("event: ")) {
+                    event = line.substring("event: ".length());
+                } else if (line.startsWith("data: ")) {
+                    data = line.substring("data: ".length());
+                } else if (line.isEmpty()) {
+                    if (type.equals(event)) {
+                        return data;
+                    }
+                    event = null;
+                    data = null;
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            connection.disconnect();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package org.xhy.mcpweather;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** WeatherClient against an in-process stub upstream. */
+class WeatherClientTest {
+
+    private static final Map<String, String> QUERY = Map.of("areaCode", "530700", "area", "Lijiang", "date",
+            "20200319");
+
+    private HttpServer upstream;
+    private String host;
+    private final AtomicInteger hits = new AtomicInteger();
+    /** Statuses to answer with, in order; 200 once exhausted. */
+    private final ConcurrentLinkedQueue<Integer> statuses = new ConcurrentLinkedQueue<>();
+    private volatile CountDownLatch gate;
+
+    @BeforeEach
+    void startUpstream() throws IOException {
+        upstream = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        upstream.setExecutor(Executors.newCachedThreadPool());
+        upstream.createContext("/weather", this::handle);
+        upstream.start();
+        host = "http://127.0.0.1:" + upstream.getAddress().getPort();
+    }
+
+    @AfterEach
+    void stopUpstream() {
+        upstream.stop(0);
+    }
+
+    @Test
+    void cachesSuccessfulResponses() throws Exception {
+        WeatherClient client = new WeatherClient(host, "/weather", "code", 60, 10, 0);
+
+        String first = client.query(QUERY);
+        String second = client.query(QUERY);
+
+        assertEquals(first, second);
+        assertEquals(1, hits.get());
+    }
+
+    @Test
+    void coalescesConcurrentMisses() throws Exception {
+        WeatherClient client = new WeatherClient(host, "/weather", "code", 60, 10, 0);
+        gate = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(callers.submit(() -> client.query(QUERY)));
+            }
+            // Let every caller reach the in-flight request before the upstream answers.
+            waitUntil(() -> hits.get() >= 1);
+            Thread.sleep(200);
+            gate.countDown();
+            for (Future<String> result : results) {
+                assertTrue(result.get(10, TimeUnit.SECONDS).contains("Lijiang"));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertEquals(1, hits.get());
+    }
+
+    @Test
+    void retriesServerErrorsUntilSuccess() throws Exception {
+        WeatherClient client = new WeatherClient(host, "/weather", "code", 60, 10, 2);
+        statuses.add(503);
+        statuses.add(500);
+
+        String body = client.query(QUERY);
+
+        assertTrue(body.contains("Lijiang"));
+        assertEquals(3, hits.get());
+    }
+
+    @Test
+    void returnsLastErrorAndDoesNotCacheItOnceRetriesRunOut() throws Exception {
+        WeatherClient client = new WeatherClient(host, "/weather", "code", 60, 10, 1);
+        statuses.add(503);
+        statuses.add(503);
+
+        String failed = client.query(QUERY);
+        String recovered = client.query(QUERY);
+
+        assertEquals("status 503", failed);
+        assertTrue(recovered.contains("Lijiang"));
+        assertEquals(3, hits.get());
+    }
+
+    @Test
+    void doesNotRetryClientErrors() throws Exception {
+        WeatherClient client = new WeatherClient(host, "/weather", "code", 60, 10, 2);
+        statuses.add(400);
+
+        assertEquals("status 400", client.query(QUERY));
+        assertEquals(1, hits.get());
+    }
+
+    @Test
+    void throwsConnectionErrorsOnceRetriesRunOut() {
+        int port = upstream.getAddress().getPort();
+        upstream.stop(0);
+        WeatherClient client = new WeatherClient("http://127.0.0.1:" + port, "/weather", "code", 60, 10, 1);
+
+        assertThrows(IOException.class, () -> client.query(QUERY));
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        hits.incrementAndGet();
+        CountDownLatch current = gate;
+        if (current != null) {
+            try {
+                current.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        Integer status = statuses.poll();
+        int code = status != null ? status : 200;
+        String query = exchange.getRequestURI().getQuery();
+        byte[] body = (code == 200 ? "{\"query\":\"" + query + "\"}" : "status " + code)
+                .getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(code, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
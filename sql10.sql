@@ -0,0 +1,42 @@
+-- 市场搜索：pg_trgm 三元组索引支撑名称/描述的任意位置模糊匹配、前缀补全和相似度排序，全文索引支撑按词匹配；
+-- 最新版本与安装量的相关子查询走 (agent_id, published_at)、(tool_id, created_at) 与外键索引
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_agent_versions_name_trgm
+  ON agent_versions USING gin (name gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_agent_versions_description_trgm
+  ON agent_versions USING gin (description gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_agent_versions_fts
+  ON agent_versions USING gin (to_tsvector('simple', COALESCE(name, '') || ' ' || COALESCE(description, '')));
+
+CREATE INDEX IF NOT EXISTS idx_agent_versions_agent_published
+  ON agent_versions (agent_id, published_at);
+
+CREATE INDEX IF NOT EXISTS idx_tool_versions_name_trgm
+  ON tool_versions USING gin (name gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_tool_versions_description_trgm
+  ON tool_versions USING gin (description gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_tool_versions_fts
+  ON tool_versions USING gin (to_tsvector('simple', COALESCE(name, '') || ' ' || COALESCE(description, '')));
+
+CREATE INDEX IF NOT EXISTS idx_tool_versions_tool_created
+  ON tool_versions (tool_id, created_at);
+
+-- 管理后台Agent列表的关键词搜索
+CREATE INDEX IF NOT EXISTS idx_agents_name_trgm
+  ON agents USING gin (name gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_agents_description_trgm
+  ON agents USING gin (description gin_trgm_ops);
+
+-- 热度权重：按Agent统计加入工作区的次数，按工具统计安装次数
+CREATE INDEX IF NOT EXISTS idx_agent_workspace_agent_id
+  ON agent_workspace (agent_id);
+
+CREATE INDEX IF NOT EXISTS idx_user_tools_tool_id
+  ON user_tools (tool_id);
@@ -0,0 +1,30 @@
+-- 语义响应缓存：Agent按需开启，无上下文的首问按问题向量相似度命中缓存回答；
+-- 缓存条目按作用域（Agent内容、模型、知识库版本、嵌入模型）隔离，问题向量存于独立向量表 semantic_cache_vector_store
+
+ALTER TABLE agents ADD COLUMN IF NOT EXISTS semantic_cache_enabled BOOLEAN DEFAULT FALSE;
+
+CREATE TABLE IF NOT EXISTS semantic_cache_entries (
+  id             VARCHAR(64) PRIMARY KEY,
+  agent_id       VARCHAR(64) NOT NULL,
+  scope_key      VARCHAR(64) NOT NULL,   -- 作用域摘要
+  question       TEXT NOT NULL,
+  question_hash  VARCHAR(64) NOT NULL,   -- 规范化问题的SHA-256，精确命中时无需向量化
+  answer         TEXT NOT NULL,
+  input_tokens   INT DEFAULT 0,
+  output_tokens  INT DEFAULT 0,
+  hit_count      BIGINT DEFAULT 0,
+  last_hit_at    TIMESTAMP,
+  expires_at     TIMESTAMP NOT NULL,
+  created_at     TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  updated_at     TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  deleted_at     TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_semantic_cache_entries_scope_hash
+  ON semantic_cache_entries (scope_key, question_hash);
+
+CREATE INDEX IF NOT EXISTS idx_semantic_cache_entries_agent
+  ON semantic_cache_entries (agent_id);
+
+CREATE INDEX IF NOT EXISTS idx_semantic_cache_entries_expires
+  ON semantic_cache_entries (expires_at) WHERE deleted_at IS NULL;
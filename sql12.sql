@@ -0,0 +1,6 @@
+-- 嵌入模型输出维度：为空时按写入的向量库的维度输出（知识库、记忆、语义缓存的维度分别配置）；
+-- 知识库修改维度时先配置迁移目标表（embedding.migration），通过 POST /admin/rags/re-embedding 在后台重新向量化，完成后再切换表
+
+ALTER TABLE models ADD COLUMN IF NOT EXISTS dimensions INTEGER;
+
+COMMENT ON COLUMN models.dimensions IS '嵌入模型输出向量维度，仅嵌入模型使用';
@@ -0,0 +1,9 @@
+-- 定时任务调度：到期索引与执行租约
+
+ALTER TABLE scheduled_tasks ADD COLUMN IF NOT EXISTS lease_owner VARCHAR(64);
+ALTER TABLE scheduled_tasks ADD COLUMN IF NOT EXISTS lease_until TIMESTAMP;
+
+-- 到期索引：调度器按 next_execute_time 增量扫描活跃任务
+CREATE INDEX IF NOT EXISTS idx_scheduled_tasks_due
+  ON scheduled_tasks (next_execute_time)
+  WHERE status = 'ACTIVE' AND deleted_at IS NULL;
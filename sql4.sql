@@ -0,0 +1,14 @@
+-- 用户RAG快照后台复制：状态与进度
+
+ALTER TABLE user_rags ADD COLUMN IF NOT EXISTS snapshot_status INTEGER;
+ALTER TABLE user_rags ADD COLUMN IF NOT EXISTS snapshot_progress INTEGER;
+ALTER TABLE user_rags ADD COLUMN IF NOT EXISTS snapshot_error TEXT;
+
+-- 按版本文件复制文档快照（INSERT ... SELECT）依赖的索引
+CREATE INDEX IF NOT EXISTS idx_rag_version_documents_version_file
+  ON rag_version_documents (rag_version_id, rag_version_file_id);
+CREATE INDEX IF NOT EXISTS idx_rag_version_files_version
+  ON rag_version_files (rag_version_id);
+
+-- gen_random_uuid() 在 PostgreSQL 13+ 内置，低版本需要 pgcrypto
+CREATE EXTENSION IF NOT EXISTS pgcrypto;
@@ -0,0 +1,18 @@
+-- 工具发布工作流：步骤状态、重试与租约
+
+ALTER TABLE tools ADD COLUMN IF NOT EXISTS workflow_state VARCHAR(16);
+ALTER TABLE tools ADD COLUMN IF NOT EXISTS workflow_attempts INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE tools ADD COLUMN IF NOT EXISTS workflow_next_run_at TIMESTAMP;
+ALTER TABLE tools ADD COLUMN IF NOT EXISTS workflow_lease_owner VARCHAR(64);
+ALTER TABLE tools ADD COLUMN IF NOT EXISTS workflow_lease_until TIMESTAMP;
+ALTER TABLE tools ADD COLUMN IF NOT EXISTS workflow_last_error TEXT;
+
+-- 待执行步骤索引：按阶段扫描到期步骤
+CREATE INDEX IF NOT EXISTS idx_tools_workflow_pending
+  ON tools (status, workflow_next_run_at)
+  WHERE workflow_state = 'PENDING' AND deleted_at IS NULL;
+
+-- 恢复升级前停留在自动流转中间状态的工具
+UPDATE tools SET workflow_state = 'PENDING', workflow_next_run_at = CURRENT_TIMESTAMP
+WHERE workflow_state IS NULL AND deleted_at IS NULL
+  AND status IN ('WAITING_REVIEW', 'GITHUB_URL_VALIDATE', 'DEPLOYING', 'FETCHING_TOOLS');
@@ -0,0 +1,18 @@
+-- RAG特殊节点翻译缓存：按（翻译器类型、提示词版本、模型、内容哈希）复用翻译结果，id 为四者的 SHA-256
+
+CREATE TABLE IF NOT EXISTS node_translation_cache (
+  id                  VARCHAR(64) PRIMARY KEY,
+  translator_type     VARCHAR(32) NOT NULL,
+  prompt_version      VARCHAR(32) NOT NULL,
+  model               VARCHAR(255) NOT NULL,
+  content_hash        VARCHAR(64) NOT NULL,
+  translated_content  TEXT NOT NULL,
+
+  created_at          TIMESTAMP,
+  updated_at          TIMESTAMP,
+  deleted_at          TIMESTAMP
+);
+
+-- 按模型或提示词版本清理旧缓存
+CREATE INDEX IF NOT EXISTS idx_node_translation_cache_type_version
+  ON node_translation_cache (translator_type, prompt_version, model);
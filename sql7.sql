@@ -0,0 +1,9 @@
+-- RAG文件增量重新向量化：按文件定位向量（标记待复用、认领、清理）
+
+CREATE INDEX IF NOT EXISTS idx_vector_store_file_id
+  ON vector_store ((metadata ->> 'FILE_ID'));
+
+-- 认领待复用向量时按内容哈希匹配
+CREATE INDEX IF NOT EXISTS idx_vector_store_stale_hash
+  ON vector_store ((metadata ->> 'FILE_ID'), (metadata ->> 'CONTENT_HASH'))
+  WHERE (metadata ->> 'STALE') = 'true';
@@ -0,0 +1,33 @@
+-- Agent执行统计日汇总：按（用户、Agent、执行开始日期）聚合 agent_execution_summary，统计接口只读取范围内的汇总行
+
+CREATE TABLE IF NOT EXISTS agent_execution_daily_stats (
+  user_id                 VARCHAR(64) NOT NULL,
+  agent_id                VARCHAR(64) NOT NULL,
+  stat_date               DATE NOT NULL,
+  total_executions        INTEGER NOT NULL DEFAULT 0,
+  successful_executions   INTEGER NOT NULL DEFAULT 0,
+  total_input_tokens      BIGINT NOT NULL DEFAULT 0,
+  total_output_tokens     BIGINT NOT NULL DEFAULT 0,
+  total_tokens            BIGINT NOT NULL DEFAULT 0,
+  total_tool_calls        BIGINT NOT NULL DEFAULT 0,
+  total_execution_time    BIGINT NOT NULL DEFAULT 0,
+  last_execution_time     TIMESTAMP,
+  last_execution_success  BOOLEAN,
+
+  created_at              TIMESTAMP,
+  updated_at              TIMESTAMP,
+  deleted_at              TIMESTAMP,
+  PRIMARY KEY (user_id, agent_id, stat_date)
+);
+
+-- 重算单个汇总桶及查询首尾不足一天的区间
+CREATE INDEX IF NOT EXISTS idx_agent_execution_summary_user_agent_start
+  ON agent_execution_summary (user_id, agent_id, execution_start_time);
+
+-- 按天回填
+CREATE INDEX IF NOT EXISTS idx_agent_execution_summary_start
+  ON agent_execution_summary (execution_start_time);
+
+-- 按会话定位需要重算的汇总桶
+CREATE INDEX IF NOT EXISTS idx_agent_execution_summary_session_id
+  ON agent_execution_summary (session_id);
@@ -0,0 +1,4 @@
+-- 会话历史按游标分页：(session_id, created_at, id) 与查询的排序和游标比较一致
+
+CREATE INDEX IF NOT EXISTS idx_messages_session_created_id
+  ON messages (session_id, created_at, id);
@@ -44,6 +44,7 @@ public class AgentAssembler {
         // 设置预先设置的工具参数
         entity.setToolPresetParams(request.getToolPresetParams());
         entity.setMultiModal(request.getMultiModal());
+        entity.setSemanticCacheEnabled(Boolean.TRUE.equals(request.getSemanticCacheEnabled()));
         return entity;
     }
 
@@ -55,6 +55,9 @@ public class AgentDTO {
     /** 是否支持多模态 */
     private Boolean multiModal;
 
+    /** 是否启用语义响应缓存 */
+    private Boolean semanticCacheEnabled;
+
     /** 无参构造函数 */
     public AgentDTO() {
         this.toolIds = new ArrayList<>();
@@ -182,6 +185,14 @@ public class AgentDTO {
         this.multiModal = multiModal;
     }
 
+    public Boolean getSemanticCacheEnabled() {
+        return semanticCacheEnabled;
+    }
+
+    public void setSemanticCacheEnabled(Boolean semanticCacheEnabled) {
+        this.semanticCacheEnabled = semanticCacheEnabled;
+    }
+
     public String getUserNickname() {
         return userNickname;
     }
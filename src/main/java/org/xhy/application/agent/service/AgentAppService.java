@@ -13,6 +13,8 @@ import org.xhy.application.agent.dto.AgentVersionDTO;
 import org.xhy.application.agent.dto.AgentWithUserDTO;
 import org.xhy.application.billing.dto.RuleContext;
 import org.xhy.application.billing.service.BillingService;
+import org.xhy.application.conversation.dto.SemanticCacheStatsDTO;
+import org.xhy.application.conversation.service.SemanticResponseCache;
 import org.xhy.domain.agent.constant.PublishStatus;
 import org.xhy.domain.agent.model.AgentEntity;
 import org.xhy.domain.agent.model.AgentVersionEntity;
@@ -54,12 +56,15 @@ public class AgentAppService {
     private final UserToolDomainService userToolDomainService;
     private final UserRagDomainService userRagDomainService;
     private final RagVersionDomainService ragVersionDomainService;
+    private final WidgetSnapshotCache widgetSnapshotCache;
+    private final SemanticResponseCache semanticResponseCache;
 
     public AgentAppService(AgentDomainService agentServiceDomainService,
             AgentWorkspaceDomainService agentWorkspaceDomainService,
             ScheduledTaskExecutionService scheduledTaskExecutionService, UserToolDomainService userToolDomainService,
             UserRagDomainService userRagDomainService, RagVersionDomainService ragVersionDomainService,
-            BillingService billingService) {
+            BillingService billingService, WidgetSnapshotCache widgetSnapshotCache,
+            SemanticResponseCache semanticResponseCache) {
         this.agentServiceDomainService = agentServiceDomainService;
         this.agentWorkspaceDomainService = agentWorkspaceDomainService;
         this.scheduledTaskExecutionService = scheduledTaskExecutionService;
@@ -67,6 +72,8 @@ public class AgentAppService {
         this.userToolDomainService = userToolDomainService;
         this.userRagDomainService = userRagDomainService;
         this.ragVersionDomainService = ragVersionDomainService;
+        this.widgetSnapshotCache = widgetSnapshotCache;
+        this.semanticResponseCache = semanticResponseCache;
     }
 
     /** 创建新Agent */
@@ -145,6 +152,11 @@ public class AgentAppService {
         return agentVersionDTOS;
     }
 
+    /** 已上架Agent名称的前缀补全 */
+    public List<String> suggestPublishedAgentNames(String prefix) {
+        return agentServiceDomainService.suggestPublishedAgentNames(prefix);
+    }
+
     /** 更新Agent信息（基本信息和配置合并更新） */
     public AgentDTO updateAgent(UpdateAgentRequest request, String userId) {
 
@@ -153,12 +165,14 @@ public class AgentAppService {
 
         // 调用领域服务更新Agent
         AgentEntity agentEntity = agentServiceDomainService.updateAgent(updateEntity);
+        widgetSnapshotCache.evictByAgent(agentEntity.getId());
         return AgentAssembler.toDTO(agentEntity);
     }
 
     /** 切换Agent的启用/禁用状态 */
     public AgentDTO toggleAgentStatus(String agentId) {
         AgentEntity agentEntity = agentServiceDomainService.toggleAgentStatus(agentId);
+        widgetSnapshotCache.evictByAgent(agentId);
         return AgentAssembler.toDTO(agentEntity);
     }
 
@@ -169,6 +183,20 @@ public class AgentAppService {
         scheduledTaskExecutionService.deleteTasksByAgentId(agentId, userId);
         // 再删除Agent本身
         agentServiceDomainService.deleteAgent(agentId, userId);
+        widgetSnapshotCache.evictByAgent(agentId);
+        semanticResponseCache.evict(agentId);
+    }
+
+    /** 获取Agent的语义缓存统计 */
+    public SemanticCacheStatsDTO getSemanticCacheStats(String agentId, String userId) {
+        AgentEntity agent = agentServiceDomainService.getAgent(agentId, userId);
+        return semanticResponseCache.getStats(agent);
+    }
+
+    /** 清空Agent的语义缓存 */
+    public void clearSemanticCache(String agentId, String userId) {
+        AgentEntity agent = agentServiceDomainService.getAgent(agentId, userId);
+        semanticResponseCache.evict(agent.getId());
     }
 
     /** 发布Agent版本 */
@@ -30,13 +30,16 @@ public class AgentWidgetAppService {
     private final AgentRepository agentRepository;
     private final LLMDomainService llmDomainService;
     private final AgentWidgetAssembler agentWidgetAssembler;
+    private final WidgetSnapshotCache widgetSnapshotCache;
 
     public AgentWidgetAppService(AgentWidgetDomainService agentWidgetDomainService, AgentRepository agentRepository,
-            LLMDomainService llmDomainService, AgentWidgetAssembler agentWidgetAssembler) {
+            LLMDomainService llmDomainService, AgentWidgetAssembler agentWidgetAssembler,
+            WidgetSnapshotCache widgetSnapshotCache) {
         this.agentWidgetDomainService = agentWidgetDomainService;
         this.agentRepository = agentRepository;
         this.llmDomainService = llmDomainService;
         this.agentWidgetAssembler = agentWidgetAssembler;
+        this.widgetSnapshotCache = widgetSnapshotCache;
     }
 
     /** 创建小组件配置
@@ -156,6 +159,7 @@ public class AgentWidgetAppService {
         AgentWidgetAssembler.updateEntity(widget, request);
 
         AgentWidgetEntity updatedWidget = agentWidgetDomainService.updateWidget(widget, userId);
+        widgetSnapshotCache.evictWidget(updatedWidget.getPublicId());
 
         ModelEntity model = llmDomainService.getModelById(widget.getModelId());
         ProviderEntity provider = llmDomainService.getProvider(model.getProviderId());
@@ -172,6 +176,7 @@ public class AgentWidgetAppService {
     @Transactional
     public AgentWidgetDTO toggleWidgetStatus(String widgetId, String userId) {
         AgentWidgetEntity widget = agentWidgetDomainService.toggleWidgetStatus(widgetId, userId);
+        widgetSnapshotCache.evictWidget(widget.getPublicId());
         ModelEntity model = llmDomainService.getModelById(widget.getModelId());
         ProviderEntity provider = llmDomainService.getProvider(model.getProviderId());
 
@@ -186,6 +191,7 @@ public class AgentWidgetAppService {
     @Transactional
     public void deleteWidget(String widgetId, String userId) {
         agentWidgetDomainService.deleteWidget(widgetId, userId);
+        widgetSnapshotCache.evictWidgetById(widgetId);
     }
 
     /** 获取小组件配置详情
@@ -208,7 +214,15 @@ public class AgentWidgetAppService {
      * @param publicId 公开访问ID
      * @return 小组件配置实体 */
     public AgentWidgetEntity getWidgetForPublicAccess(String publicId) {
-        return agentWidgetDomainService.getEnabledWidgetByPublicId(publicId);
+        return widgetSnapshotCache.get(publicId).getWidget();
+    }
+
+    /** 获取小组件快照（用于公开访问）
+     *
+     * @param publicId 公开访问ID
+     * @return 只读快照，包含小组件、关联配置及ETag */
+    public WidgetSnapshot getWidgetSnapshot(String publicId) {
+        return widgetSnapshotCache.get(publicId);
     }
 
     /** 验证域名访问权限
@@ -217,7 +231,11 @@ public class AgentWidgetAppService {
      * @param domain 访问域名
      * @return 是否允许访问 */
     public boolean validateDomainAccess(String publicId, String domain) {
-        return agentWidgetDomainService.validateDomainAccess(publicId, domain);
+        try {
+            return widgetSnapshotCache.get(publicId).isDomainAllowed(domain);
+        } catch (BusinessException e) {
+            return false;
+        }
     }
 
     /** 获取完整的小组件信息（包含Agent配置信息，用于公开访问）
@@ -225,42 +243,11 @@ public class AgentWidgetAppService {
      * @param publicId 公开访问ID
      * @return 包含Agent配置信息的WidgetInfo */
     public WidgetInfoForPublicAccess getWidgetInfoForPublicAccess(String publicId) {
-        // 1. 获取小组件配置
-        AgentWidgetEntity widget = agentWidgetDomainService.getEnabledWidgetByPublicId(publicId);
-
-        // 2. 获取关联的Agent信息
-        AgentEntity agent = agentRepository.selectById(widget.getAgentId());
-        if (agent == null || agent.getDeletedAt() != null) {
-            throw new BusinessException("关联的Agent不存在");
+        WidgetSnapshot snapshot = widgetSnapshotCache.get(publicId);
+        if (snapshot.getInfo() == null) {
+            throw new BusinessException(snapshot.getInfoError());
         }
-
-        // 3. 构建完整的信息对象
-        WidgetInfoForPublicAccess info = new WidgetInfoForPublicAccess();
-
-        // Widget基本信息
-        info.setPublicId(widget.getPublicId());
-        info.setName(widget.getName());
-        info.setDescription(widget.getDescription());
-        info.setDailyLimit(widget.getDailyLimit());
-        info.setEnabled(widget.getEnabled());
-        // TODO: 实现每日调用次数统计，目前暂时设置为0
-        info.setDailyCalls(0);
-
-        // Agent配置信息（用于无会话聊天）
-        info.setAgentName(agent.getName());
-        info.setAgentAvatar(agent.getAvatar());
-        info.setWelcomeMessage(agent.getWelcomeMessage());
-        info.setSystemPrompt(agent.getSystemPrompt());
-
-        // 工具和知识库ID（需要转换为List<String>）
-        if (agent.getToolIds() != null) {
-            info.setToolIds(agent.getToolIds());
-        }
-        if (agent.getKnowledgeBaseIds() != null) {
-            info.setKnowledgeBaseIds(agent.getKnowledgeBaseIds());
-        }
-
-        return info;
+        return snapshot.getInfo();
     }
 
     /** 完整的小组件信息类（用于公开访问） */
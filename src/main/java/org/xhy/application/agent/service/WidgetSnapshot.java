@@ -0,0 +1,106 @@
+package org.xhy.application.agent.service;
+
+import org.xhy.application.agent.service.AgentWidgetAppService.WidgetInfoForPublicAccess;
+import org.xhy.domain.agent.model.AgentEntity;
+import org.xhy.domain.agent.model.AgentWidgetEntity;
+import org.xhy.domain.llm.model.ModelEntity;
+import org.xhy.domain.llm.model.ProviderEntity;
+
+import java.util.List;
+import java.util.Set;
+
+/** 公开小组件的只读快照 一次性加载小组件、域名白名单、关联Agent、模型与服务商，加载后不再修改。 配置变更时整体替换为新版本的快照 */
+public final class WidgetSnapshot {
+
+    /** 本节点内单调递增的快照版本 */
+    private final long version;
+
+    /** 按公开信息内容计算的ETag，内容相同的快照在各节点上一致 */
+    private final String etag;
+
+    private final AgentWidgetEntity widget;
+
+    /** 精确匹配的域名 */
+    private final Set<String> exactDomains;
+
+    /** 通配符域名的后缀（如 *.example.com 对应 .example.com） */
+    private final List<String> wildcardSuffixes;
+
+    /** 公开信息，关联Agent不存在时为null */
+    private final WidgetInfoForPublicAccess info;
+
+    /** 公开信息无法构建的原因 */
+    private final String infoError;
+
+    private final AgentEntity agent;
+
+    private final ModelEntity model;
+
+    private final ProviderEntity provider;
+
+    WidgetSnapshot(long version, String etag, AgentWidgetEntity widget, Set<String> exactDomains,
+            List<String> wildcardSuffixes, WidgetInfoForPublicAccess info, String infoError, AgentEntity agent,
+            ModelEntity model, ProviderEntity provider) {
+        this.version = version;
+        this.etag = etag;
+        this.widget = widget;
+        this.exactDomains = exactDomains;
+        this.wildcardSuffixes = wildcardSuffixes;
+        this.info = info;
+        this.infoError = infoError;
+        this.agent = agent;
+        this.model = model;
+        this.provider = provider;
+    }
+
+    /** 检查域名是否允许访问，规则与 AgentWidgetEntity#isDomainAllowed 一致 */
+    public boolean isDomainAllowed(String domain) {
+        if (exactDomains.isEmpty() && wildcardSuffixes.isEmpty()) {
+            return true; // 空白名单表示允许所有域名
+        }
+        if (domain == null) {
+            return false;
+        }
+        if (exactDomains.contains(domain)) {
+            return true;
+        }
+        for (String suffix : wildcardSuffixes) {
+            if (domain.endsWith(suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public AgentWidgetEntity getWidget() {
+        return widget;
+    }
+
+    public WidgetInfoForPublicAccess getInfo() {
+        return info;
+    }
+
+    public String getInfoError() {
+        return infoError;
+    }
+
+    public AgentEntity getAgent() {
+        return agent;
+    }
+
+    public ModelEntity getModel() {
+        return model;
+    }
+
+    public ProviderEntity getProvider() {
+        return provider;
+    }
+}
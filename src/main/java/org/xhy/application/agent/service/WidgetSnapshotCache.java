@@ -0,0 +1,217 @@
+package org.xhy.application.agent.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.xhy.application.agent.service.AgentWidgetAppService.WidgetInfoForPublicAccess;
+import org.xhy.domain.agent.model.AgentEntity;
+import org.xhy.domain.agent.model.AgentWidgetEntity;
+import org.xhy.domain.agent.repository.AgentRepository;
+import org.xhy.domain.agent.service.AgentWidgetDomainService;
+import org.xhy.domain.llm.event.ModelDomainEvent;
+import org.xhy.domain.llm.event.ModelsBatchDeletedEvent;
+import org.xhy.domain.llm.model.ModelEntity;
+import org.xhy.domain.llm.model.ProviderEntity;
+import org.xhy.domain.llm.service.LLMDomainService;
+import org.xhy.infrastructure.config.WidgetProperties;
+import org.xhy.infrastructure.exception.BusinessException;
+import org.xhy.infrastructure.utils.JsonUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/** 公开小组件快照缓存 按publicId缓存小组件及其关联配置的只读快照，公开接口的域名校验、配置读取都只访问内存。
+ * 小组件、Agent或模型变更时在本节点立即失效并在事务提交后再失效一次，其他节点依赖快照有效期收敛。
+ * 不存在或已禁用的publicId会被短暂否定缓存，避免探测请求直接打到数据库 */
+@Component
+public class WidgetSnapshotCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(WidgetSnapshotCache.class);
+
+    private final AgentWidgetDomainService agentWidgetDomainService;
+    private final AgentRepository agentRepository;
+    private final LLMDomainService llmDomainService;
+
+    /** publicId -> 快照 */
+    private final Cache<String, WidgetSnapshot> snapshots;
+
+    /** publicId -> 查找失败的原因 */
+    private final Cache<String, String> missing;
+
+    private final AtomicLong versionSequence = new AtomicLong();
+
+    public WidgetSnapshotCache(AgentWidgetDomainService agentWidgetDomainService, AgentRepository agentRepository,
+            LLMDomainService llmDomainService, WidgetProperties widgetProperties) {
+        this.agentWidgetDomainService = agentWidgetDomainService;
+        this.agentRepository = agentRepository;
+        this.llmDomainService = llmDomainService;
+        this.snapshots = CacheBuilder.newBuilder().expireAfterWrite(Duration.ofMillis(widgetProperties.getSnapshotTtl()))
+                .maximumSize(widgetProperties.getSnapshotMaxSize()).recordStats().build();
+        this.missing = CacheBuilder.newBuilder().expireAfterWrite(Duration.ofMillis(widgetProperties.getNegativeTtl()))
+                .maximumSize(widgetProperties.getNegativeMaxSize()).build();
+    }
+
+    /** 获取已启用小组件的快照
+     *
+     * @param publicId 公开访问ID
+     * @return 快照
+     * @throws BusinessException 小组件不存在或已禁用 */
+    public WidgetSnapshot get(String publicId) {
+        String missingReason = missing.getIfPresent(publicId);
+        if (missingReason != null) {
+            throw new BusinessException(missingReason);
+        }
+        try {
+            return snapshots.get(publicId, () -> load(publicId));
+        } catch (UncheckedExecutionException | ExecutionException e) {
+            if (e.getCause() instanceof BusinessException businessException) {
+                missing.put(publicId, businessException.getMessage());
+                throw businessException;
+            }
+            throw new BusinessException("加载小组件配置失败", e.getCause());
+        }
+    }
+
+    /** 失效指定小组件 */
+    public void evictWidget(String publicId) {
+        if (publicId == null) {
+            return;
+        }
+        evictNowAndAfterCommit(() -> {
+            snapshots.invalidate(publicId);
+            missing.invalidate(publicId);
+        });
+    }
+
+    /** 按小组件ID失效 */
+    public void evictWidgetById(String widgetId) {
+        evictMatching(snapshot -> Objects.equals(snapshot.getWidget().getId(), widgetId));
+    }
+
+    /** 失效关联到指定Agent的所有小组件 */
+    public void evictByAgent(String agentId) {
+        evictMatching(snapshot -> Objects.equals(snapshot.getWidget().getAgentId(), agentId));
+    }
+
+    /** 失效使用指定模型的所有小组件 */
+    public void evictByModel(String modelId) {
+        evictMatching(snapshot -> Objects.equals(snapshot.getWidget().getModelId(), modelId));
+    }
+
+    @EventListener
+    public void onModelChanged(ModelDomainEvent event) {
+        evictByModel(event.getModelId());
+    }
+
+    @EventListener
+    public void onModelsBatchDeleted(ModelsBatchDeletedEvent event) {
+        Set<String> modelIds = new HashSet<>();
+        for (ModelsBatchDeletedEvent.ModelDeleteItem item : event.getDeleteItems()) {
+            modelIds.add(item.getModelId());
+        }
+        evictMatching(snapshot -> modelIds.contains(snapshot.getWidget().getModelId()));
+    }
+
+    private void evictMatching(Predicate<WidgetSnapshot> predicate) {
+        evictNowAndAfterCommit(() -> snapshots.asMap().values().removeIf(predicate));
+    }
+
+    /** 立即失效，并在当前事务提交后再失效一次，防止提交前被并发请求按旧数据重新加载 */
+    private void evictNowAndAfterCommit(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    private WidgetSnapshot load(String publicId) {
+        AgentWidgetEntity widget = agentWidgetDomainService.getEnabledWidgetByPublicId(publicId);
+
+        Set<String> exactDomains = new HashSet<>();
+        List<String> wildcardSuffixes = new ArrayList<>();
+        if (widget.getAllowedDomains() != null) {
+            for (String allowedDomain : widget.getAllowedDomains()) {
+                if (allowedDomain.startsWith("*.")) {
+                    wildcardSuffixes.add(allowedDomain.substring(1));
+                } else {
+                    exactDomains.add(allowedDomain);
+                }
+            }
+        }
+
+        AgentEntity agent = widget.getAgentId() != null ? agentRepository.selectById(widget.getAgentId()) : null;
+        if (agent != null && agent.getDeletedAt() != null) {
+            agent = null;
+        }
+        ModelEntity model = widget.getModelId() != null ? llmDomainService.findModelById(widget.getModelId()) : null;
+        ProviderEntity provider = model != null ? llmDomainService.findProviderById(model.getProviderId()) : null;
+
+        WidgetInfoForPublicAccess info = agent != null ? buildInfo(widget, agent) : null;
+        String infoError = agent != null ? null : "关联的Agent不存在";
+        String etag = computeEtag(info != null ? JsonUtils.toJsonString(info) : publicId + ":" + infoError);
+
+        long version = versionSequence.incrementAndGet();
+        logger.debug("加载小组件快照: publicId={}, version={}", publicId, version);
+        return new WidgetSnapshot(version, etag, widget, Set.copyOf(exactDomains), List.copyOf(wildcardSuffixes),
+                info, infoError, agent, model, provider);
+    }
+
+    private WidgetInfoForPublicAccess buildInfo(AgentWidgetEntity widget, AgentEntity agent) {
+        WidgetInfoForPublicAccess info = new WidgetInfoForPublicAccess();
+
+        // Widget基本信息
+        info.setPublicId(widget.getPublicId());
+        info.setName(widget.getName());
+        info.setDescription(widget.getDescription());
+        info.setDailyLimit(widget.getDailyLimit());
+        info.setEnabled(widget.getEnabled());
+        // 当日调用次数随对话变化，不放入快照与ETag，由信息接口从准入计数实时读取
+
+        // Agent配置信息（用于无会话聊天）
+        info.setAgentName(agent.getName());
+        info.setAgentAvatar(agent.getAvatar());
+        info.setWelcomeMessage(agent.getWelcomeMessage());
+        info.setSystemPrompt(agent.getSystemPrompt());
+
+        // 工具和知识库ID
+        if (agent.getToolIds() != null) {
+            info.setToolIds(Collections.unmodifiableList(new ArrayList<>(agent.getToolIds())));
+        }
+        if (agent.getKnowledgeBaseIds() != null) {
+            info.setKnowledgeBaseIds(Collections.unmodifiableList(new ArrayList<>(agent.getKnowledgeBaseIds())));
+        }
+        return info;
+    }
+
+    private static String computeEtag(String content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,65 +1,187 @@
 package org.xhy.application.container.service;
 
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.xhy.domain.container.constant.ContainerStatus;
 import org.xhy.domain.container.model.ContainerEntity;
 import org.xhy.domain.container.service.ContainerDomainService;
+import org.xhy.infrastructure.config.ContainerConfig;
+import org.xhy.infrastructure.docker.ContainerMetricsCollector;
 import org.xhy.infrastructure.docker.DockerService;
 import org.xhy.infrastructure.entity.Operator;
 
+import java.util.HashMap;
 import java.util.List;
-
-/** 容器监控服务 */
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/** 容器监控服务 容器状态变化由 Docker 事件流驱动，资源使用率来自流式 stats 订阅并批量落库， 定时的全量状态检查只作为低频对账并发执行 */
 @Service
 public class ContainerMonitorService {
 
     private static final Logger logger = LoggerFactory.getLogger(ContainerMonitorService.class);
 
+    /** 收到容器退出事件后延迟复查的时间（秒），让主动停止流程先写回数据库状态 */
+    private static final long EXIT_RECHECK_DELAY_SECONDS = 10;
+
     private final ContainerDomainService containerDomainService;
     private final DockerService dockerService;
+    private final ContainerMetricsCollector metricsCollector;
 
-    public ContainerMonitorService(ContainerDomainService containerDomainService, DockerService dockerService) {
+    /** 状态检查线程池，对账与事件触发的复查共用 */
+    private final ScheduledExecutorService checkExecutor;
+
+    public ContainerMonitorService(ContainerDomainService containerDomainService, DockerService dockerService,
+            ContainerMetricsCollector metricsCollector, ContainerConfig containerConfig) {
         this.containerDomainService = containerDomainService;
         this.dockerService = dockerService;
+        this.metricsCollector = metricsCollector;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.checkExecutor = Executors.newScheduledThreadPool(Math.max(1, containerConfig.getMonitorParallelism()),
+                r -> {
+                    Thread thread = new Thread(r, "container-monitor-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
     }
 
-    /** 定期检查容器状态 每5分钟执行一次 */
-    @Scheduled(fixedRate = 300000) // 5分钟
+    /** 应用就绪后订阅 Docker 事件，并为运行中的容器建立 stats 订阅 */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startStreaming() {
+        try {
+            metricsCollector.start(this::onDockerEvent);
+            syncStatsSubscriptions(containerDomainService.getMonitoringContainers());
+        } catch (Exception e) {
+            logger.error("启动容器指标采集失败，仅依赖定时对账", e);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        checkExecutor.shutdownNow();
+    }
+
+    /** 定期对账容器状态，事件流断开或漏掉事件时兜底，按配置并发检查 */
+    @Scheduled(fixedRateString = "${agentx.container.monitor-interval:300000}")
     public void checkContainerStatus() {
         try {
             List<ContainerEntity> containers = containerDomainService.getMonitoringContainers();
             logger.info("开始检查 {} 个容器的状态", containers.size());
 
-            for (ContainerEntity container : containers) {
-                checkSingleContainer(container);
-            }
+            CompletableFuture<?>[] futures = containers.stream()
+                    .map(container -> CompletableFuture.runAsync(() -> checkSingleContainer(container), checkExecutor))
+                    .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(futures).join();
 
+            syncStatsSubscriptions(containerDomainService.getMonitoringContainers());
             logger.info("容器状态检查完成");
         } catch (Exception e) {
             logger.error("容器状态检查失败", e);
         }
     }
 
-    /** 更新容器资源使用率 每2分钟执行一次 */
-    @Scheduled(fixedRate = 120000) // 2分钟
+    /** 把流式订阅缓存的最新资源使用率批量写入数据库 */
+    @Scheduled(fixedRateString = "${agentx.container.stats-update-interval:120000}")
     public void updateContainerStats() {
         try {
             List<ContainerEntity> containers = containerDomainService.getMonitoringContainers();
-            logger.debug("开始更新 {} 个容器的资源使用率", containers.size());
+            syncStatsSubscriptions(containers);
 
+            Map<String, DockerService.ContainerStats> latestStats = metricsCollector.drainLatestStats();
+            if (latestStats.isEmpty()) {
+                return;
+            }
+
+            Map<String, Double[]> usages = new HashMap<>();
             for (ContainerEntity container : containers) {
-                updateContainerResourceUsage(container);
+                DockerService.ContainerStats stats = latestStats.get(container.getDockerContainerId());
+                if (stats != null) {
+                    usages.put(container.getId(), new Double[]{stats.getCpuUsage(), stats.getMemoryUsage()});
+                }
             }
+            containerDomainService.batchUpdateResourceUsage(usages);
 
-            logger.debug("容器资源使用率更新完成");
+            logger.debug("容器资源使用率批量更新完成: {} 个容器", usages.size());
         } catch (Exception e) {
             logger.error("容器资源使用率更新失败", e);
         }
     }
 
+    /** 处理 Docker 容器事件 */
+    private void onDockerEvent(String dockerContainerId, String action) {
+        switch (action) {
+            case "start" :
+                ContainerEntity container = containerDomainService.findByDockerContainerId(dockerContainerId);
+                if (container == null) {
+                    return;
+                }
+                metricsCollector.track(dockerContainerId);
+                if (ContainerStatus.STOPPED.equals(container.getStatus())
+                        || ContainerStatus.ERROR.equals(container.getStatus())) {
+                    logger.info("收到容器启动事件，更新数据库状态: containerId={} {} -> RUNNING", container.getId(),
+                            container.getStatus());
+                    containerDomainService.updateContainerStatus(container.getId(), ContainerStatus.RUNNING,
+                            Operator.ADMIN, null);
+                }
+                break;
+            case "destroy" :
+            case "die" :
+            case "stop" :
+            case "kill" :
+            case "oom" :
+                metricsCollector.untrack(dockerContainerId);
+                // 延迟复查：主动停止流程会在稍后写回状态，仍为运行中的才按原有策略恢复或标记停止
+                checkExecutor.schedule(() -> recheckAfterExit(dockerContainerId), EXIT_RECHECK_DELAY_SECONDS,
+                        TimeUnit.SECONDS);
+                break;
+            default :
+                break;
+        }
+    }
+
+    private void recheckAfterExit(String dockerContainerId) {
+        try {
+            ContainerEntity container = containerDomainService.findByDockerContainerId(dockerContainerId);
+            if (container != null && ContainerStatus.RUNNING.equals(container.getStatus())) {
+                // 恢复成功后的 start 事件会重新建立 stats 订阅
+                checkSingleContainer(container);
+            }
+        } catch (Exception e) {
+            logger.error("容器退出事件复查失败: dockerId={}", dockerContainerId, e);
+        }
+    }
+
+    /** 让 stats 订阅与数据库中运行中的容器保持一致 */
+    private void syncStatsSubscriptions(List<ContainerEntity> runningContainers) {
+        Map<String, ContainerEntity> byDockerId = runningContainers.stream()
+                .filter(container -> container.getDockerContainerId() != null)
+                .collect(Collectors.toMap(ContainerEntity::getDockerContainerId, Function.identity(), (a, b) -> a));
+
+        Set<String> tracked = metricsCollector.getTrackedContainers();
+        for (String dockerContainerId : tracked) {
+            if (!byDockerId.containsKey(dockerContainerId)) {
+                metricsCollector.untrack(dockerContainerId);
+            }
+        }
+        for (String dockerContainerId : byDockerId.keySet()) {
+            if (!tracked.contains(dockerContainerId)) {
+                metricsCollector.track(dockerContainerId);
+            }
+        }
+    }
+
     /** 检查单个容器状态（增强版） */
     private void checkSingleContainer(ContainerEntity container) {
         try {
@@ -127,24 +249,6 @@ public class ContainerMonitorService {
         }
     }
 
-    /** 更新容器资源使用率 */
-    private void updateContainerResourceUsage(ContainerEntity container) {
-        try {
-            if (container.getDockerContainerId() == null || !container.isRunning()) {
-                return;
-            }
-
-            DockerService.ContainerStats stats = dockerService.getContainerStats(container.getDockerContainerId());
-            if (stats != null) {
-                containerDomainService.updateResourceUsage(container.getId(), stats.getCpuUsage(),
-                        stats.getMemoryUsage());
-            }
-
-        } catch (Exception e) {
-            logger.debug("更新容器资源使用率失败: {}", container.getName(), e);
-        }
-    }
-
     /** 同步单个容器状态（用于启动时同步） */
     private void syncSingleContainerStatus(ContainerEntity container) {
         try {
@@ -26,6 +26,9 @@ public class MessageDTO {
     private MessageType messageType;
 
     private List<String> fileUrls = new ArrayList<>();
+
+    /** 内容是否为截断后的预览，完整内容需按消息ID单独获取 */
+    private boolean contentTruncated;
     /** 无参构造函数 */
     public MessageDTO() {
     }
@@ -94,4 +97,12 @@ public class MessageDTO {
     public void setFileUrls(List<String> fileUrls) {
         this.fileUrls = fileUrls;
     }
-}
\ No newline at end of file
+
+    public boolean isContentTruncated() {
+        return contentTruncated;
+    }
+
+    public void setContentTruncated(boolean contentTruncated) {
+        this.contentTruncated = contentTruncated;
+    }
+}
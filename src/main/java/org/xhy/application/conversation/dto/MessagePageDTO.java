@@ -0,0 +1,52 @@
+package org.xhy.application.conversation.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** 会话消息游标分页结果 */
+public class MessagePageDTO {
+
+    /** 按时间正序的消息 */
+    private List<MessageDTO> messages = new ArrayList<>();
+
+    /** 继续读取时传回的游标：历史分页为本页最早一条，增量读取为本次最新一条；无消息时原样返回请求游标 */
+    private String nextCursor;
+
+    /** 本页最新一条消息的游标，断线重连时传给增量接口 */
+    private String latestCursor;
+
+    /** 读取方向上是否还有更多消息 */
+    private boolean hasMore;
+
+    public List<MessageDTO> getMessages() {
+        return messages;
+    }
+
+    public void setMessages(List<MessageDTO> messages) {
+        this.messages = messages;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public String getLatestCursor() {
+        return latestCursor;
+    }
+
+    public void setLatestCursor(String latestCursor) {
+        this.latestCursor = latestCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
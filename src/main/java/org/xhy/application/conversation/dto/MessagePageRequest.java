@@ -0,0 +1,38 @@
+package org.xhy.application.conversation.dto;
+
+/** 会话消息游标分页请求 */
+public class MessagePageRequest {
+
+    /** 上一次返回的游标，为空时从最新消息开始 */
+    private String cursor;
+
+    /** 每页条数 */
+    private Integer limit = 50;
+
+    /** 是否返回工具调用等消息的完整内容，默认只返回预览 */
+    private Boolean includeToolPayload = false;
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    public void setLimit(Integer limit) {
+        this.limit = limit;
+    }
+
+    public Boolean getIncludeToolPayload() {
+        return includeToolPayload;
+    }
+
+    public void setIncludeToolPayload(Boolean includeToolPayload) {
+        this.includeToolPayload = includeToolPayload;
+    }
+}
@@ -0,0 +1,103 @@
+package org.xhy.application.conversation.dto;
+
+/** Agent语义缓存统计 条目与累计命中来自数据库，查询次数与命中率为本节点启动以来的统计 */
+public class SemanticCacheStatsDTO {
+
+    private String agentId;
+
+    /** Agent是否开启了语义缓存 */
+    private Boolean enabled;
+
+    /** 未过期的缓存条目数 */
+    private long entryCount;
+
+    /** 未过期条目的累计命中次数 */
+    private long totalHits;
+
+    /** 命中节省的输入Token数 */
+    private long savedInputTokens;
+
+    /** 命中节省的输出Token数 */
+    private long savedOutputTokens;
+
+    /** 本节点启动以来的缓存查询次数 */
+    private long lookups;
+
+    /** 本节点启动以来的命中次数 */
+    private long hits;
+
+    /** 本节点启动以来的命中率 */
+    private double hitRate;
+
+    public String getAgentId() {
+        return agentId;
+    }
+
+    public void setAgentId(String agentId) {
+        this.agentId = agentId;
+    }
+
+    public Boolean getEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(Boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    public void setEntryCount(long entryCount) {
+        this.entryCount = entryCount;
+    }
+
+    public long getTotalHits() {
+        return totalHits;
+    }
+
+    public void setTotalHits(long totalHits) {
+        this.totalHits = totalHits;
+    }
+
+    public long getSavedInputTokens() {
+        return savedInputTokens;
+    }
+
+    public void setSavedInputTokens(long savedInputTokens) {
+        this.savedInputTokens = savedInputTokens;
+    }
+
+    public long getSavedOutputTokens() {
+        return savedOutputTokens;
+    }
+
+    public void setSavedOutputTokens(long savedOutputTokens) {
+        this.savedOutputTokens = savedOutputTokens;
+    }
+
+    public long getLookups() {
+        return lookups;
+    }
+
+    public void setLookups(long lookups) {
+        this.lookups = lookups;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+
+    public double getHitRate() {
+        return hitRate;
+    }
+
+    public void setHitRate(double hitRate) {
+        this.hitRate = hitRate;
+    }
+}
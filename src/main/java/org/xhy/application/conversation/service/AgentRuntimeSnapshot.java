@@ -0,0 +1,123 @@
+package org.xhy.application.conversation.service;
+
+import org.springframework.beans.BeanUtils;
+import org.xhy.domain.agent.model.AgentEntity;
+import org.xhy.domain.agent.model.LLMModelConfig;
+import org.xhy.domain.llm.model.ModelEntity;
+import org.xhy.domain.llm.model.ProviderEntity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/** Agent运行时快照 某个用户使用某个Agent对话时，除会话历史与高可用选路之外的全部准备数据，构建后只读。
+ *
+ * Agent已按调用者身份解析为草稿或最新版本，系统提示词中不随对话变化的部分已渲染好 */
+public class AgentRuntimeSnapshot {
+
+    /** 快照构建序号，单调递增 */
+    private final long version;
+
+    /** 会话绑定的Agent ID */
+    private final String agentId;
+
+    private final String userId;
+
+    /** 解析后的Agent，对外只提供副本 */
+    private final AgentEntity agent;
+
+    /** Agent内容版本：安装者为版本ID，创建者为草稿更新时间 */
+    private final String agentVersion;
+
+    /** 工作区配置版本，即工作区更新时间 */
+    private final String workspaceVersion;
+
+    private final LLMModelConfig llmModelConfig;
+
+    /** 未指定模型时使用的模型：工作区配置的模型或用户默认模型 */
+    private final ModelEntity defaultModel;
+
+    /** 默认模型所属服务商 */
+    private final ProviderEntity defaultProvider;
+
+    private final List<String> fallbackChain;
+
+    private final List<String> mcpServerNames;
+
+    /** Agent提示词与工具预设参数说明，记忆要点等动态内容在对话时追加 */
+    private final String staticSystemPrompt;
+
+    public AgentRuntimeSnapshot(long version, String agentId, String userId, AgentEntity agent, String agentVersion,
+            String workspaceVersion, LLMModelConfig llmModelConfig, ModelEntity defaultModel,
+            ProviderEntity defaultProvider, List<String> fallbackChain, List<String> mcpServerNames,
+            String staticSystemPrompt) {
+        this.version = version;
+        this.agentId = agentId;
+        this.userId = userId;
+        this.agent = agent;
+        this.agentVersion = agentVersion;
+        this.workspaceVersion = workspaceVersion;
+        this.llmModelConfig = llmModelConfig;
+        this.defaultModel = defaultModel;
+        this.defaultProvider = defaultProvider;
+        this.fallbackChain = Collections.unmodifiableList(new ArrayList<>(fallbackChain));
+        this.mcpServerNames = Collections.unmodifiableList(new ArrayList<>(mcpServerNames));
+        this.staticSystemPrompt = staticSystemPrompt;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public String getAgentId() {
+        return agentId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    /** 返回Agent的副本，对话过程中的修改不会影响快照 */
+    public AgentEntity copyAgent() {
+        AgentEntity copy = new AgentEntity();
+        BeanUtils.copyProperties(agent, copy);
+        return copy;
+    }
+
+    /** 解析后的Agent ID，安装者的快照中为版本ID */
+    public String getResolvedAgentId() {
+        return agent.getId();
+    }
+
+    public String getAgentVersion() {
+        return agentVersion;
+    }
+
+    public String getWorkspaceVersion() {
+        return workspaceVersion;
+    }
+
+    public LLMModelConfig getLlmModelConfig() {
+        return llmModelConfig;
+    }
+
+    public ModelEntity getDefaultModel() {
+        return defaultModel;
+    }
+
+    public ProviderEntity getDefaultProvider() {
+        return defaultProvider;
+    }
+
+    public List<String> getFallbackChain() {
+        return fallbackChain;
+    }
+
+    public List<String> getMcpServerNames() {
+        return mcpServerNames;
+    }
+
+    public String getStaticSystemPrompt() {
+        return staticSystemPrompt;
+    }
+}
@@ -0,0 +1,298 @@
+package org.xhy.application.conversation.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.xhy.application.conversation.service.handler.context.AgentPromptTemplates;
+import org.xhy.domain.agent.event.AgentChangedEvent;
+import org.xhy.domain.agent.event.AgentWorkspaceChangedEvent;
+import org.xhy.domain.agent.model.AgentEntity;
+import org.xhy.domain.agent.model.AgentVersionEntity;
+import org.xhy.domain.agent.model.AgentWorkspaceEntity;
+import org.xhy.domain.agent.model.LLMModelConfig;
+import org.xhy.domain.agent.service.AgentDomainService;
+import org.xhy.domain.agent.service.AgentWorkspaceDomainService;
+import org.xhy.domain.llm.event.ModelDomainEvent;
+import org.xhy.domain.llm.event.ModelsBatchDeletedEvent;
+import org.xhy.domain.llm.event.ProviderChangedEvent;
+import org.xhy.domain.llm.model.ModelEntity;
+import org.xhy.domain.llm.model.ProviderEntity;
+import org.xhy.domain.llm.service.LLMDomainService;
+import org.xhy.domain.tool.event.UserToolChangedEvent;
+import org.xhy.domain.tool.model.UserToolEntity;
+import org.xhy.domain.tool.service.UserToolDomainService;
+import org.xhy.domain.user.event.UserSettingsChangedEvent;
+import org.xhy.domain.user.service.UserSettingsDomainService;
+import org.xhy.infrastructure.config.RuntimeSnapshotProperties;
+import org.xhy.infrastructure.exception.BusinessException;
+import org.xhy.infrastructure.metrics.ChatMetrics;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/** Agent运行时快照缓存 两级缓存：Agent定义（草稿、最新版本及渲染好的静态提示词）按agentId缓存，被该Agent的所有会话共享；
+ * 用户级快照按 (agentId, userId) 缓存，引用共享的Agent定义并补充工作区配置、默认模型、降级链与已安装工具。
+ * Agent、工作区、模型、服务商、工具和用户设置变更时在本节点立即失效并在事务提交后再失效一次，其他节点依赖有效期收敛 */
+@Component
+public class AgentRuntimeSnapshotCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(AgentRuntimeSnapshotCache.class);
+
+    /** 与对话准备阶段的指标使用同一处理器类型 */
+    private static final String METRICS_AGENT_TYPE = "agent";
+
+    private final AgentDomainService agentDomainService;
+    private final AgentWorkspaceDomainService agentWorkspaceDomainService;
+    private final LLMDomainService llmDomainService;
+    private final UserToolDomainService userToolDomainService;
+    private final UserSettingsDomainService userSettingsDomainService;
+    private final ChatMetrics chatMetrics;
+    private final boolean enabled;
+
+    /** agentId -> Agent定义 */
+    private final Cache<String, AgentDefinition> definitions;
+
+    /** agentId:userId -> 运行时快照 */
+    private final Cache<String, AgentRuntimeSnapshot> snapshots;
+
+    private final AtomicLong versionSequence = new AtomicLong();
+
+    public AgentRuntimeSnapshotCache(AgentDomainService agentDomainService,
+            AgentWorkspaceDomainService agentWorkspaceDomainService, LLMDomainService llmDomainService,
+            UserToolDomainService userToolDomainService, UserSettingsDomainService userSettingsDomainService,
+            ChatMetrics chatMetrics, RuntimeSnapshotProperties properties, MeterRegistry registry) {
+        this.agentDomainService = agentDomainService;
+        this.agentWorkspaceDomainService = agentWorkspaceDomainService;
+        this.llmDomainService = llmDomainService;
+        this.userToolDomainService = userToolDomainService;
+        this.userSettingsDomainService = userSettingsDomainService;
+        this.chatMetrics = chatMetrics;
+        this.enabled = properties.isEnabled();
+        this.definitions = CacheBuilder.newBuilder().expireAfterWrite(Duration.ofMillis(properties.getTtl()))
+                .maximumSize(properties.getDefinitionMaxSize()).recordStats().build();
+        this.snapshots = CacheBuilder.newBuilder().expireAfterWrite(Duration.ofMillis(properties.getTtl()))
+                .maximumSize(properties.getMaxSize()).recordStats().build();
+        GuavaCacheMetrics.monitor(registry, definitions, "agentx.runtime.definition");
+        GuavaCacheMetrics.monitor(registry, snapshots, "agentx.runtime.snapshot");
+    }
+
+    /** 获取用户使用指定Agent的运行时快照
+     *
+     * @param agentId 会话绑定的Agent ID
+     * @param userId 用户ID
+     * @return 快照
+     * @throws BusinessException Agent不存在、已禁用、不在工作区或模型不可用 */
+    public AgentRuntimeSnapshot get(String agentId, String userId) {
+        if (!enabled) {
+            return load(agentId, userId);
+        }
+        try {
+            return snapshots.get(agentId + ":" + userId, () -> load(agentId, userId));
+        } catch (UncheckedExecutionException | ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    /** 失效指定Agent的定义及其所有用户快照 */
+    public void evictByAgent(String agentId) {
+        evictNowAndAfterCommit(() -> {
+            definitions.invalidate(agentId);
+            snapshots.asMap().values().removeIf(snapshot -> Objects.equals(snapshot.getAgentId(), agentId)
+                    || Objects.equals(snapshot.getResolvedAgentId(), agentId));
+        });
+    }
+
+    @EventListener
+    public void onAgentChanged(AgentChangedEvent event) {
+        evictByAgent(event.getAgentId());
+    }
+
+    @EventListener
+    public void onWorkspaceChanged(AgentWorkspaceChangedEvent event) {
+        evictMatching(snapshot -> (Objects.equals(snapshot.getAgentId(), event.getAgentId())
+                || Objects.equals(snapshot.getResolvedAgentId(), event.getAgentId()))
+                && (event.getUserId() == null || Objects.equals(snapshot.getUserId(), event.getUserId())));
+    }
+
+    @EventListener
+    public void onModelChanged(ModelDomainEvent event) {
+        evictMatching(snapshot -> Objects.equals(snapshot.getDefaultModel().getId(), event.getModelId()));
+    }
+
+    @EventListener
+    public void onModelsBatchDeleted(ModelsBatchDeletedEvent event) {
+        Set<String> modelIds = new HashSet<>();
+        for (ModelsBatchDeletedEvent.ModelDeleteItem item : event.getDeleteItems()) {
+            modelIds.add(item.getModelId());
+        }
+        evictMatching(snapshot -> modelIds.contains(snapshot.getDefaultModel().getId()));
+    }
+
+    @EventListener
+    public void onProviderChanged(ProviderChangedEvent event) {
+        evictMatching(snapshot -> Objects.equals(snapshot.getDefaultProvider().getId(), event.getProviderId()));
+    }
+
+    @EventListener
+    public void onUserToolChanged(UserToolChangedEvent event) {
+        evictMatching(snapshot -> Objects.equals(snapshot.getUserId(), event.getUserId()));
+    }
+
+    @EventListener
+    public void onUserSettingsChanged(UserSettingsChangedEvent event) {
+        evictMatching(snapshot -> Objects.equals(snapshot.getUserId(), event.getUserId()));
+    }
+
+    private void evictMatching(Predicate<AgentRuntimeSnapshot> predicate) {
+        evictNowAndAfterCommit(() -> snapshots.asMap().values().removeIf(predicate));
+    }
+
+    /** 立即失效，并在当前事务提交后再失效一次，防止提交前被并发请求按旧数据重新加载 */
+    private void evictNowAndAfterCommit(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    private AgentRuntimeSnapshot load(String agentId, String userId) {
+        AgentDefinition definition = getDefinition(agentId);
+        AgentEntity draft = definition.draft;
+        boolean owner = draft.getUserId().equals(userId);
+        if (!owner && !Boolean.TRUE.equals(draft.getEnabled())) {
+            throw new BusinessException("agent已被禁用");
+        }
+        if (!owner && definition.published == null) {
+            throw new BusinessException("Agent版本不存在: " + agentId);
+        }
+
+        // 安装者使用最新版本，创建者使用草稿
+        AgentEntity agent = owner ? draft : definition.published;
+        String agentVersion = owner ? "draft@" + draft.getUpdatedAt() : definition.latestVersionId;
+        String staticSystemPrompt = owner ? definition.draftPrompt : definition.publishedPrompt;
+
+        // 工作区按会话绑定的Agent ID登记，安装者的Agent已被版本覆盖，其ID为版本ID
+        AgentWorkspaceEntity workspace = agentWorkspaceDomainService.getWorkspace(agentId, userId);
+        LLMModelConfig llmModelConfig = workspace.getLlmModelConfig();
+
+        ModelEntity model = resolveDefaultModel(llmModelConfig, userId);
+        ProviderEntity provider = llmDomainService.getProvider(model.getProviderId());
+        List<String> fallbackChain = userSettingsDomainService.getUserFallbackChain(userId);
+        // 工具解析只在快照未命中时发生，tools阶段的样本数即为加载次数
+        List<String> mcpServerNames = chatMetrics.timeStage(ChatMetrics.STAGE_TOOLS, METRICS_AGENT_TYPE,
+                () -> getMcpServerNames(agent.getToolIds(), userId));
+
+        long version = versionSequence.incrementAndGet();
+        logger.debug("加载Agent运行时快照: agentId={}, userId={}, agentVersion={}, version={}", agentId, userId,
+                agentVersion, version);
+        return new AgentRuntimeSnapshot(version, agentId, userId, agent, agentVersion,
+                String.valueOf(workspace.getUpdatedAt()), llmModelConfig, model, provider, fallbackChain,
+                mcpServerNames, staticSystemPrompt);
+    }
+
+    private AgentDefinition getDefinition(String agentId) {
+        if (!enabled) {
+            return loadDefinition(agentId);
+        }
+        try {
+            return definitions.get(agentId, () -> loadDefinition(agentId));
+        } catch (UncheckedExecutionException | ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private AgentDefinition loadDefinition(String agentId) {
+        AgentEntity draft = agentDomainService.getAgentById(agentId);
+        AgentVersionEntity latestVersion = agentDomainService.getLatestAgentVersion(agentId);
+
+        AgentEntity published = null;
+        if (latestVersion != null) {
+            published = new AgentEntity();
+            BeanUtils.copyProperties(draft, published);
+            BeanUtils.copyProperties(latestVersion, published);
+        }
+        return new AgentDefinition(draft, published, latestVersion != null ? latestVersion.getId() : null,
+                renderStaticSystemPrompt(draft), published != null ? renderStaticSystemPrompt(published) : null);
+    }
+
+    /** 渲染系统提示词中不随对话变化的部分，与 AbstractMessageHandler 的拼接方式一致 */
+    private static String renderStaticSystemPrompt(AgentEntity agent) {
+        Map<String, Map<String, Map<String, String>>> toolPresetParams = agent.getToolPresetParams();
+        String presetToolPrompt = toolPresetParams != null
+                ? AgentPromptTemplates.generatePresetToolPrompt(toolPresetParams)
+                : "";
+        return agent.getSystemPrompt() + "\n" + presetToolPrompt;
+    }
+
+    /** 未指定模型时的默认模型：工作区配置的模型，未配置时使用用户默认模型 */
+    private ModelEntity resolveDefaultModel(LLMModelConfig llmModelConfig, String userId) {
+        String modelId = llmModelConfig.getModelId();
+        ModelEntity model;
+        if (modelId == null) {
+            model = llmDomainService.getModelById(userSettingsDomainService.getUserDefaultModelId(userId));
+        } else {
+            model = llmDomainService.findModelById(modelId);
+            if (model == null) {
+                model = llmDomainService.getModelById(modelId);
+            }
+        }
+        model.isActive();
+        return model;
+    }
+
+    private List<String> getMcpServerNames(List<String> toolIds, String userId) {
+        if (toolIds == null || toolIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<UserToolEntity> installTool = userToolDomainService.getInstallTool(toolIds, userId);
+        return installTool.stream().map(UserToolEntity::getMcpServerName).collect(Collectors.toList());
+    }
+
+    private static BusinessException unwrap(Exception e) {
+        if (e.getCause() instanceof BusinessException) {
+            return (BusinessException) e.getCause();
+        }
+        return new BusinessException("加载Agent运行配置失败", e.getCause());
+    }
+
+    /** Agent定义 草稿与最新版本两种形态，以及各自渲染好的静态提示词 */
+    private static final class AgentDefinition {
+        private final AgentEntity draft;
+        private final AgentEntity published;
+        private final String latestVersionId;
+        private final String draftPrompt;
+        private final String publishedPrompt;
+
+        AgentDefinition(AgentEntity draft, AgentEntity published, String latestVersionId, String draftPrompt,
+                String publishedPrompt) {
+            this.draft = draft;
+            this.published = published;
+            this.latestVersionId = latestVersionId;
+            this.draftPrompt = draftPrompt;
+            this.publishedPrompt = publishedPrompt;
+        }
+    }
+}
@@ -21,7 +21,9 @@ import org.xhy.domain.agent.service.AgentWorkspaceDomainService;
 import org.xhy.domain.conversation.constant.MessageType;
 import org.xhy.domain.conversation.constant.Role;
 import org.xhy.domain.conversation.model.ContextEntity;
+import org.xhy.domain.conversation.model.MessageCursor;
 import org.xhy.domain.conversation.model.MessageEntity;
+import org.xhy.domain.conversation.model.MessageSlice;
 import org.xhy.domain.conversation.model.SessionEntity;
 import org.xhy.domain.conversation.service.ContextDomainService;
 import org.xhy.domain.conversation.service.ConversationDomainService;
@@ -42,6 +44,7 @@ import org.xhy.domain.tool.service.UserToolDomainService;
 import org.xhy.domain.user.service.UserSettingsDomainService;
 import org.xhy.infrastructure.exception.BusinessException;
 import org.xhy.infrastructure.llm.config.ProviderConfig;
+import org.xhy.infrastructure.metrics.ChatMetrics;
 import org.xhy.infrastructure.transport.MessageTransport;
 import org.xhy.infrastructure.transport.MessageTransportFactory;
 import org.xhy.interfaces.dto.agent.request.WidgetChatRequest;
@@ -77,6 +80,16 @@ public class ConversationAppService {
     private final HighAvailabilityDomainService highAvailabilityDomainService;
     private final RagSessionManager ragSessionManager;
     private final ChatSessionManager chatSessionManager;
+    private final ChatMetrics chatMetrics;
+    private final AgentRuntimeSnapshotCache agentRuntimeSnapshotCache;
+
+    /** 指标中的处理器类型，prepareEnvironmentWithModel准备的环境交由AgentMessageHandler处理 */
+    private static final String METRICS_AGENT_TYPE = "agent";
+
+    /** 会话历史分页的默认与最大条数 */
+    private static final int DEFAULT_MESSAGE_PAGE_SIZE = 50;
+    private static final int MAX_MESSAGE_PAGE_SIZE = 200;
+
     public ConversationAppService(ConversationDomainService conversationDomainService,
             SessionDomainService sessionDomainService, AgentDomainService agentDomainService,
             AgentWorkspaceDomainService agentWorkspaceDomainService, LLMDomainService llmDomainService,
@@ -85,7 +98,8 @@ public class ConversationAppService {
             MessageTransportFactory transportFactory, UserToolDomainService toolDomainService,
             UserSettingsDomainService userSettingsDomainService, PreviewMessageHandler previewMessageHandler,
             HighAvailabilityDomainService highAvailabilityDomainService, RagSessionManager ragSessionManager,
-            ChatSessionManager chatSessionManager) {
+            ChatSessionManager chatSessionManager, ChatMetrics chatMetrics,
+            AgentRuntimeSnapshotCache agentRuntimeSnapshotCache) {
         this.conversationDomainService = conversationDomainService;
         this.sessionDomainService = sessionDomainService;
         this.agentDomainService = agentDomainService;
@@ -102,6 +116,8 @@ public class ConversationAppService {
         this.highAvailabilityDomainService = highAvailabilityDomainService;
         this.ragSessionManager = ragSessionManager;
         this.chatSessionManager = chatSessionManager;
+        this.chatMetrics = chatMetrics;
+        this.agentRuntimeSnapshotCache = agentRuntimeSnapshotCache;
     }
 
     /** 获取会话中的消息列表
@@ -121,6 +137,82 @@ public class ConversationAppService {
         return MessageAssembler.toDTOs(conversationMessages);
     }
 
+    /** 按游标向前分页获取会话历史，最新的一页在前
+     *
+     * @param sessionId 会话id
+     * @param request 游标为空时从最新消息开始
+     * @param userId 用户id
+     * @return 按时间正序的一页消息 */
+    public MessagePageDTO getConversationMessagePage(String sessionId, MessagePageRequest request, String userId) {
+        checkSessionOwner(sessionId, userId);
+
+        MessageSlice slice = conversationDomainService.getMessagesBefore(sessionId,
+                MessageCursor.decode(request.getCursor()), normalizeMessageLimit(request.getLimit()),
+                Boolean.TRUE.equals(request.getIncludeToolPayload()));
+        MessageCursor first = slice.firstCursor();
+        MessageCursor last = slice.lastCursor();
+        return toMessagePage(slice, first != null ? first.encode() : request.getCursor(),
+                last != null ? last.encode() : null);
+    }
+
+    /** 获取游标之后新增的消息，供断线重连的客户端补齐
+     *
+     * @param sessionId 会话id
+     * @param request 游标必填
+     * @param userId 用户id
+     * @return 按时间正序的新增消息 */
+    public MessagePageDTO getConversationMessagesSince(String sessionId, MessagePageRequest request, String userId) {
+        checkSessionOwner(sessionId, userId);
+
+        MessageCursor after = MessageCursor.decode(request.getCursor());
+        if (after == null) {
+            throw new BusinessException("游标不能为空");
+        }
+        MessageSlice slice = conversationDomainService.getMessagesAfter(sessionId, after,
+                normalizeMessageLimit(request.getLimit()), Boolean.TRUE.equals(request.getIncludeToolPayload()));
+        MessageCursor last = slice.lastCursor();
+        String cursor = last != null ? last.encode() : request.getCursor();
+        return toMessagePage(slice, cursor, cursor);
+    }
+
+    /** 获取会话中单条消息的完整内容，用于展开被截断的工具调用结果
+     *
+     * @param sessionId 会话id
+     * @param messageId 消息id
+     * @param userId 用户id
+     * @return 消息 */
+    public MessageDTO getConversationMessage(String sessionId, String messageId, String userId) {
+        checkSessionOwner(sessionId, userId);
+
+        MessageEntity message = conversationDomainService.getConversationMessage(sessionId, messageId);
+        if (message == null) {
+            throw new BusinessException("消息不存在");
+        }
+        return MessageAssembler.toDTO(message);
+    }
+
+    private void checkSessionOwner(String sessionId, String userId) {
+        if (sessionDomainService.find(sessionId, userId) == null) {
+            throw new BusinessException("会话不存在");
+        }
+    }
+
+    private static int normalizeMessageLimit(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_MESSAGE_PAGE_SIZE;
+        }
+        return Math.min(limit, MAX_MESSAGE_PAGE_SIZE);
+    }
+
+    private static MessagePageDTO toMessagePage(MessageSlice slice, String nextCursor, String latestCursor) {
+        MessagePageDTO page = new MessagePageDTO();
+        page.setMessages(MessageAssembler.toDTOs(slice.getMessages()));
+        page.setNextCursor(nextCursor);
+        page.setLatestCursor(latestCursor);
+        page.setHasMore(slice.isHasMore());
+        return page;
+    }
+
     /** 对话方法 - 统一入口，支持根据请求类型自动选择处理器
      *
      * @param chatRequest 聊天请求
@@ -210,34 +302,45 @@ public class ConversationAppService {
      * @param modelId 指定的模型ID（可选，为null时使用Agent绑定的模型）
      * @return 对话环境 */
     private ChatContext prepareEnvironmentWithModel(ChatRequest chatRequest, String userId, String modelId) {
-        // 1. 获取会话和Agent信息
+        // 1. 获取会话
         String sessionId = chatRequest.getSessionId();
-        SessionEntity session = sessionDomainService.getSession(sessionId, userId);
-        String agentId = session.getAgentId();
-        AgentEntity agent = getAgentWithValidation(agentId, userId);
-
-        // 2. 获取工具配置
-        List<String> mcpServerNames = getMcpServerNames(agent.getToolIds(), userId);
-
-        // 3. 获取模型配置
-        AgentWorkspaceEntity workspace = agentWorkspaceDomainService.getWorkspace(agentId, userId);
-        LLMModelConfig llmModelConfig = workspace.getLlmModelConfig();
-        ModelEntity model = getModelForChat(llmModelConfig, modelId, userId);
-
-        // 4. 获取高可用服务商信息
-        List<String> fallbackChain = userSettingsDomainService.getUserFallbackChain(userId);
+        SessionEntity session = chatMetrics.timeStage(ChatMetrics.STAGE_SESSION, METRICS_AGENT_TYPE,
+                () -> sessionDomainService.getSession(sessionId, userId));
+
+        // 2. 获取Agent运行时快照：Agent版本、工作区模型配置、默认模型、降级链、工具和静态提示词
+        AgentRuntimeSnapshot snapshot = chatMetrics.timeStage(ChatMetrics.STAGE_SNAPSHOT, METRICS_AGENT_TYPE,
+                () -> agentRuntimeSnapshotCache.get(session.getAgentId(), userId));
+        AgentEntity agent = snapshot.copyAgent();
+        List<String> mcpServerNames = new ArrayList<>(snapshot.getMcpServerNames());
+        LLMModelConfig llmModelConfig = snapshot.getLlmModelConfig();
+
+        // 3. 获取高可用服务商信息，指定模型时现场解析
+        long modelSelectStart = System.nanoTime();
+        ModelEntity model;
+        ProviderEntity originalProvider;
+        if (modelId != null && !modelId.trim().isEmpty()) {
+            model = getModelForChat(llmModelConfig, modelId, userId);
+            originalProvider = llmDomainService.getProvider(model.getProviderId());
+        } else {
+            model = snapshot.getDefaultModel();
+            originalProvider = snapshot.getDefaultProvider();
+        }
         HighAvailabilityResult result = highAvailabilityDomainService.selectBestProvider(model, userId, sessionId,
-                fallbackChain);
-        ProviderEntity originalProvider = llmDomainService.getProvider(model.getProviderId());
+                snapshot.getFallbackChain());
+        chatMetrics.recordStage(ChatMetrics.STAGE_MODEL_SELECT, METRICS_AGENT_TYPE, modelSelectStart);
         ProviderEntity provider = result.getProvider();
         ModelEntity selectedModel = result.getModel();
         String instanceId = result.getInstanceId();
         provider.isActive();
 
-        // 5. 创建并配置环境对象
+        // 4. 创建并配置环境对象
         ChatContext chatContext = createChatContext(chatRequest, userId, agent, model, selectedModel, originalProvider,
                 provider, llmModelConfig, mcpServerNames, instanceId);
-        setupContextAndHistory(chatContext, chatRequest);
+        chatContext.setAgentId(snapshot.getAgentId());
+        chatContext.setStaticSystemPrompt(snapshot.getStaticSystemPrompt());
+        chatContext.setFallbackChain(snapshot.getFallbackChain());
+        chatMetrics.timeStage(ChatMetrics.STAGE_CONTEXT, METRICS_AGENT_TYPE,
+                () -> setupContextAndHistory(chatContext, chatRequest));
 
         return chatContext;
     }
@@ -655,6 +758,7 @@ public class ConversationAppService {
         // 7. 创建并配置环境对象
         ChatContext chatContext = createWidgetChatContext(widgetChatRequest, agent, selectedModel, provider,
                 llmModelConfig, mcpServerNames, instanceId, publicId, creatorUserId);
+        chatContext.setAgentId(agentId);
         setupWidgetContextAndHistory(chatContext, widgetChatRequest);
 
         return chatContext;
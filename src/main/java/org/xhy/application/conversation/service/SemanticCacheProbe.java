@@ -0,0 +1,78 @@
+package org.xhy.application.conversation.service;
+
+import dev.langchain4j.data.embedding.Embedding;
+import org.xhy.domain.semanticcache.model.SemanticCacheEntryEntity;
+
+/** 一轮对话的语义缓存查询结果 未命中时保留问题向量，回答生成后直接用于写入缓存 */
+public class SemanticCacheProbe {
+
+    private final String agentId;
+
+    private final String scopeKey;
+
+    /** 规范化后的问题 */
+    private final String question;
+
+    private final String questionHash;
+
+    /** 问题向量，精确命中时不计算 */
+    private Embedding questionEmbedding;
+
+    /** 命中的条目，未命中为null */
+    private SemanticCacheEntryEntity hit;
+
+    /** 回答是否可以写入缓存，注入了用户记忆等个性化内容时不可写 */
+    private volatile boolean cacheable = true;
+
+    public SemanticCacheProbe(String agentId, String scopeKey, String question, String questionHash) {
+        this.agentId = agentId;
+        this.scopeKey = scopeKey;
+        this.question = question;
+        this.questionHash = questionHash;
+    }
+
+    public String getAgentId() {
+        return agentId;
+    }
+
+    public String getScopeKey() {
+        return scopeKey;
+    }
+
+    public String getQuestion() {
+        return question;
+    }
+
+    public String getQuestionHash() {
+        return questionHash;
+    }
+
+    public Embedding getQuestionEmbedding() {
+        return questionEmbedding;
+    }
+
+    public void setQuestionEmbedding(Embedding questionEmbedding) {
+        this.questionEmbedding = questionEmbedding;
+    }
+
+    public SemanticCacheEntryEntity getHit() {
+        return hit;
+    }
+
+    public void setHit(SemanticCacheEntryEntity hit) {
+        this.hit = hit;
+    }
+
+    public boolean isHit() {
+        return hit != null;
+    }
+
+    public boolean isCacheable() {
+        return cacheable;
+    }
+
+    /** 本轮回答包含个性化内容，不写入缓存 */
+    public void markUncacheable() {
+        this.cacheable = false;
+    }
+}
@@ -0,0 +1,313 @@
+package org.xhy.application.conversation.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.TokenUsage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.xhy.application.conversation.dto.SemanticCacheStatsDTO;
+import org.xhy.application.conversation.service.handler.context.ChatContext;
+import org.xhy.domain.agent.model.AgentEntity;
+import org.xhy.domain.llm.model.ModelEntity;
+import org.xhy.domain.rag.model.ModelConfig;
+import org.xhy.domain.rag.model.UserRagEntity;
+import org.xhy.domain.rag.service.FileDetailDomainService;
+import org.xhy.domain.rag.service.management.UserRagDomainService;
+import org.xhy.domain.semanticcache.model.SemanticCacheEntryEntity;
+import org.xhy.domain.semanticcache.model.SemanticCacheMatch;
+import org.xhy.domain.semanticcache.model.SemanticCacheStats;
+import org.xhy.domain.semanticcache.service.SemanticCacheDomainService;
+import org.xhy.infrastructure.config.SemanticCacheProperties;
+import org.xhy.infrastructure.exception.BusinessException;
+import org.xhy.infrastructure.rag.factory.EmbeddingModelFactory;
+import org.xhy.infrastructure.rag.service.UserModelConfigResolver;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/** 语义响应缓存 开启缓存的Agent在无上下文的首问时，先按规范化问题精确匹配，再按问题向量相似度匹配已有回答，命中后直接回放。
+ *
+ * 缓存按作用域隔离：Agent内容（提示词、工具、知识库配置）、对话模型、知识库内容版本和嵌入模型任一变化都会落到新的作用域，
+ * 旧条目不再命中并随有效期清理。问题向量使用Agent创建者的默认嵌入模型计算 */
+@Component
+public class SemanticResponseCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SemanticResponseCache.class);
+
+    private final SemanticCacheDomainService semanticCacheDomainService;
+    private final UserRagDomainService userRagDomainService;
+    private final FileDetailDomainService fileDetailDomainService;
+    private final UserModelConfigResolver userModelConfigResolver;
+    private final EmbeddingModelFactory embeddingModelFactory;
+    private final SemanticCacheProperties properties;
+
+    /** 创建者ID:知识库ID -> 知识库内容版本 */
+    private final Cache<String, String> knowledgeVersions;
+
+    /** Agent ID -> 本节点的查询与命中计数 */
+    private final Map<String, LookupCounter> lookupCounters = new ConcurrentHashMap<>();
+
+    private final Counter exactHitCounter;
+    private final Counter similarHitCounter;
+    private final Counter missCounter;
+    private final Counter storeCounter;
+
+    public SemanticResponseCache(SemanticCacheDomainService semanticCacheDomainService,
+            UserRagDomainService userRagDomainService, FileDetailDomainService fileDetailDomainService,
+            UserModelConfigResolver userModelConfigResolver, EmbeddingModelFactory embeddingModelFactory,
+            SemanticCacheProperties properties, MeterRegistry registry) {
+        this.semanticCacheDomainService = semanticCacheDomainService;
+        this.userRagDomainService = userRagDomainService;
+        this.fileDetailDomainService = fileDetailDomainService;
+        this.userModelConfigResolver = userModelConfigResolver;
+        this.embeddingModelFactory = embeddingModelFactory;
+        this.properties = properties;
+        this.knowledgeVersions = CacheBuilder.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(Math.max(0, properties.getScopeCacheTtl()))).maximumSize(10000)
+                .build();
+
+        this.exactHitCounter = lookupCounter(registry, "exact_hit");
+        this.similarHitCounter = lookupCounter(registry, "similar_hit");
+        this.missCounter = lookupCounter(registry, "miss");
+        this.storeCounter = Counter.builder("agentx.semantic_cache.store").description("写入的语义缓存回答数")
+                .register(registry);
+    }
+
+    /** 查询本轮对话的缓存，Agent未开启、会话已有上下文、带附件或查询出错时返回null，出错不影响正常对话
+     *
+     * @param chatContext 对话环境
+     * @return 查询结果，命中时带缓存条目 */
+    public SemanticCacheProbe probe(ChatContext chatContext) {
+        if (!isEligible(chatContext)) {
+            return null;
+        }
+        AgentEntity agent = chatContext.getAgent();
+        String agentId = agentIdOf(chatContext);
+        try {
+            String question = normalize(chatContext.getUserMessage());
+            ModelConfig embeddingConfig = userModelConfigResolver.getUserEmbeddingModelConfig(agent.getUserId());
+            String scopeKey = buildScopeKey(chatContext, embeddingConfig);
+            SemanticCacheProbe probe = new SemanticCacheProbe(agentId, scopeKey, question, sha256(question));
+
+            // 相同问题无需向量化
+            SemanticCacheEntryEntity exact = semanticCacheDomainService.findExact(scopeKey, probe.getQuestionHash());
+            if (exact != null) {
+                recordHit(probe, exact, exactHitCounter);
+                return probe;
+            }
+
+            Embedding embedding = embeddingModelFactory
+                    .createEmbeddingModel(new EmbeddingModelFactory.EmbeddingConfig(embeddingConfig.getApiKey(),
+                            embeddingConfig.getBaseUrl(), embeddingConfig.getModelEndpoint(),
+                            embeddingConfig.getDimensions()), properties.getVectorStore().getDimension())
+                    .embed(question).content();
+            probe.setQuestionEmbedding(embedding);
+
+            SemanticCacheMatch match = semanticCacheDomainService.findSimilar(scopeKey, embedding,
+                    properties.getSimilarityThreshold());
+            if (match != null) {
+                logger.debug("语义缓存相似命中: agentId={}, similarity={}", agentId, match.getSimilarity());
+                recordHit(probe, match.getEntry(), similarHitCounter);
+            } else {
+                missCounter.increment();
+                counter(agentId).lookups.increment();
+            }
+            return probe;
+        } catch (Exception e) {
+            logger.warn("语义缓存查询失败，按未命中处理: agentId={}, error={}", agentId, e.getMessage());
+            return null;
+        }
+    }
+
+    /** 未命中时把生成的回答写入缓存，写入失败只记录日志
+     *
+     * @param probe 本轮的查询结果，可为空
+     * @param chatResponse 模型的完整响应 */
+    public void store(SemanticCacheProbe probe, ChatResponse chatResponse) {
+        if (probe == null || probe.isHit() || !probe.isCacheable() || probe.getQuestionEmbedding() == null) {
+            return;
+        }
+        String answer = chatResponse.aiMessage() != null ? chatResponse.aiMessage().text() : null;
+        if (answer == null || answer.isBlank() || answer.length() > properties.getMaxAnswerLength()) {
+            return;
+        }
+        try {
+            TokenUsage tokenUsage = chatResponse.tokenUsage();
+            SemanticCacheEntryEntity entry = new SemanticCacheEntryEntity();
+            entry.setAgentId(probe.getAgentId());
+            entry.setScopeKey(probe.getScopeKey());
+            entry.setQuestion(probe.getQuestion());
+            entry.setQuestionHash(probe.getQuestionHash());
+            entry.setAnswer(answer);
+            entry.setInputTokens(tokenUsage != null ? tokenUsage.inputTokenCount() : null);
+            entry.setOutputTokens(tokenUsage != null ? tokenUsage.outputTokenCount() : null);
+            semanticCacheDomainService.save(entry, probe.getQuestionEmbedding());
+            storeCounter.increment();
+        } catch (Exception e) {
+            logger.warn("语义缓存写入失败: agentId={}, error={}", probe.getAgentId(), e.getMessage());
+        }
+    }
+
+    /** 按分片回放缓存的回答，保持与模型流式输出相同的消息形态
+     *
+     * @param answer 缓存的回答
+     * @param sink 分片消费者 */
+    public void replay(String answer, Consumer<String> sink) {
+        int chunkSize = Math.max(1, properties.getReplayChunkSize());
+        int length = answer.length();
+        int start = 0;
+        while (start < length) {
+            int end = Math.min(length, answer.offsetByCodePoints(start, Math.min(chunkSize,
+                    answer.codePointCount(start, length))));
+            sink.accept(answer.substring(start, end));
+            start = end;
+        }
+    }
+
+    /** Agent的缓存统计 */
+    public SemanticCacheStatsDTO getStats(AgentEntity agent) {
+        SemanticCacheStats stats = semanticCacheDomainService.getStats(agent.getId());
+        LookupCounter counter = lookupCounters.get(agent.getId());
+        long lookups = counter != null ? counter.lookups.sum() : 0;
+        long hits = counter != null ? counter.hits.sum() : 0;
+
+        SemanticCacheStatsDTO dto = new SemanticCacheStatsDTO();
+        dto.setAgentId(agent.getId());
+        dto.setEnabled(Boolean.TRUE.equals(agent.getSemanticCacheEnabled()));
+        dto.setEntryCount(stats.getEntryCount());
+        dto.setTotalHits(stats.getHitCount());
+        dto.setSavedInputTokens(stats.getSavedInputTokens());
+        dto.setSavedOutputTokens(stats.getSavedOutputTokens());
+        dto.setLookups(lookups);
+        dto.setHits(hits);
+        dto.setHitRate(lookups > 0 ? (double) hits / lookups : 0);
+        return dto;
+    }
+
+    /** 清空Agent的缓存 */
+    public void evict(String agentId) {
+        semanticCacheDomainService.evictAgent(agentId);
+        lookupCounters.remove(agentId);
+    }
+
+    /** 缓存条目、计数、统计与清空都按会话绑定的Agent ID，不用发布版本快照的ID */
+    private static String agentIdOf(ChatContext chatContext) {
+        return chatContext.getAgentId() != null ? chatContext.getAgentId() : chatContext.getAgent().getId();
+    }
+
+    private boolean isEligible(ChatContext chatContext) {
+        AgentEntity agent = chatContext.getAgent();
+        if (!properties.isEnabled() || agent == null || !Boolean.TRUE.equals(agent.getSemanticCacheEnabled())) {
+            return false;
+        }
+        // 只缓存无上下文的问题，有历史消息或附件时回答依赖上下文
+        if (chatContext.getMessageHistory() != null && !chatContext.getMessageHistory().isEmpty()) {
+            return false;
+        }
+        if (chatContext.getFileUrls() != null && !chatContext.getFileUrls().isEmpty()) {
+            return false;
+        }
+        String message = chatContext.getUserMessage();
+        return message != null && !message.isBlank() && message.length() <= properties.getMaxQuestionLength();
+    }
+
+    private void recordHit(SemanticCacheProbe probe, SemanticCacheEntryEntity entry, Counter outcomeCounter) {
+        probe.setHit(entry);
+        semanticCacheDomainService.recordHit(entry.getId());
+        outcomeCounter.increment();
+        LookupCounter counter = counter(probe.getAgentId());
+        counter.lookups.increment();
+        counter.hits.increment();
+    }
+
+    /** 作用域摘要：Agent内容、对话模型、知识库内容版本和嵌入模型 */
+    private String buildScopeKey(ChatContext chatContext, ModelConfig embeddingConfig) {
+        AgentEntity agent = chatContext.getAgent();
+        ModelEntity model = chatContext.getOriginalModel() != null
+                ? chatContext.getOriginalModel()
+                : chatContext.getModel();
+
+        StringBuilder scope = new StringBuilder();
+        scope.append(agentIdOf(chatContext)).append('\n');
+        scope.append(agent.getSystemPrompt()).append('\n');
+        scope.append(agent.getToolIds()).append('\n');
+        scope.append(agent.getToolPresetParams()).append('\n');
+        scope.append(model != null ? model.getId() : null).append('\n');
+        scope.append(embeddingConfig.getModelEndpoint()).append('\n');
+
+        List<String> knowledgeBaseIds = agent.getKnowledgeBaseIds() != null
+                ? new ArrayList<>(agent.getKnowledgeBaseIds())
+                : new ArrayList<>();
+        Collections.sort(knowledgeBaseIds);
+        for (String knowledgeBaseId : knowledgeBaseIds) {
+            scope.append(knowledgeBaseId).append('=').append(getKnowledgeVersion(agent.getUserId(), knowledgeBaseId))
+                    .append('\n');
+        }
+        return sha256(scope.toString());
+    }
+
+    /** 知识库内容版本：创建者安装的版本与数据集文件的变化 */
+    private String getKnowledgeVersion(String ownerId, String knowledgeBaseId) {
+        try {
+            return knowledgeVersions.get(ownerId + ":" + knowledgeBaseId, () -> {
+                UserRagEntity installed = userRagDomainService.findInstalledRagByOriginalId(ownerId, knowledgeBaseId);
+                String files = fileDetailDomainService.getDatasetContentVersion(knowledgeBaseId);
+                if (installed == null) {
+                    return "none|" + files;
+                }
+                return installed.getRagVersionId() + "|" + installed.getInstallType() + "|" + installed.getUpdatedAt()
+                        + "|" + files;
+            });
+        } catch (ExecutionException e) {
+            throw new BusinessException("获取知识库版本失败: " + knowledgeBaseId, e.getCause());
+        }
+    }
+
+    private LookupCounter counter(String agentId) {
+        return lookupCounters.computeIfAbsent(agentId, id -> new LookupCounter());
+    }
+
+    private static Counter lookupCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("agentx.semantic_cache.lookup").description("语义缓存查询次数").tag("outcome", outcome)
+                .register(registry);
+    }
+
+    /** 去掉首尾空白并合并连续空白 */
+    private static String normalize(String question) {
+        return question.trim().replaceAll("\\s+", " ");
+    }
+
+    private static String sha256(String content) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] digest = md.digest(content.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (Exception e) {
+            throw new BusinessException("计算hash失败", e);
+        }
+    }
+
+    /** 单个Agent的查询计数 */
+    private static final class LookupCounter {
+        private final LongAdder lookups = new LongAdder();
+        private final LongAdder hits = new LongAdder();
+    }
+}
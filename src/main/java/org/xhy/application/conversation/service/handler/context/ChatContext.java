@@ -1,5 +1,6 @@
 package org.xhy.application.conversation.service.handler.context;
 
+import org.xhy.application.conversation.service.SemanticCacheProbe;
 import org.xhy.domain.agent.model.AgentEntity;
 import org.xhy.domain.agent.model.LLMModelConfig;
 import org.xhy.domain.conversation.model.ContextEntity;
@@ -21,6 +22,9 @@ public class ChatContext {
     /** 用户消息 */
     private String userMessage;
 
+    /** 会话绑定的Agent ID，安装者使用发布版本时agent为版本快照，其ID与此不同 */
+    private String agentId;
+
     /** 智能体实体 */
     private AgentEntity agent;
 
@@ -66,6 +70,15 @@ public class ChatContext {
     /** 公开访问ID（嵌入模式使用） */
     private String publicId;
 
+    /** 运行时快照中预先渲染的静态系统提示词，为空时由处理器按Agent现场拼接 */
+    private String staticSystemPrompt;
+
+    /** 降级链中的模型ID，流式调用对冲时从中选取备用模型 */
+    private List<String> fallbackChain;
+
+    /** 本轮的语义缓存查询结果，未开启缓存或不满足缓存条件时为空 */
+    private SemanticCacheProbe semanticCacheProbe;
+
     public String getSessionId() {
         return sessionId;
     }
@@ -90,6 +103,14 @@ public class ChatContext {
         this.userMessage = userMessage;
     }
 
+    public String getAgentId() {
+        return agentId;
+    }
+
+    public void setAgentId(String agentId) {
+        this.agentId = agentId;
+    }
+
     public AgentEntity getAgent() {
         return agent;
     }
@@ -210,4 +231,27 @@ public class ChatContext {
         this.publicId = publicId;
     }
 
+    public String getStaticSystemPrompt() {
+        return staticSystemPrompt;
+    }
+
+    public void setStaticSystemPrompt(String staticSystemPrompt) {
+        this.staticSystemPrompt = staticSystemPrompt;
+    }
+
+    public List<String> getFallbackChain() {
+        return fallbackChain;
+    }
+
+    public void setFallbackChain(List<String> fallbackChain) {
+        this.fallbackChain = fallbackChain;
+    }
+
+    public SemanticCacheProbe getSemanticCacheProbe() {
+        return semanticCacheProbe;
+    }
+
+    public void setSemanticCacheProbe(SemanticCacheProbe semanticCacheProbe) {
+        this.semanticCacheProbe = semanticCacheProbe;
+    }
 }
@@ -17,10 +17,13 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.util.ClassUtils;
 import org.xhy.application.billing.dto.RuleContext;
 import org.xhy.application.billing.service.BillingService;
 import org.xhy.application.conversation.dto.AgentChatResponse;
 import org.xhy.application.conversation.service.ChatSessionManager;
+import org.xhy.application.conversation.service.SemanticCacheProbe;
+import org.xhy.application.conversation.service.SemanticResponseCache;
 import org.xhy.application.conversation.service.handler.context.AgentPromptTemplates;
 import org.xhy.application.conversation.service.handler.context.ChatContext;
 import org.xhy.application.conversation.service.message.builtin.BuiltInToolRegistry;
@@ -51,6 +54,8 @@ import org.xhy.domain.user.service.UserSettingsDomainService;
 import org.xhy.infrastructure.exception.BusinessException;
 import org.xhy.infrastructure.exception.InsufficientBalanceException;
 import org.xhy.infrastructure.llm.LLMServiceFactory;
+import org.xhy.infrastructure.llm.hedge.HedgedStreamingClientFactory;
+import org.xhy.infrastructure.metrics.ChatMetrics;
 import org.xhy.infrastructure.transport.MessageTransport;
 
 import javax.annotation.Nullable;
@@ -81,6 +86,12 @@ public abstract class AbstractMessageHandler {
     protected MemoryDomainService memoryDomainService;
     @Autowired
     protected MemoryExtractorService memoryExtractorService;
+    @Autowired
+    protected ChatMetrics chatMetrics;
+    @Autowired
+    protected HedgedStreamingClientFactory hedgedStreamingClientFactory;
+    @Autowired
+    protected SemanticResponseCache semanticResponseCache;
     // 无需事件或单独服务，直接调用异步方法
     // 记忆注入常量（默认开启）
     private static final String MEMORY_SECTION_TITLE = "[记忆要点]";
@@ -116,7 +127,8 @@ public abstract class AbstractMessageHandler {
         onChatStart(chatContext);
 
         // 3. 检查用户余额是否足够
-        checkBalanceBeforeChat(chatContext.getUserId(), transport, connection);
+        chatMetrics.timeStage(ChatMetrics.STAGE_BALANCE, getMetricsAgentType(),
+                () -> checkBalanceBeforeChat(chatContext.getUserId(), transport, connection));
 
         // 4. 创建消息实体
         MessageEntity llmMessageEntity = createLlmMessage(chatContext);
@@ -125,16 +137,23 @@ public abstract class AbstractMessageHandler {
         // 5. 调用用户消息处理完成钩子
         onUserMessageProcessed(chatContext, userMessageEntity);
 
-        // 6. 初始化聊天内存
+        // 6. 语义缓存命中时直接回放缓存的回答
+        if (replayCachedAnswer(chatContext, connection, transport, userMessageEntity, llmMessageEntity)) {
+            return connection;
+        }
+
+        // 7. 初始化聊天内存
         MessageWindowChatMemory memory = initMemory();
 
-        // 7. 构建历史消息
-        buildHistoryMessage(chatContext, memory);
+        // 8. 构建历史消息
+        chatMetrics.timeStage(ChatMetrics.STAGE_HISTORY, getMetricsAgentType(),
+                () -> buildHistoryMessage(chatContext, memory));
 
-        // 8. 根据子类决定是否需要工具
-        ToolProvider toolProvider = provideTools(chatContext);
+        // 9. 根据子类决定是否需要工具
+        ToolProvider toolProvider = chatMetrics.timeStage(ChatMetrics.STAGE_TOOL_PROVIDER, getMetricsAgentType(),
+                () -> provideTools(chatContext));
 
-        // 9. 根据是否流式选择不同的处理方式
+        // 10. 根据是否流式选择不同的处理方式
         if (chatContext.isStreaming()) {
             processStreamingChat(chatContext, connection, transport, userMessageEntity, llmMessageEntity, memory,
                     toolProvider);
@@ -146,6 +165,32 @@ public abstract class AbstractMessageHandler {
         return connection;
     }
 
+    /** 查询语义缓存，命中时保存消息并按分片回放缓存的回答，不调用模型也不计费
+     *
+     * @return 是否已由缓存完成本轮对话 */
+    private <T> boolean replayCachedAnswer(ChatContext chatContext, T connection, MessageTransport<T> transport,
+            MessageEntity userEntity, MessageEntity llmEntity) {
+        SemanticCacheProbe probe = semanticResponseCache.probe(chatContext);
+        chatContext.setSemanticCacheProbe(probe);
+        if (probe == null || !probe.isHit()) {
+            return false;
+        }
+
+        String answer = probe.getHit().getAnswer();
+        this.saveMessageAndUpdateContext(chatContext, userEntity);
+        llmEntity.setContent(answer);
+        messageDomainService.saveMessageAndUpdateContext(Collections.singletonList(llmEntity),
+                chatContext.getContextEntity());
+
+        semanticResponseCache.replay(answer,
+                chunk -> transport.sendMessage(connection, AgentChatResponse.build(chunk, MessageType.TEXT)));
+        transport.sendEndMessage(connection, AgentChatResponse.buildEndMessage(MessageType.TEXT));
+
+        onChatCompleted(chatContext, true, null);
+        smartRenameSession(chatContext);
+        return true;
+    }
+
     /** 追踪钩子方法 - 对话开始时调用 子类可以覆盖此方法实现追踪逻辑
      * 
      * @param chatContext 对话上下文 */
@@ -227,8 +272,7 @@ public abstract class AbstractMessageHandler {
             ToolProvider toolProvider) {
 
         // 获取流式LLM客户端
-        StreamingChatModel streamingClient = llmServiceFactory.getStreamingClient(chatContext.getProvider(),
-                chatContext.getModel());
+        StreamingChatModel streamingClient = createStreamingClient(chatContext);
 
         // 创建流式Agent
         Agent agent = buildStreamingAgent(streamingClient, memory, toolProvider, chatContext.getAgent());
@@ -237,6 +281,61 @@ public abstract class AbstractMessageHandler {
         processChat(agent, connection, transport, chatContext, userEntity, llmEntity);
     }
 
+    /** 创建流式客户端 配置了降级链时包装为对冲客户端：主模型首Token超时后向降级链中的下一个模型发出对冲请求，
+     * 备用模型胜出时把上下文切换到备用模型，后续的计费、追踪和消息记录都只按胜出的调用进行 */
+    protected StreamingChatModel createStreamingClient(ChatContext chatContext) {
+        ModelEntity primaryModel = chatContext.getModel();
+        ProviderEntity primaryProvider = chatContext.getProvider();
+        StreamingChatModel primary = llmServiceFactory.getStreamingClient(primaryProvider, primaryModel);
+
+        List<String> fallbackChain = chatContext.getFallbackChain();
+        if (!hedgedStreamingClientFactory.isEnabled() || CollectionUtil.isEmpty(fallbackChain)) {
+            return primary;
+        }
+
+        String primaryInstanceId = chatContext.getInstanceId();
+        Set<String> excludedModelIds = new HashSet<>();
+        excludedModelIds.add(primaryModel.getId());
+        if (chatContext.getOriginalModel() != null) {
+            excludedModelIds.add(chatContext.getOriginalModel().getId());
+        }
+        AtomicReference<HighAvailabilityResult> backup = new AtomicReference<>();
+
+        return hedgedStreamingClientFactory.wrap(primaryModel.getId(), primary, () -> {
+            for (String modelId : fallbackChain) {
+                if (modelId == null || excludedModelIds.contains(modelId)) {
+                    continue;
+                }
+                ModelEntity model = llmDomainService.findModelById(modelId);
+                if (model == null || !Boolean.TRUE.equals(model.getStatus())) {
+                    continue;
+                }
+                // 备用模型同样经高可用网关选实例，胜出后按该实例上报调用结果
+                HighAvailabilityResult result = highAvailabilityDomainService.selectBestProvider(model,
+                        chatContext.getUserId(), chatContext.getSessionId());
+                ModelEntity selectedModel = result.getModel();
+                ProviderEntity provider = result.getProvider();
+                if (excludedModelIds.contains(selectedModel.getId()) || provider == null
+                        || !Boolean.TRUE.equals(provider.getStatus())) {
+                    continue;
+                }
+                backup.set(result);
+                return llmServiceFactory.getStreamingClient(provider, selectedModel);
+            }
+            return null;
+        }, elapsedMillis -> {
+            // 主模型按超时失败上报，胜出的备用模型由后续回调按正常流程上报和计费
+            highAvailabilityDomainService.reportCallResult(primaryInstanceId, primaryModel.getId(), false,
+                    elapsedMillis, "首Token超时，已被对冲请求取代");
+            HighAvailabilityResult winner = backup.get();
+            chatContext.setModel(winner.getModel());
+            chatContext.setProvider(winner.getProvider());
+            chatContext.setInstanceId(winner.getInstanceId());
+            logger.info("会话{}改用对冲备用模型: {} -> {}", chatContext.getSessionId(), primaryModel.getModelId(),
+                    winner.getModel().getModelId());
+        });
+    }
+
     /** 同步聊天处理 */
     protected <T> void processSyncChat(ChatContext chatContext, T connection, MessageTransport<T> transport,
             MessageEntity userEntity, MessageEntity llmEntity, MessageWindowChatMemory memory,
@@ -254,6 +353,7 @@ public abstract class AbstractMessageHandler {
 
         // 3. 记录调用开始时间
         long startTime = System.currentTimeMillis();
+        ChatMetrics.ModelCallTimer callTimer = startModelCallTimer(chatContext);
 
         try {
 
@@ -263,6 +363,9 @@ public abstract class AbstractMessageHandler {
             // 4. 构建同步Agent并调用
             ChatResponse chatResponse = syncClient.chat(messages);
 
+            callTimer.onComplete(chatResponse.tokenUsage().inputTokenCount(),
+                    chatResponse.tokenUsage().outputTokenCount());
+
             // 5. 处理响应 - 设置消息token
             this.setMessageTokenCount(chatContext.getMessageHistory(), userEntity, llmEntity, chatResponse);
 
@@ -280,6 +383,7 @@ public abstract class AbstractMessageHandler {
             AgentChatResponse response = new AgentChatResponse(chatResponse.aiMessage().text(), true);
             response.setMessageType(MessageType.TEXT);
             transport.sendEndMessage(connection, response);
+            semanticResponseCache.store(chatContext.getSemanticCacheProbe(), chatResponse);
 
             // 9. 上报调用成功结果
             long latency = System.currentTimeMillis() - startTime;
@@ -294,6 +398,8 @@ public abstract class AbstractMessageHandler {
             onChatCompleted(chatContext, true, null);
 
         } catch (Exception e) {
+            callTimer.onError();
+
             // 直接发送错误消息
             AgentChatResponse errorResponse = AgentChatResponse.buildEndMessage(e.getMessage(), MessageType.TEXT);
             transport.sendMessage(connection, errorResponse);
@@ -338,8 +444,11 @@ public abstract class AbstractMessageHandler {
 
         // 记录调用开始时间
         long startTime = System.currentTimeMillis();
+        ChatMetrics.ModelCallTimer callTimer = startModelCallTimer(chatContext);
 
         tokenStream.onError(throwable -> {
+            callTimer.onError();
+
             // 直接发送错误消息，transport内部处理连接异常
             transport.sendMessage(connection,
                     AgentChatResponse.buildEndMessage(throwable.getMessage(), MessageType.TEXT));
@@ -356,6 +465,7 @@ public abstract class AbstractMessageHandler {
 
         // 部分响应处理
         tokenStream.onPartialResponse(reply -> {
+            callTimer.onPartial();
             messageBuilder.get().append(reply);
             // 删除换行后消息为空字符串
             if (messageBuilder.get().toString().trim().isEmpty()) {
@@ -368,8 +478,13 @@ public abstract class AbstractMessageHandler {
 
         // 完整响应处理
         tokenStream.onCompleteResponse(chatResponse -> {
+            callTimer.onComplete(chatResponse.tokenUsage().inputTokenCount(),
+                    chatResponse.tokenUsage().outputTokenCount());
 
             this.setMessageTokenCount(chatContext.getMessageHistory(), userEntity, llmEntity, chatResponse);
+            // 对冲调用可能已切换到备用模型，消息记录实际生成回复的模型
+            llmEntity.setModel(chatContext.getModel().getModelId());
+            llmEntity.setProvider(chatContext.getProvider().getId());
 
             // 按仅用户抽取策略，不记录AI文本
 
@@ -380,6 +495,7 @@ public abstract class AbstractMessageHandler {
 
             // 发送结束消息
             transport.sendEndMessage(connection, AgentChatResponse.buildEndMessage(MessageType.TEXT));
+            semanticResponseCache.store(chatContext.getSemanticCacheProbe(), chatResponse);
 
             // 上报调用成功结果
             long latency = System.currentTimeMillis() - startTime;
@@ -407,9 +523,15 @@ public abstract class AbstractMessageHandler {
 
         // 工具执行处理
         tokenStream.onToolExecuted(toolExecution -> {
+            // 工具结果依赖外部状态，本轮回答不写入语义缓存
+            if (chatContext.getSemanticCacheProbe() != null) {
+                chatContext.getSemanticCacheProbe().markUncacheable();
+            }
             if (!messageBuilder.get().isEmpty()) {
                 transport.sendMessage(connection, AgentChatResponse.buildEndMessage(MessageType.TEXT));
                 llmEntity.setContent(messageBuilder.get().toString());
+                llmEntity.setModel(chatContext.getModel().getModelId());
+                llmEntity.setProvider(chatContext.getProvider().getId());
                 messageDomainService.saveMessageAndUpdateContext(Collections.singletonList(llmEntity),
                         chatContext.getContextEntity());
                 messageBuilder.set(new StringBuilder());
@@ -477,12 +599,12 @@ public abstract class AbstractMessageHandler {
 
         // 添加内置工具（如RAG等）
         if (builtInTools != null && !builtInTools.isEmpty()) {
-            agentService.tools(builtInTools);
+            agentService.tools(chatMetrics.timeTools(builtInTools, getMetricsAgentType()));
         }
 
         // 添加外部工具提供者
         if (toolProvider != null) {
-            agentService.toolProvider(toolProvider);
+            agentService.toolProvider(chatMetrics.timeTools(toolProvider, getMetricsAgentType()));
         }
 
         return agentService.build();
@@ -518,17 +640,26 @@ public abstract class AbstractMessageHandler {
             memory.add(new AiMessage(summary));
         }
 
-        String presetToolPrompt = "";
-        // 设置预先工具设置的参数到系统提示词中
-        Map<String, Map<String, Map<String, String>>> toolPresetParams = chatContext.getAgent().getToolPresetParams();
-        if (toolPresetParams != null) {
-            presetToolPrompt = AgentPromptTemplates.generatePresetToolPrompt(toolPresetParams);
+        // 运行时快照已渲染好静态部分时直接复用
+        String staticSystemPrompt = chatContext.getStaticSystemPrompt();
+        if (staticSystemPrompt == null) {
+            String presetToolPrompt = "";
+            // 设置预先工具设置的参数到系统提示词中
+            Map<String, Map<String, Map<String, String>>> toolPresetParams = chatContext.getAgent()
+                    .getToolPresetParams();
+            if (toolPresetParams != null) {
+                presetToolPrompt = AgentPromptTemplates.generatePresetToolPrompt(toolPresetParams);
+            }
+            staticSystemPrompt = chatContext.getAgent().getSystemPrompt() + "\n" + presetToolPrompt;
         }
 
         // 读取长期记忆，组装为要点，直接合入系统提示词尾部
         String memorySection = buildMemorySection(chatContext);
-        String fullSystemPrompt = chatContext.getAgent().getSystemPrompt() + "\n" + presetToolPrompt
-                + (memorySection.isEmpty() ? "" : ("\n" + memorySection));
+        String fullSystemPrompt = staticSystemPrompt + (memorySection.isEmpty() ? "" : ("\n" + memorySection));
+        // 注入了用户记忆的回答带有个性化内容，不写入语义缓存
+        if (!memorySection.isEmpty() && chatContext.getSemanticCacheProbe() != null) {
+            chatContext.getSemanticCacheProbe().markUncacheable();
+        }
 
         memory.add(new SystemMessage(fullSystemPrompt));
         List<MessageEntity> messageHistory = chatContext.getMessageHistory();
@@ -560,8 +691,9 @@ public abstract class AbstractMessageHandler {
                     || !StringUtils.isNotBlank(chatContext.getUserMessage())) {
                 return "";
             }
-            var results = memoryDomainService.searchRelevant(chatContext.getUserId(), chatContext.getUserMessage(),
-                    topK);
+            var results = chatMetrics.timeStage(ChatMetrics.STAGE_MEMORY_RECALL, getMetricsAgentType(),
+                    () -> memoryDomainService.searchRelevant(chatContext.getUserId(), chatContext.getUserMessage(),
+                            topK));
             if (results == null || results.isEmpty()) {
                 return "";
             }
@@ -659,7 +791,8 @@ public abstract class AbstractMessageHandler {
             RuleContext billingContext = createBillingContext(chatContext, inputTokens, outputTokens);
 
             // 执行计费
-            billingService.charge(billingContext);
+            chatMetrics.timeStage(ChatMetrics.STAGE_BILLING, getMetricsAgentType(),
+                    () -> billingService.charge(billingContext));
 
             logger.info("模型调用计费成功 - 用户: {}, 模型: {}, 输入Token: {}, 输出Token: {}, 费用已扣除", chatContext.getUserId(),
                     chatContext.getModel().getId(), inputTokens, outputTokens);
@@ -744,6 +877,23 @@ public abstract class AbstractMessageHandler {
                 .build();
     }
 
+    /** 指标中的处理器类型，如AgentMessageHandler为agent */
+    protected String getMetricsAgentType() {
+        String name = ClassUtils.getUserClass(getClass()).getSimpleName();
+        if (name.endsWith("MessageHandler")) {
+            name = name.substring(0, name.length() - "MessageHandler".length());
+        }
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /** 开始一次模型调用的指标计时 */
+    protected ChatMetrics.ModelCallTimer startModelCallTimer(ChatContext chatContext) {
+        ProviderEntity provider = chatContext.getProvider();
+        return chatMetrics.startModelCall(chatContext.getModel().getModelId(),
+                provider != null && provider.getProtocol() != null ? provider.getProtocol().name() : null,
+                getMetricsAgentType());
+    }
+
     /** 构建工具调用信息
      * 
      * @param toolExecution 工具执行信息
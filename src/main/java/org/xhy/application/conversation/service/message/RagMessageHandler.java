@@ -35,6 +35,7 @@ import org.xhy.domain.plan.service.PlanDomainService;
 import org.xhy.domain.user.service.AccountDomainService;
 import org.xhy.domain.user.service.UserSettingsDomainService;
 import org.xhy.infrastructure.llm.LLMServiceFactory;
+import org.xhy.infrastructure.metrics.ChatMetrics;
 import org.xhy.infrastructure.transport.MessageTransport;
 
 import java.util.ArrayList;
@@ -130,16 +131,16 @@ public class RagMessageHandler extends AbstractMessageHandler {
             Thread.sleep(500);
 
             // 执行RAG检索 - 获取完整数据用于答案生成
-            List<DocumentUnitDTO> fullRetrievedDocuments;
-            if (ragContext.getUserRagId() != null) {
-                // 基于已安装知识库检索
-                fullRetrievedDocuments = ragSearchAppService.ragSearchByUserRag(ragContext.getRagSearchRequest(),
-                        ragContext.getUserRagId(), ragContext.getUserId());
-            } else {
-                // 基于数据集ID检索
-                fullRetrievedDocuments = ragSearchAppService.ragSearch(ragContext.getRagSearchRequest(),
-                        ragContext.getUserId());
-            }
+            List<DocumentUnitDTO> fullRetrievedDocuments = chatMetrics.timeStage(ChatMetrics.STAGE_RAG_RETRIEVAL,
+                    getMetricsAgentType(), () -> {
+                        if (ragContext.getUserRagId() != null) {
+                            // 基于已安装知识库检索
+                            return ragSearchAppService.ragSearchByUserRag(ragContext.getRagSearchRequest(),
+                                    ragContext.getUserRagId(), ragContext.getUserId());
+                        }
+                        // 基于数据集ID检索
+                        return ragSearchAppService.ragSearch(ragContext.getRagSearchRequest(), ragContext.getUserId());
+                    });
 
             // 转换为轻量级DTO用于前端展示
             List<RagRetrievalDocumentDTO> lightweightDocuments = convertToLightweightDTOs(fullRetrievedDocuments);
@@ -222,6 +223,7 @@ public class RagMessageHandler extends AbstractMessageHandler {
 
         // 记录调用开始时间
         long startTime = System.currentTimeMillis();
+        ChatMetrics.ModelCallTimer callTimer = startModelCallTimer(ragContext);
 
         // 思维链状态跟踪
         final boolean[] thinkingStarted = {false};
@@ -230,6 +232,7 @@ public class RagMessageHandler extends AbstractMessageHandler {
 
         // 错误处理
         tokenStream.onError(throwable -> {
+            callTimer.onError();
             transport.sendMessage(connection,
                     AgentChatResponse.buildEndMessage(throwable.getMessage(), MessageType.TEXT));
             markPlanFailed(planData, "RAG answer failed: " + throwable.getMessage());
@@ -242,6 +245,8 @@ public class RagMessageHandler extends AbstractMessageHandler {
 
         // 部分回答处理
         tokenStream.onPartialResponse(fragment -> {
+            callTimer.onPartial();
+
             // 如果有思考过程但还没结束思考，先结束思考阶段
             if (hasThinkingProcess[0] && !thinkingEnded[0]) {
                 transport.sendMessage(connection, AgentChatResponse.build("思考完成", MessageType.RAG_THINKING_END));
@@ -262,6 +267,7 @@ public class RagMessageHandler extends AbstractMessageHandler {
 
         // 思维链处理
         tokenStream.onPartialReasoning(reasoning -> {
+            callTimer.onPartial();
             hasThinkingProcess[0] = true;
             if (!thinkingStarted[0]) {
                 transport.sendMessage(connection, AgentChatResponse.build("开始思考...", MessageType.RAG_THINKING_START));
@@ -272,6 +278,8 @@ public class RagMessageHandler extends AbstractMessageHandler {
 
         // 完整响应处理
         tokenStream.onCompleteResponse(chatResponse -> {
+            callTimer.onComplete(chatResponse.tokenUsage().inputTokenCount(),
+                    chatResponse.tokenUsage().outputTokenCount());
             this.setMessageTokenCount(ragContext.getMessageHistory(), userEntity, llmEntity, chatResponse);
 
             messageDomainService.updateMessage(userEntity);
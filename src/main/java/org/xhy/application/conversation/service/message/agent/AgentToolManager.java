@@ -7,16 +7,21 @@ import dev.langchain4j.mcp.client.transport.McpTransport;
 import dev.langchain4j.mcp.client.transport.PresetParameter;
 import dev.langchain4j.mcp.client.transport.http.HttpMcpTransport;
 import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.service.tool.ToolExecutor;
 import dev.langchain4j.service.tool.ToolProvider;
+import dev.langchain4j.service.tool.ToolProviderResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import org.xhy.application.conversation.service.McpUrlProviderService;
 import org.xhy.application.conversation.service.handler.context.ChatContext;
+import org.xhy.infrastructure.config.ExecutionProperties;
+import org.xhy.infrastructure.ratelimit.service.DownstreamLimiter;
 import org.xhy.infrastructure.utils.JsonUtils;
 
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -27,9 +32,11 @@ public class AgentToolManager {
     private static final Logger logger = LoggerFactory.getLogger(AgentToolManager.class);
 
     private final McpUrlProviderService mcpUrlProviderService;
+    private final DownstreamLimiter downstreamLimiter;
 
-    public AgentToolManager(McpUrlProviderService mcpUrlProviderService) {
+    public AgentToolManager(McpUrlProviderService mcpUrlProviderService, DownstreamLimiter downstreamLimiter) {
         this.mcpUrlProviderService = mcpUrlProviderService;
+        this.downstreamLimiter = downstreamLimiter;
     }
 
     /** 创建工具提供者（支持全局/用户隔离工具自动识别）
@@ -44,7 +51,8 @@ public class AgentToolManager {
             return null;
         }
         // Map的逻辑： 服务商名 - 工具名 - 工具的参数k-v键值对
-        List<McpClient> mcpClients = new ArrayList<>();
+        // 工具服务名 -> 工具提供者，每个工具服务单独限制并发
+        Map<String, ToolProvider> serverProviders = new LinkedHashMap<>();
 
         for (String mcpServerName : mcpServerNames) {
             String sseUrl = mcpUrlProviderService.getMcpToolUrl(mcpServerName, userId);
@@ -73,9 +81,24 @@ public class AgentToolManager {
             } catch (Exception e) {
                 logger.warn("MCP tools list failed: server={}, url={}, err={}", mcpServerName, sseUrl, e.getMessage());
             }
-            mcpClients.add(mcpClient);
+            serverProviders.put(mcpServerName, McpToolProvider.builder().mcpClients(List.of(mcpClient)).build());
         }
-        return McpToolProvider.builder().mcpClients(mcpClients).build();
+        return request -> {
+            ToolProviderResult.Builder builder = ToolProviderResult.builder();
+            serverProviders.forEach((serverName, provider) -> {
+                ToolProviderResult result = provider.provideTools(request);
+                if (result != null && result.tools() != null) {
+                    result.tools().forEach((spec, executor) -> builder.add(spec, limitTool(serverName, executor)));
+                }
+            });
+            return builder.build();
+        };
+    }
+
+    /** 工具调用占用所属工具服务的并发许可 */
+    private ToolExecutor limitTool(String serverName, ToolExecutor executor) {
+        return (request, memoryId) -> downstreamLimiter.call(ExecutionProperties.DOWNSTREAM_TOOL, serverName,
+                () -> executor.execute(request, memoryId));
     }
 
     /** 获取可用的工具列表
@@ -20,6 +20,7 @@ import org.xhy.domain.llm.service.LLMDomainService;
 import org.xhy.domain.user.service.AccountDomainService;
 import org.xhy.domain.user.service.UserSettingsDomainService;
 import org.xhy.infrastructure.llm.LLMServiceFactory;
+import org.xhy.infrastructure.metrics.ChatMetrics;
 import org.xhy.infrastructure.transport.MessageTransport;
 
 import java.util.concurrent.atomic.AtomicReference;
@@ -56,14 +57,17 @@ public class PreviewMessageHandler extends AbstractMessageHandler {
         AtomicReference<StringBuilder> messageBuilder = new AtomicReference<>(new StringBuilder());
 
         TokenStream tokenStream = agent.chat(chatContext.getUserMessage());
+        ChatMetrics.ModelCallTimer callTimer = startModelCallTimer(chatContext);
 
         tokenStream.onError(throwable -> {
+            callTimer.onError();
             transport.sendMessage(connection,
                     AgentChatResponse.buildEndMessage(throwable.getMessage(), MessageType.TEXT));
         });
 
         // 部分响应处理
         tokenStream.onPartialResponse(reply -> {
+            callTimer.onPartial();
             messageBuilder.get().append(reply);
             // 删除换行后消息为空字符串
             if (messageBuilder.get().toString().trim().isEmpty()) {
@@ -74,6 +78,9 @@ public class PreviewMessageHandler extends AbstractMessageHandler {
 
         // 完整响应处理
         tokenStream.onCompleteResponse(chatResponse -> {
+            callTimer.onComplete(chatResponse.tokenUsage().inputTokenCount(),
+                    chatResponse.tokenUsage().outputTokenCount());
+
             // 发送结束消息
             transport.sendEndMessage(connection, AgentChatResponse.buildEndMessage(MessageType.TEXT));
 
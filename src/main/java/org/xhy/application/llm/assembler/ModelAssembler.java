@@ -30,6 +30,7 @@ public class ModelAssembler {
         dto.setType(model.getType());
         dto.setStatus(model.getStatus());
         dto.setModelEndpoint(model.getModelEndpoint());
+        dto.setDimensions(model.getDimensions());
         dto.setCreatedAt(model.getCreatedAt());
         dto.setUpdatedAt(model.getUpdatedAt());
         dto.setIsOfficial(model.getOfficial());
@@ -64,6 +65,7 @@ public class ModelAssembler {
         model.setType(request.getType());
         model.setCreatedAt(LocalDateTime.now());
         model.setModelEndpoint(request.getModelEndpoint());
+        model.setDimensions(request.getDimensions());
         model.setUpdatedAt(LocalDateTime.now());
         model.setModelEndpoint(request.getModelEndpoint());
         if (ObjectUtils.isEmpty(request.getModelEndpoint())) {
@@ -81,6 +83,7 @@ public class ModelAssembler {
         model.setDescription(request.getDescription());
         model.setModelId(request.getModelId());
         model.setModelEndpoint(request.getModelEndpoint());
+        model.setDimensions(request.getDimensions());
         model.setCreatedAt(LocalDateTime.now());
         model.setUpdatedAt(LocalDateTime.now());
         model.setId(request.getId());
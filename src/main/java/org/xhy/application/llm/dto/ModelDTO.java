@@ -25,6 +25,8 @@ public class ModelDTO {
     private ModelType type;
     /** 模型部署名称 */
     private String modelEndpoint;
+    /** 嵌入模型输出维度 */
+    private Integer dimensions;
     /** 是否官方 */
     private Boolean isOfficial;
     /** 模型状态 */
@@ -137,4 +139,12 @@ public class ModelDTO {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
-}
\ No newline at end of file
+
+    public Integer getDimensions() {
+        return dimensions;
+    }
+
+    public void setDimensions(Integer dimensions) {
+        this.dimensions = dimensions;
+    }
+}
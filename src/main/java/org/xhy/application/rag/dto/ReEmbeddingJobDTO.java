@@ -0,0 +1,126 @@
+package org.xhy.application.rag.dto;
+
+import java.time.LocalDateTime;
+
+/** 知识库重新向量化任务状态 */
+public class ReEmbeddingJobDTO {
+
+    /** 未执行 */
+    public static final String IDLE = "IDLE";
+    /** 执行中 */
+    public static final String RUNNING = "RUNNING";
+    /** 已完成 */
+    public static final String COMPLETED = "COMPLETED";
+    /** 异常终止 */
+    public static final String FAILED = "FAILED";
+
+    /** 任务状态 */
+    private String status;
+
+    /** 迁移目标表 */
+    private String targetTable;
+
+    /** 目标表向量维度 */
+    private Integer targetDimension;
+
+    /** 任务开始时待迁移的向量数 */
+    private Long total;
+
+    /** 已读取的向量数 */
+    private Long processed;
+
+    /** 已写入目标表的向量数 */
+    private Long migrated;
+
+    /** 未能迁移的向量数 */
+    private Long failed;
+
+    /** 开始时间 */
+    private LocalDateTime startedAt;
+
+    /** 结束时间 */
+    private LocalDateTime finishedAt;
+
+    /** 异常终止原因 */
+    private String error;
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getTargetTable() {
+        return targetTable;
+    }
+
+    public void setTargetTable(String targetTable) {
+        this.targetTable = targetTable;
+    }
+
+    public Integer getTargetDimension() {
+        return targetDimension;
+    }
+
+    public void setTargetDimension(Integer targetDimension) {
+        this.targetDimension = targetDimension;
+    }
+
+    public Long getTotal() {
+        return total;
+    }
+
+    public void setTotal(Long total) {
+        this.total = total;
+    }
+
+    public Long getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(Long processed) {
+        this.processed = processed;
+    }
+
+    public Long getMigrated() {
+        return migrated;
+    }
+
+    public void setMigrated(Long migrated) {
+        this.migrated = migrated;
+    }
+
+    public Long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(Long failed) {
+        this.failed = failed;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
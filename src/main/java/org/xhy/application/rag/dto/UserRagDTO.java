@@ -58,6 +58,15 @@ public class UserRagDTO {
     /** 安装类型 */
     private InstallType installType;
 
+    /** 快照复制状态 */
+    private Integer snapshotStatus;
+
+    /** 快照复制进度（0-100） */
+    private Integer snapshotProgress;
+
+    /** 快照复制失败原因 */
+    private String snapshotError;
+
     public String getId() {
         return id;
     }
@@ -186,6 +195,30 @@ public class UserRagDTO {
         this.installType = installType;
     }
 
+    public Integer getSnapshotStatus() {
+        return snapshotStatus;
+    }
+
+    public void setSnapshotStatus(Integer snapshotStatus) {
+        this.snapshotStatus = snapshotStatus;
+    }
+
+    public Integer getSnapshotProgress() {
+        return snapshotProgress;
+    }
+
+    public void setSnapshotProgress(Integer snapshotProgress) {
+        this.snapshotProgress = snapshotProgress;
+    }
+
+    public String getSnapshotError() {
+        return snapshotError;
+    }
+
+    public void setSnapshotError(String snapshotError) {
+        this.snapshotError = snapshotError;
+    }
+
     /** 检查是否为引用类型安装
      * 
      * @return 是否为引用类型 */
@@ -0,0 +1,36 @@
+package org.xhy.application.rag.listener;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.xhy.domain.rag.event.UserRagSnapshotRequestedEvent;
+import org.xhy.domain.rag.service.management.UserRagSnapshotDomainService;
+
+/** 用户RAG快照复制事件监听器 安装记录提交后在后台线程复制快照，进度写回安装记录供安装接口轮询 */
+@Component
+public class UserRagSnapshotEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserRagSnapshotEventListener.class);
+
+    private final UserRagSnapshotDomainService userRagSnapshotService;
+
+    public UserRagSnapshotEventListener(UserRagSnapshotDomainService userRagSnapshotService) {
+        this.userRagSnapshotService = userRagSnapshotService;
+    }
+
+    /** 处理快照复制请求，必须在安装记录所在事务提交后执行，否则后台线程看不到安装记录
+     * @param event 快照复制请求事件 */
+    @Async("ragSnapshotTaskExecutor")
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSnapshotRequested(UserRagSnapshotRequestedEvent event) {
+        try {
+            userRagSnapshotService.createUserSnapshot(event.getUserRagId(), event.getRagVersionId());
+        } catch (Exception e) {
+            // 失败状态与原因已写回安装记录
+            logger.error("后台复制用户RAG快照失败: userRagId={}, error={}", event.getUserRagId(), e.getMessage());
+        }
+    }
+}
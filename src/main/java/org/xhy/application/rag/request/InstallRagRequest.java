@@ -12,6 +12,9 @@ public class InstallRagRequest {
     @NotBlank(message = "RAG版本ID不能为空")
     private String ragVersionId;
 
+    /** 是否在后台复制快照，开启后安装接口立即返回，可轮询快照复制状态 */
+    private Boolean async = false;
+
     public String getRagVersionId() {
         return ragVersionId;
     }
@@ -19,4 +22,12 @@ public class InstallRagRequest {
     public void setRagVersionId(String ragVersionId) {
         this.ragVersionId = ragVersionId;
     }
-}
\ No newline at end of file
+
+    public Boolean getAsync() {
+        return async;
+    }
+
+    public void setAsync(Boolean async) {
+        this.async = async;
+    }
+}
@@ -94,7 +94,8 @@ public class RagMarketAppService {
     @Transactional
     public UserRagDTO installRagVersion(InstallRagRequest request, String userId) {
         // 安装RAG
-        UserRagEntity userRag = userRagDomainService.installRag(userId, request.getRagVersionId());
+        UserRagEntity userRag = userRagDomainService.installRag(userId, request.getRagVersionId(),
+                Boolean.TRUE.equals(request.getAsync()));
 
         // 获取版本信息用于丰富DTO
         RagVersionEntity ragVersion = ragVersionDomainService.getRagVersion(request.getRagVersionId());
@@ -202,15 +203,27 @@ public class RagMarketAppService {
         return userRagDomainService.canUseRag(userId, ragId, ragVersionId);
     }
 
+    /** 获取已安装RAG的快照复制状态，供后台安装时轮询
+     *
+     * @param userRagId 用户RAG安装记录ID
+     * @param userId 用户ID
+     * @return 包含快照复制状态与进度的安装信息 */
+    public UserRagDTO getSnapshotStatus(String userRagId, String userId) {
+        UserRagEntity userRag = userRagDomainService.getUserRag(userId, userRagId);
+        return UserRagAssembler.toDTO(userRag);
+    }
+
     /** 切换已安装RAG的版本
      *
      * @param userRagId 用户RAG安装记录ID
      * @param targetVersionId 目标版本ID
      * @param userId 用户ID
+     * @param async 是否在后台复制快照
      * @return 切换后的RAG信息 */
     @Transactional
-    public UserRagDTO switchRagVersion(String userRagId, String targetVersionId, String userId) {
-        UserRagEntity updatedUserRag = userRagDomainService.switchRagVersion(userId, userRagId, targetVersionId);
+    public UserRagDTO switchRagVersion(String userRagId, String targetVersionId, String userId, boolean async) {
+        UserRagEntity updatedUserRag = userRagDomainService.switchRagVersion(userId, userRagId, targetVersionId,
+                async);
 
         // 根据安装类型处理数据
         UserRagDTO dto;
@@ -597,44 +597,54 @@ public class RagQaDatasetAppService {
                 throw new IllegalStateException("文件需要先完成预处理才能进行向量化");
             }
 
-            // 重置向量化状态
-            fileDetailDomainService.startFileEmbeddingProcessing(request.getFileId(), userId);
+            restartVectorization(fileEntity, request.getDatasetId(), userId);
 
-            List<DocumentUnitEntity> documentUnits = documentUnitDomainService
-                    .listDocumentsByFileAndStatus(request.getFileId(), true, null);
+        } else {
+            throw new IllegalArgumentException("不支持的处理类型: " + request.getProcessType());
+        }
+    }
 
-            if (documentUnits.isEmpty()) {
-                throw new IllegalStateException("文件没有找到可用于向量化的语料数据");
-            }
+    /** 重置文件的向量化状态并发送批量向量化消息，已有向量标记为待复用
+     * @param fileEntity 文件
+     * @param datasetId 数据集ID
+     * @param userId 文件所属用户ID */
+    private void restartVectorization(FileDetailEntity fileEntity, String datasetId, String userId) {
+        String fileId = fileEntity.getId();
 
-            // 重置所有文档单元的向量化状态
-            for (DocumentUnitEntity documentUnit : documentUnits) {
-                documentUnit.setIsVector(false);
-                documentUnitDomainService.updateDocumentUnitById(documentUnit);
-            }
-            // ????????????
-            RagDocSyncStorageMessage storageMessage = new RagDocSyncStorageMessage();
-            storageMessage.setFileId(request.getFileId());
-            storageMessage.setFileName(fileEntity.getOriginalFilename());
-            storageMessage.setVector(true);
-            storageMessage.setDatasetId(request.getDatasetId());
-            storageMessage.setUserId(userId);
-            storageMessage.setBatch(true);
-            storageMessage.setEmbeddingModelConfig(userModelConfigResolver.getUserEmbeddingModelConfig(userId));
+        // 重置向量化状态
+        fileDetailDomainService.startFileEmbeddingProcessing(fileId, userId);
 
-            MessageEnvelope<RagDocSyncStorageMessage> env = MessageEnvelope.builder(storageMessage)
-                    .addEventType(EventType.DOC_SYNC_RAG)
-                    .description("Batch vectorization for file")
-                    .build();
-            messagePublisher.publish(RagDocSyncStorageEvent.route(), env);
+        List<DocumentUnitEntity> documentUnits = documentUnitDomainService.listDocumentsByFileAndStatus(fileId, true,
+                null);
 
+        if (documentUnits.isEmpty()) {
+            throw new IllegalStateException("文件没有找到可用于向量化的语料数据");
+        }
 
-        } else {
-            throw new IllegalArgumentException("不支持的处理类型: " + request.getProcessType());
+        // 重置所有文档单元的向量化状态
+        for (DocumentUnitEntity documentUnit : documentUnits) {
+            documentUnit.setIsVector(false);
+            documentUnitDomainService.updateDocumentUnitById(documentUnit);
         }
+
+        // 已有向量标记为待复用，只重新向量化内容变化的页面
+        embeddingDomainService.markEmbeddingsStale(fileId);
+
+        RagDocSyncStorageMessage storageMessage = new RagDocSyncStorageMessage();
+        storageMessage.setFileId(fileId);
+        storageMessage.setFileName(fileEntity.getOriginalFilename());
+        storageMessage.setVector(true);
+        storageMessage.setDatasetId(datasetId);
+        storageMessage.setUserId(userId);
+        storageMessage.setBatch(true);
+        storageMessage.setEmbeddingModelConfig(userModelConfigResolver.getUserEmbeddingModelConfig(userId));
+
+        MessageEnvelope<RagDocSyncStorageMessage> env = MessageEnvelope.builder(storageMessage)
+                .addEventType(EventType.DOC_SYNC_RAG).description("Batch vectorization for file").build();
+        messagePublisher.publish(RagDocSyncStorageEvent.route(), env);
     }
 
-    /** 清理文件的已有语料和向量数据
+    /** 清理文件的已有语料，向量标记为待复用（内容未变化的片段重新处理时直接复用，其余在处理完成后删除）
      * @param fileId 文件ID */
     private void cleanupExistingDocumentUnits(String fileId) {
         try {
@@ -646,10 +656,10 @@ public class RagQaDatasetAppService {
 
                 final List<String> documentUnitEntities = Steam.of(existingUnits).map(DocumentUnitEntity::getId)
                         .toList();
-                // 删除所有文档单元（包括语料和向量数据）
+                // 删除所有文档单元，向量保留待复用
                 documentUnitDomainService.batchDeleteDocumentUnits(documentUnitEntities);
 
-                embeddingDomainService.deleteEmbedding(Collections.singletonList(fileId));
+                embeddingDomainService.markEmbeddingsStale(fileId);
                 log.info("Successfully cleaned up document units for file: {}", fileId);
             } else {
                 log.debug("No existing document units found for file: {}", fileId);
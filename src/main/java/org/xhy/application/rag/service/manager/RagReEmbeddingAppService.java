@@ -0,0 +1,125 @@
+package org.xhy.application.rag.service.manager;
+
+import jakarta.annotation.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import org.xhy.application.rag.dto.ReEmbeddingJobDTO;
+import org.xhy.domain.rag.model.ModelConfig;
+import org.xhy.domain.rag.model.VectorMigrationBatch;
+import org.xhy.domain.rag.service.VectorMigrationDomainService;
+import org.xhy.infrastructure.rag.config.EmbeddingProperties;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/** 知识库重新向量化任务 更换嵌入维度时在后台按页把当前向量表重新向量化到迁移目标表，检索在此期间仍读取当前表。
+ *
+ * 迁移步骤：配置 embedding.migration.table/dimension 后重启；调用本任务并等待完成；将 embedding.vector-store.table/dimension
+ * 切换为目标表后重启。任务期间有文件新增、修改或删除时，切换前再执行一次任务，每次执行都会先清空目标表。
+ * 任务状态只保存在执行任务的节点 */
+@Service
+public class RagReEmbeddingAppService {
+
+    private static final Logger log = LoggerFactory.getLogger(RagReEmbeddingAppService.class);
+
+    private final VectorMigrationDomainService vectorMigrationDomainService;
+
+    @Resource(name = "embeddingTaskExecutor")
+    private TaskExecutor embeddingTaskExecutor;
+
+    /** 最近一次任务的状态 */
+    private ReEmbeddingJobDTO job = idle();
+
+    public RagReEmbeddingAppService(VectorMigrationDomainService vectorMigrationDomainService) {
+        this.vectorMigrationDomainService = vectorMigrationDomainService;
+    }
+
+    /** 启动重新向量化任务，已有任务执行中时直接返回其状态
+     * @return 任务状态 */
+    public synchronized ReEmbeddingJobDTO start() {
+        if (ReEmbeddingJobDTO.RUNNING.equals(job.getStatus())) {
+            return getStatus();
+        }
+        EmbeddingProperties.Migration migration = vectorMigrationDomainService.checkConfigured();
+
+        ReEmbeddingJobDTO started = new ReEmbeddingJobDTO();
+        started.setStatus(ReEmbeddingJobDTO.RUNNING);
+        started.setTargetTable(migration.getTable());
+        started.setTargetDimension(migration.getDimension());
+        started.setTotal(vectorMigrationDomainService.countSource());
+        started.setProcessed(0L);
+        started.setMigrated(0L);
+        started.setFailed(0L);
+        started.setStartedAt(LocalDateTime.now());
+        job = started;
+
+        embeddingTaskExecutor.execute(this::run);
+        log.info("知识库重新向量化任务已启动: targetTable={}, dimension={}, total={}", started.getTargetTable(),
+                started.getTargetDimension(), started.getTotal());
+        return getStatus();
+    }
+
+    /** 获取最近一次任务的状态
+     * @return 任务状态 */
+    public synchronized ReEmbeddingJobDTO getStatus() {
+        return copy(job);
+    }
+
+    private void run() {
+        try {
+            vectorMigrationDomainService.clearTarget();
+            Map<String, ModelConfig> modelConfigs = new HashMap<>();
+            String afterId = null;
+            while (true) {
+                VectorMigrationBatch batch = vectorMigrationDomainService.migrateBatch(afterId, modelConfigs);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                progress(batch);
+                afterId = batch.getLastId();
+            }
+            finish(ReEmbeddingJobDTO.COMPLETED, null);
+        } catch (Exception e) {
+            log.error("知识库重新向量化任务异常终止", e);
+            finish(ReEmbeddingJobDTO.FAILED, e.getMessage());
+        }
+    }
+
+    private synchronized void progress(VectorMigrationBatch batch) {
+        job.setProcessed(job.getProcessed() + batch.getRead());
+        job.setMigrated(job.getMigrated() + batch.getMigrated());
+        job.setFailed(job.getFailed() + batch.getFailed());
+    }
+
+    private synchronized void finish(String status, String error) {
+        job.setStatus(status);
+        job.setError(error);
+        job.setFinishedAt(LocalDateTime.now());
+        log.info("知识库重新向量化任务结束: status={}, migrated={}, failed={}", status, job.getMigrated(),
+                job.getFailed());
+    }
+
+    private static ReEmbeddingJobDTO idle() {
+        ReEmbeddingJobDTO dto = new ReEmbeddingJobDTO();
+        dto.setStatus(ReEmbeddingJobDTO.IDLE);
+        return dto;
+    }
+
+    private static ReEmbeddingJobDTO copy(ReEmbeddingJobDTO source) {
+        ReEmbeddingJobDTO dto = new ReEmbeddingJobDTO();
+        dto.setStatus(source.getStatus());
+        dto.setTargetTable(source.getTargetTable());
+        dto.setTargetDimension(source.getTargetDimension());
+        dto.setTotal(source.getTotal());
+        dto.setProcessed(source.getProcessed());
+        dto.setMigrated(source.getMigrated());
+        dto.setFailed(source.getFailed());
+        dto.setStartedAt(source.getStartedAt());
+        dto.setFinishedAt(source.getFinishedAt());
+        dto.setError(source.getError());
+        return dto;
+    }
+}
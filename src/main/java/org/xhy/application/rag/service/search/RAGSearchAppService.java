@@ -213,6 +213,6 @@ public class RAGSearchAppService {
      * @return 嵌入模型工厂配置 */
     private EmbeddingModelFactory.EmbeddingConfig toEmbeddingConfig(ModelConfig modelConfig) {
         return new EmbeddingModelFactory.EmbeddingConfig(modelConfig.getApiKey(), modelConfig.getBaseUrl(),
-                modelConfig.getModelEndpoint());
+                modelConfig.getModelEndpoint(), modelConfig.getDimensions());
     }
 }
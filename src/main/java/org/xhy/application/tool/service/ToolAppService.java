@@ -166,6 +166,11 @@ public class ToolAppService {
         return tPage;
     }
 
+    /** 工具市场名称的前缀补全 */
+    public List<String> suggestMarketTools(String prefix) {
+        return toolVersionDomainService.suggestToolNames(prefix);
+    }
+
     public ToolVersionDTO getToolVersionDetail(String toolId, String version, String userId) {
         // 使用带权限验证的方法获取工具版本详情
         ToolVersionEntity toolVersionEntity = toolVersionDomainService.getToolVersion(toolId, version, userId);
@@ -1,29 +1,43 @@
 package org.xhy.application.tool.service;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.xhy.application.container.service.ReviewContainerService;
 import org.xhy.application.tool.service.state.AppToolStateProcessor;
 import org.xhy.application.tool.service.state.impl.*;
 import org.xhy.domain.tool.constant.ToolStatus;
 import org.xhy.domain.tool.model.ToolEntity;
 import org.xhy.domain.tool.service.ToolDomainService;
+import org.xhy.infrastructure.config.ToolWorkflowProperties;
 import org.xhy.infrastructure.exception.BusinessException;
 import org.xhy.infrastructure.github.GitHubService;
 import org.xhy.infrastructure.mcp_gateway.MCPGatewayService;
 
-import java.util.HashMap;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /** 工具状态机应用服务 - 统一管理工具状态转换
  * 
- * 职责： 1. 管理需要外部依赖的状态处理器（如调用基础设施层服务） 2. 协调领域层状态机和应用层状态处理 3. 提供统一的状态转换入口 */
+ * 职责： 1. 管理需要外部依赖的状态处理器（如调用基础设施层服务） 2. 协调领域层状态机和应用层状态处理 3. 提供统一的状态转换入口
+ *
+ * 状态流转以持久化工作流执行：工具当前状态即待执行的步骤，步骤信息（待执行标记、尝试次数、下次执行时间、租约）保存在 tools 表中。
+ * 各阶段按并发上限抢占租约执行，失败按指数退避重试，超时的步骤被取消并重试；提交结果以阶段和租约令牌为条件，
+ * 重启、超时或重新提交后旧步骤的结果不会覆盖新数据，节点重启后未完成的步骤在租约过期后由任意节点继续。 */
 @Service
 public class ToolStateStateMachineAppService {
 
@@ -33,26 +47,32 @@ public class ToolStateStateMachineAppService {
     private final MCPGatewayService mcpGatewayService;
     private final GitHubService gitHubService;
     private final ReviewContainerService reviewContainerService;
+    private final ToolWorkflowProperties properties;
 
-    private final Map<ToolStatus, AppToolStateProcessor> appProcessorMap = new HashMap<>();
-    private final ExecutorService executorService;
+    private final Map<ToolStatus, AppToolStateProcessor> appProcessorMap = new EnumMap<>(ToolStatus.class);
+
+    /** 每个阶段独立的执行线程池与并发许可，慢阶段不会占用其他阶段的线程 */
+    private final Map<ToolStatus, ExecutorService> stageExecutors = new EnumMap<>(ToolStatus.class);
+    private final Map<ToolStatus, Semaphore> stagePermits = new EnumMap<>(ToolStatus.class);
+
+    /** 执行中的步骤，用于超时取消 */
+    private final Map<String, RunningStep> runningSteps = new ConcurrentHashMap<>();
+
+    /** 提交后立即触发一次调度，避免等待下一次轮询 */
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "app-tool-state-dispatcher");
+        t.setDaemon(true);
+        return t;
+    });
 
     public ToolStateStateMachineAppService(ToolDomainService toolDomainService, MCPGatewayService mcpGatewayService,
-            GitHubService gitHubService, ReviewContainerService reviewContainerService) {
+            GitHubService gitHubService, ReviewContainerService reviewContainerService,
+            ToolWorkflowProperties properties) {
         this.toolDomainService = toolDomainService;
         this.mcpGatewayService = mcpGatewayService;
         this.gitHubService = gitHubService;
         this.reviewContainerService = reviewContainerService;
-
-        // 创建线程池用于异步状态处理
-        this.executorService = new ThreadPoolExecutor(5, // 核心线程数
-                10, // 最大线程数
-                60L, // 空闲线程存活时间
-                TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
-                    Thread t = new Thread(r, "app-tool-state-processor-thread");
-                    t.setDaemon(true);
-                    return t;
-                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        this.properties = properties;
     }
 
     /** 初始化应用层状态处理器 */
@@ -66,9 +86,28 @@ public class ToolStateStateMachineAppService {
         registerAppProcessor(new AppManualReviewProcessor());
         registerAppProcessor(new AppPublishingProcessor(gitHubService));
 
+        for (ToolStatus status : appProcessorMap.keySet()) {
+            int concurrency = properties.getConcurrency(status.name());
+            AtomicInteger threadIndex = new AtomicInteger();
+            stageExecutors.put(status, Executors.newFixedThreadPool(concurrency, r -> {
+                Thread t = new Thread(r, "app-tool-state-" + status.name().toLowerCase() + "-"
+                        + threadIndex.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }));
+            stagePermits.put(status, new Semaphore(concurrency));
+        }
+
         logger.info("工具状态处理器初始化完成，已注册 {} 个处理器。", appProcessorMap.size());
     }
 
+    @PreDestroy
+    public void destroy() {
+        dispatcher.shutdownNow();
+        // 执行中的步骤被中断后不提交结果，租约过期后由其他节点或重启后的节点重试
+        stageExecutors.values().forEach(ExecutorService::shutdownNow);
+    }
+
     /** 注册应用层状态处理器
      *
      * @param processor 状态处理器 */
@@ -80,7 +119,7 @@ public class ToolStateStateMachineAppService {
         appProcessorMap.put(processor.getStatus(), processor);
     }
 
-    /** 提交工具进行状态处理（统一入口）
+    /** 提交工具进行状态处理（统一入口）。 步骤先持久化为待执行，事务提交后立即调度
      *
      * @param toolEntity 工具实体 */
     public void submitToolForProcessing(ToolEntity toolEntity) {
@@ -88,69 +127,165 @@ public class ToolStateStateMachineAppService {
             throw new BusinessException("工具不存在");
         }
 
-        logger.info("提交工具ID: {} (当前状态: {}) 到状态处理队列。", toolEntity.getId(), toolEntity.getStatus());
-        executorService.submit(() -> processToolState(toolEntity));
-    }
+        logger.info("提交工具ID: {} (当前状态: {}) 到状态处理工作流。", toolEntity.getId(), toolEntity.getStatus());
+        toolDomainService.enqueueWorkflowStep(toolEntity.getId());
 
-    /** 处理工具状态转换（核心逻辑）
-     *
-     * @param toolEntity 工具实体 */
-    public void processToolState(ToolEntity toolEntity) {
-        final ToolStatus currentStatus = toolEntity.getStatus();
+        ToolStatus status = toolEntity.getStatus();
+        if (status == null || !appProcessorMap.containsKey(status)) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    triggerDispatch(status);
+                }
+            });
+        } else {
+            triggerDispatch(status);
+        }
+    }
 
-        AppToolStateProcessor appProcessor = appProcessorMap.get(currentStatus);
+    /** 定期调度所有阶段的待执行步骤，并取消超时的步骤 */
+    @Scheduled(fixedDelayString = "${agentx.tool-workflow.poll-interval:2000}")
+    public void pollWorkflowSteps() {
+        try {
+            cancelTimedOutSteps();
+            for (ToolStatus status : appProcessorMap.keySet()) {
+                dispatchStage(status);
+            }
+        } catch (Exception e) {
+            logger.error("调度工具状态工作流失败: {}", e.getMessage(), e);
+        }
+    }
 
-        if (appProcessor != null) {
-            processProcessor(toolEntity, appProcessor);
+    private void triggerDispatch(ToolStatus status) {
+        try {
+            dispatcher.execute(() -> dispatchStage(status));
+        } catch (RejectedExecutionException e) {
+            logger.debug("调度线程已关闭，等待下次轮询: {}", status);
         }
     }
 
-    /** 使用应用层处理器处理状态
-     *
-     * @param toolEntity 工具实体
-     * @param processor 应用层状态处理器 */
-    private void processProcessor(ToolEntity toolEntity, AppToolStateProcessor processor) {
-        final ToolStatus initialStatus = toolEntity.getStatus();
+    /** 按阶段的空闲许可数抢占待执行步骤并投递到阶段线程池 */
+    private void dispatchStage(ToolStatus status) {
+        Semaphore permits = stagePermits.get(status);
+        int available = permits.availablePermits();
+        if (available <= 0) {
+            return;
+        }
 
-        logger.info("开始处理工具ID: {} 的状态: {}", toolEntity.getId(), initialStatus);
+        List<String> toolIds = toolDomainService.findRunnableWorkflowSteps(status, available);
+        long timeout = properties.getStepTimeout(status.name());
+        for (String toolId : toolIds) {
+            if (!permits.tryAcquire()) {
+                return;
+            }
+            String token = properties.getNodeId() + ":" + UUID.randomUUID().toString().substring(0, 8);
+            boolean submitted = false;
+            try {
+                if (toolDomainService.tryClaimWorkflowStep(toolId, status, token,
+                        timeout + properties.getLeaseMargin())) {
+                    RunningStep step = new RunningStep(toolId, status, token, System.currentTimeMillis() + timeout);
+                    runningSteps.put(token, step);
+                    step.future = stageExecutors.get(status).submit(() -> runStep(step));
+                    submitted = true;
+                }
+            } catch (Exception e) {
+                logger.error("抢占工具步骤失败: toolId={}, status={}", toolId, status, e);
+            } finally {
+                if (!submitted) {
+                    runningSteps.remove(token);
+                    permits.release();
+                }
+            }
+        }
+    }
 
+    /** 执行单个步骤并以租约令牌为条件提交结果 */
+    private void runStep(RunningStep step) {
+        ToolStatus initialStatus = step.status;
         try {
-            // 执行状态处理
+            ToolEntity toolEntity = toolDomainService.getTool(step.toolId);
+            if (toolEntity.getStatus() != initialStatus) {
+                logger.info("工具ID: {} 状态已变为 {}，跳过步骤 {}。", step.toolId, toolEntity.getStatus(), initialStatus);
+                return;
+            }
+
+            logger.info("开始处理工具ID: {} 的状态: {}", step.toolId, initialStatus);
+            AppToolStateProcessor processor = appProcessorMap.get(initialStatus);
             processor.process(toolEntity);
 
-            // 获取下一个状态
-            ToolStatus nextStatus = processor.getNextStatus();
+            if (step.timedOut) {
+                return;
+            }
 
-            if (nextStatus != null && nextStatus != initialStatus) {
-                // 更新状态并持久化
+            ToolStatus nextStatus = processor.getNextStatus();
+            boolean advanced = nextStatus != null && nextStatus != initialStatus;
+            if (advanced) {
                 toolEntity.setStatus(nextStatus);
-                toolDomainService.updateToolEntity(toolEntity);
+            }
+            // 进入手动审核状态时暂停自动流转
+            boolean hasNextStep = advanced && nextStatus != ToolStatus.MANUAL_REVIEW
+                    && appProcessorMap.containsKey(nextStatus);
 
-                logger.info("工具ID: {} 状态从 {} 更新为 {}。", toolEntity.getId(), initialStatus, nextStatus);
+            if (!toolDomainService.completeWorkflowStep(toolEntity, initialStatus, step.token, hasNextStep)) {
+                logger.warn("工具ID: {} 步骤 {} 的租约已失效，丢弃本次结果。", step.toolId, initialStatus);
+                return;
+            }
 
-                // 如果进入手动审核状态，暂停自动流转
+            if (advanced) {
+                logger.info("工具ID: {} 状态从 {} 更新为 {}。", step.toolId, initialStatus, nextStatus);
                 if (nextStatus == ToolStatus.MANUAL_REVIEW) {
-                    logger.info("工具ID: {} 进入MANUAL_REVIEW状态，等待人工审核。", toolEntity.getId());
-                    return;
+                    logger.info("工具ID: {} 进入MANUAL_REVIEW状态，等待人工审核。", step.toolId);
                 }
-
-                // 递归处理下一个状态
-                processToolState(toolEntity);
             } else {
-                logger.info("工具ID: {} 在状态 {} 处理完成，没有自动的下一状态或状态未改变。", toolEntity.getId(), initialStatus);
+                logger.info("工具ID: {} 在状态 {} 处理完成，没有自动的下一状态或状态未改变。", step.toolId, initialStatus);
+            }
+            if (hasNextStep) {
+                triggerDispatch(nextStatus);
             }
         } catch (Exception e) {
-            logger.error("处理工具ID: {} 的状态 {} 时发生错误: {}", toolEntity.getId(), initialStatus, e.getMessage(), e);
-
-            // 更新为失败状态
-            toolEntity.setStatus(ToolStatus.FAILED);
-            toolEntity.setFailedStepStatus(initialStatus);
-            toolEntity.setRejectReason("状态处理失败: " + e.getMessage());
+            if (!step.timedOut) {
+                logger.error("处理工具ID: {} 的状态 {} 时发生错误: {}", step.toolId, initialStatus, e.getMessage(), e);
+                handleStepFailure(step, e.getMessage());
+            }
+        } finally {
+            runningSteps.remove(step.token);
+            stagePermits.get(initialStatus).release();
+        }
+    }
 
-            toolDomainService.updateToolEntity(toolEntity);
+    /** 步骤失败：还有尝试次数时退避重试，否则把工具标记为失败 */
+    private void handleStepFailure(RunningStep step, String message) {
+        String reason = "状态处理失败: " + message;
+        try {
+            if (toolDomainService.retryWorkflowStep(step.toolId, step.token, reason, properties.getBaseBackoff(),
+                    properties.getMaxBackoff(), properties.getMaxAttempts())) {
+                logger.warn("工具ID: {} 步骤 {} 执行失败，稍后重试: {}", step.toolId, step.status, message);
+                return;
+            }
+            if (toolDomainService.failWorkflowStep(step.toolId, step.status, step.token, reason)) {
+                logger.error("工具ID: {} 步骤 {} 重试次数用尽，状态已更新为 FAILED，原因: {}", step.toolId, step.status, message);
+            }
+        } catch (Exception e) {
+            logger.error("记录工具ID: {} 步骤 {} 的失败结果时出错，租约过期后重试", step.toolId, step.status, e);
+        }
+    }
 
-            logger.info("工具ID: {} 状态已更新为 {}，失败步骤: {}，原因: {}", toolEntity.getId(), toolEntity.getStatus(), initialStatus,
-                    e.getMessage());
+    /** 取消超过超时时间的步骤，按失败处理 */
+    private void cancelTimedOutSteps() {
+        long now = System.currentTimeMillis();
+        for (RunningStep step : runningSteps.values()) {
+            if (step.timedOut || now < step.deadline) {
+                continue;
+            }
+            step.timedOut = true;
+            if (step.future != null) {
+                step.future.cancel(true);
+            }
+            logger.warn("工具ID: {} 步骤 {} 执行超时，已取消。", step.toolId, step.status);
+            handleStepFailure(step, "步骤执行超时");
         }
     }
 
@@ -173,4 +308,20 @@ public class ToolStateStateMachineAppService {
         return toolId;
     }
 
-}
\ No newline at end of file
+    /** 执行中的步骤 */
+    private static final class RunningStep {
+        private final String toolId;
+        private final ToolStatus status;
+        private final String token;
+        private final long deadline;
+        private volatile Future<?> future;
+        private volatile boolean timedOut = false;
+
+        private RunningStep(String toolId, ToolStatus status, String token, long deadline) {
+            this.toolId = toolId;
+            this.status = status;
+            this.token = token;
+            this.deadline = deadline;
+        }
+    }
+}
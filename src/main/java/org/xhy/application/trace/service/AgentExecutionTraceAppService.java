@@ -222,7 +222,7 @@ public class AgentExecutionTraceAppService {
     public List<AgentTraceStatisticsDTO> getUserAgentTraceStatistics(AgentTraceListRequest request, String userId) {
         // 获取领域统计数据
         List<AgentExecutionTraceDomainService.AgentStatistics> agentStatistics = traceDomainService
-                .getUserAgentStatistics(userId);
+                .getUserAgentStatistics(userId, request.getStartTime(), request.getEndTime());
 
         if (agentStatistics.isEmpty()) {
             return List.of();
@@ -265,7 +265,7 @@ public class AgentExecutionTraceAppService {
             SessionTraceListRequest request, String userId) {
         // 获取领域统计数据
         List<AgentExecutionTraceDomainService.SessionStatistics> sessionStatistics = traceDomainService
-                .getAgentSessionStatistics(agentId, userId);
+                .getAgentSessionStatistics(agentId, userId, request.getStartTime(), request.getEndTime());
 
         if (sessionStatistics.isEmpty()) {
             return List.of();
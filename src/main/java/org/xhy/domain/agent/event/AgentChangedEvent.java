@@ -0,0 +1,16 @@
+package org.xhy.domain.agent.event;
+
+/** Agent变更事件 Agent基本信息、启用状态或版本发布状态变化时发布，用于失效按Agent缓存的运行时数据 */
+public class AgentChangedEvent {
+
+    /** Agent ID */
+    private final String agentId;
+
+    public AgentChangedEvent(String agentId) {
+        this.agentId = agentId;
+    }
+
+    public String getAgentId() {
+        return agentId;
+    }
+}
@@ -0,0 +1,24 @@
+package org.xhy.domain.agent.event;
+
+/** 工作区变更事件 工作区中Agent的模型配置更新或移除时发布 */
+public class AgentWorkspaceChangedEvent {
+
+    /** Agent ID */
+    private final String agentId;
+
+    /** 用户ID */
+    private final String userId;
+
+    public AgentWorkspaceChangedEvent(String agentId, String userId) {
+        this.agentId = agentId;
+        this.userId = userId;
+    }
+
+    public String getAgentId() {
+        return agentId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+}
@@ -70,6 +70,10 @@ public class AgentEntity extends BaseEntity {
     @TableField("multi_modal")
     private Boolean multiModal;
 
+    /** 是否启用语义响应缓存 */
+    @TableField("semantic_cache_enabled")
+    private Boolean semanticCacheEnabled;
+
     /** 无参构造函数 */
     public AgentEntity() {
         this.toolIds = new ArrayList<>();
@@ -231,4 +235,12 @@ public class AgentEntity extends BaseEntity {
     public void setMultiModal(Boolean multiModal) {
         this.multiModal = multiModal;
     }
+
+    public Boolean getSemanticCacheEnabled() {
+        return semanticCacheEnabled;
+    }
+
+    public void setSemanticCacheEnabled(Boolean semanticCacheEnabled) {
+        this.semanticCacheEnabled = semanticCacheEnabled;
+    }
 }
\ No newline at end of file
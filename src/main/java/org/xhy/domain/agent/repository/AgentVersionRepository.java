@@ -1,6 +1,8 @@
 package org.xhy.domain.agent.repository;
 
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultMap;
 import org.apache.ibatis.annotations.Select;
 import org.xhy.domain.agent.model.AgentVersionEntity;
 import org.xhy.infrastructure.repository.MyBatisPlusExtRepository;
@@ -44,4 +46,54 @@ public interface AgentVersionRepository extends MyBatisPlusExtRepository<AgentVe
             "    AND v.name LIKE CONCAT('%', #{name}, '%') ", "</if>", "<if test='status != null'>",
             "    AND v.publish_status = #{status} ", "</if>", "</script>"})
     List<AgentVersionEntity> selectLatestVersionsByNameAndStatus(String name, Integer status);
-}
\ No newline at end of file
+
+    /** 已发布最新版本的筛选条件，名称匹配pg_trgm三元组索引，名称+描述匹配全文索引 */
+    String PUBLISHED_LATEST = "FROM agent_versions v "
+            + "LEFT JOIN LATERAL (SELECT COUNT(*) AS installs FROM agent_workspace w "
+            + "    WHERE w.agent_id = v.agent_id AND w.deleted_at IS NULL) p ON TRUE "
+            + "WHERE v.deleted_at IS NULL AND v.publish_status = #{status} "
+            + "AND v.published_at = (SELECT MAX(l.published_at) FROM agent_versions l "
+            + "    WHERE l.agent_id = v.agent_id AND l.deleted_at IS NULL AND l.publish_status = #{status}) ";
+
+    /** 按关键词搜索已发布Agent的最新版本，按相关度与热度排序
+     *
+     * 相关度由完全匹配/前缀匹配加分、名称的三元组词相似度、全文检索排名和描述命中组成，再乘以热度系数
+     * 1 + popularityWeight * ln(1 + 加入工作区次数)
+     *
+     * @param keyword 规整后的关键词
+     * @param containsPattern 已转义的任意位置匹配模式
+     * @param prefixPattern 已转义的前缀匹配模式
+     * @param status 发布状态
+     * @param popularityWeight 热度权重
+     * @param limit 最多返回条数
+     * @return 按得分倒序的最新版本列表 */
+    @ResultMap("mybatis-plus_AgentVersionEntity")
+    @Select("SELECT v.* " + PUBLISHED_LATEST
+            + "AND (v.name ILIKE #{containsPattern} OR v.description ILIKE #{containsPattern} "
+            + "    OR v.name % #{keyword} "
+            + "    OR to_tsvector('simple', COALESCE(v.name, '') || ' ' || COALESCE(v.description, '')) "
+            + "       @@ plainto_tsquery('simple', #{keyword})) "
+            + "ORDER BY (CASE WHEN LOWER(v.name) = LOWER(#{keyword}) THEN 3 "
+            + "    WHEN v.name ILIKE #{prefixPattern} THEN 2 ELSE 0 END "
+            + "  + 2 * word_similarity(#{keyword}, v.name) "
+            + "  + ts_rank(to_tsvector('simple', COALESCE(v.name, '') || ' ' || COALESCE(v.description, '')), "
+            + "      plainto_tsquery('simple', #{keyword})) "
+            + "  + CASE WHEN v.description ILIKE #{containsPattern} THEN 0.5 ELSE 0 END) "
+            + "  * (1 + #{popularityWeight} * LN(1 + p.installs)) DESC, v.published_at DESC "
+            + "LIMIT #{limit}")
+    List<AgentVersionEntity> searchLatestPublished(@Param("keyword") String keyword,
+            @Param("containsPattern") String containsPattern, @Param("prefixPattern") String prefixPattern,
+            @Param("status") Integer status, @Param("popularityWeight") double popularityWeight,
+            @Param("limit") int limit);
+
+    /** 已发布Agent名称的前缀补全，按加入工作区次数倒序
+     *
+     * @param prefixPattern 已转义的前缀匹配模式
+     * @param status 发布状态
+     * @param limit 最多返回条数
+     * @return 去重后的名称列表 */
+    @Select("SELECT v.name " + PUBLISHED_LATEST + "AND v.name ILIKE #{prefixPattern} "
+            + "GROUP BY v.name ORDER BY SUM(p.installs) DESC, LENGTH(v.name), v.name LIMIT #{limit}")
+    List<String> suggestPublishedNames(@Param("prefixPattern") String prefixPattern, @Param("status") Integer status,
+            @Param("limit") int limit);
+}
@@ -5,13 +5,18 @@ import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.core.toolkit.StringUtils;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.springframework.beans.BeanUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.xhy.application.agent.assembler.AgentVersionAssembler;
 import org.xhy.application.agent.dto.AgentStatisticsDTO;
 import org.xhy.application.agent.dto.AgentVersionDTO;
 import org.xhy.application.agent.dto.AgentWithUserDTO;
 import org.xhy.domain.agent.constant.PublishStatus;
+import org.xhy.domain.agent.event.AgentChangedEvent;
 import org.xhy.domain.agent.model.AgentEntity;
 import org.xhy.domain.agent.model.AgentVersionEntity;
 import org.xhy.domain.agent.repository.AgentRepository;
@@ -19,10 +24,15 @@ import org.xhy.domain.agent.repository.AgentVersionRepository;
 import org.xhy.domain.agent.repository.AgentWorkspaceRepository;
 import org.xhy.domain.user.model.UserEntity;
 import org.xhy.domain.user.repository.UserRepository;
+import org.xhy.infrastructure.config.MarketplaceSearchProperties;
 import org.xhy.infrastructure.exception.BusinessException;
+import org.xhy.infrastructure.utils.SearchKeywordUtils;
 import org.xhy.interfaces.dto.agent.request.QueryAgentRequest;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -34,13 +44,29 @@ public class AgentDomainService {
     private final AgentVersionRepository agentVersionRepository;
     private final AgentWorkspaceRepository agentWorkspaceRepository;
     private final UserRepository userRepository;
+    private final MarketplaceSearchProperties searchProperties;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /** 小写关键词 -> 已上架Agent搜索结果，短期缓存热门关键词 */
+    private final Cache<String, List<AgentVersionEntity>> searchCache;
+
+    /** 小写前缀 -> 补全的Agent名称 */
+    private final Cache<String, List<String>> suggestCache;
 
     public AgentDomainService(AgentRepository agentRepository, AgentVersionRepository agentVersionRepository,
-            AgentWorkspaceRepository agentWorkspaceRepository, UserRepository userRepository) {
+            AgentWorkspaceRepository agentWorkspaceRepository, UserRepository userRepository,
+            MarketplaceSearchProperties searchProperties, ApplicationEventPublisher eventPublisher) {
         this.agentRepository = agentRepository;
         this.agentVersionRepository = agentVersionRepository;
         this.agentWorkspaceRepository = agentWorkspaceRepository;
         this.userRepository = userRepository;
+        this.searchProperties = searchProperties;
+        this.eventPublisher = eventPublisher;
+        this.searchCache = CacheBuilder.newBuilder().expireAfterWrite(Duration.ofMillis(searchProperties.getCacheTtl()))
+                .maximumSize(searchProperties.getCacheMaxSize()).build();
+        this.suggestCache = CacheBuilder.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(searchProperties.getCacheTtl()))
+                .maximumSize(searchProperties.getCacheMaxSize()).build();
     }
 
     /** 创建新Agent */
@@ -77,12 +103,34 @@ public class AgentDomainService {
 
     /** 获取已上架的Agent列表，支持名称搜索 当name为空时返回所有已上架Agent */
     public List<AgentVersionEntity> getPublishedAgentsByName(AgentEntity agent) {
-        // 使用带名称和状态条件的查询
-        List<AgentVersionEntity> latestVersions = agentVersionRepository
-                .selectLatestVersionsByNameAndStatus(agent.getName(), PublishStatus.PUBLISHED.getCode());
+        String keyword = SearchKeywordUtils.normalize(agent.getName(), searchProperties.getMaxKeywordLength());
+        if (keyword == null) {
+            List<AgentVersionEntity> latestVersions = agentVersionRepository.selectLatestVersionsByNameAndStatus(null,
+                    PublishStatus.PUBLISHED.getCode());
+            return combineAgentsWithVersions(latestVersions);
+        }
+
+        // 关键词搜索按相关度与热度排序，结果短期缓存
+        List<AgentVersionEntity> ranked = loadCached(searchCache, keyword.toLowerCase(Locale.ROOT),
+                () -> combineAgentsWithVersions(agentVersionRepository.searchLatestPublished(keyword,
+                        SearchKeywordUtils.containsPattern(keyword), SearchKeywordUtils.prefixPattern(keyword),
+                        PublishStatus.PUBLISHED.getCode(), searchProperties.getPopularityWeight(),
+                        searchProperties.getMaxResults())));
+        return new ArrayList<>(ranked);
+    }
 
-        // 组合助理和版本信息
-        return combineAgentsWithVersions(latestVersions);
+    /** 已上架Agent名称的前缀补全
+     *
+     * @param prefix 用户已输入的前缀
+     * @return 按热度排序的名称，前缀为空时返回空列表 */
+    public List<String> suggestPublishedAgentNames(String prefix) {
+        String keyword = SearchKeywordUtils.normalize(prefix, searchProperties.getMaxKeywordLength());
+        if (keyword == null) {
+            return Collections.emptyList();
+        }
+        return loadCached(suggestCache, keyword.toLowerCase(Locale.ROOT),
+                () -> agentVersionRepository.suggestPublishedNames(SearchKeywordUtils.prefixPattern(keyword),
+                        PublishStatus.PUBLISHED.getCode(), searchProperties.getSuggestLimit()));
     }
 
     /** 更新Agent信息（基本信息和配置合并更新） */
@@ -92,6 +140,7 @@ public class AgentDomainService {
         LambdaUpdateWrapper<AgentEntity> wrapper = Wrappers.<AgentEntity>lambdaUpdate()
                 .eq(AgentEntity::getId, updateEntity.getId()).eq(AgentEntity::getUserId, updateEntity.getUserId());
         agentRepository.checkedUpdate(updateEntity, wrapper);
+        eventPublisher.publishEvent(new AgentChangedEvent(updateEntity.getId()));
         return updateEntity;
     }
 
@@ -111,6 +160,7 @@ public class AgentDomainService {
         }
 
         agentRepository.checkedUpdateById(agent);
+        eventPublisher.publishEvent(new AgentChangedEvent(agentId));
         return agent;
     }
 
@@ -123,6 +173,7 @@ public class AgentDomainService {
         // 删除版本
         agentVersionRepository.delete(Wrappers.<AgentVersionEntity>lambdaQuery()
                 .eq(AgentVersionEntity::getAgentId, agentId).eq(AgentVersionEntity::getUserId, userId));
+        eventPublisher.publishEvent(new AgentChangedEvent(agentId));
     }
 
     /** 发布Agent版本 */
@@ -164,6 +215,7 @@ public class AgentDomainService {
 
         // 保存版本
         agentVersionRepository.insert(versionEntity);
+        eventPublisher.publishEvent(new AgentChangedEvent(agentId));
 
         return versionEntity;
     }
@@ -189,6 +241,7 @@ public class AgentDomainService {
                 agentRepository.checkedUpdateById(agent);
             }
         }
+        eventPublisher.publishEvent(new AgentChangedEvent(version.getAgentId()));
 
         return version;
     }
@@ -203,6 +256,7 @@ public class AgentDomainService {
         // 拒绝版本发布
         version.reject(reason);
         agentVersionRepository.checkedUpdateById(version);
+        eventPublisher.publishEvent(new AgentChangedEvent(version.getAgentId()));
 
         return version;
     }
@@ -331,19 +385,30 @@ public class AgentDomainService {
         }
 
         // 根据版本中的 agent_id 以及 enable == true 查出对应的 agents
-        List<AgentEntity> agents = agentRepository.selectList(Wrappers.<AgentEntity>lambdaQuery()
-                .in(AgentEntity::getId,
-                        versionEntities.stream().map(AgentVersionEntity::getAgentId).collect(Collectors.toList()))
-                .eq(AgentEntity::getEnabled, true));
-
-        // 将版本转为 map，key：agent_id，value：本身
-        Map<String, AgentVersionEntity> agentVersionMap = versionEntities.stream()
-                .collect(Collectors.toMap(AgentVersionEntity::getAgentId, Function.identity()));
-
-        return agents.stream().map(agent -> agentVersionMap.get(agent.getId())).filter(Objects::nonNull)
+        Set<String> enabledAgentIds = agentRepository
+                .selectList(Wrappers.<AgentEntity>lambdaQuery().select(AgentEntity::getId)
+                        .in(AgentEntity::getId,
+                                versionEntities.stream().map(AgentVersionEntity::getAgentId)
+                                        .collect(Collectors.toList()))
+                        .eq(AgentEntity::getEnabled, true))
+                .stream().map(AgentEntity::getId).collect(Collectors.toSet());
+
+        // 保持版本列表原有顺序，搜索结果依赖该顺序
+        return versionEntities.stream().filter(version -> enabledAgentIds.contains(version.getAgentId()))
                 .collect(Collectors.toList());
     }
 
+    private <T> T loadCached(Cache<String, T> cache, String key, Callable<T> loader) {
+        try {
+            return cache.get(key, loader);
+        } catch (UncheckedExecutionException | ExecutionException e) {
+            if (e.getCause() instanceof BusinessException) {
+                throw (BusinessException) e.getCause();
+            }
+            throw new BusinessException("搜索Agent失败", e.getCause());
+        }
+    }
+
     /** 比较版本号大小
      *
      * @param newVersion 新版本号
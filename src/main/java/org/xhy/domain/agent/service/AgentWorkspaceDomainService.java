@@ -4,7 +4,9 @@ import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.xhy.domain.agent.event.AgentWorkspaceChangedEvent;
 import org.xhy.domain.agent.model.AgentEntity;
 import org.xhy.domain.agent.model.AgentWorkspaceEntity;
 import org.xhy.domain.agent.repository.AgentRepository;
@@ -22,10 +24,14 @@ public class AgentWorkspaceDomainService {
 
     private final AgentRepository agentRepository;
 
+    private final ApplicationEventPublisher eventPublisher;
+
     public AgentWorkspaceDomainService(AgentWorkspaceRepository agentWorkspaceRepository,
-            AgentDomainService agentServiceDomainService, AgentRepository agentRepository) {
+            AgentDomainService agentServiceDomainService, AgentRepository agentRepository,
+            ApplicationEventPublisher eventPublisher) {
         this.agentWorkspaceRepository = agentWorkspaceRepository;
         this.agentRepository = agentRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<AgentEntity> getWorkspaceAgents(String userId) {
@@ -51,8 +57,10 @@ public class AgentWorkspaceDomainService {
     }
 
     public boolean deleteAgent(String agentId, String userId) {
-        return agentWorkspaceRepository.delete(Wrappers.<AgentWorkspaceEntity>lambdaQuery()
+        boolean deleted = agentWorkspaceRepository.delete(Wrappers.<AgentWorkspaceEntity>lambdaQuery()
                 .eq(AgentWorkspaceEntity::getAgentId, agentId).eq(AgentWorkspaceEntity::getUserId, userId)) > 0;
+        eventPublisher.publishEvent(new AgentWorkspaceChangedEvent(agentId, userId));
+        return deleted;
     }
 
     public AgentWorkspaceEntity getWorkspace(String agentId, String userId) {
@@ -81,6 +89,8 @@ public class AgentWorkspaceDomainService {
                 .eq(AgentWorkspaceEntity::getAgentId, workspace.getAgentId())
                 .eq(AgentWorkspaceEntity::getAgentId, workspace.getAgentId());
         agentWorkspaceRepository.checkedUpdate(workspace, wrapper);
+        // 更新条件只有agentId，该Agent所有用户的工作区都会被更新
+        eventPublisher.publishEvent(new AgentWorkspaceChangedEvent(workspace.getAgentId(), null));
     }
 
     public List<AgentWorkspaceEntity> listAgents(List<String> agentIds, String userId) {
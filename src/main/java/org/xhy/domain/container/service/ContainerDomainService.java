@@ -13,7 +13,9 @@ import org.xhy.infrastructure.entity.Operator;
 import org.xhy.infrastructure.exception.BusinessException;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
 /** 容器领域服务 */
@@ -217,6 +219,32 @@ public class ContainerDomainService {
         containerRepository.updateById(container);
     }
 
+    /** 批量更新容器资源使用率，单条 JDBC 批处理提交，已删除的容器被忽略
+     *
+     * @param usages 容器ID -> [CPU使用率, 内存使用率] */
+    public void batchUpdateResourceUsage(Map<String, Double[]> usages) {
+        if (usages == null || usages.isEmpty()) {
+            return;
+        }
+
+        List<ContainerEntity> entities = new ArrayList<>(usages.size());
+        for (Map.Entry<String, Double[]> entry : usages.entrySet()) {
+            ContainerEntity entity = new ContainerEntity();
+            entity.setId(entry.getKey());
+            entity.updateResourceUsage(entry.getValue()[0], entry.getValue()[1]);
+            entities.add(entity);
+        }
+        containerRepository.updateById(entities);
+    }
+
+    /** 根据Docker容器ID查找容器
+     *
+     * @param dockerContainerId Docker容器ID
+     * @return 容器实体，不存在时返回null */
+    public ContainerEntity findByDockerContainerId(String dockerContainerId) {
+        return containerRepository.findByDockerContainerId(dockerContainerId);
+    }
+
     /** 标记容器为错误状态
      * 
      * @param containerId 容器ID
@@ -0,0 +1,56 @@
+package org.xhy.domain.conversation.model;
+
+import org.xhy.infrastructure.exception.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/** 消息游标 由消息的创建时间和ID组成，对应 messages 表 (session_id, created_at, id) 索引的排序，对外编码为不透明字符串 */
+public class MessageCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime createdAt;
+    private final String id;
+
+    public MessageCursor(LocalDateTime createdAt, String id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    /** 取消息所在位置的游标 */
+    public static MessageCursor of(MessageEntity message) {
+        return new MessageCursor(message.getCreatedAt(), message.getId());
+    }
+
+    /** 解析客户端传回的游标
+     *
+     * @param value 游标字符串，为空时返回null
+     * @return 游标 */
+    public static MessageCursor decode(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int index = raw.indexOf(SEPARATOR);
+            return new MessageCursor(LocalDateTime.parse(raw.substring(0, index)), raw.substring(index + 1));
+        } catch (RuntimeException e) {
+            throw new BusinessException("无效的消息游标");
+        }
+    }
+
+    public String encode() {
+        String raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+}
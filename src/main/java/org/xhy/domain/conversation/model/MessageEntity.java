@@ -66,6 +66,10 @@ public class MessageEntity extends BaseEntity {
     @TableField(value = "file_urls", typeHandler = ListConverter.class)
     private List<String> fileUrls = new ArrayList<>();
 
+    /** 内容是否为截断后的预览，仅精简查询时可能为true */
+    @TableField(exist = false)
+    private boolean contentTruncated;
+
     /** 无参构造函数 */
     public MessageEntity() {
     }
@@ -182,4 +186,12 @@ public class MessageEntity extends BaseEntity {
     public void setBodyTokenCount(Integer bodyTokenCount) {
         this.bodyTokenCount = bodyTokenCount;
     }
-}
\ No newline at end of file
+
+    public boolean isContentTruncated() {
+        return contentTruncated;
+    }
+
+    public void setContentTruncated(boolean contentTruncated) {
+        this.contentTruncated = contentTruncated;
+    }
+}
@@ -0,0 +1,35 @@
+package org.xhy.domain.conversation.model;
+
+import java.util.List;
+
+/** 按游标读取的一段消息 消息总是按时间正序排列 */
+public class MessageSlice {
+
+    private final List<MessageEntity> messages;
+
+    /** 读取方向上是否还有更多消息 */
+    private final boolean hasMore;
+
+    public MessageSlice(List<MessageEntity> messages, boolean hasMore) {
+        this.messages = messages;
+        this.hasMore = hasMore;
+    }
+
+    public List<MessageEntity> getMessages() {
+        return messages;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    /** 第一条（最早）消息的游标，无消息时为null */
+    public MessageCursor firstCursor() {
+        return messages.isEmpty() ? null : MessageCursor.of(messages.get(0));
+    }
+
+    /** 最后一条（最新）消息的游标，无消息时为null */
+    public MessageCursor lastCursor() {
+        return messages.isEmpty() ? null : MessageCursor.of(messages.get(messages.size() - 1));
+    }
+}
@@ -1,20 +1,40 @@
 package org.xhy.domain.conversation.service;
 
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.xhy.domain.conversation.constant.MessageType;
 import org.xhy.domain.conversation.constant.Role;
+import org.xhy.domain.conversation.model.MessageCursor;
 import org.xhy.domain.conversation.model.MessageEntity;
+import org.xhy.domain.conversation.model.MessageSlice;
 import org.xhy.domain.conversation.repository.MessageRepository;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /** 对话服务实现 */
 @Service
 public class ConversationDomainService {
 
     private final Logger logger = LoggerFactory.getLogger(ConversationDomainService.class);
+
+    /** 精简模式下只返回预览的消息类型 */
+    private static final Set<MessageType> PAYLOAD_TYPES = EnumSet.of(MessageType.TOOL_CALL, MessageType.TASK_EXEC,
+            MessageType.RAG_RETRIEVAL_PROGRESS, MessageType.RAG_RETRIEVAL_END);
+
+    private static final String PAYLOAD_TYPES_SQL = PAYLOAD_TYPES.stream().map(type -> "'" + type.name() + "'")
+            .collect(Collectors.joining(", "));
+
+    /** 精简模式下的内容预览长度 */
+    private static final int PREVIEW_LENGTH = 500;
+
     private final MessageRepository messageRepository;
 
     public ConversationDomainService(MessageRepository messageRepository) {
@@ -31,6 +51,87 @@ public class ConversationDomainService {
                         .ne(MessageEntity::getRole, Role.SUMMARY).orderByAsc(MessageEntity::getCreatedAt));
     }
 
+    /** 按游标向前读取历史消息，用于打开会话和向上翻页
+     *
+     * @param sessionId 会话id
+     * @param before 只返回该位置之前的消息，为空时从最新消息开始
+     * @param limit 最多返回条数
+     * @param includePayload 是否返回工具调用等消息的完整内容，否则只返回预览
+     * @return 按时间正序的消息，hasMore表示更早的消息是否还有 */
+    public MessageSlice getMessagesBefore(String sessionId, MessageCursor before, int limit, boolean includePayload) {
+        QueryWrapper<MessageEntity> wrapper = historyQuery(sessionId, includePayload);
+        if (before != null) {
+            wrapper.apply("(created_at, id) < ({0}, {1})", before.getCreatedAt(), before.getId());
+        }
+        wrapper.orderByDesc("created_at", "id").last("LIMIT " + (limit + 1));
+
+        List<MessageEntity> messages = new ArrayList<>(messageRepository.selectList(wrapper));
+        boolean hasMore = messages.size() > limit;
+        if (hasMore) {
+            messages.remove(messages.size() - 1);
+        }
+        Collections.reverse(messages);
+        return new MessageSlice(truncatePayloads(messages, includePayload), hasMore);
+    }
+
+    /** 按游标读取之后新增的消息，用于客户端重连后补齐
+     *
+     * @param sessionId 会话id
+     * @param after 只返回该位置之后的消息
+     * @param limit 最多返回条数
+     * @param includePayload 是否返回工具调用等消息的完整内容
+     * @return 按时间正序的消息，hasMore表示更新的消息是否还有 */
+    public MessageSlice getMessagesAfter(String sessionId, MessageCursor after, int limit, boolean includePayload) {
+        QueryWrapper<MessageEntity> wrapper = historyQuery(sessionId, includePayload);
+        wrapper.apply("(created_at, id) > ({0}, {1})", after.getCreatedAt(), after.getId())
+                .orderByAsc("created_at", "id").last("LIMIT " + (limit + 1));
+
+        List<MessageEntity> messages = new ArrayList<>(messageRepository.selectList(wrapper));
+        boolean hasMore = messages.size() > limit;
+        if (hasMore) {
+            messages.remove(messages.size() - 1);
+        }
+        return new MessageSlice(truncatePayloads(messages, includePayload), hasMore);
+    }
+
+    /** 获取会话中的单条消息（完整内容）
+     *
+     * @param sessionId 会话id
+     * @param messageId 消息id
+     * @return 消息，不存在时为null */
+    public MessageEntity getConversationMessage(String sessionId, String messageId) {
+        return messageRepository.selectOne(Wrappers.<MessageEntity>lambdaQuery()
+                .eq(MessageEntity::getSessionId, sessionId).eq(MessageEntity::getId, messageId));
+    }
+
+    /** 历史消息查询，不读取元数据；精简模式下工具调用等大内容只读取预览长度 */
+    private QueryWrapper<MessageEntity> historyQuery(String sessionId, boolean includePayload) {
+        String content = includePayload
+                ? "content"
+                : "CASE WHEN message_type IN (" + PAYLOAD_TYPES_SQL + ") THEN LEFT(content, " + (PREVIEW_LENGTH + 1)
+                        + ") ELSE content END AS content";
+        return Wrappers.<MessageEntity>query()
+                .select("id", "session_id", "role", "message_type", "created_at", "provider", "model", "file_urls",
+                        content)
+                .eq("session_id", sessionId).ne("role", Role.SUMMARY.name());
+    }
+
+    /** 多读的一个字符用于判断是否发生了截断 */
+    private List<MessageEntity> truncatePayloads(List<MessageEntity> messages, boolean includePayload) {
+        if (includePayload) {
+            return messages;
+        }
+        for (MessageEntity message : messages) {
+            String content = message.getContent();
+            if (PAYLOAD_TYPES.contains(message.getMessageType()) && content != null
+                    && content.length() > PREVIEW_LENGTH) {
+                message.setContent(content.substring(0, PREVIEW_LENGTH));
+                message.setContentTruncated(true);
+            }
+        }
+        return messages;
+    }
+
     public void insertBathMessage(List<MessageEntity> messages) {
         messageRepository.insert(messages);
     }
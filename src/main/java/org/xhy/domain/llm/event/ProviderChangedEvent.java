@@ -0,0 +1,16 @@
+package org.xhy.domain.llm.event;
+
+/** 服务商变更事件 服务商配置、状态变化或删除时发布 */
+public class ProviderChangedEvent {
+
+    /** 服务商ID */
+    private final String providerId;
+
+    public ProviderChangedEvent(String providerId) {
+        this.providerId = providerId;
+    }
+
+    public String getProviderId() {
+        return providerId;
+    }
+}
@@ -26,6 +26,9 @@ public class ModelEntity extends BaseEntity {
     /** 模型部署名称 */
     private String modelEndpoint;
 
+    /** 嵌入模型输出维度，为空时使用向量库维度 */
+    private Integer dimensions;
+
     private Boolean isOfficial;
 
     @TableField(typeHandler = ModelTypeConverter.class, jdbcType = JdbcType.VARCHAR)
@@ -113,6 +116,14 @@ public class ModelEntity extends BaseEntity {
         this.modelEndpoint = modelEndpoint;
     }
 
+    public Integer getDimensions() {
+        return dimensions;
+    }
+
+    public void setDimensions(Integer dimensions) {
+        this.dimensions = dimensions;
+    }
+
     public void isActive() {
         if (!status) {
             throw new BusinessException("模型未激活");
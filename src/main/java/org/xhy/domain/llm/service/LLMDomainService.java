@@ -52,6 +52,7 @@ public class LLMDomainService {
                 .eq(ProviderEntity::getId, provider.getId())
                 .eq(provider.needCheckUserId(), ProviderEntity::getUserId, provider.getUserId());
         providerRepository.checkedUpdate(provider, wrapper);
+        eventPublisher.publishEvent(new ProviderChangedEvent(provider.getId()));
     }
 
     /** 获取用户自己的服务商
@@ -206,6 +207,7 @@ public class LLMDomainService {
         Wrapper<ProviderEntity> wrapper = Wrappers.<ProviderEntity>lambdaQuery().eq(ProviderEntity::getId, providerId)
                 .eq(operator.needCheckUserId(), ProviderEntity::getUserId, userId);
         providerRepository.checkedDelete(wrapper);
+        eventPublisher.publishEvent(new ProviderChangedEvent(providerId));
 
         // 删除模型
         Wrapper<ModelEntity> modelWrapper = Wrappers.<ModelEntity>lambdaQuery().eq(ModelEntity::getProviderId,
@@ -326,6 +328,7 @@ public class LLMDomainService {
                 .eq(ProviderEntity::getId, providerId).eq(ProviderEntity::getUserId, userId)
                 .setSql("status = NOT status");
         providerRepository.checkedUpdate(updateWrapper);
+        eventPublisher.publishEvent(new ProviderChangedEvent(providerId));
     }
 
     /** 获取模型
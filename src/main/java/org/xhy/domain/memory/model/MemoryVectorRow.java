@@ -0,0 +1,27 @@
+package org.xhy.domain.memory.model;
+
+/** 记忆向量库中的一条向量（memory_vector_store），用于加载进程内索引 */
+public class MemoryVectorRow {
+
+    /** 记忆条目ID（metadata.ITEM_ID） */
+    private String itemId;
+
+    /** 向量的文本形式，如 [0.1,0.2,...] */
+    private String embedding;
+
+    public String getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(String itemId) {
+        this.itemId = itemId;
+    }
+
+    public String getEmbedding() {
+        return embedding;
+    }
+
+    public void setEmbedding(String embedding) {
+        this.embedding = embedding;
+    }
+}
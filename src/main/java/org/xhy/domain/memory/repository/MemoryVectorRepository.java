@@ -0,0 +1,23 @@
+package org.xhy.domain.memory.repository;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.xhy.domain.memory.model.MemoryVectorRow;
+
+import java.util.List;
+
+/** 记忆向量表数据访问 表名取自MyBatis配置变量 memoryVectorStoreTable，与 memory.embedding.vector-store.table 保持一致 */
+@Mapper
+public interface MemoryVectorRepository {
+
+    /** 查询用户的全部记忆向量，按USER_ID表达式索引过滤，不经过向量索引
+     *
+     * @param userId 用户ID
+     * @param limit 最多返回条数
+     * @return 向量列表 */
+    @Select({"SELECT metadata ->> 'ITEM_ID' AS item_id, embedding::text AS embedding",
+            "FROM ${memoryVectorStoreTable}",
+            "WHERE (metadata ->> 'USER_ID') = #{userId}", "LIMIT #{limit}"})
+    List<MemoryVectorRow> listByUser(@Param("userId") String userId, @Param("limit") int limit);
+}
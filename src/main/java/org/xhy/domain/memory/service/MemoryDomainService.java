@@ -23,6 +23,7 @@ import org.xhy.domain.memory.model.MemoryResult;
 import org.xhy.domain.memory.model.MemoryType;
 import org.xhy.domain.memory.repository.MemoryItemRepository;
 import org.xhy.infrastructure.exception.BusinessException;
+import org.xhy.infrastructure.memory.config.MemoryEmbeddingProperties;
 import org.xhy.infrastructure.rag.factory.EmbeddingModelFactory;
 import org.xhy.infrastructure.rag.service.UserModelConfigResolver;
 
@@ -46,14 +47,21 @@ public class MemoryDomainService {
     private final UserModelConfigResolver userModelConfigResolver;
 
     private final EmbeddingStore<TextSegment> memoryEmbeddingStore;
+    private final MemoryVectorIndex memoryVectorIndex;
+
+    /** 记忆向量库维度 */
+    private final int memoryDimension;
 
     public MemoryDomainService(MemoryItemRepository memoryItemRepository, EmbeddingModelFactory embeddingModelFactory,
             UserModelConfigResolver userModelConfigResolver,
-            @Qualifier("memoryEmbeddingStore") EmbeddingStore<TextSegment> memoryEmbeddingStore) {
+            @Qualifier("memoryEmbeddingStore") EmbeddingStore<TextSegment> memoryEmbeddingStore,
+            MemoryVectorIndex memoryVectorIndex, MemoryEmbeddingProperties memoryEmbeddingProperties) {
         this.memoryItemRepository = memoryItemRepository;
         this.embeddingModelFactory = embeddingModelFactory;
         this.userModelConfigResolver = userModelConfigResolver;
         this.memoryEmbeddingStore = memoryEmbeddingStore;
+        this.memoryVectorIndex = memoryVectorIndex;
+        this.memoryDimension = memoryEmbeddingProperties.getVectorStore().getDimension();
     }
 
     /** 保存记忆（去重/合并 + 向量入库）
@@ -68,7 +76,8 @@ public class MemoryDomainService {
         // 构造嵌入模型
         var embeddingCfg = userModelConfigResolver.getUserEmbeddingModelConfig(userId);
         var embeddingModel = embeddingModelFactory.createEmbeddingModel(new EmbeddingModelFactory.EmbeddingConfig(
-                embeddingCfg.getApiKey(), embeddingCfg.getBaseUrl(), embeddingCfg.getModelEndpoint()));
+                embeddingCfg.getApiKey(), embeddingCfg.getBaseUrl(), embeddingCfg.getModelEndpoint(),
+                embeddingCfg.getDimensions()), memoryDimension);
 
         List<String> itemIds = new ArrayList<>();
         for (CandidateMemory c : candidates) {
@@ -127,6 +136,7 @@ public class MemoryDomainService {
                 TextSegment segment = new TextSegment(toSave.getText(), md);
                 Embedding emb = embeddingModel.embed(segment).content();
                 memoryEmbeddingStore.add(emb, segment);
+                memoryVectorIndex.onSaved(toSave, emb.vector());
             } catch (Exception e) {
                 log.error("向量入库失败 userId={}, itemId={}, err={}", userId, toSave.getId(), e.getMessage(), e);
                 throw new BusinessException("记忆向量入库失败: " + e.getMessage(), e);
@@ -146,11 +156,20 @@ public class MemoryDomainService {
         // 构造嵌入模型
         var embeddingCfg = userModelConfigResolver.getUserEmbeddingModelConfig(userId);
         var embeddingModel = embeddingModelFactory.createEmbeddingModel(new EmbeddingModelFactory.EmbeddingConfig(
-                embeddingCfg.getApiKey(), embeddingCfg.getBaseUrl(), embeddingCfg.getModelEndpoint()));
+                embeddingCfg.getApiKey(), embeddingCfg.getBaseUrl(), embeddingCfg.getModelEndpoint(),
+                embeddingCfg.getDimensions()), memoryDimension);
 
         try {
             Embedding queryEmbedding = embeddingModel.embed(query).content();
 
+            // 优先使用进程内索引，用户记忆过多或未启用时查询向量库
+            List<MemoryVectorIndex.Hit> hits = memoryVectorIndex.search(userId, queryEmbedding.vector(), k * 3, 0.3);
+            if (hits != null) {
+                return hits.stream().map(hit -> toResult(hit.getItem(), hit.getScore()))
+                        .sorted(Comparator.comparing(MemoryResult::getScore).reversed()).limit(k)
+                        .collect(Collectors.toList());
+            }
+
             EmbeddingSearchRequest req = EmbeddingSearchRequest.builder().filter(new IsEqualTo(USER_ID, userId)) // 仅召回本用户记忆
                     .maxResults(k * 3) // 候选加倍，再做加权筛选
                     .minScore(0.3).queryEmbedding(queryEmbedding).build();
@@ -183,18 +202,7 @@ public class MemoryDomainService {
                 if (!itemMap.containsKey(itemId)) {
                     continue;
                 }
-                MemoryItemEntity it = itemMap.get(itemId);
-                double sim = m.score();
-                double weight = 0.7 * sim + 0.3 * (it.getImportance() == null ? 0.5 : it.getImportance());
-
-                MemoryResult mr = new MemoryResult();
-                mr.setItemId(itemId);
-                mr.setType(MemoryType.safeOf(it.getType()));
-                mr.setText(it.getText());
-                mr.setImportance(it.getImportance());
-                mr.setTags(it.getTags());
-                mr.setScore(weight);
-                results.add(mr);
+                results.add(toResult(itemMap.get(itemId), m.score()));
             }
 
             return results.stream().sorted(Comparator.comparing(MemoryResult::getScore).reversed()).limit(k)
@@ -205,6 +213,20 @@ public class MemoryDomainService {
         }
     }
 
+    /** 按加权分生成检索结果：sim*0.7 + importance*0.3 */
+    private static MemoryResult toResult(MemoryItemEntity it, double sim) {
+        double weight = 0.7 * sim + 0.3 * (it.getImportance() == null ? 0.5 : it.getImportance());
+
+        MemoryResult mr = new MemoryResult();
+        mr.setItemId(it.getId());
+        mr.setType(MemoryType.safeOf(it.getType()));
+        mr.setText(it.getText());
+        mr.setImportance(it.getImportance());
+        mr.setTags(it.getTags());
+        mr.setScore(weight);
+        return mr;
+    }
+
     // =============== helper methods ===============
 
     /** 分页列出用户记忆（可按类型过滤） */
@@ -238,6 +260,7 @@ public class MemoryDomainService {
         LambdaQueryWrapper<MemoryItemEntity> qw = Wrappers.<MemoryItemEntity>lambdaQuery()
                 .eq(MemoryItemEntity::getUserId, userId).eq(MemoryItemEntity::getId, itemId);
         memoryItemRepository.delete(qw);
+        memoryVectorIndex.onDeleted(userId, itemId);
         return true;
     }
 
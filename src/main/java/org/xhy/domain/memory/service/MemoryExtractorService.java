@@ -109,12 +109,14 @@ public class MemoryExtractorService {
 
     private final UserModelConfigResolver userModelConfigResolver;
     private final MemoryDomainService memoryDomainService;
+    private final LLMProviderService llmProviderService;
     private final ObjectMapper objectMapper;
 
     public MemoryExtractorService(UserModelConfigResolver userModelConfigResolver,
-            MemoryDomainService memoryDomainService) {
+            MemoryDomainService memoryDomainService, LLMProviderService llmProviderService) {
         this.userModelConfigResolver = userModelConfigResolver;
         this.memoryDomainService = memoryDomainService;
+        this.llmProviderService = llmProviderService;
         this.objectMapper = new ObjectMapper();
     }
 
@@ -144,7 +146,7 @@ public class MemoryExtractorService {
         try {
             // 使用用户默认聊天模型
             ModelConfig chatCfg = userModelConfigResolver.getUserChatModelConfig(userId);
-            ChatModel chatModel = LLMProviderService.getStrand(chatCfg.getProtocol(),
+            ChatModel chatModel = llmProviderService.getStrand(chatCfg.getProtocol(),
                     new org.xhy.infrastructure.llm.config.ProviderConfig(chatCfg.getApiKey(), chatCfg.getBaseUrl(),
                             chatCfg.getModelEndpoint(), chatCfg.getProtocol()));
 
@@ -0,0 +1,274 @@
+package org.xhy.domain.memory.service;
+
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.xhy.domain.memory.model.MemoryItemEntity;
+import org.xhy.domain.memory.model.MemoryVectorRow;
+import org.xhy.domain.memory.repository.MemoryItemRepository;
+import org.xhy.domain.memory.repository.MemoryVectorRepository;
+import org.xhy.infrastructure.config.MemoryIndexProperties;
+import org.xhy.infrastructure.memory.index.QuantizedVector;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** 进程内记忆索引 按用户懒加载记忆向量（int8量化）与记忆条目，检索时在内存中计算相似度，不再每轮查询记忆向量库。
+ * 本节点的保存与删除直接同步到已加载的索引；加载期间发生的写入通过写入序号检测，检测到时重新加载 */
+@Component
+public class MemoryVectorIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(MemoryVectorIndex.class);
+
+    private final MemoryItemRepository memoryItemRepository;
+    private final MemoryVectorRepository memoryVectorRepository;
+    private final boolean enabled;
+    private final int maxVectorsPerUser;
+
+    /** userId -> 用户索引 */
+    private final Cache<String, UserIndex> indexes;
+
+    /** userId -> 最近一次写入序号 */
+    private final Cache<String, Long> recentWrites;
+
+    private final AtomicLong writeSequence = new AtomicLong();
+
+    public MemoryVectorIndex(MemoryItemRepository memoryItemRepository, MemoryVectorRepository memoryVectorRepository,
+            MemoryIndexProperties properties, MeterRegistry registry) {
+        this.memoryItemRepository = memoryItemRepository;
+        this.memoryVectorRepository = memoryVectorRepository;
+        this.enabled = properties.isEnabled();
+        this.maxVectorsPerUser = properties.getMaxVectorsPerUser();
+        this.indexes = CacheBuilder.newBuilder().expireAfterWrite(Duration.ofMillis(properties.getTtl()))
+                .maximumSize(properties.getMaxUsers()).recordStats().build();
+        this.recentWrites = CacheBuilder.newBuilder().expireAfterWrite(Duration.ofMillis(properties.getTtl()))
+                .maximumSize(properties.getMaxUsers()).build();
+        GuavaCacheMetrics.monitor(registry, indexes, "agentx.memory.index");
+    }
+
+    /** 在用户的记忆中按相似度召回候选
+     *
+     * @param userId 用户ID
+     * @param query 查询向量
+     * @param candidates 候选数量
+     * @param minScore 最低相关度，与向量库检索的分数口径一致：(1 + 余弦相似度) / 2
+     * @return 按相关度降序的候选；未启用或用户记忆过多时返回null，由调用方回退到向量库检索 */
+    public List<Hit> search(String userId, float[] query, int candidates, double minScore) {
+        if (!enabled) {
+            return null;
+        }
+        UserIndex index = getIndex(userId);
+        Long lastWrite = recentWrites.getIfPresent(userId);
+        if (index != null && lastWrite != null && lastWrite > index.version) {
+            // 加载期间有写入未同步到索引
+            indexes.invalidate(userId);
+            index = getIndex(userId);
+        }
+        if (index == null || index.oversized) {
+            return null;
+        }
+        return index.search(query, candidates, minScore);
+    }
+
+    /** 记忆条目与向量保存后同步到已加载的索引 */
+    public void onSaved(MemoryItemEntity item, float[] vector) {
+        if (!enabled || item.getId() == null) {
+            return;
+        }
+        long sequence = writeSequence.incrementAndGet();
+        long previous = registerWrite(item.getUserId(), sequence);
+        UserIndex index = indexes.getIfPresent(item.getUserId());
+        if (index != null) {
+            index.put(item, QuantizedVector.quantize(vector), previous, sequence);
+        }
+    }
+
+    /** 记忆条目删除后从已加载的索引移除 */
+    public void onDeleted(String userId, String itemId) {
+        if (!enabled) {
+            return;
+        }
+        long sequence = writeSequence.incrementAndGet();
+        long previous = registerWrite(userId, sequence);
+        UserIndex index = indexes.getIfPresent(userId);
+        if (index != null) {
+            index.remove(itemId, previous, sequence);
+        }
+    }
+
+    /** 登记写入序号
+     * @return 本次写入之前该用户最近一次写入的序号 */
+    private long registerWrite(String userId, long sequence) {
+        long[] previous = new long[1];
+        recentWrites.asMap().compute(userId, (key, old) -> {
+            previous[0] = old == null ? 0L : old;
+            return old == null ? sequence : Math.max(old, sequence);
+        });
+        return previous[0];
+    }
+
+    private UserIndex getIndex(String userId) {
+        try {
+            return indexes.get(userId, () -> load(userId));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            log.warn("加载用户{}的记忆索引失败: {}", userId, e.getMessage());
+            return null;
+        }
+    }
+
+    private UserIndex load(String userId) {
+        // 先取序号再读库，读库之后的写入都会大于该序号
+        long version = writeSequence.get();
+        List<MemoryVectorRow> rows = memoryVectorRepository.listByUser(userId, maxVectorsPerUser + 1);
+        if (rows.size() > maxVectorsPerUser) {
+            log.info("用户{}的记忆向量超过{}条，不建进程内索引", userId, maxVectorsPerUser);
+            return UserIndex.oversized(version);
+        }
+        Map<String, MemoryItemEntity> items = new HashMap<>();
+        for (MemoryItemEntity item : memoryItemRepository
+                .selectList(Wrappers.<MemoryItemEntity>lambdaQuery().eq(MemoryItemEntity::getUserId, userId))) {
+            items.put(item.getId(), item);
+        }
+        List<Entry> entries = new ArrayList<>(rows.size());
+        for (MemoryVectorRow row : rows) {
+            // 已删除条目的向量仍留在向量库中，按条目过滤
+            if (row.getItemId() == null || !items.containsKey(row.getItemId()) || row.getEmbedding() == null) {
+                continue;
+            }
+            entries.add(
+                    new Entry(row.getItemId(), QuantizedVector.quantize(QuantizedVector.parse(row.getEmbedding()))));
+        }
+        log.debug("加载用户{}的记忆索引: items={}, vectors={}", userId, items.size(), entries.size());
+        return new UserIndex(version, false, items, entries);
+    }
+
+    /** 召回结果 */
+    public static final class Hit {
+        private final MemoryItemEntity item;
+        private final double score;
+
+        private Hit(MemoryItemEntity item, double score) {
+            this.item = item;
+            this.score = score;
+        }
+
+        public MemoryItemEntity getItem() {
+            return item;
+        }
+
+        /** 相关度，与向量库检索的分数口径一致 */
+        public double getScore() {
+            return score;
+        }
+    }
+
+    /** 一条量化向量，同一记忆条目合并更新后会有多条向量 */
+    private static final class Entry {
+        private final String itemId;
+        private final QuantizedVector vector;
+
+        private Entry(String itemId, QuantizedVector vector) {
+            this.itemId = itemId;
+            this.vector = vector;
+        }
+    }
+
+    /** 单个用户的索引 读取使用不可变快照，写入时复制 */
+    private static final class UserIndex {
+        private final boolean oversized;
+        private volatile long version;
+        private volatile Map<String, MemoryItemEntity> items;
+        private volatile List<Entry> entries;
+
+        private UserIndex(long version, boolean oversized, Map<String, MemoryItemEntity> items, List<Entry> entries) {
+            this.version = version;
+            this.oversized = oversized;
+            this.items = items;
+            this.entries = entries;
+        }
+
+        private static UserIndex oversized(long version) {
+            return new UserIndex(version, true, Collections.emptyMap(), Collections.emptyList());
+        }
+
+        private List<Hit> search(float[] query, int candidates, double minScore) {
+            Map<String, MemoryItemEntity> currentItems = items;
+            List<Entry> currentEntries = entries;
+            float queryNorm = QuantizedVector.norm(query);
+
+            // 同一条目取最高相关度
+            Map<String, Double> best = new HashMap<>();
+            for (Entry entry : currentEntries) {
+                double cosine = entry.vector.cosine(query, queryNorm);
+                if (Double.isNaN(cosine)) {
+                    continue;
+                }
+                double score = (1 + cosine) / 2;
+                if (score >= minScore) {
+                    best.merge(entry.itemId, score, Math::max);
+                }
+            }
+
+            List<Hit> hits = new ArrayList<>(best.size());
+            for (Map.Entry<String, Double> entry : best.entrySet()) {
+                MemoryItemEntity item = currentItems.get(entry.getKey());
+                if (item != null) {
+                    hits.add(new Hit(item, entry.getValue()));
+                }
+            }
+            hits.sort(Comparator.comparingDouble(Hit::getScore).reversed());
+            return hits.size() > candidates ? hits.subList(0, candidates) : hits;
+        }
+
+        private synchronized void put(MemoryItemEntity item, QuantizedVector vector, long previousWrite,
+                long sequence) {
+            if (oversized) {
+                return;
+            }
+            Map<String, MemoryItemEntity> nextItems = new HashMap<>(items);
+            nextItems.put(item.getId(), item);
+            List<Entry> nextEntries = new ArrayList<>(entries);
+            nextEntries.add(new Entry(item.getId(), vector));
+            items = nextItems;
+            entries = nextEntries;
+            advance(previousWrite, sequence);
+        }
+
+        private synchronized void remove(String itemId, long previousWrite, long sequence) {
+            if (oversized) {
+                return;
+            }
+            Map<String, MemoryItemEntity> nextItems = new HashMap<>(items);
+            nextItems.remove(itemId);
+            List<Entry> nextEntries = new ArrayList<>(entries.size());
+            for (Entry entry : entries) {
+                if (!entry.itemId.equals(itemId)) {
+                    nextEntries.add(entry);
+                }
+            }
+            items = nextItems;
+            entries = nextEntries;
+            advance(previousWrite, sequence);
+        }
+
+        /** 索引已包含此前的全部写入时才推进版本，否则保留旧版本使检索时重新加载 */
+        private void advance(long previousWrite, long sequence) {
+            if (version >= previousWrite) {
+                version = Math.max(version, sequence);
+            }
+        }
+    }
+}
@@ -17,4 +17,10 @@ public interface MetadataConstant {
     /** 数据集id */
     String DATA_SET_ID = "DATA_SET_ID";
 
+    /** 向量内容哈希（嵌入模型 + 规范化文本），重新处理时用于复用未变化的向量 */
+    String CONTENT_HASH = "CONTENT_HASH";
+
+    /** 待复用标记，重新处理期间旧向量不参与检索，处理结束后未被复用的统一删除 */
+    String STALE = "STALE";
+
 }
@@ -0,0 +1,47 @@
+package org.xhy.domain.rag.constant;
+
+import org.xhy.infrastructure.exception.BusinessException;
+
+/** 用户RAG快照复制状态枚举 */
+public enum SnapshotCopyStatus {
+
+    /** 快照复制中 */
+    COPYING(1, "复制中"),
+
+    /** 快照已就绪 */
+    READY(2, "已就绪"),
+
+    /** 快照复制失败 */
+    FAILED(3, "复制失败");
+
+    private final Integer code;
+    private final String description;
+
+    SnapshotCopyStatus(Integer code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    public Integer getCode() {
+        return code;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /** 根据状态码获取枚举值 */
+    public static SnapshotCopyStatus fromCode(Integer code) {
+        if (code == null) {
+            return null;
+        }
+
+        for (SnapshotCopyStatus status : SnapshotCopyStatus.values()) {
+            if (status.getCode().equals(code)) {
+                return status;
+            }
+        }
+
+        throw new BusinessException("INVALID_SNAPSHOT_STATUS_CODE", "无效的快照复制状态码: " + code);
+    }
+}
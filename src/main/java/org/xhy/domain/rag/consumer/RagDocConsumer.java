@@ -25,6 +25,7 @@ import org.xhy.domain.rag.service.FileDetailDomainService;
 import org.xhy.domain.rag.strategy.DocumentProcessingStrategy;
 import org.xhy.domain.rag.strategy.context.DocumentProcessingFactory;
 import org.xhy.infrastructure.exception.BusinessException;
+import org.xhy.infrastructure.metrics.RabbitQueueMetrics;
 import org.xhy.infrastructure.mq.core.MessageEnvelope;
 import org.xhy.infrastructure.mq.core.MessagePublisher;
 import org.xhy.infrastructure.mq.enums.EventType;
@@ -55,15 +56,18 @@ public class RagDocConsumer {
     private final DocumentUnitRepository documentUnitRepository;
     private final MessagePublisher messagePublisher;
     private final UserModelConfigResolver userModelConfigResolver;
+    private final RabbitQueueMetrics queueMetrics;
 
     public RagDocConsumer(DocumentProcessingFactory ragDocSyncOcrContext,
             FileDetailDomainService fileDetailDomainService, DocumentUnitRepository documentUnitRepository,
-            MessagePublisher messagePublisher, UserModelConfigResolver userModelConfigResolver) {
+            MessagePublisher messagePublisher, UserModelConfigResolver userModelConfigResolver,
+            RabbitQueueMetrics queueMetrics) {
         this.documentProcessingFactory = ragDocSyncOcrContext;
         this.fileDetailDomainService = fileDetailDomainService;
         this.documentUnitRepository = documentUnitRepository;
         this.messagePublisher = messagePublisher;
         this.userModelConfigResolver = userModelConfigResolver;
+        this.queueMetrics = queueMetrics;
     }
 
     @RabbitHandler
@@ -79,6 +83,7 @@ public class RagDocConsumer {
             });
 
             MDC.put(TRACE_ID, Objects.nonNull(envelope.getTraceId()) ? envelope.getTraceId() : IdWorker.getTimeId());
+            queueMetrics.recordConsumeLag(RagDocSyncOcrEvent.QUEUE_NAME, envelope.getTimestamp());
             docMessage = envelope.getData();
 
             log.info("开始OCR处理文件: {}", docMessage.getFileId());
@@ -17,7 +17,7 @@ import org.springframework.amqp.core.ExchangeTypes;
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.annotation.*;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Component;
 import org.xhy.domain.rag.message.RagDocSyncStorageMessage;
 import org.xhy.domain.rag.model.DocumentUnitEntity;
@@ -25,6 +25,7 @@ import org.xhy.domain.rag.model.FileDetailEntity;
 import org.xhy.domain.rag.repository.DocumentUnitRepository;
 import org.xhy.domain.rag.service.EmbeddingDomainService;
 import org.xhy.domain.rag.service.FileDetailDomainService;
+import org.xhy.infrastructure.metrics.RabbitQueueMetrics;
 import org.xhy.infrastructure.mq.core.MessageEnvelope;
 import org.xhy.infrastructure.mq.events.RagDocSyncStorageEvent;
 
@@ -57,18 +58,21 @@ public class RagDocStorageConsumer {
     private final EmbeddingDomainService embeddingService;
     private final FileDetailDomainService fileDetailDomainService;
     private final DocumentUnitRepository documentUnitRepository;
+    private final RabbitQueueMetrics queueMetrics;
 
     @Resource(name = "embeddingTaskExecutor")
-    private ThreadPoolTaskExecutor embeddingTaskExecutor;
+    private TaskExecutor embeddingTaskExecutor;
 
     @Value("${rag.embedding.parallelism:4}")
     private int embeddingParallelism;
 
     public RagDocStorageConsumer(EmbeddingDomainService embeddingService,
-            FileDetailDomainService fileDetailDomainService, DocumentUnitRepository documentUnitRepository) {
+            FileDetailDomainService fileDetailDomainService, DocumentUnitRepository documentUnitRepository,
+            RabbitQueueMetrics queueMetrics) {
         this.embeddingService = embeddingService;
         this.fileDetailDomainService = fileDetailDomainService;
         this.documentUnitRepository = documentUnitRepository;
+        this.queueMetrics = queueMetrics;
     }
 
     @RabbitHandler
@@ -84,6 +88,7 @@ public class RagDocStorageConsumer {
                     });
 
             MDC.put(TRACE_ID, Objects.nonNull(envelope.getTraceId()) ? envelope.getTraceId() : IdWorker.getTimeId());
+            queueMetrics.recordConsumeLag(RagDocSyncStorageEvent.QUEUE_NAME, envelope.getTimestamp());
             RagDocSyncStorageMessage mqRecordReqDTO = envelope.getData();
 
             if (Boolean.TRUE.equals(mqRecordReqDTO.getBatch())) {
@@ -153,6 +158,7 @@ public class RagDocStorageConsumer {
                         .eq(DocumentUnitEntity::getFileId, fileId)
                         .eq(DocumentUnitEntity::getIsVector, true));
         AtomicInteger completed = new AtomicInteger((int) completedVectorPages);
+        AtomicInteger failed = new AtomicInteger();
 
         int parallelism = Math.max(1, Math.min(embeddingParallelism, documentUnits.size()));
 
@@ -180,6 +186,7 @@ public class RagDocStorageConsumer {
                         success = true;
                     } catch (Exception e) {
                         log.error("Embedding failed for file {} page {}: {}", fileId, unit.getPage(), e.getMessage());
+                        failed.incrementAndGet();
                     } finally {
                         if (success) {
                             int current = completed.incrementAndGet();
@@ -191,6 +198,11 @@ public class RagDocStorageConsumer {
 
             CompletableFuture.allOf(batch.toArray(new CompletableFuture[0])).join();
         }
+
+        // 未变化的页面已复用旧向量，删除其余旧向量；有失败页面时保留，重试时仍可复用
+        if (failed.get() == 0) {
+            embeddingService.purgeStaleEmbeddings(fileId);
+        }
     }
 
     private void updateEmbeddingProgressFast(FileDetailEntity fileEntity, int currentCompletedPages, int totalPages) {
@@ -0,0 +1,24 @@
+package org.xhy.domain.rag.event;
+
+/** 用户RAG快照复制请求事件 安装大型知识库时由后台任务完成快照复制，安装接口只创建安装记录 */
+public class UserRagSnapshotRequestedEvent {
+
+    /** 用户RAG安装记录ID */
+    private final String userRagId;
+
+    /** RAG版本ID */
+    private final String ragVersionId;
+
+    public UserRagSnapshotRequestedEvent(String userRagId, String ragVersionId) {
+        this.userRagId = userRagId;
+        this.ragVersionId = ragVersionId;
+    }
+
+    public String getUserRagId() {
+        return userRagId;
+    }
+
+    public String getRagVersionId() {
+        return ragVersionId;
+    }
+}
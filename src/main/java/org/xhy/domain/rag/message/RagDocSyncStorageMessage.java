@@ -41,6 +41,9 @@ public class RagDocSyncStorageMessage implements Serializable {
     /** batch mode: one message per file */
     private Boolean batch;
 
+    /** 内容未变化，已复用重新处理前的向量，无需再次向量化 */
+    private Boolean reused;
+
     public String getId() {
         return id;
     }
@@ -120,4 +123,12 @@ public class RagDocSyncStorageMessage implements Serializable {
     public void setBatch(Boolean batch) {
         this.batch = batch;
     }
+
+    public Boolean getReused() {
+        return reused;
+    }
+
+    public void setReused(Boolean reused) {
+        this.reused = reused;
+    }
 }
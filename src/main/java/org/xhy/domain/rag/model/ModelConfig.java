@@ -29,6 +29,9 @@ public class ModelConfig implements Serializable {
 
     private String modelEndpoint;
 
+    /** 嵌入模型输出维度，为空时使用向量库维度 */
+    private Integer dimensions;
+
     public ModelConfig() {
     }
 
@@ -85,4 +88,12 @@ public class ModelConfig implements Serializable {
     public void setModelEndpoint(String modelEndpoint) {
         this.modelEndpoint = modelEndpoint;
     }
+
+    public Integer getDimensions() {
+        return dimensions;
+    }
+
+    public void setDimensions(Integer dimensions) {
+        this.dimensions = dimensions;
+    }
 }
@@ -0,0 +1,84 @@
+package org.xhy.domain.rag.model;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import org.xhy.infrastructure.entity.BaseEntity;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/** 特殊节点翻译缓存实体 同一翻译器、提示词版本、模型下内容相同的节点复用翻译结果 */
+@TableName("node_translation_cache")
+public class NodeTranslationCacheEntity extends BaseEntity implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = -1L;
+
+    /** 缓存键 */
+    @TableId(type = IdType.INPUT)
+    private String id;
+
+    /** 翻译器类型 */
+    private String translatorType;
+
+    /** 提示词版本 */
+    private String promptVersion;
+
+    /** 生成翻译的模型 */
+    private String model;
+
+    /** 节点原文哈希 */
+    private String contentHash;
+
+    /** 翻译后的完整文本 */
+    private String translatedContent;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getTranslatorType() {
+        return translatorType;
+    }
+
+    public void setTranslatorType(String translatorType) {
+        this.translatorType = translatorType;
+    }
+
+    public String getPromptVersion() {
+        return promptVersion;
+    }
+
+    public void setPromptVersion(String promptVersion) {
+        this.promptVersion = promptVersion;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public String getTranslatedContent() {
+        return translatedContent;
+    }
+
+    public void setTranslatedContent(String translatedContent) {
+        this.translatedContent = translatedContent;
+    }
+}
@@ -54,6 +54,15 @@ public class UserRagEntity extends BaseEntity implements Serializable {
     @TableField(value = "install_type", typeHandler = InstallTypeConverter.class)
     private InstallType installType = InstallType.SNAPSHOT;
 
+    /** 快照复制状态，参考 SnapshotCopyStatus，引用类型为空 */
+    private Integer snapshotStatus;
+
+    /** 快照复制进度（0-100） */
+    private Integer snapshotProgress;
+
+    /** 快照复制失败原因 */
+    private String snapshotError;
+
     public String getId() {
         return id;
     }
@@ -126,6 +135,30 @@ public class UserRagEntity extends BaseEntity implements Serializable {
         this.originalRagId = originalRagId;
     }
 
+    public Integer getSnapshotStatus() {
+        return snapshotStatus;
+    }
+
+    public void setSnapshotStatus(Integer snapshotStatus) {
+        this.snapshotStatus = snapshotStatus;
+    }
+
+    public Integer getSnapshotProgress() {
+        return snapshotProgress;
+    }
+
+    public void setSnapshotProgress(Integer snapshotProgress) {
+        this.snapshotProgress = snapshotProgress;
+    }
+
+    public String getSnapshotError() {
+        return snapshotError;
+    }
+
+    public void setSnapshotError(String snapshotError) {
+        this.snapshotError = snapshotError;
+    }
+
     public InstallType getInstallType() {
         return installType;
     }
@@ -0,0 +1,41 @@
+package org.xhy.domain.rag.model;
+
+/** 维度迁移中一页向量的处理结果 */
+public class VectorMigrationBatch {
+
+    /** 本页读取的向量数，为0表示已处理完全部向量 */
+    private final int read;
+
+    /** 写入目标表的向量数 */
+    private final int migrated;
+
+    /** 本页最后一条的向量ID，作为下一页的起点 */
+    private final String lastId;
+
+    public VectorMigrationBatch(int read, int migrated, String lastId) {
+        this.read = read;
+        this.migrated = migrated;
+        this.lastId = lastId;
+    }
+
+    public boolean isEmpty() {
+        return read == 0;
+    }
+
+    public int getRead() {
+        return read;
+    }
+
+    public int getMigrated() {
+        return migrated;
+    }
+
+    /** 未能迁移的向量数（所属文件已删除、用户未配置嵌入模型或嵌入调用失败） */
+    public int getFailed() {
+        return read - migrated;
+    }
+
+    public String getLastId() {
+        return lastId;
+    }
+}
@@ -1,6 +1,8 @@
 package org.xhy.domain.rag.repository;
 
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
 import org.xhy.domain.rag.model.FileDetailEntity;
 import org.xhy.infrastructure.repository.MyBatisPlusExtRepository;
 
@@ -9,4 +11,8 @@ import org.xhy.infrastructure.repository.MyBatisPlusExtRepository;
 @Mapper
 public interface FileDetailRepository extends MyBatisPlusExtRepository<FileDetailEntity> {
 
+    /** 数据集内容版本：文件数与最近更新时间，文件增删或重新处理后都会变化 */
+    @Select("SELECT COUNT(*) || '@' || COALESCE(MAX(updated_at)::text, '') FROM file_detail "
+            + "WHERE data_set_id = #{dataSetId} AND deleted_at IS NULL")
+    String selectDatasetContentVersion(@Param("dataSetId") String dataSetId);
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package org.xhy.domain.rag.repository;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.xhy.domain.rag.model.NodeTranslationCacheEntity;
+import org.xhy.infrastructure.repository.MyBatisPlusExtRepository;
+
+/** 特殊节点翻译缓存仓储接口 */
+@Mapper
+public interface NodeTranslationCacheRepository extends MyBatisPlusExtRepository<NodeTranslationCacheEntity> {
+}
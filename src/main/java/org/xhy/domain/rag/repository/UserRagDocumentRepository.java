@@ -1,6 +1,8 @@
 package org.xhy.domain.rag.repository;
 
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.xhy.domain.rag.model.UserRagDocumentEntity;
 import org.xhy.infrastructure.repository.MyBatisPlusExtRepository;
 
@@ -11,4 +13,33 @@ import org.xhy.infrastructure.repository.MyBatisPlusExtRepository;
 @Mapper
 public interface UserRagDocumentRepository extends MyBatisPlusExtRepository<UserRagDocumentEntity> {
 
-}
\ No newline at end of file
+    /** 以一条 INSERT ... SELECT 复制单个版本文件下的全部文档快照
+     * @param userRagId 用户RAG安装记录ID
+     * @param userRagFileId 对应的用户文件快照ID
+     * @param ragVersionId RAG版本ID
+     * @param ragVersionFileId 版本文件ID
+     * @return 复制的文档数 */
+    @Insert("INSERT INTO user_rag_documents (id, user_rag_id, user_rag_file_id, original_document_id, content, page, "
+            + "vector_id, created_at, updated_at) "
+            + "SELECT REPLACE(gen_random_uuid()::text, '-', ''), #{userRagId}, #{userRagFileId}, original_document_id, "
+            + "content, page, vector_id, NOW(), NOW() FROM rag_version_documents "
+            + "WHERE rag_version_id = #{ragVersionId} AND rag_version_file_id = #{ragVersionFileId} "
+            + "AND deleted_at IS NULL")
+    int copyFileDocumentsFromVersion(@Param("userRagId") String userRagId,
+            @Param("userRagFileId") String userRagFileId, @Param("ragVersionId") String ragVersionId,
+            @Param("ragVersionFileId") String ragVersionFileId);
+
+    /** 复制不属于任何版本文件的文档快照（用户文件ID为空）
+     * @param userRagId 用户RAG安装记录ID
+     * @param ragVersionId RAG版本ID
+     * @return 复制的文档数 */
+    @Insert("INSERT INTO user_rag_documents (id, user_rag_id, user_rag_file_id, original_document_id, content, page, "
+            + "vector_id, created_at, updated_at) "
+            + "SELECT REPLACE(gen_random_uuid()::text, '-', ''), #{userRagId}, NULL, d.original_document_id, "
+            + "d.content, d.page, d.vector_id, NOW(), NOW() FROM rag_version_documents d "
+            + "WHERE d.rag_version_id = #{ragVersionId} AND d.deleted_at IS NULL AND NOT EXISTS ("
+            + "SELECT 1 FROM rag_version_files f WHERE f.id = d.rag_version_file_id "
+            + "AND f.rag_version_id = #{ragVersionId} AND f.deleted_at IS NULL)")
+    int copyOrphanDocumentsFromVersion(@Param("userRagId") String userRagId,
+            @Param("ragVersionId") String ragVersionId);
+}
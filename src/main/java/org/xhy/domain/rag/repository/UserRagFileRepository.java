@@ -1,6 +1,8 @@
 package org.xhy.domain.rag.repository;
 
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.xhy.domain.rag.model.UserRagFileEntity;
 import org.xhy.infrastructure.repository.MyBatisPlusExtRepository;
 
@@ -11,4 +13,14 @@ import org.xhy.infrastructure.repository.MyBatisPlusExtRepository;
 @Mapper
 public interface UserRagFileRepository extends MyBatisPlusExtRepository<UserRagFileEntity> {
 
-}
\ No newline at end of file
+    /** 以一条 INSERT ... SELECT 将版本文件快照整体复制到用户快照
+     * @param userRagId 用户RAG安装记录ID
+     * @param ragVersionId RAG版本ID
+     * @return 复制的文件数 */
+    @Insert("INSERT INTO user_rag_files (id, user_rag_id, original_file_id, file_name, file_size, file_page_size, "
+            + "file_type, file_path, process_status, embedding_status, created_at, updated_at) "
+            + "SELECT REPLACE(gen_random_uuid()::text, '-', ''), #{userRagId}, original_file_id, file_name, file_size, "
+            + "file_page_size, file_type, file_path, process_status, embedding_status, NOW(), NOW() "
+            + "FROM rag_version_files WHERE rag_version_id = #{ragVersionId} AND deleted_at IS NULL")
+    int copyFromVersion(@Param("userRagId") String userRagId, @Param("ragVersionId") String ragVersionId);
+}
@@ -2,13 +2,16 @@ package org.xhy.domain.rag.repository;
 
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 import org.xhy.domain.rag.model.VectorStoreResult;
 import org.xhy.infrastructure.repository.MyBatisPlusExtRepository;
 
 import java.util.List;
 
 /** vector_store表数据访问接口 提供向量检索和关键词检索的统一数据访问
+ * 表名取自MyBatis配置变量 vectorStoreTable，与 embedding.vector-store.table 保持一致
  * 
  * @author claude */
 @Mapper
@@ -23,7 +26,7 @@ public interface VectorStoreRepository extends MyBatisPlusExtRepository<VectorSt
     @Select({"<script>", "SELECT ", "    embedding_id,", "    text,", "    metadata,", "    ts_rank_cd(",
             "        to_tsvector('simple', text),", "        to_tsquery(", "            'simple',",
             "            replace(plainto_tsquery('simple', #{userQuery})::text, '&amp;', '|')", "        )",
-            "    ) AS score", "FROM", "    vector_store", "WHERE", "    (metadata ->> 'DATA_SET_ID') IN",
+            "    ) AS score", "FROM", "    ${vectorStoreTable}", "WHERE", "    (metadata ->> 'DATA_SET_ID') IN",
             "    <foreach collection='dataSetIds' item='dataSetId' open='(' separator=',' close=')'>",
             "        #{dataSetId}", "    </foreach>", "    AND", "    to_tsvector('simple', text) @@ to_tsquery(",
             "        'simple',",
@@ -31,4 +34,51 @@ public interface VectorStoreRepository extends MyBatisPlusExtRepository<VectorSt
             "    score DESC", "LIMIT #{maxResults}", "</script>"})
     List<VectorStoreResult> keywordSearch(@Param("dataSetIds") List<String> dataSetIds,
             @Param("userQuery") String userQuery, @Param("maxResults") Integer maxResults);
-}
\ No newline at end of file
+
+    /** 将文件的向量标记为待复用 移出DATA_SET_ID使其不参与检索，原值在复用时按新消息重新写入
+     * 
+     * @param fileId 文件ID
+     * @return 标记的向量数 */
+    @Update({"UPDATE ${vectorStoreTable}",
+            "SET metadata = ((metadata::jsonb - 'DATA_SET_ID') || jsonb_build_object('STALE', 'true'))::json",
+            "WHERE metadata ->> 'FILE_ID' = #{fileId}"})
+    int markStaleByFileId(@Param("fileId") String fileId);
+
+    /** 认领一条内容哈希相同的待复用向量，并把元数据改写为新的文档单元
+     * 
+     * @return 认领成功返回1，没有可复用的向量返回0 */
+    @Update({"UPDATE ${vectorStoreTable}", "SET text = #{text},",
+            "    metadata = ((metadata::jsonb - 'STALE') || jsonb_build_object(",
+            "        'DOCUMENT_ID', #{documentId}::text, 'FILE_NAME', #{fileName}::text,",
+            "        'DATA_SET_ID', #{dataSetId}::text))::json", "WHERE embedding_id = (",
+            "    SELECT embedding_id FROM ${vectorStoreTable}", "    WHERE metadata ->> 'FILE_ID' = #{fileId}",
+            "      AND metadata ->> 'CONTENT_HASH' = #{contentHash}", "      AND metadata ->> 'STALE' = 'true'",
+            "    LIMIT 1 FOR UPDATE SKIP LOCKED)"})
+    int claimStale(@Param("fileId") String fileId, @Param("contentHash") String contentHash,
+            @Param("documentId") String documentId, @Param("fileName") String fileName,
+            @Param("dataSetId") String dataSetId, @Param("text") String text);
+
+    /** 删除文件中未被复用的待复用向量
+     * 
+     * @param fileId 文件ID
+     * @return 删除的向量数 */
+    @Delete({"DELETE FROM ${vectorStoreTable}", "WHERE metadata ->> 'FILE_ID' = #{fileId} AND metadata ->> 'STALE' = 'true'"})
+    int deleteStaleByFileId(@Param("fileId") String fileId);
+
+    /** 按向量ID顺序分页读取参与检索的向量，供维度迁移时重新向量化
+     * 
+     * @param afterId 上一页最后一条的向量ID，首页传null
+     * @param limit 每页数量
+     * @return 向量ID、文本与元数据 */
+    @Select({"<script>", "SELECT embedding_id, text, metadata FROM ${vectorStoreTable}",
+            "WHERE (metadata ->> 'STALE') IS NULL",
+            "<if test='afterId != null'>AND embedding_id &gt; #{afterId}::uuid</if>",
+            "ORDER BY embedding_id LIMIT #{limit}", "</script>"})
+    List<VectorStoreResult> listActiveAfter(@Param("afterId") String afterId, @Param("limit") int limit);
+
+    /** 统计参与检索的向量数
+     * 
+     * @return 向量数 */
+    @Select("SELECT COUNT(*) FROM ${vectorStoreTable} WHERE (metadata ->> 'STALE') IS NULL")
+    long countActive();
+}
@@ -5,7 +5,7 @@ import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import dev.langchain4j.data.document.Metadata;
 import dev.langchain4j.data.embedding.Embedding;
 import dev.langchain4j.data.segment.TextSegment;
-import dev.langchain4j.model.openai.OpenAiEmbeddingModel;
+import dev.langchain4j.model.embedding.EmbeddingModel;
 import dev.langchain4j.store.embedding.EmbeddingMatch;
 import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
 import dev.langchain4j.store.embedding.EmbeddingSearchResult;
@@ -24,17 +24,23 @@ import org.xhy.domain.rag.constant.SearchType;
 import org.xhy.domain.rag.message.RagDocSyncStorageMessage;
 import org.xhy.domain.rag.model.DocumentUnitEntity;
 import org.xhy.domain.rag.model.FileDetailEntity;
+import org.xhy.domain.rag.model.ModelConfig;
 import org.xhy.domain.rag.model.VectorStoreResult;
 import org.xhy.domain.rag.repository.DocumentUnitRepository;
 import org.xhy.domain.rag.repository.FileDetailRepository;
+import org.xhy.domain.rag.repository.VectorStoreRepository;
 import org.xhy.infrastructure.exception.BusinessException;
 import org.xhy.infrastructure.mq.core.MessageEnvelope;
 import org.xhy.infrastructure.mq.core.MessagePublisher;
 import org.xhy.infrastructure.mq.enums.EventType;
 import org.xhy.infrastructure.mq.events.RagDocSyncStorageEvent;
 import org.xhy.infrastructure.rag.factory.EmbeddingModelFactory;
+import org.xhy.infrastructure.rag.vector.VectorSearchTuning;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 import static dev.langchain4j.store.embedding.filter.MetadataFilterBuilder.metadataKey;
@@ -59,15 +65,18 @@ public class EmbeddingDomainService implements MetadataConstant {
 
     private final DocumentUnitRepository documentUnitRepository;
 
+    private final VectorStoreRepository vectorStoreRepository;
+
     public EmbeddingDomainService(EmbeddingModelFactory embeddingModelFactory,
             @Qualifier("initEmbeddingStore") EmbeddingStore<TextSegment> embeddingStore,
             FileDetailRepository fileDetailRepository, MessagePublisher messagePublisher,
-            DocumentUnitRepository documentUnitRepository) {
+            DocumentUnitRepository documentUnitRepository, VectorStoreRepository vectorStoreRepository) {
         this.embeddingModelFactory = embeddingModelFactory;
         this.embeddingStore = embeddingStore;
         this.fileDetailRepository = fileDetailRepository;
         this.messagePublisher = messagePublisher;
         this.documentUnitRepository = documentUnitRepository;
+        this.vectorStoreRepository = vectorStoreRepository;
     }
 
     /** 纯向量检索方法 专门负责向量检索算法，返回统一的VectorStoreResult格式
@@ -109,7 +118,7 @@ public class EmbeddingDomainService implements MetadataConstant {
 
         try {
             // 创建嵌入模型实例
-            OpenAiEmbeddingModel embeddingModel = embeddingModelFactory.createEmbeddingModel(embeddingConfig);
+            EmbeddingModel embeddingModel = embeddingModelFactory.createEmbeddingModel(embeddingConfig);
 
             // 计算搜索数量
             int searchLimit = finalEnableRerank
@@ -119,33 +128,40 @@ public class EmbeddingDomainService implements MetadataConstant {
             log.debug("开始向量搜索 参数: datasets={}, question='{}', maxResults={}, minScore={}, searchLimit={}", dataSetIds,
                     question, finalMaxResults, finalMinScore, searchLimit);
 
-            // 执行向量查询
-            final EmbeddingSearchResult<TextSegment> searchResult = embeddingStore.search(EmbeddingSearchRequest
-                    .builder().filter(new IsIn(DATA_SET_ID, dataSetIds)).maxResults(searchLimit).minScore(finalMinScore)
-                    .queryEmbedding(Embedding.from(embeddingModel.embed(question).content().vector())).build());
+            // 执行向量查询，HNSW候选列表不小于召回数量的两倍；共享索引上数据集过滤后仍不足时，
+            // 由连接默认的 hnsw.iterative_scan（vector-store.index.iterative-scan）继续扫描索引补足
+            final Embedding queryEmbedding = Embedding.from(embeddingModel.embed(question).content().vector());
+            final int efSearch = Math.min(VectorSearchTuning.MAX_EF_SEARCH, searchLimit * 2);
+            final EmbeddingSearchResult<TextSegment> searchResult = VectorSearchTuning.withEfSearch(efSearch,
+                    () -> embeddingStore.search(EmbeddingSearchRequest.builder()
+                            .filter(new IsIn(DATA_SET_ID, dataSetIds)).maxResults(searchLimit)
+                            .minScore(finalMinScore).queryEmbedding(queryEmbedding).build()));
 
             List<EmbeddingMatch<TextSegment>> embeddingMatches = searchResult.matches();
 
             // 回退搜索（降低阈值）
             if (embeddingMatches.isEmpty() && finalMinScore > 0.3) {
                 log.info("在最小分数{}下没有找到向量结果，尝试使用较低阈值重试", finalMinScore);
-                final EmbeddingSearchResult<TextSegment> fallbackResult = embeddingStore.search(EmbeddingSearchRequest
-                        .builder().filter(new IsIn(DATA_SET_ID, dataSetIds)).maxResults(searchLimit).minScore(0.3)
-                        .queryEmbedding(Embedding.from(embeddingModel.embed(question).content().vector())).build());
+                final EmbeddingSearchResult<TextSegment> fallbackResult = VectorSearchTuning.withEfSearch(efSearch,
+                        () -> embeddingStore.search(EmbeddingSearchRequest.builder()
+                                .filter(new IsIn(DATA_SET_ID, dataSetIds)).maxResults(searchLimit).minScore(0.3)
+                                .queryEmbedding(queryEmbedding).build()));
                 embeddingMatches = fallbackResult.matches();
                 log.debug("回退向量搜索找到{}个匹配结果", embeddingMatches.size());
             }
 
-            // 转换为VectorStoreResult格式
-            List<VectorStoreResult> results = embeddingMatches.stream().limit(finalMaxResults).map(match -> {
-                VectorStoreResult result = new VectorStoreResult();
-                result.setEmbeddingId(match.embeddingId());
-                result.setText(match.embedded().text());
-                result.setMetadata(match.embedded().metadata().toMap());
-                result.setScore(match.score());
-                result.setSearchType(SearchType.VECTOR);
-                return result;
-            }).toList();
+            // 转换为VectorStoreResult格式，relaxed_order 迭代扫描的结果可能略微乱序，截取前按分数重排
+            List<VectorStoreResult> results = embeddingMatches.stream()
+                    .sorted(Comparator.comparingDouble((EmbeddingMatch<TextSegment> match) -> match.score()).reversed())
+                    .limit(finalMaxResults).map(match -> {
+                        VectorStoreResult result = new VectorStoreResult();
+                        result.setEmbeddingId(match.embeddingId());
+                        result.setText(match.embedded().text());
+                        result.setMetadata(match.embedded().metadata().toMap());
+                        result.setScore(match.score());
+                        result.setSearchType(SearchType.VECTOR);
+                        return result;
+                    }).toList();
 
             long totalTime = System.currentTimeMillis() - startTime;
             log.info("向量搜索完成，查询：'{}'，返回{}个文档，耗时{}ms", question, results.size(), totalTime);
@@ -168,6 +184,42 @@ public class EmbeddingDomainService implements MetadataConstant {
         embeddingStore.removeAll(metadataKey(MetadataConstant.FILE_ID).isIn(fileIds));
     }
 
+    /** 重新处理文件前将其向量标记为待复用
+     *
+     * 标记后的向量不参与检索；重新处理时内容未变化的片段认领旧向量，无需再次调用嵌入模型，结束后由
+     * {@link #purgeStaleEmbeddings} 删除未被认领的向量
+     *
+     * @param fileId 文件ID */
+    public void markEmbeddingsStale(String fileId) {
+        int marked = vectorStoreRepository.markStaleByFileId(fileId);
+        log.info("文件{}的{}条向量已标记为待复用", fileId, marked);
+    }
+
+    /** 尝试复用内容相同的旧向量
+     *
+     * @param ragDocSyncStorageMessage 存储消息
+     * @return 复用成功返回true */
+    public boolean reuseEmbedding(RagDocSyncStorageMessage ragDocSyncStorageMessage) {
+        String contentHash = contentHash(ragDocSyncStorageMessage);
+        if (contentHash == null) {
+            return false;
+        }
+        int claimed = vectorStoreRepository.claimStale(ragDocSyncStorageMessage.getFileId(), contentHash,
+                extractOriginalDocId(ragDocSyncStorageMessage.getId()), ragDocSyncStorageMessage.getFileName(),
+                ragDocSyncStorageMessage.getDatasetId(), ragDocSyncStorageMessage.getContent());
+        return claimed > 0;
+    }
+
+    /** 删除文件中未被复用的旧向量（内容已变化或已删除的片段）
+     *
+     * @param fileId 文件ID */
+    public void purgeStaleEmbeddings(String fileId) {
+        int deleted = vectorStoreRepository.deleteStaleByFileId(fileId);
+        if (deleted > 0) {
+            log.info("文件{}删除{}条未复用的旧向量", fileId, deleted);
+        }
+    }
+
     /** 获取与文件关联的向量ID列表
      *
      * @param fileId 文件ID */
@@ -201,15 +253,20 @@ public class EmbeddingDomainService implements MetadataConstant {
             return;
         }
 
-        final Metadata documentMetadata = buildMetadata(ragDocSyncStorageMessage);
+        // 内容未变化的片段复用重新处理前的向量
+        if (Boolean.TRUE.equals(ragDocSyncStorageMessage.getReused()) || reuseEmbedding(ragDocSyncStorageMessage)) {
+            log.debug("存储消息{}内容未变化，复用已有向量", vectorId);
+        } else {
+            final Metadata documentMetadata = buildMetadata(ragDocSyncStorageMessage);
 
-        final TextSegment textSegment = new TextSegment(content, documentMetadata);
+            final TextSegment textSegment = new TextSegment(content, documentMetadata);
 
-        // 使用消息中配置的嵌入模型生成向量
-        OpenAiEmbeddingModel embeddingModel = createEmbeddingModelFromMessage(ragDocSyncStorageMessage);
-        Embedding embeddings = embeddingModel.embed(textSegment).content();
+            // 使用消息中配置的嵌入模型生成向量
+            EmbeddingModel embeddingModel = createEmbeddingModelFromMessage(ragDocSyncStorageMessage);
+            Embedding embeddings = embeddingModel.embed(textSegment).content();
 
-        embeddingStore.add(embeddings, textSegment);
+            embeddingStore.add(embeddings, textSegment);
+        }
 
         // 提取原始DocumentUnit ID（移除segment后缀）
         String originalDocId = extractOriginalDocId(vectorId);
@@ -260,15 +317,45 @@ public class EmbeddingDomainService implements MetadataConstant {
         metadata.put(FILE_NAME, ragDocSyncStorageMessage.getFileName());
         metadata.put(DOCUMENT_ID, extractOriginalDocId(ragDocSyncStorageMessage.getId()));
         metadata.put(DATA_SET_ID, ragDocSyncStorageMessage.getDatasetId());
+        String contentHash = contentHash(ragDocSyncStorageMessage);
+        if (contentHash != null) {
+            metadata.put(CONTENT_HASH, contentHash);
+        }
         return metadata;
     }
 
+    /** 计算向量内容哈希 嵌入模型或输出维度不同的向量不可复用，因此模型一并参与哈希；文本只做空白规范化
+     *
+     * @return 未配置嵌入模型或内容为空时返回null */
+    private String contentHash(RagDocSyncStorageMessage ragDocSyncStorageMessage) {
+        if (ragDocSyncStorageMessage.getEmbeddingModelConfig() == null
+                || ragDocSyncStorageMessage.getContent() == null) {
+            return null;
+        }
+        String normalized = ragDocSyncStorageMessage.getContent().replaceAll("\\s+", " ").trim();
+        ModelConfig modelConfig = ragDocSyncStorageMessage.getEmbeddingModelConfig();
+        String model = modelConfig.getDimensions() == null
+                ? modelConfig.getModelEndpoint()
+                : modelConfig.getModelEndpoint() + "@" + modelConfig.getDimensions();
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] digest = md.digest((model + "\n" + normalized).getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (Exception e) {
+            throw new BusinessException("计算hash失败", e);
+        }
+    }
+
     /** 从消息中创建嵌入模型
      * 
      * @param ragDocSyncStorageMessage 存储消息
-     * @return OpenAiEmbeddingModel实例
+     * @return 嵌入模型实例
      * @throws RuntimeException 如果没有配置嵌入模型或创建失败 */
-    private OpenAiEmbeddingModel createEmbeddingModelFromMessage(RagDocSyncStorageMessage ragDocSyncStorageMessage) {
+    private EmbeddingModel createEmbeddingModelFromMessage(RagDocSyncStorageMessage ragDocSyncStorageMessage) {
         // 检查消息和模型配置是否存在
         if (ragDocSyncStorageMessage == null || ragDocSyncStorageMessage.getEmbeddingModelConfig() == null) {
             String errorMsg = String.format("用户 %s 未配置嵌入模型，无法进行向量化处理",
@@ -282,8 +369,9 @@ public class EmbeddingDomainService implements MetadataConstant {
 
             // 使用工厂类创建嵌入模型
             EmbeddingModelFactory.EmbeddingConfig config = new EmbeddingModelFactory.EmbeddingConfig(
-                    modelConfig.getApiKey(), modelConfig.getBaseUrl(), modelConfig.getModelEndpoint());
-            OpenAiEmbeddingModel embeddingModel = embeddingModelFactory.createEmbeddingModel(config);
+                    modelConfig.getApiKey(), modelConfig.getBaseUrl(), modelConfig.getModelEndpoint(),
+                    modelConfig.getDimensions());
+            EmbeddingModel embeddingModel = embeddingModelFactory.createEmbeddingModel(config);
 
             log.info("成功为用户{}创建嵌入模型: {}", ragDocSyncStorageMessage.getUserId(), modelConfig.getModelEndpoint());
             return embeddingModel;
@@ -210,6 +210,13 @@ public class FileDetailDomainService {
         return fileDetailRepository.selectCount(wrapper);
     }
 
+    /** 获取数据集的内容版本，用于判断基于该数据集的缓存是否仍然有效
+     * @param datasetId 数据集ID
+     * @return 内容版本标识 */
+    public String getDatasetContentVersion(String datasetId) {
+        return fileDetailRepository.selectDatasetContentVersion(datasetId);
+    }
+
     /** 批量删除数据集下的所有文件
      * @param datasetId 数据集ID
      * @param userId 用户ID */
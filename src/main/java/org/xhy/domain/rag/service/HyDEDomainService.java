@@ -22,6 +22,12 @@ public class HyDEDomainService {
 
     private static final Logger log = LoggerFactory.getLogger(HyDEDomainService.class);
 
+    private final LLMProviderService llmProviderService;
+
+    public HyDEDomainService(LLMProviderService llmProviderService) {
+        this.llmProviderService = llmProviderService;
+    }
+
     /** HyDE提示词模板 */
     private static final String HYDE_PROMPT_TEMPLATE = """
             你是一个为 RAG 系统服务的查询扩展专家，负责生成用于增强检索的“假想文档摘要”。
@@ -52,7 +58,7 @@ public class HyDEDomainService {
 
             ProviderConfig providerConfig = new ProviderConfig(chatModelConfig.getApiKey(),
                     chatModelConfig.getBaseUrl(), chatModelConfig.getModelEndpoint(), chatModelConfig.getProtocol());
-            ChatModel chatModel = LLMProviderService.getStrand(chatModelConfig.getProtocol(), providerConfig);
+            ChatModel chatModel = llmProviderService.getStrand(chatModelConfig.getProtocol(), providerConfig);
 
             // 构建提示词
             SystemMessage systemMessage = new SystemMessage(HYDE_PROMPT_TEMPLATE);
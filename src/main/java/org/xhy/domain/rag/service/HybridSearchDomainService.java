@@ -153,7 +153,7 @@ public class HybridSearchDomainService {
      * @param keywordResults 关键词检索结果
      * @param maxResults 最大返回结果数量
      * @return 融合后的结果列表 */
-    private List<VectorStoreResult> fusionWithRRF(List<VectorStoreResult> vectorResults,
+    public static List<VectorStoreResult> fusionWithRRF(List<VectorStoreResult> vectorResults,
             List<VectorStoreResult> keywordResults, int maxResults) {
 
         log.debug("开始RRF融合 向量: {}, 关键词: {} 结果", vectorResults.size(), keywordResults.size());
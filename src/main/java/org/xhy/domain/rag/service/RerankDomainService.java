@@ -7,8 +7,10 @@ import jakarta.annotation.Resource;
 import org.springframework.stereotype.Service;
 import org.xhy.domain.rag.dto.req.RerankRequest;
 import org.xhy.domain.rag.dto.resp.RerankResponse;
+import org.xhy.infrastructure.config.ExecutionProperties;
 import org.xhy.infrastructure.rag.api.RerankForestApi;
 import org.xhy.infrastructure.rag.config.RerankProperties;
+import org.xhy.infrastructure.ratelimit.service.DownstreamLimiter;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -26,6 +28,9 @@ public class RerankDomainService {
     @Resource
     private RerankForestApi rerankForestApi;
 
+    @Resource
+    private DownstreamLimiter downstreamLimiter;
+
     /** 重排序文档列表
      * 
      * @param documents 待重排序的文档文本列表
@@ -50,8 +55,10 @@ public class RerankDomainService {
         rerankRequest.setDocuments(documents);
 
         try {
-            final RerankResponse rerankResponse = rerankForestApi.rerank(rerankProperties.getApiUrl(),
-                    rerankProperties.getApiKey(), rerankRequest);
+            // 重排序服务繁忙时按原顺序返回
+            final RerankResponse rerankResponse = downstreamLimiter.call(ExecutionProperties.DOWNSTREAM_RERANK, null,
+                    () -> rerankForestApi.rerank(rerankProperties.getApiUrl(), rerankProperties.getApiKey(),
+                            rerankRequest));
 
             final List<RerankResponse.SearchResult> results = rerankResponse.getResults();
 
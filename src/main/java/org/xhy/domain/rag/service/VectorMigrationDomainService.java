@@ -0,0 +1,169 @@
+package org.xhy.domain.rag.service;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.xhy.domain.rag.model.FileDetailEntity;
+import org.xhy.domain.rag.model.ModelConfig;
+import org.xhy.domain.rag.model.VectorMigrationBatch;
+import org.xhy.domain.rag.model.VectorStoreResult;
+import org.xhy.domain.rag.repository.FileDetailRepository;
+import org.xhy.domain.rag.repository.VectorStoreRepository;
+import org.xhy.infrastructure.exception.BusinessException;
+import org.xhy.infrastructure.rag.config.EmbeddingProperties;
+import org.xhy.infrastructure.rag.factory.EmbeddingModelFactory;
+import org.xhy.infrastructure.rag.service.UserModelConfigResolver;
+import org.xhy.infrastructure.rag.vector.VectorStoreSpec;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/** 知识库向量维度迁移 将当前向量表中参与检索的向量，按所属用户的嵌入模型以目标维度重新向量化后写入迁移目标表。
+ * 迁移期间检索仍读取当前表，目标表写满后再将 embedding.vector-store 切换过去，切换前检索不受影响 */
+@Service
+public class VectorMigrationDomainService {
+
+    private static final Logger log = LoggerFactory.getLogger(VectorMigrationDomainService.class);
+
+    private final VectorStoreRepository vectorStoreRepository;
+    private final FileDetailRepository fileDetailRepository;
+    private final EmbeddingModelFactory embeddingModelFactory;
+    private final UserModelConfigResolver userModelConfigResolver;
+    private final EmbeddingProperties embeddingProperties;
+    private final EmbeddingProperties.Migration migration;
+    private final ObjectProvider<EmbeddingStore<TextSegment>> migrationEmbeddingStore;
+
+    public VectorMigrationDomainService(VectorStoreRepository vectorStoreRepository,
+            FileDetailRepository fileDetailRepository, EmbeddingModelFactory embeddingModelFactory,
+            UserModelConfigResolver userModelConfigResolver, EmbeddingProperties embeddingProperties,
+            @Qualifier("migrationEmbeddingStore") ObjectProvider<EmbeddingStore<TextSegment>> migrationEmbeddingStore) {
+        this.vectorStoreRepository = vectorStoreRepository;
+        this.fileDetailRepository = fileDetailRepository;
+        this.embeddingModelFactory = embeddingModelFactory;
+        this.userModelConfigResolver = userModelConfigResolver;
+        this.embeddingProperties = embeddingProperties;
+        this.migration = embeddingProperties.getMigration();
+        this.migrationEmbeddingStore = migrationEmbeddingStore;
+    }
+
+    /** 检查已配置迁移目标表且不是当前向量表，返回目标向量库 */
+    private EmbeddingStore<TextSegment> targetStore() {
+        if (!migration.isEnabled()) {
+            throw new BusinessException("未配置向量迁移目标表，请设置 embedding.migration.table 与 dimension 后重启");
+        }
+        // 迁移开始时会清空目标表，指向当前表会删掉全部检索数据
+        VectorStoreSpec target = VectorStoreSpec.migrationTarget(embeddingProperties);
+        if (target.sameTable(VectorStoreSpec.of("rag", embeddingProperties.getVectorStore()))) {
+            throw new BusinessException("向量迁移目标表与当前知识库向量表相同: " + target.qualifiedTableName()
+                    + "，切换完成后请清空 embedding.migration.table");
+        }
+        EmbeddingStore<TextSegment> store = migrationEmbeddingStore.getIfAvailable();
+        if (store == null) {
+            throw new BusinessException("未配置向量迁移目标表，请设置 embedding.migration.table 与 dimension 后重启");
+        }
+        return store;
+    }
+
+    /** 校验迁移配置
+     * @return 迁移配置 */
+    public EmbeddingProperties.Migration checkConfigured() {
+        targetStore();
+        return migration;
+    }
+
+    /** 统计待迁移的向量数 */
+    public long countSource() {
+        return vectorStoreRepository.countActive();
+    }
+
+    /** 清空目标表 重新执行迁移时从头写入，已删除文件的向量不会残留 */
+    public void clearTarget() {
+        targetStore().removeAll();
+        log.info("已清空向量迁移目标表: {}", migration.getTable());
+    }
+
+    /** 迁移一页向量，同一用户的向量一次批量向量化
+     *
+     * @param afterId 上一页最后一条的向量ID，首页传null
+     * @param modelConfigs 用户ID -> 嵌入模型配置，由调用方在整个任务内复用
+     * @return 本页处理结果 */
+    public VectorMigrationBatch migrateBatch(String afterId, Map<String, ModelConfig> modelConfigs) {
+        EmbeddingStore<TextSegment> store = targetStore();
+        List<VectorStoreResult> rows = vectorStoreRepository.listActiveAfter(afterId,
+                Math.max(1, migration.getBatchSize()));
+        if (rows.isEmpty()) {
+            return new VectorMigrationBatch(0, 0, afterId);
+        }
+
+        // 文件ID -> 所属用户
+        List<String> fileIds = rows.stream().map(VectorStoreResult::getFileId).filter(Objects::nonNull).distinct()
+                .toList();
+        Map<String, String> owners = fileIds.isEmpty()
+                ? Map.of()
+                : fileDetailRepository.selectByIds(fileIds).stream()
+                        .collect(Collectors.toMap(FileDetailEntity::getId, FileDetailEntity::getUserId, (a, b) -> a));
+
+        Map<String, List<VectorStoreResult>> byUser = new LinkedHashMap<>();
+        for (VectorStoreResult row : rows) {
+            String userId = owners.get(row.getFileId());
+            if (userId == null) {
+                log.debug("向量{}所属文件不存在，跳过迁移", row.getEmbeddingId());
+                continue;
+            }
+            byUser.computeIfAbsent(userId, k -> new ArrayList<>()).add(row);
+        }
+
+        int migrated = 0;
+        for (Map.Entry<String, List<VectorStoreResult>> entry : byUser.entrySet()) {
+            try {
+                ModelConfig modelConfig = modelConfigs.computeIfAbsent(entry.getKey(),
+                        userModelConfigResolver::getUserEmbeddingModelConfig);
+                migrated += migrate(store, entry.getValue(), modelConfig);
+            } catch (Exception e) {
+                log.warn("用户{}的{}条向量迁移失败: {}", entry.getKey(), entry.getValue().size(), e.getMessage());
+            }
+        }
+        return new VectorMigrationBatch(rows.size(), migrated, rows.get(rows.size() - 1).getEmbeddingId());
+    }
+
+    /** 按目标维度重新向量化并写入目标表，沿用原向量ID、文本与元数据 */
+    private int migrate(EmbeddingStore<TextSegment> store, List<VectorStoreResult> rows, ModelConfig modelConfig) {
+        EmbeddingModel embeddingModel = embeddingModelFactory.createEmbeddingModel(
+                new EmbeddingModelFactory.EmbeddingConfig(modelConfig.getApiKey(), modelConfig.getBaseUrl(),
+                        modelConfig.getModelEndpoint(), migration.getDimension()),
+                migration.getDimension());
+
+        List<String> ids = new ArrayList<>(rows.size());
+        List<TextSegment> segments = new ArrayList<>(rows.size());
+        for (VectorStoreResult row : rows) {
+            ids.add(row.getEmbeddingId());
+            segments.add(TextSegment.from(row.getText(), toMetadata(row.getMetadata())));
+        }
+        List<Embedding> embeddings = embeddingModel.embedAll(segments).content();
+        store.addAll(ids, embeddings, segments);
+        return rows.size();
+    }
+
+    private static Metadata toMetadata(Map<String, Object> values) {
+        Metadata metadata = new Metadata();
+        if (values != null) {
+            values.forEach((key, value) -> {
+                if (value != null) {
+                    metadata.put(key, value.toString());
+                }
+            });
+        }
+        return metadata;
+    }
+}
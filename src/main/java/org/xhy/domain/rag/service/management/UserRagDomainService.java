@@ -6,9 +6,12 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.xhy.domain.rag.constant.InstallType;
 import org.xhy.domain.rag.constant.RagPublishStatus;
+import org.xhy.domain.rag.constant.SnapshotCopyStatus;
+import org.xhy.domain.rag.event.UserRagSnapshotRequestedEvent;
 import org.xhy.domain.rag.model.RagQaDatasetEntity;
 import org.xhy.domain.rag.model.RagVersionEntity;
 import org.xhy.domain.rag.model.UserRagEntity;
@@ -34,13 +37,16 @@ public class UserRagDomainService {
     private final RagVersionDomainService ragVersionDomainService;
     private final RagQaDatasetDomainService ragQaDatasetDomainService;
     private final UserRagSnapshotDomainService userRagSnapshotService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public UserRagDomainService(UserRagRepository userRagRepository, RagVersionDomainService ragVersionDomainService,
-            RagQaDatasetDomainService ragQaDatasetDomainService, UserRagSnapshotDomainService userRagSnapshotService) {
+            RagQaDatasetDomainService ragQaDatasetDomainService, UserRagSnapshotDomainService userRagSnapshotService,
+            ApplicationEventPublisher eventPublisher) {
         this.userRagRepository = userRagRepository;
         this.ragVersionDomainService = ragVersionDomainService;
         this.ragQaDatasetDomainService = ragQaDatasetDomainService;
         this.userRagSnapshotService = userRagSnapshotService;
+        this.eventPublisher = eventPublisher;
     }
 
     /** 安装RAG（新版本 - 安装RAG本身而不是特定版本）
@@ -49,6 +55,16 @@ public class UserRagDomainService {
      * @param ragVersionId RAG版本ID
      * @return 安装记录 */
     public UserRagEntity installRag(String userId, String ragVersionId) {
+        return installRag(userId, ragVersionId, false);
+    }
+
+    /** 安装RAG版本
+     * 
+     * @param userId 用户ID
+     * @param ragVersionId RAG版本ID
+     * @param backgroundSnapshot 是否由后台任务复制快照，开启时只创建安装记录并发布快照复制事件
+     * @return 安装记录 */
+    public UserRagEntity installRag(String userId, String ragVersionId, boolean backgroundSnapshot) {
         // 验证版本存在
         RagVersionEntity ragVersion = ragVersionDomainService.getRagVersion(ragVersionId);
 
@@ -68,7 +84,7 @@ public class UserRagDomainService {
         UserRagEntity existingRag = findInstalledRagByOriginalId(userId, ragVersion.getOriginalRagId());
         if (existingRag != null) {
             // 如果已安装，则切换到新版本
-            return switchRagVersion(userId, existingRag.getId(), ragVersionId);
+            return switchRagVersion(userId, existingRag.getId(), ragVersionId, backgroundSnapshot);
         }
 
         // 确定安装类型
@@ -86,11 +102,20 @@ public class UserRagDomainService {
         userRag.setVersion(ragVersion.getVersion());
         userRag.setInstalledAt(LocalDateTime.now());
 
+        if (installType == InstallType.SNAPSHOT && backgroundSnapshot) {
+            userRag.setSnapshotStatus(SnapshotCopyStatus.COPYING.getCode());
+            userRag.setSnapshotProgress(0);
+        }
+
         userRagRepository.insert(userRag);
 
         // 如果是SNAPSHOT类型，创建用户专属快照
         if (installType == InstallType.SNAPSHOT) {
-            userRagSnapshotService.createUserSnapshot(userRag.getId(), ragVersionId);
+            if (backgroundSnapshot) {
+                eventPublisher.publishEvent(new UserRagSnapshotRequestedEvent(userRag.getId(), ragVersionId));
+            } else {
+                userRagSnapshotService.createUserSnapshot(userRag.getId(), ragVersionId);
+            }
         }
 
         return userRag;
@@ -136,6 +161,18 @@ public class UserRagDomainService {
      * @param targetVersionId 目标版本ID
      * @return 更新后的安装记录 */
     public UserRagEntity switchRagVersion(String userId, String userRagId, String targetVersionId) {
+        return switchRagVersion(userId, userRagId, targetVersionId, false);
+    }
+
+    /** 切换RAG版本
+     * 
+     * @param userId 用户ID
+     * @param userRagId 用户RAG安装记录ID
+     * @param targetVersionId 目标版本ID
+     * @param backgroundSnapshot 是否由后台任务复制快照
+     * @return 更新后的安装记录 */
+    public UserRagEntity switchRagVersion(String userId, String userRagId, String targetVersionId,
+            boolean backgroundSnapshot) {
         // 获取当前安装记录
         UserRagEntity userRag = getUserRag(userId, userRagId);
 
@@ -179,7 +216,12 @@ public class UserRagDomainService {
 
         // 如果新类型是SNAPSHOT，创建新版本的快照数据
         if (newInstallType == InstallType.SNAPSHOT) {
-            userRagSnapshotService.createUserSnapshot(userRagId, targetVersionId);
+            if (backgroundSnapshot) {
+                userRagSnapshotService.markSnapshotPending(userRagId);
+                eventPublisher.publishEvent(new UserRagSnapshotRequestedEvent(userRagId, targetVersionId));
+            } else {
+                userRagSnapshotService.createUserSnapshot(userRagId, targetVersionId);
+            }
         }
 
         // 返回更新后的记录
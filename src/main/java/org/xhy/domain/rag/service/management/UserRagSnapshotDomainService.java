@@ -5,19 +5,20 @@ import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
-import org.xhy.domain.rag.model.RagVersionDocumentEntity;
+import org.xhy.domain.rag.constant.SnapshotCopyStatus;
 import org.xhy.domain.rag.model.RagVersionFileEntity;
 import org.xhy.domain.rag.model.UserRagDocumentEntity;
+import org.xhy.domain.rag.model.UserRagEntity;
 import org.xhy.domain.rag.model.UserRagFileEntity;
-import org.xhy.domain.rag.repository.RagVersionDocumentRepository;
 import org.xhy.domain.rag.repository.RagVersionFileRepository;
 import org.xhy.domain.rag.repository.UserRagDocumentRepository;
 import org.xhy.domain.rag.repository.UserRagFileRepository;
+import org.xhy.domain.rag.repository.UserRagRepository;
 import org.xhy.infrastructure.exception.BusinessException;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -30,18 +31,24 @@ public class UserRagSnapshotDomainService {
 
     private static final Logger logger = LoggerFactory.getLogger(UserRagSnapshotDomainService.class);
 
+    /** 文件快照复制完成时的进度 */
+    private static final int FILE_COPY_PROGRESS = 10;
+
+    /** 进度变化达到该步长才写库，避免小文件多时频繁更新 */
+    private static final int PROGRESS_REPORT_STEP = 5;
+
     private final UserRagFileRepository userRagFileRepository;
     private final UserRagDocumentRepository userRagDocumentRepository;
     private final RagVersionFileRepository ragVersionFileRepository;
-    private final RagVersionDocumentRepository ragVersionDocumentRepository;
+    private final UserRagRepository userRagRepository;
 
     public UserRagSnapshotDomainService(UserRagFileRepository userRagFileRepository,
             UserRagDocumentRepository userRagDocumentRepository, RagVersionFileRepository ragVersionFileRepository,
-            RagVersionDocumentRepository ragVersionDocumentRepository) {
+            UserRagRepository userRagRepository) {
         this.userRagFileRepository = userRagFileRepository;
         this.userRagDocumentRepository = userRagDocumentRepository;
         this.ragVersionFileRepository = ragVersionFileRepository;
-        this.ragVersionDocumentRepository = ragVersionDocumentRepository;
+        this.userRagRepository = userRagRepository;
     }
 
     /** 为用户安装创建完整快照
@@ -50,80 +57,83 @@ public class UserRagSnapshotDomainService {
      * @param ragVersionId RAG版本ID */
     public void createUserSnapshot(String userRagId, String ragVersionId) {
         logger.info("开始为用户RAG [{}] 创建版本 [{}] 的完整快照", userRagId, ragVersionId);
+        updateSnapshotState(userRagId, SnapshotCopyStatus.COPYING, 0, null);
 
         try {
             // 复制文件快照
             copyVersionFilesToUser(userRagId, ragVersionId);
+            updateSnapshotState(userRagId, SnapshotCopyStatus.COPYING, FILE_COPY_PROGRESS, null);
 
             // 复制文档快照
             copyVersionDocumentsToUser(userRagId, ragVersionId);
 
+            updateSnapshotState(userRagId, SnapshotCopyStatus.READY, 100, null);
             logger.info("用户RAG [{}] 快照创建完成", userRagId);
         } catch (Exception e) {
             logger.error("用户RAG [{}] 快照创建失败", userRagId, e);
             // 回滚已创建的快照数据
             rollbackUserSnapshot(userRagId);
+            updateSnapshotState(userRagId, SnapshotCopyStatus.FAILED, null, e.getMessage());
             throw new BusinessException("快照创建失败: " + e.getMessage());
         }
     }
 
-    /** 复制版本文件快照到用户快照
+    /** 复制版本文件快照到用户快照，整个版本只执行一条 INSERT ... SELECT
      * 
      * @param userRagId 用户RAG安装记录ID
      * @param ragVersionId RAG版本ID */
     public void copyVersionFilesToUser(String userRagId, String ragVersionId) {
-        // 查询版本文件快照
-        LambdaQueryWrapper<RagVersionFileEntity> wrapper = Wrappers.<RagVersionFileEntity>lambdaQuery()
-                .eq(RagVersionFileEntity::getRagVersionId, ragVersionId)
-                .orderByDesc(RagVersionFileEntity::getCreatedAt);
+        int copied = userRagFileRepository.copyFromVersion(userRagId, ragVersionId);
 
-        List<RagVersionFileEntity> versionFiles = ragVersionFileRepository.selectList(wrapper);
-
-        if (versionFiles.isEmpty()) {
+        if (copied == 0) {
             logger.warn("版本 [{}] 没有找到文件快照", ragVersionId);
             return;
         }
 
-        logger.info("开始复制 {} 个文件快照到用户RAG [{}]", versionFiles.size(), userRagId);
-
-        // 转换并保存为用户文件快照
-        for (RagVersionFileEntity versionFile : versionFiles) {
-            UserRagFileEntity userFile = convertToUserRagFile(versionFile, userRagId);
-            userRagFileRepository.insert(userFile);
-        }
-
-        logger.info("文件快照复制完成，共复制 {} 个文件", versionFiles.size());
+        logger.info("文件快照复制完成，共复制 {} 个文件到用户RAG [{}]", copied, userRagId);
     }
 
-    /** 复制版本文档快照到用户快照
+    /** 复制版本文档快照到用户快照，按版本文件逐个执行 INSERT ... SELECT，每个文件一次数据库往返，并按文件推进复制进度
      * 
      * @param userRagId 用户RAG安装记录ID
      * @param ragVersionId RAG版本ID */
     public void copyVersionDocumentsToUser(String userRagId, String ragVersionId) {
-        // 查询版本文档快照
-        LambdaQueryWrapper<RagVersionDocumentEntity> wrapper = Wrappers.<RagVersionDocumentEntity>lambdaQuery()
-                .eq(RagVersionDocumentEntity::getRagVersionId, ragVersionId)
-                .orderByDesc(RagVersionDocumentEntity::getCreatedAt);
+        // 建立文件ID映射关系：版本文件ID -> 用户文件ID
+        Map<String, String> fileIdMapping = buildFileIdMapping(userRagId, ragVersionId);
 
-        List<RagVersionDocumentEntity> versionDocuments = ragVersionDocumentRepository.selectList(wrapper);
+        int totalFiles = fileIdMapping.size();
+        int finishedFiles = 0;
+        int lastReportedProgress = FILE_COPY_PROGRESS;
+        long copiedDocuments = 0;
 
-        if (versionDocuments.isEmpty()) {
-            logger.warn("版本 [{}] 没有找到文档快照", ragVersionId);
-            return;
-        }
+        for (Map.Entry<String, String> entry : fileIdMapping.entrySet()) {
+            copiedDocuments += userRagDocumentRepository.copyFileDocumentsFromVersion(userRagId, entry.getValue(),
+                    ragVersionId, entry.getKey());
+            finishedFiles++;
 
-        logger.info("开始复制 {} 个文档快照到用户RAG [{}]", versionDocuments.size(), userRagId);
+            int progress = FILE_COPY_PROGRESS + (100 - FILE_COPY_PROGRESS - 1) * finishedFiles / totalFiles;
+            if (progress - lastReportedProgress >= PROGRESS_REPORT_STEP) {
+                updateSnapshotState(userRagId, SnapshotCopyStatus.COPYING, progress, null);
+                lastReportedProgress = progress;
+            }
+        }
 
-        // 建立文件ID映射关系：版本文件ID -> 用户文件ID
-        Map<String, String> fileIdMapping = buildFileIdMapping(userRagId, ragVersionId);
+        // 不属于任何版本文件的文档
+        copiedDocuments += userRagDocumentRepository.copyOrphanDocumentsFromVersion(userRagId, ragVersionId);
 
-        // 转换并保存为用户文档快照
-        for (RagVersionDocumentEntity versionDoc : versionDocuments) {
-            UserRagDocumentEntity userDoc = convertToUserRagDocument(versionDoc, userRagId, fileIdMapping);
-            userRagDocumentRepository.insert(userDoc);
+        if (copiedDocuments == 0) {
+            logger.warn("版本 [{}] 没有找到文档快照", ragVersionId);
+            return;
         }
 
-        logger.info("文档快照复制完成，共复制 {} 个文档", versionDocuments.size());
+        logger.info("文档快照复制完成，共复制 {} 个文档到用户RAG [{}]", copiedDocuments, userRagId);
+    }
+
+    /** 标记快照等待后台复制
+     * 
+     * @param userRagId 用户RAG安装记录ID */
+    public void markSnapshotPending(String userRagId) {
+        updateSnapshotState(userRagId, SnapshotCopyStatus.COPYING, 0, null);
     }
 
     /** 删除用户RAG的所有快照数据
@@ -176,33 +186,15 @@ public class UserRagSnapshotDomainService {
         }
     }
 
-    /** 转换版本文件为用户文件 */
-    private UserRagFileEntity convertToUserRagFile(RagVersionFileEntity versionFile, String userRagId) {
-        UserRagFileEntity userFile = new UserRagFileEntity();
-        BeanUtils.copyProperties(versionFile, userFile);
-        userFile.setUserRagId(userRagId);
-        return userFile;
-    }
-
-    /** 转换版本文档为用户文档 */
-    private UserRagDocumentEntity convertToUserRagDocument(RagVersionDocumentEntity versionDoc, String userRagId,
-            Map<String, String> fileIdMapping) {
-        UserRagDocumentEntity userDoc = new UserRagDocumentEntity();
-        userDoc.setUserRagId(userRagId);
-
-        // 根据映射关系设置用户文件ID
-        String userRagFileId = fileIdMapping.get(versionDoc.getRagVersionFileId());
-        if (userRagFileId == null) {
-            logger.warn("未找到版本文件 [{}] 对应的用户文件ID", versionDoc.getRagVersionFileId());
+    /** 更新快照复制状态与进度 */
+    private void updateSnapshotState(String userRagId, SnapshotCopyStatus status, Integer progress, String error) {
+        LambdaUpdateWrapper<UserRagEntity> wrapper = Wrappers.<UserRagEntity>lambdaUpdate()
+                .eq(UserRagEntity::getId, userRagId).set(UserRagEntity::getSnapshotStatus, status.getCode())
+                .set(UserRagEntity::getSnapshotError, error);
+        if (progress != null) {
+            wrapper.set(UserRagEntity::getSnapshotProgress, progress);
         }
-        userDoc.setUserRagFileId(userRagFileId);
-
-        userDoc.setOriginalDocumentId(versionDoc.getOriginalDocumentId());
-        userDoc.setContent(versionDoc.getContent());
-        userDoc.setPage(versionDoc.getPage());
-        userDoc.setVectorId(versionDoc.getVectorId());
-
-        return userDoc;
+        userRagRepository.update(null, wrapper);
     }
 
     /** 建立文件ID映射关系：版本文件ID -> 用户文件ID */
@@ -219,7 +211,7 @@ public class UserRagSnapshotDomainService {
         List<UserRagFileEntity> userFiles = userRagFileRepository.selectList(userWrapper);
 
         // 建立映射关系（基于originalFileId）
-        Map<String, String> fileIdMapping = new HashMap<>();
+        Map<String, String> fileIdMapping = new LinkedHashMap<>();
         Map<String, String> originalToUserMap = new HashMap<>();
 
         // 先建立原始文件ID到用户文件ID的映射
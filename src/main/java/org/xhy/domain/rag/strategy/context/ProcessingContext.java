@@ -52,7 +52,8 @@ public class ProcessingContext {
             try {
                 ModelConfig embeddingModelConfig = userModelConfigResolver.getUserEmbeddingModelConfig(userId);
                 embeddingConfig = new EmbeddingModelFactory.EmbeddingConfig(embeddingModelConfig.getApiKey(),
-                        embeddingModelConfig.getBaseUrl(), embeddingModelConfig.getModelEndpoint());
+                        embeddingModelConfig.getBaseUrl(), embeddingModelConfig.getModelEndpoint(),
+                        embeddingModelConfig.getDimensions());
             } catch (Exception e) {
                 log.warn("获取用户 {} 嵌入模型配置失败: {}", userId, e.getMessage());
             }
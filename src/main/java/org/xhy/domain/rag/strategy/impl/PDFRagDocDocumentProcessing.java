@@ -13,19 +13,21 @@ import org.dromara.x.file.storage.core.FileStorageService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Service;
 import org.xhy.domain.rag.message.RagDocMessage;
 import org.xhy.domain.rag.model.DocumentUnitEntity;
 import org.xhy.domain.rag.model.FileDetailEntity;
 import org.xhy.domain.rag.repository.DocumentUnitRepository;
 import org.xhy.domain.rag.repository.FileDetailRepository;
+import org.xhy.infrastructure.config.ExecutionProperties;
 import org.xhy.infrastructure.exception.BusinessException;
 import org.xhy.infrastructure.llm.LLMProviderService;
 import org.xhy.infrastructure.llm.config.ProviderConfig;
 import org.xhy.infrastructure.llm.protocol.enums.ProviderProtocol;
 import org.xhy.infrastructure.rag.detector.TikaFileTypeDetector;
 import org.xhy.infrastructure.rag.utils.PdfToBase64Converter;
+import org.xhy.infrastructure.ratelimit.service.DownstreamLimiter;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -53,7 +55,13 @@ public class PDFRagDocDocumentProcessing extends AbstractDocumentProcessingStrat
     private FileStorageService fileStorageService;
 
     @Resource(name = "ocrTaskExecutor")
-    private ThreadPoolTaskExecutor ocrTaskExecutor;
+    private TaskExecutor ocrTaskExecutor;
+
+    @Resource
+    private DownstreamLimiter downstreamLimiter;
+
+    @Resource
+    private LLMProviderService llmProviderService;
 
     @Value("${rag.ocr.parallelism:4}")
     private int ocrParallelism;
@@ -170,7 +178,8 @@ public class PDFRagDocDocumentProcessing extends AbstractDocumentProcessingStrat
 
         // Create OCR model from message config
         ChatModel ocrModel = createOcrModelFromMessage(ragDocSyncOcrMessage);
-        final ChatResponse chat = ocrModel.chat(userMessage);
+        final ChatResponse chat = downstreamLimiter.call(ExecutionProperties.DOWNSTREAM_OCR, null,
+                () -> ocrModel.chat(userMessage));
         ocrData.put(pageIndex, processText(chat.aiMessage().text()));
     }
 
@@ -260,7 +269,7 @@ public class PDFRagDocDocumentProcessing extends AbstractDocumentProcessingStrat
             ProviderConfig ocrProviderConfig = new ProviderConfig(modelConfig.getApiKey(), modelConfig.getBaseUrl(),
                     modelConfig.getModelEndpoint(), ProviderProtocol.OPENAI);
 
-            ChatModel ocrModel = LLMProviderService.getStrand(ProviderProtocol.OPENAI, ocrProviderConfig);
+            ChatModel ocrModel = llmProviderService.getStrand(ProviderProtocol.OPENAI, ocrProviderConfig);
 
             log.info("成功为用户{}创建OCR模型: {}", ragDocSyncOcrMessage.getUserId(), modelConfig.getModelEndpoint());
             return ocrModel;
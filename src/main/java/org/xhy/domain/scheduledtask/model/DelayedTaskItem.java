@@ -2,53 +2,31 @@ package org.xhy.domain.scheduledtask.model;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
-import java.util.concurrent.Delayed;
-import java.util.concurrent.TimeUnit;
 
-/** 延迟队列任务项 用于延迟队列中的定时任务执行 */
-public class DelayedTaskItem implements Delayed {
+/** 延迟任务项 时间轮中的一次定时触发，只保存任务ID与本次到期时间，触发时再从数据库加载最新任务状态 */
+public class DelayedTaskItem {
 
     /** 任务ID */
     private final String taskId;
 
-    /** 执行时间（毫秒时间戳） */
-    private final long executeTime;
-
-    /** 任务实体 */
-    private final ScheduledTaskEntity task;
-
-    public DelayedTaskItem(ScheduledTaskEntity task, LocalDateTime executeTime) {
-        this.taskId = task.getId();
-        this.task = task;
-        this.executeTime = executeTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
-    }
-
-    @Override
-    public long getDelay(TimeUnit unit) {
-        long delay = executeTime - System.currentTimeMillis();
-        return unit.convert(delay, TimeUnit.MILLISECONDS);
-    }
+    /** 本次到期时间 */
+    private final LocalDateTime dueTime;
 
-    @Override
-    public int compareTo(Delayed other) {
-        if (this == other) {
-            return 0;
-        }
-
-        if (other instanceof DelayedTaskItem) {
-            DelayedTaskItem otherItem = (DelayedTaskItem) other;
-            return Long.compare(this.executeTime, otherItem.executeTime);
-        }
+    /** 到期时间（毫秒时间戳） */
+    private final long executeTime;
 
-        return Long.compare(this.getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+    public DelayedTaskItem(String taskId, LocalDateTime dueTime) {
+        this.taskId = taskId;
+        this.dueTime = dueTime;
+        this.executeTime = dueTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
     }
 
     public String getTaskId() {
         return taskId;
     }
 
-    public ScheduledTaskEntity getTask() {
-        return task;
+    public LocalDateTime getDueTime() {
+        return dueTime;
     }
 
     public long getExecuteTime() {
@@ -62,16 +40,16 @@ public class DelayedTaskItem implements Delayed {
         if (obj == null || getClass() != obj.getClass())
             return false;
         DelayedTaskItem that = (DelayedTaskItem) obj;
-        return taskId.equals(that.taskId);
+        return taskId.equals(that.taskId) && executeTime == that.executeTime;
     }
 
     @Override
     public int hashCode() {
-        return taskId.hashCode();
+        return taskId.hashCode() * 31 + Long.hashCode(executeTime);
     }
 
     @Override
     public String toString() {
-        return "DelayedTaskItem{" + "taskId='" + taskId + '\'' + ", executeTime=" + executeTime + '}';
+        return "DelayedTaskItem{" + "taskId='" + taskId + '\'' + ", dueTime=" + dueTime + '}';
     }
-}
\ No newline at end of file
+}
@@ -1,10 +1,28 @@
 package org.xhy.domain.scheduledtask.repository;
 
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
 import org.xhy.domain.scheduledtask.model.ScheduledTaskEntity;
 import org.xhy.infrastructure.repository.MyBatisPlusExtRepository;
 
+import java.time.LocalDateTime;
+
 /** 定时任务仓储接口 */
 @Mapper
 public interface ScheduledTaskRepository extends MyBatisPlusExtRepository<ScheduledTaskEntity> {
-}
\ No newline at end of file
+
+    /** 抢占任务的执行租约，只有任务仍为活跃、下次执行时间未被改动且无有效租约时才会成功
+     * @return 影响行数，1表示抢占成功 */
+    @Update("UPDATE scheduled_tasks SET lease_owner = #{owner}, lease_until = #{leaseUntil} "
+            + "WHERE id = #{taskId} AND status = 'ACTIVE' AND next_execute_time = #{dueTime} AND deleted_at IS NULL "
+            + "AND (lease_until IS NULL OR lease_until < #{now})")
+    int tryAcquireLease(@Param("taskId") String taskId, @Param("dueTime") LocalDateTime dueTime,
+            @Param("owner") String owner, @Param("leaseUntil") LocalDateTime leaseUntil,
+            @Param("now") LocalDateTime now);
+
+    /** 释放当前节点持有的执行租约 */
+    @Update("UPDATE scheduled_tasks SET lease_owner = NULL, lease_until = NULL "
+            + "WHERE id = #{taskId} AND lease_owner = #{owner}")
+    int releaseLease(@Param("taskId") String taskId, @Param("owner") String owner);
+}
@@ -0,0 +1,241 @@
+package org.xhy.domain.scheduledtask.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/** 哈希时间轮 按刻度把任务散列到固定槽位，添加与取消均为O(1)，每个刻度只处理一个槽位。 超过一圈的任务通过剩余圈数延后触发，同一个key只保留最后一次调度。
+ * @param <T> 到期回调的载荷类型 */
+public class HashedTimingWheel<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(HashedTimingWheel.class);
+
+    /** 刻度时长（毫秒） */
+    private final long tickDuration;
+
+    /** 槽位掩码 */
+    private final int mask;
+
+    /** 槽位数组，每个槽位是一个双向链表 */
+    private final Bucket<T>[] buckets;
+
+    /** key到定时项的索引，用于O(1)取消 */
+    private final Map<String, Timeout<T>> index = new HashMap<>();
+
+    /** 到期回调，在时间轮线程之外的调用方线程池中执行耗时逻辑 */
+    private final Consumer<T> expiredHandler;
+
+    private final String threadName;
+
+    private final Object lock = new Object();
+
+    private volatile boolean running = false;
+
+    private Thread workerThread;
+
+    /** 时间轮启动时间（毫秒） */
+    private long startTime;
+
+    /** 已推进的刻度数 */
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public HashedTimingWheel(long tickDuration, int wheelSize, String threadName, Consumer<T> expiredHandler) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tickDuration必须大于0");
+        }
+        if (wheelSize <= 0 || (wheelSize & (wheelSize - 1)) != 0) {
+            throw new IllegalArgumentException("wheelSize必须为2的幂");
+        }
+        this.tickDuration = tickDuration;
+        this.mask = wheelSize - 1;
+        this.buckets = new Bucket[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new Bucket<>();
+        }
+        this.threadName = threadName;
+        this.expiredHandler = expiredHandler;
+    }
+
+    /** 启动时间轮线程 */
+    public void start() {
+        synchronized (lock) {
+            if (running) {
+                return;
+            }
+            running = true;
+            startTime = System.currentTimeMillis();
+            currentTick = 0;
+        }
+        workerThread = new Thread(this::runWorker, threadName);
+        workerThread.setDaemon(true);
+        workerThread.start();
+    }
+
+    /** 停止时间轮线程，未到期的任务被丢弃 */
+    public void stop() {
+        running = false;
+        if (workerThread != null) {
+            workerThread.interrupt();
+        }
+        synchronized (lock) {
+            for (Bucket<T> bucket : buckets) {
+                bucket.clear();
+            }
+            index.clear();
+        }
+    }
+
+    /** 调度任务，相同key已存在时替换原调度
+     * @param key 唯一标识
+     * @param deadlineMillis 到期时间（毫秒时间戳）
+     * @param payload 到期回调载荷 */
+    public void schedule(String key, long deadlineMillis, T payload) {
+        synchronized (lock) {
+            Timeout<T> existing = index.remove(key);
+            if (existing != null) {
+                existing.bucket.remove(existing);
+            }
+
+            long ticks = Math.max(currentTick, (deadlineMillis - startTime + tickDuration - 1) / tickDuration);
+            Timeout<T> timeout = new Timeout<>(key, deadlineMillis, payload);
+            timeout.remainingRounds = (ticks - currentTick) / buckets.length;
+            buckets[(int) (ticks & mask)].add(timeout);
+            index.put(key, timeout);
+        }
+    }
+
+    /** 取消任务调度
+     * @param key 唯一标识
+     * @return 是否存在并被取消 */
+    public boolean cancel(String key) {
+        synchronized (lock) {
+            Timeout<T> timeout = index.remove(key);
+            if (timeout == null) {
+                return false;
+            }
+            timeout.bucket.remove(timeout);
+            return true;
+        }
+    }
+
+    /** 判断key是否已在时间轮中，且到期时间一致
+     * @param key 唯一标识
+     * @param deadlineMillis 到期时间
+     * @return 是否已调度 */
+    public boolean contains(String key, long deadlineMillis) {
+        synchronized (lock) {
+            Timeout<T> timeout = index.get(key);
+            return timeout != null && timeout.deadline == deadlineMillis;
+        }
+    }
+
+    /** 获取时间轮中待触发的任务数
+     * @return 任务数 */
+    public int size() {
+        synchronized (lock) {
+            return index.size();
+        }
+    }
+
+    private void runWorker() {
+        while (running && !Thread.currentThread().isInterrupted()) {
+            long nextTickTime = startTime + (currentTick + 1) * tickDuration;
+            long sleepMillis = nextTickTime - System.currentTimeMillis();
+            if (sleepMillis > 0) {
+                try {
+                    Thread.sleep(sleepMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+
+            List<T> expired = new ArrayList<>();
+            synchronized (lock) {
+                Bucket<T> bucket = buckets[(int) (currentTick & mask)];
+                Timeout<T> timeout = bucket.head;
+                while (timeout != null) {
+                    Timeout<T> next = timeout.next;
+                    if (timeout.remainingRounds <= 0) {
+                        bucket.remove(timeout);
+                        index.remove(timeout.key);
+                        expired.add(timeout.payload);
+                    } else {
+                        timeout.remainingRounds--;
+                    }
+                    timeout = next;
+                }
+                currentTick++;
+            }
+
+            for (T payload : expired) {
+                try {
+                    expiredHandler.accept(payload);
+                } catch (Exception e) {
+                    logger.error("时间轮到期回调异常: {}", e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    /** 时间轮中的单个定时项 */
+    private static final class Timeout<T> {
+        private final String key;
+        private final long deadline;
+        private final T payload;
+        private long remainingRounds;
+        private Bucket<T> bucket;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(String key, long deadline, T payload) {
+            this.key = key;
+            this.deadline = deadline;
+            this.payload = payload;
+        }
+    }
+
+    /** 槽位，双向链表保证O(1)插入与删除 */
+    private static final class Bucket<T> {
+        private Timeout<T> head;
+        private Timeout<T> tail;
+
+        private void add(Timeout<T> timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        private void remove(Timeout<T> timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        private void clear() {
+            head = null;
+            tail = null;
+        }
+    }
+}
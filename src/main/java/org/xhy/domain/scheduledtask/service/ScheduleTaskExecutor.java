@@ -54,6 +54,25 @@ public class ScheduleTaskExecutor {
         }
     }
 
+    /** 跳过本次执行（如错过执行时间窗口），按当前时间推进到下一次执行时间，避免任务停留在到期索引中
+     * @param task 任务实体 */
+    public void skipExecution(ScheduledTaskEntity task) {
+        try {
+            LocalDateTime nextExecuteTime = taskScheduleService.calculateNextExecuteTime(task, LocalDateTime.now());
+            if (nextExecuteTime != null) {
+                task.setNextExecuteTime(nextExecuteTime);
+                scheduledTaskDomainService.updateTask(task);
+                logger.info("任务已顺延到下次执行时间: taskId={}, nextTime={}", task.getId(), nextExecuteTime);
+            } else {
+                task.complete();
+                scheduledTaskDomainService.completeTask(task.getId(), task.getUserId());
+                logger.warn("任务已错过执行时间且无后续执行计划，标记为完成: taskId={}", task.getId());
+            }
+        } catch (Exception e) {
+            logger.error("顺延任务执行时间失败: taskId={}, error={}", task.getId(), e.getMessage(), e);
+        }
+    }
+
     /** 处理任务执行后的逻辑
      * @param task 任务实体 */
     private void handleTaskExecution(ScheduledTaskEntity task) {
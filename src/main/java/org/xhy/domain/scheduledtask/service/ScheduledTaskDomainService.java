@@ -70,6 +70,43 @@ public class ScheduledTaskDomainService {
                 .orderByAsc(ScheduledTaskEntity::getCreatedAt));
     }
 
+    /** 获取预加载窗口内到期且未被其他节点租约占用的活跃任务，按到期时间升序
+     * @param until 预加载窗口截止时间
+     * @param now 当前时间
+     * @param limit 最多返回的任务数
+     * @return 到期任务列表 */
+    public List<ScheduledTaskEntity> getDueTasks(LocalDateTime until, LocalDateTime now, int limit) {
+        return scheduledTaskRepository.selectList(Wrappers.<ScheduledTaskEntity>lambdaQuery()
+                .eq(ScheduledTaskEntity::getStatus, ScheduleTaskStatus.ACTIVE)
+                .isNotNull(ScheduledTaskEntity::getNextExecuteTime).le(ScheduledTaskEntity::getNextExecuteTime, until)
+                .apply("(lease_until IS NULL OR lease_until < {0})", now)
+                .orderByAsc(ScheduledTaskEntity::getNextExecuteTime).last("LIMIT " + limit));
+    }
+
+    /** 根据ID获取定时任务，不校验用户，供调度器使用
+     * @param taskId 任务ID
+     * @return 定时任务实体，不存在返回null */
+    public ScheduledTaskEntity findTaskById(String taskId) {
+        return scheduledTaskRepository.selectById(taskId);
+    }
+
+    /** 抢占任务执行租约
+     * @param taskId 任务ID
+     * @param dueTime 本次触发对应的下次执行时间
+     * @param owner 节点标识
+     * @param leaseUntil 租约到期时间
+     * @return 是否抢占成功 */
+    public boolean tryAcquireLease(String taskId, LocalDateTime dueTime, String owner, LocalDateTime leaseUntil) {
+        return scheduledTaskRepository.tryAcquireLease(taskId, dueTime, owner, leaseUntil, LocalDateTime.now()) == 1;
+    }
+
+    /** 释放任务执行租约
+     * @param taskId 任务ID
+     * @param owner 节点标识 */
+    public void releaseLease(String taskId, String owner) {
+        scheduledTaskRepository.releaseLease(taskId, owner);
+    }
+
     /** 更新定时任务
      * @param task 更新的任务信息 */
     public void updateTask(ScheduledTaskEntity task) {
@@ -1,6 +1,5 @@
 package org.xhy.domain.scheduledtask.service;
 
-import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -9,7 +8,7 @@ import org.xhy.domain.scheduledtask.model.ScheduledTaskEntity;
 import java.time.LocalDateTime;
 import java.util.List;
 
-/** 定时任务执行服务 协调整个定时任务执行流程 */
+/** 定时任务执行服务 协调整个定时任务执行流程，活跃任务由调度器按到期索引增量加载，启动时不再全量加载 */
 @Service
 public class ScheduledTaskExecutionService {
 
@@ -17,20 +16,13 @@ public class ScheduledTaskExecutionService {
 
     private final ScheduledTaskDomainService scheduledTaskDomainService;
     private final TaskScheduleService taskScheduleService;
-    private final DelayedTaskQueueManager queueManager;
+    private final TimingWheelTaskScheduler taskScheduler;
 
     public ScheduledTaskExecutionService(ScheduledTaskDomainService scheduledTaskDomainService,
-            TaskScheduleService taskScheduleService, DelayedTaskQueueManager queueManager) {
+            TaskScheduleService taskScheduleService, TimingWheelTaskScheduler taskScheduler) {
         this.scheduledTaskDomainService = scheduledTaskDomainService;
         this.taskScheduleService = taskScheduleService;
-        this.queueManager = queueManager;
-    }
-
-    /** 初始化服务，加载现有的活跃任务到延迟队列 */
-    @PostConstruct
-    public void init() {
-        loadActiveTasksToQueue();
-        logger.info("定时任务执行服务已启动，活跃任务已加载到延迟队列");
+        this.taskScheduler = taskScheduler;
     }
 
     /** 调度新创建的任务
@@ -51,7 +43,7 @@ public class ScheduledTaskExecutionService {
         }
 
         if (nextExecuteTime != null && nextExecuteTime.isAfter(LocalDateTime.now())) {
-            queueManager.addTask(task, nextExecuteTime);
+            taskScheduler.addTask(task, nextExecuteTime);
             logger.info("任务已调度: taskId={}, nextExecuteTime={}", task.getId(), nextExecuteTime);
         }
     }
@@ -59,7 +51,7 @@ public class ScheduledTaskExecutionService {
     /** 取消任务调度
      * @param taskId 任务ID */
     public void cancelTask(String taskId) {
-        queueManager.removeTask(taskId);
+        taskScheduler.removeTask(taskId);
         logger.info("任务调度已取消: taskId={}", taskId);
     }
 
@@ -114,11 +106,11 @@ public class ScheduledTaskExecutionService {
      * @param sessionId 会话ID
      * @param userId 用户ID */
     public void deleteTasksBySessionId(String sessionId, String userId) {
-        // 先获取要删除的任务列表，用于取消队列中的调度
+        // 先获取要删除的任务列表，用于取消时间轮中的调度
         List<ScheduledTaskEntity> tasksToDelete = scheduledTaskDomainService.getTasksBySessionId(sessionId).stream()
                 .filter(task -> userId.equals(task.getUserId())).toList();
 
-        // 取消延迟队列中的所有相关任务
+        // 取消时间轮中的所有相关任务
         tasksToDelete.forEach(task -> cancelTask(task.getId()));
 
         // 批量删除数据库记录
@@ -131,11 +123,11 @@ public class ScheduledTaskExecutionService {
      * @param agentId Agent ID
      * @param userId 用户ID */
     public void deleteTasksByAgentId(String agentId, String userId) {
-        // 先获取要删除的任务列表，用于取消队列中的调度
+        // 先获取要删除的任务列表，用于取消时间轮中的调度
         List<ScheduledTaskEntity> tasksToDelete = scheduledTaskDomainService.getTasksByAgentId(agentId).stream()
                 .filter(task -> userId.equals(task.getUserId())).toList();
 
-        // 取消延迟队列中的所有相关任务
+        // 取消时间轮中的所有相关任务
         tasksToDelete.forEach(task -> cancelTask(task.getId()));
 
         // 批量删除数据库记录
@@ -147,40 +139,6 @@ public class ScheduledTaskExecutionService {
     /** 获取队列状态信息
      * @return 队列大小 */
     public int getQueueSize() {
-        return queueManager.getQueueSize();
-    }
-
-    /** 加载现有的活跃任务到延迟队列 */
-    private void loadActiveTasksToQueue() {
-        try {
-            List<ScheduledTaskEntity> activeTasks = scheduledTaskDomainService.getActiveTasksToExecute();
-            LocalDateTime now = LocalDateTime.now();
-
-            for (ScheduledTaskEntity task : activeTasks) {
-                LocalDateTime nextExecuteTime = task.getNextExecuteTime();
-
-                // 如果没有下次执行时间，计算一个
-                if (nextExecuteTime == null) {
-                    nextExecuteTime = taskScheduleService.calculateNextExecuteTime(task, now);
-                    if (nextExecuteTime != null) {
-                        task.setNextExecuteTime(nextExecuteTime);
-                        scheduledTaskDomainService.updateTask(task);
-                    }
-                }
-
-                // 只调度未来的任务
-                if (nextExecuteTime != null && nextExecuteTime.isAfter(now)) {
-                    queueManager.addTask(task, nextExecuteTime);
-                } else if (nextExecuteTime != null && nextExecuteTime.isBefore(now)) {
-                    // 过期任务，立即执行一次
-                    queueManager.addTask(task, now.plusSeconds(1));
-                }
-            }
-
-            logger.info("已加载 {} 个活跃任务到延迟队列", activeTasks.size());
-
-        } catch (Exception e) {
-            logger.error("加载活跃任务到延迟队列失败: {}", e.getMessage(), e);
-        }
+        return taskScheduler.getQueueSize();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,201 @@
+package org.xhy.domain.scheduledtask.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.xhy.domain.scheduledtask.model.DelayedTaskItem;
+import org.xhy.domain.scheduledtask.model.ScheduledTaskEntity;
+import org.xhy.infrastructure.config.ScheduledTaskProperties;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/** 时间轮任务调度器 替代原先的全量内存延迟队列：
+ * <ul>
+ * <li>数据库中的 next_execute_time 是唯一的到期索引，节点只把预加载窗口内到期的任务放入本地哈希时间轮</li>
+ * <li>到期时通过租约（lease_owner / lease_until）抢占执行权，多节点下同一次触发只会执行一次</li>
+ * <li>执行节点宕机后租约过期，任务会被下一次到期索引扫描重新加载并由任意节点接管</li>
+ * </ul> */
+@Service
+public class TimingWheelTaskScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimingWheelTaskScheduler.class);
+
+    private final ScheduleTaskExecutor taskExecutor;
+    private final ScheduledTaskDomainService scheduledTaskDomainService;
+    private final ScheduledTaskProperties properties;
+
+    /** 本地时间轮，只保存近期到期的任务 */
+    private HashedTimingWheel<DelayedTaskItem> timingWheel;
+
+    /** 任务执行线程池 */
+    private ThreadPoolTaskExecutor executorService;
+
+    public TimingWheelTaskScheduler(ScheduleTaskExecutor taskExecutor,
+            ScheduledTaskDomainService scheduledTaskDomainService, ScheduledTaskProperties properties) {
+        this.taskExecutor = taskExecutor;
+        this.scheduledTaskDomainService = scheduledTaskDomainService;
+        this.properties = properties;
+    }
+
+    /** 初始化时间轮与执行线程池 */
+    @PostConstruct
+    public void init() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getExecutorCoreSize());
+        executor.setMaxPoolSize(properties.getExecutorMaxSize());
+        executor.setQueueCapacity(properties.getExecutorQueueCapacity());
+        executor.setKeepAliveSeconds(60);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix("scheduled-task-executor-");
+        // 队列满时直接拒绝，避免阻塞时间轮线程；被拒绝的任务未抢占租约，下次扫描会重新加载
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        this.executorService = executor;
+
+        this.timingWheel = new HashedTimingWheel<>(properties.getTickDuration(), properties.getWheelSize(),
+                "scheduled-task-timing-wheel", this::dispatch);
+        this.timingWheel.start();
+
+        logger.info("时间轮任务调度器已启动: nodeId={}, tick={}ms, wheelSize={}, executor={}-{}", properties.getNodeId(),
+                properties.getTickDuration(), properties.getWheelSize(), properties.getExecutorCoreSize(),
+                properties.getExecutorMaxSize());
+    }
+
+    /** 销毁调度器 */
+    @PreDestroy
+    public void destroy() {
+        if (timingWheel != null) {
+            timingWheel.stop();
+        }
+        if (executorService != null) {
+            executorService.shutdown();
+        }
+        logger.info("时间轮任务调度器已关闭");
+    }
+
+    /** 扫描到期索引，把预加载窗口内到期且无人持有租约的任务放入时间轮。 启动时不再全量加载任务，节点重启或宕机接管都依赖该扫描 */
+    @Scheduled(initialDelayString = "${agentx.scheduled-task.initial-scan-delay:5000}",
+            fixedDelayString = "${agentx.scheduled-task.scan-interval:30000}")
+    public void scanDueTasks() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime until = now.plusNanos(properties.getPreloadWindow() * 1_000_000L);
+            List<ScheduledTaskEntity> dueTasks = scheduledTaskDomainService.getDueTasks(until, now,
+                    properties.getScanBatchSize());
+
+            int added = 0;
+            for (ScheduledTaskEntity task : dueTasks) {
+                DelayedTaskItem item = new DelayedTaskItem(task.getId(), task.getNextExecuteTime());
+                if (!timingWheel.contains(item.getTaskId(), item.getExecuteTime())) {
+                    timingWheel.schedule(item.getTaskId(), item.getExecuteTime(), item);
+                    added++;
+                }
+            }
+
+            if (added > 0) {
+                logger.debug("到期索引扫描完成: 加载 {} 个任务，时间轮中共 {} 个任务", added, timingWheel.size());
+            }
+        } catch (Exception e) {
+            logger.error("扫描到期任务失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /** 添加任务到时间轮，超出预加载窗口的任务交由到期索引扫描加载
+     * @param task 定时任务实体
+     * @param executeTime 执行时间 */
+    public void addTask(ScheduledTaskEntity task, LocalDateTime executeTime) {
+        LocalDateTime windowEnd = LocalDateTime.now().plusNanos(properties.getPreloadWindow() * 1_000_000L);
+        if (executeTime.isAfter(windowEnd)) {
+            logger.debug("任务不在预加载窗口内，等待到期索引扫描: taskId={}, executeTime={}", task.getId(), executeTime);
+            return;
+        }
+
+        DelayedTaskItem item = new DelayedTaskItem(task.getId(), executeTime);
+        timingWheel.schedule(item.getTaskId(), item.getExecuteTime(), item);
+        logger.info("任务已添加到时间轮: taskId={}, executeTime={}", task.getId(), executeTime);
+    }
+
+    /** 从时间轮移除任务，O(1)。 其他节点上的调度无需通知，触发时的租约抢占会因任务状态或执行时间变化而失败
+     * @param taskId 任务ID */
+    public void removeTask(String taskId) {
+        if (timingWheel.cancel(taskId)) {
+            logger.info("任务已从时间轮移除: taskId={}", taskId);
+        } else {
+            logger.debug("任务不在时间轮中: taskId={}", taskId);
+        }
+    }
+
+    /** 获取时间轮中待触发的任务数
+     * @return 任务数 */
+    public int getQueueSize() {
+        return timingWheel.size();
+    }
+
+    /** 时间轮到期回调，只负责投递到执行线程池 */
+    private void dispatch(DelayedTaskItem item) {
+        try {
+            executorService.execute(() -> fire(item));
+        } catch (TaskRejectedException e) {
+            logger.warn("执行线程池已满，任务等待下次扫描重新加载: taskId={}", item.getTaskId());
+        }
+    }
+
+    /** 抢占租约并执行任务 */
+    private void fire(DelayedTaskItem item) {
+        String taskId = item.getTaskId();
+        String nodeId = properties.getNodeId();
+
+        ScheduledTaskEntity task = scheduledTaskDomainService.findTaskById(taskId);
+        if (task == null || !task.isActive() || task.getNextExecuteTime() == null) {
+            logger.debug("任务已不存在或不再活跃，跳过: taskId={}", taskId);
+            return;
+        }
+
+        // 任务在进入时间轮后被改期，按新的时间重新调度
+        LocalDateTime dueTime = task.getNextExecuteTime();
+        LocalDateTime now = LocalDateTime.now();
+        if (dueTime.isAfter(now.plusNanos(properties.getTickDuration() * 1_000_000L))) {
+            addTask(task, dueTime);
+            return;
+        }
+
+        LocalDateTime leaseUntil = now.plusNanos(properties.getLeaseDuration() * 1_000_000L);
+        if (!scheduledTaskDomainService.tryAcquireLease(taskId, dueTime, nodeId, leaseUntil)) {
+            logger.debug("任务租约已被其他节点持有或任务已变更，跳过: taskId={}", taskId);
+            return;
+        }
+
+        try {
+            if (taskExecutor.canExecute(task)) {
+                taskExecutor.executeTask(task);
+            } else {
+                logger.info("任务不满足执行条件，跳过本次执行: taskId={}", taskId);
+                taskExecutor.skipExecution(task);
+            }
+            scheduleNextExecution(task);
+        } catch (Exception e) {
+            logger.error("执行任务异常: taskId={}, error={}", taskId, e.getMessage(), e);
+        } finally {
+            scheduledTaskDomainService.releaseLease(taskId, nodeId);
+        }
+    }
+
+    /** 检查并调度任务的下次执行
+     * @param task 已执行的任务 */
+    private void scheduleNextExecution(ScheduledTaskEntity task) {
+        // executeTask 已把下次执行时间写回实体与数据库
+        if (task.isActive() && task.getNextExecuteTime() != null
+                && task.getNextExecuteTime().isAfter(LocalDateTime.now())) {
+            addTask(task, task.getNextExecuteTime());
+        }
+    }
+}
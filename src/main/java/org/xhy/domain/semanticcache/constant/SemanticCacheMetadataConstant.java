@@ -0,0 +1,14 @@
+package org.xhy.domain.semanticcache.constant;
+
+/** 语义缓存向量的元数据键名常量（与向量存储中的 metadata 对应） */
+public interface SemanticCacheMetadataConstant {
+
+    /** 缓存条目ID（对应 semantic_cache_entries.id） */
+    String ENTRY_ID = "ENTRY_ID";
+
+    /** 所属Agent ID */
+    String AGENT_ID = "AGENT_ID";
+
+    /** 缓存作用域 */
+    String SCOPE_KEY = "SCOPE_KEY";
+}
@@ -0,0 +1,150 @@
+package org.xhy.domain.semanticcache.model;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import org.xhy.infrastructure.entity.BaseEntity;
+
+import java.time.LocalDateTime;
+
+/** 语义缓存条目实体（semantic_cache_entries） */
+@TableName("semantic_cache_entries")
+public class SemanticCacheEntryEntity extends BaseEntity {
+
+    @TableId(value = "id", type = IdType.ASSIGN_UUID)
+    private String id;
+
+    /** 所属Agent ID */
+    @TableField("agent_id")
+    private String agentId;
+
+    /** 缓存作用域，Agent内容、模型、知识库版本和嵌入模型的摘要 */
+    @TableField("scope_key")
+    private String scopeKey;
+
+    /** 规范化后的问题 */
+    @TableField("question")
+    private String question;
+
+    /** 问题的SHA-256，用于精确命中 */
+    @TableField("question_hash")
+    private String questionHash;
+
+    /** 缓存的回答 */
+    @TableField("answer")
+    private String answer;
+
+    /** 生成回答时的输入Token数 */
+    @TableField("input_tokens")
+    private Integer inputTokens;
+
+    /** 生成回答时的输出Token数 */
+    @TableField("output_tokens")
+    private Integer outputTokens;
+
+    /** 累计命中次数 */
+    @TableField("hit_count")
+    private Long hitCount;
+
+    /** 最近命中时间 */
+    @TableField("last_hit_at")
+    private LocalDateTime lastHitAt;
+
+    /** 过期时间 */
+    @TableField("expires_at")
+    private LocalDateTime expiresAt;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getAgentId() {
+        return agentId;
+    }
+
+    public void setAgentId(String agentId) {
+        this.agentId = agentId;
+    }
+
+    public String getScopeKey() {
+        return scopeKey;
+    }
+
+    public void setScopeKey(String scopeKey) {
+        this.scopeKey = scopeKey;
+    }
+
+    public String getQuestion() {
+        return question;
+    }
+
+    public void setQuestion(String question) {
+        this.question = question;
+    }
+
+    public String getQuestionHash() {
+        return questionHash;
+    }
+
+    public void setQuestionHash(String questionHash) {
+        this.questionHash = questionHash;
+    }
+
+    public String getAnswer() {
+        return answer;
+    }
+
+    public void setAnswer(String answer) {
+        this.answer = answer;
+    }
+
+    public Integer getInputTokens() {
+        return inputTokens;
+    }
+
+    public void setInputTokens(Integer inputTokens) {
+        this.inputTokens = inputTokens;
+    }
+
+    public Integer getOutputTokens() {
+        return outputTokens;
+    }
+
+    public void setOutputTokens(Integer outputTokens) {
+        this.outputTokens = outputTokens;
+    }
+
+    public Long getHitCount() {
+        return hitCount;
+    }
+
+    public void setHitCount(Long hitCount) {
+        this.hitCount = hitCount;
+    }
+
+    public LocalDateTime getLastHitAt() {
+        return lastHitAt;
+    }
+
+    public void setLastHitAt(LocalDateTime lastHitAt) {
+        this.lastHitAt = lastHitAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    /** 是否已过期 */
+    public boolean isExpired() {
+        return expiresAt == null || !expiresAt.isAfter(LocalDateTime.now());
+    }
+}
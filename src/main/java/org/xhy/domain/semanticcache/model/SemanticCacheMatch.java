@@ -0,0 +1,23 @@
+package org.xhy.domain.semanticcache.model;
+
+/** 语义缓存命中结果 */
+public class SemanticCacheMatch {
+
+    private final SemanticCacheEntryEntity entry;
+
+    /** 问题与缓存问题的余弦相似度，精确命中为1 */
+    private final double similarity;
+
+    public SemanticCacheMatch(SemanticCacheEntryEntity entry, double similarity) {
+        this.entry = entry;
+        this.similarity = similarity;
+    }
+
+    public SemanticCacheEntryEntity getEntry() {
+        return entry;
+    }
+
+    public double getSimilarity() {
+        return similarity;
+    }
+}
@@ -0,0 +1,49 @@
+package org.xhy.domain.semanticcache.model;
+
+/** Agent的语义缓存统计，只统计未过期的条目 */
+public class SemanticCacheStats {
+
+    /** 缓存条目数 */
+    private long entryCount;
+
+    /** 累计命中次数 */
+    private long hitCount;
+
+    /** 命中节省的输入Token数，按生成回答时的用量估算 */
+    private long savedInputTokens;
+
+    /** 命中节省的输出Token数 */
+    private long savedOutputTokens;
+
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    public void setEntryCount(long entryCount) {
+        this.entryCount = entryCount;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public void setHitCount(long hitCount) {
+        this.hitCount = hitCount;
+    }
+
+    public long getSavedInputTokens() {
+        return savedInputTokens;
+    }
+
+    public void setSavedInputTokens(long savedInputTokens) {
+        this.savedInputTokens = savedInputTokens;
+    }
+
+    public long getSavedOutputTokens() {
+        return savedOutputTokens;
+    }
+
+    public void setSavedOutputTokens(long savedOutputTokens) {
+        this.savedOutputTokens = savedOutputTokens;
+    }
+}
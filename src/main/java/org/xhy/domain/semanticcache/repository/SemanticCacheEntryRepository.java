@@ -0,0 +1,34 @@
+package org.xhy.domain.semanticcache.repository;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.xhy.domain.semanticcache.model.SemanticCacheEntryEntity;
+import org.xhy.domain.semanticcache.model.SemanticCacheStats;
+import org.xhy.infrastructure.repository.MyBatisPlusExtRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/** semantic_cache_entries 表数据访问 */
+@Mapper
+public interface SemanticCacheEntryRepository extends MyBatisPlusExtRepository<SemanticCacheEntryEntity> {
+
+    /** 命中计数原子累加 */
+    @Update("UPDATE semantic_cache_entries SET hit_count = hit_count + 1, last_hit_at = #{now} "
+            + "WHERE id = #{id} AND deleted_at IS NULL")
+    int incrementHit(@Param("id") String id, @Param("now") LocalDateTime now);
+
+    /** 统计Agent未过期的缓存条目 */
+    @Select("SELECT COUNT(*) AS entry_count, COALESCE(SUM(hit_count), 0) AS hit_count, "
+            + "COALESCE(SUM(hit_count * COALESCE(input_tokens, 0)), 0) AS saved_input_tokens, "
+            + "COALESCE(SUM(hit_count * COALESCE(output_tokens, 0)), 0) AS saved_output_tokens "
+            + "FROM semantic_cache_entries WHERE agent_id = #{agentId} AND deleted_at IS NULL AND expires_at > #{now}")
+    SemanticCacheStats selectStats(@Param("agentId") String agentId, @Param("now") LocalDateTime now);
+
+    /** 查询已过期的条目ID */
+    @Select("SELECT id FROM semantic_cache_entries WHERE deleted_at IS NULL AND expires_at <= #{now} "
+            + "ORDER BY expires_at LIMIT #{limit}")
+    List<String> selectExpiredIds(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
@@ -0,0 +1,173 @@
+package org.xhy.domain.semanticcache.service;
+
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.RelevanceScore;
+import dev.langchain4j.store.embedding.filter.comparison.IsEqualTo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.xhy.domain.semanticcache.model.SemanticCacheEntryEntity;
+import org.xhy.domain.semanticcache.model.SemanticCacheMatch;
+import org.xhy.domain.semanticcache.model.SemanticCacheStats;
+import org.xhy.domain.semanticcache.repository.SemanticCacheEntryRepository;
+import org.xhy.infrastructure.config.SemanticCacheProperties;
+import org.xhy.infrastructure.exception.BusinessException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static dev.langchain4j.store.embedding.filter.MetadataFilterBuilder.metadataKey;
+import static org.xhy.domain.semanticcache.constant.SemanticCacheMetadataConstant.*;
+
+/** 语义缓存领域服务 条目与回答存于 semantic_cache_entries，问题向量存于独立向量表，通过元数据中的条目ID关联 */
+@Service
+public class SemanticCacheDomainService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SemanticCacheDomainService.class);
+
+    /** 向量召回的候选数，取其中第一个未过期的条目 */
+    private static final int CANDIDATES = 3;
+
+    private final SemanticCacheEntryRepository entryRepository;
+    private final EmbeddingStore<TextSegment> semanticCacheEmbeddingStore;
+    private final SemanticCacheProperties properties;
+
+    public SemanticCacheDomainService(SemanticCacheEntryRepository entryRepository,
+            @Qualifier("semanticCacheEmbeddingStore") EmbeddingStore<TextSegment> semanticCacheEmbeddingStore,
+            SemanticCacheProperties properties) {
+        this.entryRepository = entryRepository;
+        this.semanticCacheEmbeddingStore = semanticCacheEmbeddingStore;
+        this.properties = properties;
+    }
+
+    /** 按问题摘要精确查找未过期的条目
+     *
+     * @param scopeKey 缓存作用域
+     * @param questionHash 规范化问题的摘要
+     * @return 条目，不存在时为null */
+    public SemanticCacheEntryEntity findExact(String scopeKey, String questionHash) {
+        List<SemanticCacheEntryEntity> entries = entryRepository.selectList(Wrappers
+                .<SemanticCacheEntryEntity>lambdaQuery().eq(SemanticCacheEntryEntity::getScopeKey, scopeKey)
+                .eq(SemanticCacheEntryEntity::getQuestionHash, questionHash)
+                .gt(SemanticCacheEntryEntity::getExpiresAt, LocalDateTime.now())
+                .orderByDesc(SemanticCacheEntryEntity::getCreatedAt).last("LIMIT 1"));
+        return entries.isEmpty() ? null : entries.get(0);
+    }
+
+    /** 按问题向量查找最相似的未过期条目
+     *
+     * @param scopeKey 缓存作用域
+     * @param questionEmbedding 问题向量
+     * @param minSimilarity 最小余弦相似度
+     * @return 命中结果，未命中为null */
+    public SemanticCacheMatch findSimilar(String scopeKey, Embedding questionEmbedding, double minSimilarity) {
+        EmbeddingSearchRequest request = EmbeddingSearchRequest.builder().filter(new IsEqualTo(SCOPE_KEY, scopeKey))
+                .maxResults(CANDIDATES).minScore(RelevanceScore.fromCosineSimilarity(minSimilarity))
+                .queryEmbedding(questionEmbedding).build();
+        List<EmbeddingMatch<TextSegment>> matches = semanticCacheEmbeddingStore.search(request).matches();
+        if (matches.isEmpty()) {
+            return null;
+        }
+
+        List<String> entryIds = matches.stream().map(m -> m.embedded().metadata().getString(ENTRY_ID))
+                .filter(Objects::nonNull).collect(Collectors.toList());
+        if (entryIds.isEmpty()) {
+            return null;
+        }
+        Map<String, SemanticCacheEntryEntity> entries = entryRepository.selectBatchIds(entryIds).stream()
+                .collect(Collectors.toMap(SemanticCacheEntryEntity::getId, Function.identity(), (a, b) -> a));
+
+        // 按相似度从高到低取第一个仍有效的条目
+        for (EmbeddingMatch<TextSegment> match : matches) {
+            SemanticCacheEntryEntity entry = entries.get(match.embedded().metadata().getString(ENTRY_ID));
+            if (entry != null && !entry.isExpired()) {
+                return new SemanticCacheMatch(entry, 2 * match.score() - 1);
+            }
+        }
+        return null;
+    }
+
+    /** 记录一次命中 */
+    public void recordHit(String entryId) {
+        entryRepository.incrementHit(entryId, LocalDateTime.now());
+    }
+
+    /** 写入缓存条目，同一作用域下已有相同问题时直接返回已有条目
+     *
+     * @param entry 条目，需设置Agent、作用域、问题、摘要、回答与Token数
+     * @param questionEmbedding 问题向量
+     * @return 写入或已有的条目 */
+    public SemanticCacheEntryEntity save(SemanticCacheEntryEntity entry, Embedding questionEmbedding) {
+        SemanticCacheEntryEntity existing = findExact(entry.getScopeKey(), entry.getQuestionHash());
+        if (existing != null) {
+            return existing;
+        }
+
+        entry.setHitCount(0L);
+        entry.setExpiresAt(LocalDateTime.now().plus(Duration.ofMillis(properties.getTtl())));
+        entryRepository.insert(entry);
+
+        try {
+            Metadata metadata = new Metadata();
+            metadata.put(ENTRY_ID, entry.getId());
+            metadata.put(AGENT_ID, entry.getAgentId());
+            metadata.put(SCOPE_KEY, entry.getScopeKey());
+            semanticCacheEmbeddingStore.add(questionEmbedding, new TextSegment(entry.getQuestion(), metadata));
+        } catch (Exception e) {
+            // 向量写入失败的条目无法被相似问题命中，一并删除
+            entryRepository.deleteById(entry.getId());
+            throw new BusinessException("语义缓存向量写入失败: " + e.getMessage(), e);
+        }
+        return entry;
+    }
+
+    /** 清空Agent的全部缓存 */
+    public void evictAgent(String agentId) {
+        entryRepository.delete(Wrappers.<SemanticCacheEntryEntity>lambdaQuery()
+                .eq(SemanticCacheEntryEntity::getAgentId, agentId));
+        semanticCacheEmbeddingStore.removeAll(new IsEqualTo(AGENT_ID, agentId));
+    }
+
+    /** 统计Agent的缓存条目与命中 */
+    public SemanticCacheStats getStats(String agentId) {
+        SemanticCacheStats stats = entryRepository.selectStats(agentId, LocalDateTime.now());
+        return stats != null ? stats : new SemanticCacheStats();
+    }
+
+    /** 定时清理过期条目及其向量 */
+    @Scheduled(fixedDelayString = "${agentx.semantic-cache.cleanup-interval:600000}")
+    public void cleanupExpired() {
+        int batchSize = Math.max(1, properties.getCleanupBatchSize());
+        try {
+            List<String> expiredIds;
+            int total = 0;
+            do {
+                expiredIds = entryRepository.selectExpiredIds(LocalDateTime.now(), batchSize);
+                if (expiredIds.isEmpty()) {
+                    break;
+                }
+                semanticCacheEmbeddingStore.removeAll(metadataKey(ENTRY_ID).isIn(expiredIds));
+                entryRepository.deleteBatchIds(expiredIds);
+                total += expiredIds.size();
+            } while (expiredIds.size() == batchSize);
+            if (total > 0) {
+                logger.info("清理过期语义缓存条目{}条", total);
+            }
+        } catch (Exception e) {
+            logger.warn("清理过期语义缓存失败: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -6,17 +6,24 @@ import org.xhy.domain.token.model.config.TokenOverflowConfig;
 import org.xhy.domain.token.service.impl.NoTokenOverflowStrategy;
 import org.xhy.domain.token.service.impl.SlidingWindowTokenOverflowStrategy;
 import org.xhy.domain.token.service.impl.SummarizeTokenOverflowStrategy;
+import org.xhy.infrastructure.llm.LLMProviderService;
 
 /** Token超限处理策略工厂类 根据策略类型创建对应的策略实例 */
 @Service
 public class TokenOverflowStrategyFactory {
 
+    private final LLMProviderService llmProviderService;
+
+    public TokenOverflowStrategyFactory(LLMProviderService llmProviderService) {
+        this.llmProviderService = llmProviderService;
+    }
+
     /** 根据策略类型创建对应的策略实例
      *
      * @param strategyType 策略类型
      * @param config 策略配置
      * @return 策略实例 */
-    public static TokenOverflowStrategy createStrategy(TokenOverflowStrategyEnum strategyType,
+    public TokenOverflowStrategy createStrategy(TokenOverflowStrategyEnum strategyType,
             TokenOverflowConfig config) {
         if (strategyType == null) {
             return new NoTokenOverflowStrategy();
@@ -26,7 +33,7 @@ public class TokenOverflowStrategyFactory {
             case SLIDING_WINDOW :
                 return new SlidingWindowTokenOverflowStrategy(config);
             case SUMMARIZE :
-                return new SummarizeTokenOverflowStrategy(config);
+                return new SummarizeTokenOverflowStrategy(config, llmProviderService);
             case NONE :
             default :
                 return new NoTokenOverflowStrategy();
@@ -38,7 +45,7 @@ public class TokenOverflowStrategyFactory {
      * @param strategyName 策略名称字符串
      * @param config 策略配置
      * @return 策略实例 */
-    public static TokenOverflowStrategy createStrategy(String strategyName, TokenOverflowConfig config) {
+    public TokenOverflowStrategy createStrategy(String strategyName, TokenOverflowConfig config) {
         TokenOverflowStrategyEnum strategyType = TokenOverflowStrategyEnum.fromString(strategyName);
         return createStrategy(strategyType, config);
     }
@@ -47,7 +54,7 @@ public class TokenOverflowStrategyFactory {
      *
      * @param config 策略配置
      * @return 策略实例 */
-    public static TokenOverflowStrategy createStrategy(TokenOverflowConfig config) {
+    public TokenOverflowStrategy createStrategy(TokenOverflowConfig config) {
         if (config == null) {
             return new NoTokenOverflowStrategy();
         }
@@ -29,6 +29,9 @@ public class SummarizeTokenOverflowStrategy implements TokenOverflowStrategy {
     /** 策略配置 */
     private final TokenOverflowConfig config;
 
+    /** 生成摘要所用的大模型客户端服务 */
+    private final LLMProviderService llmProviderService;
+
     /** 需要进行摘要的消息 */
     private List<TokenMessage> messagesToSummarize;
 
@@ -37,9 +40,11 @@ public class SummarizeTokenOverflowStrategy implements TokenOverflowStrategy {
 
     /** 构造函数
      * 
-     * @param config 策略配置 */
-    public SummarizeTokenOverflowStrategy(TokenOverflowConfig config) {
+     * @param config 策略配置
+     * @param llmProviderService 大模型客户端服务 */
+    public SummarizeTokenOverflowStrategy(TokenOverflowConfig config, LLMProviderService llmProviderService) {
         this.config = config;
+        this.llmProviderService = llmProviderService;
         this.messagesToSummarize = new ArrayList<>();
         this.summaryMessage = null;
     }
@@ -59,17 +64,9 @@ public class SummarizeTokenOverflowStrategy implements TokenOverflowStrategy {
             return result;
         }
 
-        // 按时间排序
-        List<TokenMessage> sortedMessages = messages.stream().sorted(Comparator.comparing(TokenMessage::getCreatedAt))
-                .collect(Collectors.toList());
-
-        // 获取需要保留的消息数量
-        int threshold = config.getSummaryThreshold();
-
-        // 分割消息
-        messagesToSummarize = sortedMessages.subList(0, sortedMessages.size() - threshold);
-        List<TokenMessage> retainedMessages = new ArrayList<>(
-                sortedMessages.subList(sortedMessages.size() - threshold, sortedMessages.size()));
+        MessageWindow window = splitWindow(messages);
+        messagesToSummarize = window.getToSummarize();
+        List<TokenMessage> retainedMessages = new ArrayList<>(window.getRetained());
 
         // 生成新的摘要消息
         TokenMessage newSummary = this.generateSummary(messagesToSummarize, tokenOverflowConfig, messages);
@@ -107,6 +104,24 @@ public class SummarizeTokenOverflowStrategy implements TokenOverflowStrategy {
         return messages.size() > config.getSummaryThreshold();
     }
 
+    /** 按时间排序并切分消息窗口 最新的summaryThreshold条消息保留，其余待摘要；不修改策略状态
+     *
+     * @param messages 待处理的消息列表
+     * @return 切分后的消息窗口（两部分均按时间从旧到新排序） */
+    public MessageWindow splitWindow(List<TokenMessage> messages) {
+        // 按时间排序
+        List<TokenMessage> sortedMessages = messages.stream().sorted(Comparator.comparing(TokenMessage::getCreatedAt))
+                .collect(Collectors.toList());
+
+        // 获取需要保留的消息数量
+        int threshold = Math.min(config.getSummaryThreshold(), sortedMessages.size());
+
+        // 分割消息
+        int split = sortedMessages.size() - threshold;
+        return new MessageWindow(sortedMessages.subList(0, split),
+                sortedMessages.subList(split, sortedMessages.size()));
+    }
+
     /** 获取需要摘要的消息列表（按时间排序） 这是应用层应该使用的方法，用于获取需要进行摘要处理的消息对象
      * 
      * @return 需要摘要的消息列表（按时间从旧到新排序） */
@@ -122,7 +137,7 @@ public class SummarizeTokenOverflowStrategy implements TokenOverflowStrategy {
         String summaryPrefixPrompt = "。最后请你以这段话作为生成摘要的开头返回，开头：" + AgentPromptTemplates.getSummaryPrefix();
 
         // 使用当前服务商调用大模型
-        ChatModel chatLanguageModel = LLMProviderService.getStrand(providerConfig.getProtocol(), providerConfig);
+        ChatModel chatLanguageModel = llmProviderService.getStrand(providerConfig.getProtocol(), providerConfig);
         SystemMessage systemMessage = new SystemMessage("你是一个专业的对话摘要生成器，请严格按照以下要求工作：\n"
                 + "1. 只基于提供的对话内容生成客观摘要，不得添加任何原对话中没有的信息\n" + "2. 特别关注：用户问题、回答中的关键信息、重要事实\n" + "3. 去除所有寒暄、表情符号和情感表达\n"
                 + "4. 使用简洁的第三人称陈述句\n" + "5. 保持时间顺序和逻辑关系\n" + "6. 示例格式：[用户]问... [AI]回答...\n" + "禁止使用任何表情符号或拟人化表达"
@@ -169,4 +184,27 @@ public class SummarizeTokenOverflowStrategy implements TokenOverflowStrategy {
     public TokenMessage getSummaryMessage() {
         return summaryMessage;
     }
-}
\ No newline at end of file
+
+    /** 切分后的消息窗口 */
+    public static final class MessageWindow {
+
+        /** 需要摘要的早期消息 */
+        private final List<TokenMessage> toSummarize;
+
+        /** 保留的最新消息 */
+        private final List<TokenMessage> retained;
+
+        private MessageWindow(List<TokenMessage> toSummarize, List<TokenMessage> retained) {
+            this.toSummarize = toSummarize;
+            this.retained = retained;
+        }
+
+        public List<TokenMessage> getToSummarize() {
+            return toSummarize;
+        }
+
+        public List<TokenMessage> getRetained() {
+            return retained;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package org.xhy.domain.tool.event;
+
+/** 用户工具变更事件 用户安装、更新或卸载工具时发布 */
+public class UserToolChangedEvent {
+
+    /** 用户ID */
+    private final String userId;
+
+    /** 工具ID */
+    private final String toolId;
+
+    public UserToolChangedEvent(String userId, String toolId) {
+        this.userId = userId;
+        this.toolId = toolId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getToolId() {
+        return toolId;
+    }
+}
@@ -1,10 +1,49 @@
 package org.xhy.domain.tool.repository;
 
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 import org.xhy.domain.tool.model.ToolEntity;
 import org.xhy.infrastructure.repository.MyBatisPlusExtRepository;
 
+import java.util.List;
+
 /** 工具仓储接口 */
 @Mapper
 public interface ToolRepository extends MyBatisPlusExtRepository<ToolEntity> {
-}
\ No newline at end of file
+
+    /** 把工具当前状态对应的步骤标记为待执行，并作废正在执行的租约 */
+    @Update("UPDATE tools SET workflow_state = 'PENDING', workflow_attempts = 0, workflow_next_run_at = CURRENT_TIMESTAMP, "
+            + "workflow_lease_owner = NULL, workflow_lease_until = NULL, workflow_last_error = NULL "
+            + "WHERE id = #{toolId} AND deleted_at IS NULL")
+    int enqueueWorkflowStep(@Param("toolId") String toolId);
+
+    /** 查询指定阶段已到期且无有效租约的待执行步骤 */
+    @Select("SELECT id FROM tools WHERE workflow_state = 'PENDING' AND status = #{status} "
+            + "AND workflow_next_run_at <= CURRENT_TIMESTAMP "
+            + "AND (workflow_lease_until IS NULL OR workflow_lease_until < CURRENT_TIMESTAMP) AND deleted_at IS NULL "
+            + "ORDER BY workflow_next_run_at LIMIT #{limit}")
+    List<String> findRunnableWorkflowSteps(@Param("status") String status, @Param("limit") int limit);
+
+    /** 抢占步骤租约并累加尝试次数，工具状态或步骤已变化时失败
+     * @return 影响行数，1表示抢占成功 */
+    @Update("UPDATE tools SET workflow_lease_owner = #{token}, "
+            + "workflow_lease_until = CURRENT_TIMESTAMP + #{leaseMillis} * INTERVAL '1 millisecond', "
+            + "workflow_attempts = workflow_attempts + 1 "
+            + "WHERE id = #{toolId} AND status = #{status} AND workflow_state = 'PENDING' AND deleted_at IS NULL "
+            + "AND workflow_next_run_at <= CURRENT_TIMESTAMP "
+            + "AND (workflow_lease_until IS NULL OR workflow_lease_until < CURRENT_TIMESTAMP)")
+    int tryClaimWorkflowStep(@Param("toolId") String toolId, @Param("status") String status,
+            @Param("token") String token, @Param("leaseMillis") long leaseMillis);
+
+    /** 释放租约并按尝试次数指数退避安排重试，尝试次数用尽时不更新
+     * @return 影响行数，0表示已无重试次数或租约已失效 */
+    @Update("UPDATE tools SET workflow_lease_owner = NULL, workflow_lease_until = NULL, workflow_last_error = #{error}, "
+            + "workflow_next_run_at = CURRENT_TIMESTAMP "
+            + "+ LEAST(#{maxBackoff}, #{baseBackoff} * POWER(2, workflow_attempts - 1)) * INTERVAL '1 millisecond' "
+            + "WHERE id = #{toolId} AND workflow_lease_owner = #{token} AND workflow_attempts < #{maxAttempts}")
+    int scheduleWorkflowRetry(@Param("toolId") String toolId, @Param("token") String token,
+            @Param("error") String error, @Param("baseBackoff") long baseBackoff,
+            @Param("maxBackoff") long maxBackoff, @Param("maxAttempts") int maxAttempts);
+}
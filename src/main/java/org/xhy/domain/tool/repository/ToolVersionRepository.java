@@ -1,6 +1,8 @@
 package org.xhy.domain.tool.repository;
 
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultMap;
 import org.apache.ibatis.annotations.Select;
 import org.xhy.domain.tool.model.ToolVersionEntity;
 import org.xhy.infrastructure.repository.MyBatisPlusExtRepository;
@@ -13,4 +15,56 @@ public interface ToolVersionRepository extends MyBatisPlusExtRepository<ToolVers
     @Select("SELECT * FROM tool_version t1 " + "WHERE t1.public_status = true "
             + "AND t1.created_at = (SELECT MAX(t2.created_at) FROM tool_version t2 WHERE t2.tool_id = t1.tool_id AND t2.public_status = true)")
     List<ToolVersionEntity> listLatestPublicToolVersions();
+
+    /** 公开工具最新版本的筛选条件，关键词为空时不过滤 */
+    String PUBLIC_LATEST = "FROM tool_versions v "
+            + "LEFT JOIN LATERAL (SELECT COUNT(*) AS installs FROM user_tools u "
+            + "    WHERE u.tool_id = v.tool_id AND u.deleted_at IS NULL) p ON TRUE "
+            + "WHERE v.deleted_at IS NULL AND v.public_status = true "
+            + "AND v.created_at = (SELECT MAX(l.created_at) FROM tool_versions l "
+            + "    WHERE l.tool_id = v.tool_id AND l.deleted_at IS NULL AND l.public_status = true) "
+            + "<if test='keyword != null'>"
+            + "AND (v.name ILIKE #{containsPattern} OR v.description ILIKE #{containsPattern} "
+            + "    OR v.name % #{keyword} "
+            + "    OR to_tsvector('simple', COALESCE(v.name, '') || ' ' || COALESCE(v.description, '')) "
+            + "       @@ plainto_tsquery('simple', #{keyword})) " + "</if>";
+
+    /** 分页查询公开工具的最新版本 有关键词时按相关度与热度排序，否则按创建时间倒序
+     *
+     * @param keyword 规整后的关键词，为空时不过滤
+     * @param containsPattern 已转义的任意位置匹配模式
+     * @param prefixPattern 已转义的前缀匹配模式
+     * @param popularityWeight 热度权重
+     * @param offset 偏移量
+     * @param limit 条数
+     * @return 最新版本列表 */
+    @ResultMap("mybatis-plus_ToolVersionEntity")
+    @Select("<script>SELECT v.* " + PUBLIC_LATEST + "<choose><when test='keyword != null'>"
+            + "ORDER BY (CASE WHEN LOWER(v.name) = LOWER(#{keyword}) THEN 3 "
+            + "    WHEN v.name ILIKE #{prefixPattern} THEN 2 ELSE 0 END "
+            + "  + 2 * word_similarity(#{keyword}, v.name) "
+            + "  + ts_rank(to_tsvector('simple', COALESCE(v.name, '') || ' ' || COALESCE(v.description, '')), "
+            + "      plainto_tsquery('simple', #{keyword})) "
+            + "  + CASE WHEN v.description ILIKE #{containsPattern} THEN 0.5 ELSE 0 END) "
+            + "  * (1 + #{popularityWeight} * LN(1 + p.installs)) DESC, v.created_at DESC "
+            + "</when><otherwise>ORDER BY v.created_at DESC </otherwise></choose>"
+            + "LIMIT #{limit} OFFSET #{offset}</script>")
+    List<ToolVersionEntity> searchLatestPublic(@Param("keyword") String keyword,
+            @Param("containsPattern") String containsPattern, @Param("prefixPattern") String prefixPattern,
+            @Param("popularityWeight") double popularityWeight, @Param("offset") long offset,
+            @Param("limit") long limit);
+
+    /** 统计公开工具最新版本数，条件与 searchLatestPublic 一致 */
+    @Select("<script>SELECT COUNT(*) " + PUBLIC_LATEST + "</script>")
+    long countLatestPublic(@Param("keyword") String keyword, @Param("containsPattern") String containsPattern);
+
+    /** 公开工具名称的前缀补全，按安装次数倒序
+     *
+     * @param prefixPattern 已转义的前缀匹配模式
+     * @param limit 最多返回条数
+     * @return 去重后的名称列表 */
+    @Select("<script>SELECT v.name " + PUBLIC_LATEST + "AND v.name ILIKE #{prefixPattern} "
+            + "GROUP BY v.name ORDER BY SUM(p.installs) DESC, LENGTH(v.name), v.name LIMIT #{limit}</script>")
+    List<String> suggestPublicNames(@Param("keyword") String keyword, @Param("prefixPattern") String prefixPattern,
+            @Param("limit") int limit);
 }
@@ -3,6 +3,7 @@ package org.xhy.domain.tool.service;
 import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import org.springframework.stereotype.Service;
@@ -170,6 +171,73 @@ public class ToolDomainService {
         return toolEntity;
     }
 
+    /** 把工具当前状态对应的工作流步骤标记为待执行，正在执行的旧步骤提交时会因租约失效而被丢弃
+     *
+     * @param toolId 工具ID */
+    public void enqueueWorkflowStep(String toolId) {
+        toolRepository.enqueueWorkflowStep(toolId);
+    }
+
+    /** 查询指定阶段可执行的工作流步骤
+     *
+     * @param status 阶段
+     * @param limit 最大数量
+     * @return 工具ID列表 */
+    public List<String> findRunnableWorkflowSteps(ToolStatus status, int limit) {
+        return toolRepository.findRunnableWorkflowSteps(status.name(), limit);
+    }
+
+    /** 抢占工作流步骤租约
+     *
+     * @param toolId 工具ID
+     * @param status 步骤所在阶段
+     * @param token 本次执行的租约令牌
+     * @param leaseMillis 租约时长（毫秒）
+     * @return 是否抢占成功 */
+    public boolean tryClaimWorkflowStep(String toolId, ToolStatus status, String token, long leaseMillis) {
+        return toolRepository.tryClaimWorkflowStep(toolId, status.name(), token, leaseMillis) > 0;
+    }
+
+    /** 提交步骤结果：写回处理器修改的字段与下一状态，并释放租约。 以阶段与租约令牌为条件，超时或被重新提交的步骤不会覆盖新数据
+     *
+     * @param tool 已推进到下一状态的工具实体
+     * @param fromStatus 步骤所在阶段
+     * @param token 租约令牌
+     * @param hasNextStep 下一状态是否还需自动处理
+     * @return 是否提交成功 */
+    public boolean completeWorkflowStep(ToolEntity tool, ToolStatus fromStatus, String token, boolean hasNextStep) {
+        UpdateWrapper<ToolEntity> wrapper = new UpdateWrapper<ToolEntity>().eq("id", tool.getId())
+                .eq("status", fromStatus.name()).eq("workflow_lease_owner", token)
+                .set("workflow_state", hasNextStep ? "PENDING" : "DONE")
+                .setSql("workflow_attempts = 0, workflow_next_run_at = CURRENT_TIMESTAMP, "
+                        + "workflow_lease_owner = NULL, workflow_lease_until = NULL, workflow_last_error = NULL");
+        return toolRepository.update(tool, wrapper) > 0;
+    }
+
+    /** 释放租约并按退避策略安排重试
+     *
+     * @return 是否已安排重试，false表示尝试次数用尽或租约已失效 */
+    public boolean retryWorkflowStep(String toolId, String token, String error, long baseBackoff, long maxBackoff,
+            int maxAttempts) {
+        return toolRepository.scheduleWorkflowRetry(toolId, token, error, baseBackoff, maxBackoff, maxAttempts) > 0;
+    }
+
+    /** 步骤最终失败：工具进入 FAILED 并结束工作流
+     *
+     * @param toolId 工具ID
+     * @param fromStatus 失败的阶段
+     * @param token 租约令牌
+     * @param reason 失败原因
+     * @return 是否更新成功 */
+    public boolean failWorkflowStep(String toolId, ToolStatus fromStatus, String token, String reason) {
+        UpdateWrapper<ToolEntity> wrapper = new UpdateWrapper<ToolEntity>().eq("id", toolId)
+                .eq("status", fromStatus.name()).eq("workflow_lease_owner", token)
+                .set("status", ToolStatus.FAILED.name()).set("failed_step_status", fromStatus.name())
+                .set("reject_reason", reason).set("workflow_state", "DONE").set("workflow_last_error", reason)
+                .setSql("workflow_lease_owner = NULL, workflow_lease_until = NULL");
+        return toolRepository.update(wrapper) > 0;
+    }
+
     /** 处理人工审核完成
      *
      * @param tool 工具实体
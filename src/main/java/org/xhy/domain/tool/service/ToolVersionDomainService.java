@@ -4,52 +4,90 @@ import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.springframework.stereotype.Service;
 import org.xhy.domain.tool.model.ToolVersionEntity;
 import org.xhy.domain.tool.repository.ToolVersionRepository;
+import org.xhy.infrastructure.config.MarketplaceSearchProperties;
 import org.xhy.infrastructure.exception.BusinessException;
+import org.xhy.infrastructure.utils.SearchKeywordUtils;
 import org.xhy.interfaces.dto.tool.request.QueryToolRequest;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
 @Service
 public class ToolVersionDomainService {
 
     private final ToolVersionRepository toolVersionRepository;
+    private final MarketplaceSearchProperties searchProperties;
 
-    public ToolVersionDomainService(ToolVersionRepository toolVersionRepository) {
+    /** 小写关键词|页码|页大小 -> 工具市场分页结果，短期缓存热门查询 */
+    private final Cache<String, Page<ToolVersionEntity>> searchCache;
+
+    /** 小写前缀 -> 补全的工具名称 */
+    private final Cache<String, List<String>> suggestCache;
+
+    public ToolVersionDomainService(ToolVersionRepository toolVersionRepository,
+            MarketplaceSearchProperties searchProperties) {
         this.toolVersionRepository = toolVersionRepository;
+        this.searchProperties = searchProperties;
+        this.searchCache = CacheBuilder.newBuilder().expireAfterWrite(Duration.ofMillis(searchProperties.getCacheTtl()))
+                .maximumSize(searchProperties.getCacheMaxSize()).build();
+        this.suggestCache = CacheBuilder.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(searchProperties.getCacheTtl()))
+                .maximumSize(searchProperties.getCacheMaxSize()).build();
     }
 
+    /** 分页查询公开工具的最新版本 有关键词时按名称/描述的相关度与安装量排序，否则按创建时间倒序；
+     * 每个工具只取最新的公开版本，过滤、排序和分页都在数据库完成 */
     public Page<ToolVersionEntity> listToolVersion(QueryToolRequest queryToolRequest) {
-        long page = queryToolRequest.getPage();
-        long pageSize = queryToolRequest.getPageSize();
-        String toolName = queryToolRequest.getToolName();
-        // 1. 查询所有公开版本，支持名称模糊
-        LambdaQueryWrapper<ToolVersionEntity> wrapper = Wrappers.<ToolVersionEntity>lambdaQuery()
-                .eq(ToolVersionEntity::getPublicStatus, true)
-                .like(toolName != null && !toolName.isEmpty(), ToolVersionEntity::getName, toolName)
-                .orderByDesc(ToolVersionEntity::getCreatedAt);
-        List<ToolVersionEntity> allPublicList = toolVersionRepository.selectList(wrapper);
-        // 2. 按tool_id分组，取每组created_at最大的一条
-        Map<String, ToolVersionEntity> latestMap = allPublicList.stream()
-                .collect(java.util.stream.Collectors.toMap(ToolVersionEntity::getToolId, v -> v,
-                        (v1, v2) -> v1.getCreatedAt().isAfter(v2.getCreatedAt()) ? v1 : v2));
-        List<ToolVersionEntity> latestList = new java.util.ArrayList<>(latestMap.values());
-        // 3. 按创建时间倒序排列
-        latestList.sort((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()));
-        // 4. 手动分页
-        int fromIndex = (int) ((page - 1) * pageSize);
-        int toIndex = Math.min(fromIndex + (int) pageSize, latestList.size());
-        List<ToolVersionEntity> pageList = fromIndex >= latestList.size()
-                ? new java.util.ArrayList<>()
-                : latestList.subList(fromIndex, toIndex);
-        Page<ToolVersionEntity> resultPage = new Page<>(page, pageSize, latestList.size());
-        resultPage.setRecords(pageList);
+        long page = Math.max(1, queryToolRequest.getPage());
+        long pageSize = Math.max(1, queryToolRequest.getPageSize());
+        String rawKeyword = queryToolRequest.getKeyword() != null && !queryToolRequest.getKeyword().isBlank()
+                ? queryToolRequest.getKeyword()
+                : queryToolRequest.getToolName();
+        String keyword = SearchKeywordUtils.normalize(rawKeyword, searchProperties.getMaxKeywordLength());
+
+        String cacheKey = (keyword != null ? keyword.toLowerCase(Locale.ROOT) : "") + "|" + page + "|" + pageSize;
+        Page<ToolVersionEntity> cached = loadCached(searchCache, cacheKey, () -> {
+            String containsPattern = keyword != null ? SearchKeywordUtils.containsPattern(keyword) : null;
+            String prefixPattern = keyword != null ? SearchKeywordUtils.prefixPattern(keyword) : null;
+            long total = toolVersionRepository.countLatestPublic(keyword, containsPattern);
+            List<ToolVersionEntity> records = (page - 1) * pageSize >= total
+                    ? new ArrayList<>()
+                    : toolVersionRepository.searchLatestPublic(keyword, containsPattern, prefixPattern,
+                            searchProperties.getPopularityWeight(), (page - 1) * pageSize, pageSize);
+            Page<ToolVersionEntity> resultPage = new Page<>(page, pageSize, total);
+            resultPage.setRecords(records);
+            return resultPage;
+        });
+
+        Page<ToolVersionEntity> resultPage = new Page<>(cached.getCurrent(), cached.getSize(), cached.getTotal());
+        resultPage.setRecords(new ArrayList<>(cached.getRecords()));
         return resultPage;
     }
 
+    /** 公开工具名称的前缀补全
+     *
+     * @param prefix 用户已输入的前缀
+     * @return 按安装量排序的名称，前缀为空时返回空列表 */
+    public List<String> suggestToolNames(String prefix) {
+        String keyword = SearchKeywordUtils.normalize(prefix, searchProperties.getMaxKeywordLength());
+        if (keyword == null) {
+            return Collections.emptyList();
+        }
+        return loadCached(suggestCache, keyword.toLowerCase(Locale.ROOT), () -> toolVersionRepository
+                .suggestPublicNames(null, SearchKeywordUtils.prefixPattern(keyword), searchProperties.getSuggestLimit()));
+    }
+
     /** 获取工具版本（带权限验证）
      * 
      * @param toolId 工具ID
@@ -142,4 +180,15 @@ public class ToolVersionDomainService {
                 .eq(ToolVersionEntity::getUserId, userId).set(ToolVersionEntity::getPublicStatus, publishStatus);
         toolVersionRepository.checkedUpdate(wrapper);
     }
+
+    private <T> T loadCached(Cache<String, T> cache, String key, Callable<T> loader) {
+        try {
+            return cache.get(key, loader);
+        } catch (UncheckedExecutionException | ExecutionException e) {
+            if (e.getCause() instanceof BusinessException) {
+                throw (BusinessException) e.getCause();
+            }
+            throw new BusinessException("搜索工具失败", e.getCause());
+        }
+    }
 }
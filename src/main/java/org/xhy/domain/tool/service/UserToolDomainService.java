@@ -3,7 +3,9 @@ package org.xhy.domain.tool.service;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.xhy.domain.tool.event.UserToolChangedEvent;
 import org.xhy.domain.tool.model.UserToolEntity;
 import org.xhy.domain.tool.repository.UserToolRepository;
 import org.xhy.infrastructure.exception.BusinessException;
@@ -21,13 +23,16 @@ import java.util.stream.Collectors;
 public class UserToolDomainService {
 
     private final UserToolRepository userToolRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public UserToolDomainService(UserToolRepository userToolRepository) {
+    public UserToolDomainService(UserToolRepository userToolRepository, ApplicationEventPublisher eventPublisher) {
         this.userToolRepository = userToolRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     public void add(UserToolEntity userToolEntity) {
         userToolRepository.checkInsert(userToolEntity);
+        eventPublisher.publishEvent(new UserToolChangedEvent(userToolEntity.getUserId(), userToolEntity.getToolId()));
     }
 
     public Page<UserToolEntity> listByUserId(String userId, QueryToolRequest queryToolRequest) {
@@ -46,12 +51,14 @@ public class UserToolDomainService {
     public void update(UserToolEntity userToolEntity) {
 
         userToolRepository.checkedUpdateById(userToolEntity);
+        eventPublisher.publishEvent(new UserToolChangedEvent(userToolEntity.getUserId(), userToolEntity.getToolId()));
     }
 
     public void delete(String toolId, String userId) {
         LambdaQueryWrapper<UserToolEntity> wrapper = Wrappers.<UserToolEntity>lambdaQuery()
                 .eq(UserToolEntity::getToolId, toolId).eq(UserToolEntity::getUserId, userId);
         userToolRepository.checkedDelete(wrapper);
+        eventPublisher.publishEvent(new UserToolChangedEvent(userId, toolId));
     }
 
     // 获取工具的安装次数
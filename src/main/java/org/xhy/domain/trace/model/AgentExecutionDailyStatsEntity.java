@@ -0,0 +1,172 @@
+package org.xhy.domain.trace.model;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import org.xhy.infrastructure.entity.BaseEntity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/** Agent执行统计日汇总实体 按（用户、Agent、执行开始日期）聚合执行汇总记录，也用作任意区间聚合结果的载体 */
+@TableName("agent_execution_daily_stats")
+public class AgentExecutionDailyStatsEntity extends BaseEntity {
+
+    /** 用户ID */
+    @TableField("user_id")
+    private String userId;
+
+    /** Agent ID */
+    @TableField("agent_id")
+    private String agentId;
+
+    /** 统计日期，区间聚合结果中为空 */
+    @TableField("stat_date")
+    private LocalDate statDate;
+
+    /** 执行次数，每个会话一条执行汇总，同时也是会话数 */
+    private Integer totalExecutions;
+
+    /** 成功执行次数 */
+    private Integer successfulExecutions;
+
+    /** 总输入Token数 */
+    private Long totalInputTokens;
+
+    /** 总输出Token数 */
+    private Long totalOutputTokens;
+
+    /** 总Token数 */
+    private Long totalTokens;
+
+    /** 工具调用总次数 */
+    private Long totalToolCalls;
+
+    /** 总执行时间(毫秒) */
+    private Long totalExecutionTime;
+
+    /** 最后一次执行的开始时间 */
+    private LocalDateTime lastExecutionTime;
+
+    /** 最后一次执行是否成功 */
+    private Boolean lastExecutionSuccess;
+
+    /** 合并另一段统计，最后执行信息取时间较晚的一方 */
+    public void merge(AgentExecutionDailyStatsEntity other) {
+        this.totalExecutions = sum(totalExecutions, other.totalExecutions);
+        this.successfulExecutions = sum(successfulExecutions, other.successfulExecutions);
+        this.totalInputTokens = sum(totalInputTokens, other.totalInputTokens);
+        this.totalOutputTokens = sum(totalOutputTokens, other.totalOutputTokens);
+        this.totalTokens = sum(totalTokens, other.totalTokens);
+        this.totalToolCalls = sum(totalToolCalls, other.totalToolCalls);
+        this.totalExecutionTime = sum(totalExecutionTime, other.totalExecutionTime);
+        if (other.lastExecutionTime != null
+                && (lastExecutionTime == null || other.lastExecutionTime.isAfter(lastExecutionTime))) {
+            this.lastExecutionTime = other.lastExecutionTime;
+            this.lastExecutionSuccess = other.lastExecutionSuccess;
+        }
+    }
+
+    private static Integer sum(Integer a, Integer b) {
+        return (a != null ? a : 0) + (b != null ? b : 0);
+    }
+
+    private static Long sum(Long a, Long b) {
+        return (a != null ? a : 0L) + (b != null ? b : 0L);
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getAgentId() {
+        return agentId;
+    }
+
+    public void setAgentId(String agentId) {
+        this.agentId = agentId;
+    }
+
+    public LocalDate getStatDate() {
+        return statDate;
+    }
+
+    public void setStatDate(LocalDate statDate) {
+        this.statDate = statDate;
+    }
+
+    public Integer getTotalExecutions() {
+        return totalExecutions;
+    }
+
+    public void setTotalExecutions(Integer totalExecutions) {
+        this.totalExecutions = totalExecutions;
+    }
+
+    public Integer getSuccessfulExecutions() {
+        return successfulExecutions;
+    }
+
+    public void setSuccessfulExecutions(Integer successfulExecutions) {
+        this.successfulExecutions = successfulExecutions;
+    }
+
+    public Long getTotalInputTokens() {
+        return totalInputTokens;
+    }
+
+    public void setTotalInputTokens(Long totalInputTokens) {
+        this.totalInputTokens = totalInputTokens;
+    }
+
+    public Long getTotalOutputTokens() {
+        return totalOutputTokens;
+    }
+
+    public void setTotalOutputTokens(Long totalOutputTokens) {
+        this.totalOutputTokens = totalOutputTokens;
+    }
+
+    public Long getTotalTokens() {
+        return totalTokens;
+    }
+
+    public void setTotalTokens(Long totalTokens) {
+        this.totalTokens = totalTokens;
+    }
+
+    public Long getTotalToolCalls() {
+        return totalToolCalls;
+    }
+
+    public void setTotalToolCalls(Long totalToolCalls) {
+        this.totalToolCalls = totalToolCalls;
+    }
+
+    public Long getTotalExecutionTime() {
+        return totalExecutionTime;
+    }
+
+    public void setTotalExecutionTime(Long totalExecutionTime) {
+        this.totalExecutionTime = totalExecutionTime;
+    }
+
+    public LocalDateTime getLastExecutionTime() {
+        return lastExecutionTime;
+    }
+
+    public void setLastExecutionTime(LocalDateTime lastExecutionTime) {
+        this.lastExecutionTime = lastExecutionTime;
+    }
+
+    public Boolean getLastExecutionSuccess() {
+        return lastExecutionSuccess;
+    }
+
+    public void setLastExecutionSuccess(Boolean lastExecutionSuccess) {
+        this.lastExecutionSuccess = lastExecutionSuccess;
+    }
+}
@@ -0,0 +1,100 @@
+package org.xhy.domain.trace.repository;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.xhy.domain.trace.model.AgentExecutionDailyStatsEntity;
+import org.xhy.infrastructure.repository.MyBatisPlusExtRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/** Agent执行统计日汇总仓库接口 汇总行总是由执行汇总表整桶重算，重复执行结果相同 */
+@Mapper
+public interface AgentExecutionDailyStatsRepository extends MyBatisPlusExtRepository<AgentExecutionDailyStatsEntity> {
+
+    /** 执行汇总表的聚合列 */
+    String SUMMARY_AGGREGATES = "COUNT(*) AS total_executions, "
+            + "COUNT(*) FILTER (WHERE execution_success) AS successful_executions, "
+            + "COALESCE(SUM(total_input_tokens), 0) AS total_input_tokens, "
+            + "COALESCE(SUM(total_output_tokens), 0) AS total_output_tokens, "
+            + "COALESCE(SUM(total_tokens), 0) AS total_tokens, "
+            + "COALESCE(SUM(tool_call_count), 0) AS total_tool_calls, "
+            + "COALESCE(SUM(total_execution_time), 0) AS total_execution_time, "
+            + "MAX(execution_start_time) AS last_execution_time, "
+            + "(ARRAY_AGG(execution_success ORDER BY execution_start_time DESC))[1] AS last_execution_success ";
+
+    /** 写入日汇总表的列及冲突时的覆盖 */
+    String UPSERT_COLUMNS = "INSERT INTO agent_execution_daily_stats (user_id, agent_id, stat_date, total_executions, "
+            + "successful_executions, total_input_tokens, total_output_tokens, total_tokens, total_tool_calls, "
+            + "total_execution_time, last_execution_time, last_execution_success, created_at, updated_at) "
+            + "SELECT user_id, agent_id, CAST(execution_start_time AS DATE), " + SUMMARY_AGGREGATES
+            + ", CURRENT_TIMESTAMP, CURRENT_TIMESTAMP ";
+
+    String UPSERT_CONFLICT = " GROUP BY user_id, agent_id, CAST(execution_start_time AS DATE) "
+            + "ON CONFLICT (user_id, agent_id, stat_date) DO UPDATE SET total_executions = EXCLUDED.total_executions, "
+            + "successful_executions = EXCLUDED.successful_executions, "
+            + "total_input_tokens = EXCLUDED.total_input_tokens, total_output_tokens = EXCLUDED.total_output_tokens, "
+            + "total_tokens = EXCLUDED.total_tokens, total_tool_calls = EXCLUDED.total_tool_calls, "
+            + "total_execution_time = EXCLUDED.total_execution_time, "
+            + "last_execution_time = EXCLUDED.last_execution_time, "
+            + "last_execution_success = EXCLUDED.last_execution_success, updated_at = EXCLUDED.updated_at, "
+            + "deleted_at = NULL";
+
+    /** 重算指定会话所在的汇总桶
+     * @return 影响行数 */
+    @Update({"<script>", UPSERT_COLUMNS, "FROM agent_execution_summary WHERE deleted_at IS NULL ",
+            "AND (user_id, agent_id, CAST(execution_start_time AS DATE)) IN (",
+            "SELECT user_id, agent_id, CAST(execution_start_time AS DATE) FROM agent_execution_summary ",
+            "WHERE session_id IN ",
+            "<foreach collection='sessionIds' item='sessionId' open='(' separator=',' close=')'>#{sessionId}</foreach>",
+            ")", UPSERT_CONFLICT, "</script>"})
+    int refreshBySessions(@Param("sessionIds") Collection<String> sessionIds);
+
+    /** 重算某一天的全部汇总桶，用于回填与对账
+     * @return 影响行数 */
+    @Update(UPSERT_COLUMNS + "FROM agent_execution_summary WHERE deleted_at IS NULL "
+            + "AND execution_start_time >= #{dayStart} AND execution_start_time < #{dayEnd}" + UPSERT_CONFLICT)
+    int refreshDay(@Param("dayStart") LocalDateTime dayStart, @Param("dayEnd") LocalDateTime dayEnd);
+
+    /** 最早一条执行汇总的日期，无数据时为空 */
+    @Select("SELECT CAST(MIN(execution_start_time) AS DATE) FROM agent_execution_summary WHERE deleted_at IS NULL")
+    LocalDate selectEarliestExecutionDate();
+
+    /** 按Agent合并日汇总
+     * @param userId 用户ID
+     * @param agentId Agent ID，为空时不限
+     * @param fromDate 起始日期（含），为空时不限
+     * @param beforeDate 截止日期（不含），为空时不限 */
+    @Select({"<script>", "SELECT agent_id, SUM(total_executions) AS total_executions, ",
+            "SUM(successful_executions) AS successful_executions, SUM(total_input_tokens) AS total_input_tokens, ",
+            "SUM(total_output_tokens) AS total_output_tokens, SUM(total_tokens) AS total_tokens, ",
+            "SUM(total_tool_calls) AS total_tool_calls, SUM(total_execution_time) AS total_execution_time, ",
+            "MAX(last_execution_time) AS last_execution_time, ",
+            "(ARRAY_AGG(last_execution_success ORDER BY last_execution_time DESC))[1] AS last_execution_success ",
+            "FROM agent_execution_daily_stats WHERE user_id = #{userId} AND deleted_at IS NULL ",
+            "<if test='agentId != null'>AND agent_id = #{agentId} </if>",
+            "<if test='fromDate != null'>AND stat_date &gt;= #{fromDate} </if>",
+            "<if test='beforeDate != null'>AND stat_date &lt; #{beforeDate} </if>", "GROUP BY agent_id",
+            "</script>"})
+    List<AgentExecutionDailyStatsEntity> sumByAgent(@Param("userId") String userId, @Param("agentId") String agentId,
+            @Param("fromDate") LocalDate fromDate, @Param("beforeDate") LocalDate beforeDate);
+
+    /** 直接聚合执行汇总表，用于区间首尾不足一天的部分
+     * @param from 开始时间（含），为空时不限
+     * @param before 结束时间（不含），为空时不限
+     * @param until 结束时间（含），为空时不限 */
+    @Select({"<script>", "SELECT agent_id, ", SUMMARY_AGGREGATES,
+            "FROM agent_execution_summary WHERE user_id = #{userId} AND deleted_at IS NULL ",
+            "<if test='agentId != null'>AND agent_id = #{agentId} </if>",
+            "<if test='from != null'>AND execution_start_time &gt;= #{from} </if>",
+            "<if test='before != null'>AND execution_start_time &lt; #{before} </if>",
+            "<if test='until != null'>AND execution_start_time &lt;= #{until} </if>", "GROUP BY agent_id",
+            "</script>"})
+    List<AgentExecutionDailyStatsEntity> aggregateSummaries(@Param("userId") String userId,
+            @Param("agentId") String agentId, @Param("from") LocalDateTime from,
+            @Param("before") LocalDateTime before, @Param("until") LocalDateTime until);
+}
@@ -1,10 +1,38 @@
 package org.xhy.domain.trace.repository;
 
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
 import org.xhy.domain.trace.model.AgentExecutionSummaryEntity;
 import org.xhy.infrastructure.repository.MyBatisPlusExtRepository;
 
+import java.time.LocalDateTime;
+
 /** Agent执行链路汇总仓库接口 */
 @Mapper
 public interface AgentExecutionSummaryRepository extends MyBatisPlusExtRepository<AgentExecutionSummaryEntity> {
-}
\ No newline at end of file
+
+    /** 原子累加会话的Token与工具调用统计，不需要先读取汇总记录
+     * @return 影响行数 */
+    @Update("UPDATE agent_execution_summary SET "
+            + "total_input_tokens = COALESCE(total_input_tokens, 0) + #{inputTokens}, "
+            + "total_output_tokens = COALESCE(total_output_tokens, 0) + #{outputTokens}, "
+            + "total_tokens = COALESCE(total_tokens, 0) + #{inputTokens} + #{outputTokens}, "
+            + "tool_call_count = COALESCE(tool_call_count, 0) + #{toolCalls}, "
+            + "total_tool_execution_time = COALESCE(total_tool_execution_time, 0) + #{toolExecutionTime}, "
+            + "updated_at = CURRENT_TIMESTAMP WHERE session_id = #{sessionId} AND deleted_at IS NULL")
+    int incrementCounters(@Param("sessionId") String sessionId, @Param("inputTokens") long inputTokens,
+            @Param("outputTokens") long outputTokens, @Param("toolCalls") long toolCalls,
+            @Param("toolExecutionTime") long toolExecutionTime);
+
+    /** 标记会话执行完成，总耗时按数据库中的开始时间计算
+     * @return 影响行数 */
+    @Update("UPDATE agent_execution_summary SET execution_end_time = #{endTime}, execution_success = #{success}, "
+            + "error_phase = #{errorPhase}, error_message = #{errorMessage}, "
+            + "total_execution_time = "
+            + "CAST(EXTRACT(EPOCH FROM (CAST(#{endTime} AS TIMESTAMP) - execution_start_time)) * 1000 AS INTEGER), "
+            + "updated_at = CURRENT_TIMESTAMP WHERE session_id = #{sessionId} AND deleted_at IS NULL")
+    int markCompleted(@Param("sessionId") String sessionId, @Param("endTime") LocalDateTime endTime,
+            @Param("success") boolean success, @Param("errorPhase") String errorPhase,
+            @Param("errorMessage") String errorMessage);
+}
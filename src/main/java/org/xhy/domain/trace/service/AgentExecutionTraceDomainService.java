@@ -13,9 +13,12 @@ import org.xhy.domain.trace.repository.AgentExecutionSummaryRepository;
 import org.xhy.infrastructure.exception.BusinessException;
 
 import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
 
-/** Agent执行链路追踪领域服务 负责处理追踪数据的核心业务逻辑 */
+/** Agent执行链路追踪领域服务 负责处理追踪数据的核心业务逻辑。
+ *
+ * 除需要返回ID的用户消息外，明细与汇总统计都交给 {@link TraceWriteBuffer} 异步批量写入 */
 @Service
 public class AgentExecutionTraceDomainService {
 
@@ -23,11 +26,16 @@ public class AgentExecutionTraceDomainService {
 
     private final AgentExecutionSummaryRepository summaryRepository;
     private final AgentExecutionDetailRepository detailRepository;
+    private final TraceWriteBuffer writeBuffer;
+    private final ExecutionStatsRollupService rollupService;
 
     public AgentExecutionTraceDomainService(AgentExecutionSummaryRepository summaryRepository,
-            AgentExecutionDetailRepository detailRepository) {
+            AgentExecutionDetailRepository detailRepository, TraceWriteBuffer writeBuffer,
+            ExecutionStatsRollupService rollupService) {
         this.summaryRepository = summaryRepository;
         this.detailRepository = detailRepository;
+        this.writeBuffer = writeBuffer;
+        this.rollupService = rollupService;
     }
 
     /** 创建或获取会话追踪上下文
@@ -48,6 +56,7 @@ public class AgentExecutionTraceDomainService {
             // 创建新的汇总记录
             AgentExecutionSummaryEntity summary = AgentExecutionSummaryEntity.create(userId, sessionId, agentId);
             summaryRepository.insert(summary);
+            rollupService.markDirty(sessionId);
         }
 
         return TraceContext.create(userId, sessionId, agentId);
@@ -90,7 +99,7 @@ public class AgentExecutionTraceDomainService {
                 traceContext.getSessionId(), traceContext.nextSequence(), userMessage, messageType, messageTokens,
                 eventTime);
 
-        detailRepository.insert(detail);
+        writeBuffer.addDetail(detail);
     }
 
     /** 记录AI响应（带时间戳）
@@ -122,10 +131,10 @@ public class AgentExecutionTraceDomainService {
             detail.markStepFailed(modelCallInfo.getErrorMessage());
         }
 
-        detailRepository.insert(detail);
+        writeBuffer.addDetail(detail);
 
         // 更新汇总统计
-        updateSummaryTokens(traceContext.getSessionId(), modelCallInfo.getInputTokens(),
+        writeBuffer.addTokens(traceContext.getSessionId(), modelCallInfo.getInputTokens(),
                 modelCallInfo.getOutputTokens());
     }
 
@@ -148,13 +157,13 @@ public class AgentExecutionTraceDomainService {
             detail.markStepFailed(toolCallInfo.getErrorMessage());
         }
 
-        detailRepository.insert(detail);
+        writeBuffer.addDetail(detail);
 
         // 更新汇总统计
-        updateSummaryToolExecution(traceContext.getSessionId(), toolCallInfo.getExecutionTime());
+        writeBuffer.addToolExecution(traceContext.getSessionId(), toolCallInfo.getExecutionTime());
     }
 
-    /** 完成追踪记录
+    /** 完成追踪记录 结束状态在本会话已入队的统计增量之后写入
      * 
      * @param traceContext 追踪上下文
      * @param success 是否成功
@@ -166,17 +175,8 @@ public class AgentExecutionTraceDomainService {
             return;
         }
 
-        LambdaQueryWrapper<AgentExecutionSummaryEntity> wrapper = Wrappers.<AgentExecutionSummaryEntity>lambdaQuery()
-                .eq(AgentExecutionSummaryEntity::getSessionId, traceContext.getSessionId());
-        AgentExecutionSummaryEntity summary = summaryRepository.selectOne(wrapper);
-
-        if (summary == null) {
-            throw new BusinessException("追踪记录不存在: " + traceContext.getSessionId());
-        }
-
         String errorPhaseCode = errorPhase != null ? errorPhase.getCode() : null;
-        summary.markCompleted(success, errorPhaseCode, errorMessage);
-        summaryRepository.updateById(summary);
+        writeBuffer.complete(traceContext.getSessionId(), success, errorPhaseCode, errorMessage);
     }
 
     /** 根据会话ID获取完整的执行信息
@@ -317,22 +317,25 @@ public class AgentExecutionTraceDomainService {
      * @param userId 用户ID
      * @return 执行统计信息 */
     public ExecutionStatistics getUserExecutionStatistics(String userId) {
-        // 统计总执行次数
-        LambdaQueryWrapper<AgentExecutionSummaryEntity> totalWrapper = Wrappers
-                .<AgentExecutionSummaryEntity>lambdaQuery().eq(AgentExecutionSummaryEntity::getUserId, userId);
-        int totalExecutions = Math.toIntExact(summaryRepository.selectCount(totalWrapper));
-
-        // 统计成功执行次数
-        LambdaQueryWrapper<AgentExecutionSummaryEntity> successWrapper = Wrappers
-                .<AgentExecutionSummaryEntity>lambdaQuery().eq(AgentExecutionSummaryEntity::getUserId, userId)
-                .eq(AgentExecutionSummaryEntity::getExecutionSuccess, true);
-        int successfulExecutions = Math.toIntExact(summaryRepository.selectCount(successWrapper));
-
-        // 统计Token使用量
-        List<AgentExecutionSummaryEntity> executions = summaryRepository.selectList(totalWrapper);
-        long totalTokens = executions.stream().mapToLong(e -> e.getTotalTokens() != null ? e.getTotalTokens() : 0L)
-                .sum();
+        return getUserExecutionStatistics(userId, null, null);
+    }
 
+    /** 获取用户在指定时间范围内的执行统计信息
+     * 
+     * @param userId 用户ID
+     * @param startTime 开始时间，为空时不限
+     * @param endTime 结束时间，为空时不限
+     * @return 执行统计信息 */
+    public ExecutionStatistics getUserExecutionStatistics(String userId, LocalDateTime startTime,
+            LocalDateTime endTime) {
+        int totalExecutions = 0;
+        int successfulExecutions = 0;
+        long totalTokens = 0;
+        for (AgentExecutionDailyStatsEntity stats : rollupService.sumByAgent(userId, null, startTime, endTime)) {
+            totalExecutions += stats.getTotalExecutions();
+            successfulExecutions += stats.getSuccessfulExecutions();
+            totalTokens += stats.getTotalTokens();
+        }
         return new ExecutionStatistics(totalExecutions, successfulExecutions, totalTokens);
     }
 
@@ -341,56 +344,30 @@ public class AgentExecutionTraceDomainService {
      * @param userId 用户ID
      * @return Agent统计数据列表 */
     public List<AgentStatistics> getUserAgentStatistics(String userId) {
-        LambdaQueryWrapper<AgentExecutionSummaryEntity> wrapper = Wrappers.<AgentExecutionSummaryEntity>lambdaQuery()
-                .eq(AgentExecutionSummaryEntity::getUserId, userId)
-                .orderByDesc(AgentExecutionSummaryEntity::getExecutionStartTime);
-
-        List<AgentExecutionSummaryEntity> executions = summaryRepository.selectList(wrapper);
-
-        // 按agentId分组统计
-        return executions.stream()
-                .collect(java.util.stream.Collectors.groupingBy(AgentExecutionSummaryEntity::getAgentId)).entrySet()
-                .stream().map(entry -> {
-                    String agentId = entry.getKey();
-                    List<AgentExecutionSummaryEntity> agentExecutions = entry.getValue();
-
-                    // 计算统计信息
-                    int totalExecutions = agentExecutions.size();
-                    int successfulExecutions = (int) agentExecutions.stream()
-                            .filter(e -> Boolean.TRUE.equals(e.getExecutionSuccess())).count();
-                    int failedExecutions = totalExecutions - successfulExecutions;
-                    double successRate = totalExecutions > 0 ? (double) successfulExecutions / totalExecutions : 0.0;
-
-                    // Token统计
-                    int totalTokens = agentExecutions.stream()
-                            .mapToInt(e -> e.getTotalTokens() != null ? e.getTotalTokens() : 0).sum();
-                    int totalInputTokens = agentExecutions.stream()
-                            .mapToInt(e -> e.getTotalInputTokens() != null ? e.getTotalInputTokens() : 0).sum();
-                    int totalOutputTokens = agentExecutions.stream()
-                            .mapToInt(e -> e.getTotalOutputTokens() != null ? e.getTotalOutputTokens() : 0).sum();
-
-                    // 工具调用统计
-                    int totalToolCalls = agentExecutions.stream()
-                            .mapToInt(e -> e.getToolCallCount() != null ? e.getToolCallCount() : 0).sum();
-
-                    // 会话数统计（去重）
-                    int totalSessions = (int) agentExecutions.stream().map(AgentExecutionSummaryEntity::getSessionId)
-                            .distinct().count();
-
-                    // 最后执行时间和状态
-                    LocalDateTime lastExecutionTime = agentExecutions.stream()
-                            .map(AgentExecutionSummaryEntity::getExecutionStartTime).max(LocalDateTime::compareTo)
-                            .orElse(null);
-
-                    Boolean lastExecutionSuccess = agentExecutions.stream()
-                            .filter(e -> e.getExecutionStartTime().equals(lastExecutionTime)).findFirst()
-                            .map(AgentExecutionSummaryEntity::getExecutionSuccess).orElse(null);
+        return getUserAgentStatistics(userId, null, null);
+    }
 
-                    return new AgentStatistics(agentId, totalExecutions, successfulExecutions, failedExecutions,
-                            successRate, totalTokens, totalInputTokens, totalOutputTokens, totalToolCalls,
-                            totalSessions, lastExecutionTime, lastExecutionSuccess);
-                }).sorted((a, b) -> b.getLastExecutionTime().compareTo(a.getLastExecutionTime()))
-                .collect(java.util.stream.Collectors.toList());
+    /** 获取用户在指定时间范围内按Agent分组的执行统计数据，读取日汇总而不是逐条加载执行记录
+     * 
+     * @param userId 用户ID
+     * @param startTime 开始时间，为空时不限
+     * @param endTime 结束时间，为空时不限
+     * @return Agent统计数据列表，按最后执行时间倒序 */
+    public List<AgentStatistics> getUserAgentStatistics(String userId, LocalDateTime startTime,
+            LocalDateTime endTime) {
+        return rollupService.sumByAgent(userId, null, startTime, endTime).stream().map(stats -> {
+            int totalExecutions = stats.getTotalExecutions();
+            int successfulExecutions = stats.getSuccessfulExecutions();
+            double successRate = totalExecutions > 0 ? (double) successfulExecutions / totalExecutions : 0.0;
+
+            // 每个会话一条执行汇总，会话数即执行次数
+            return new AgentStatistics(stats.getAgentId(), totalExecutions, successfulExecutions,
+                    totalExecutions - successfulExecutions, successRate, clampToInt(stats.getTotalTokens()),
+                    clampToInt(stats.getTotalInputTokens()), clampToInt(stats.getTotalOutputTokens()),
+                    clampToInt(stats.getTotalToolCalls()), totalExecutions, stats.getLastExecutionTime(),
+                    stats.getLastExecutionSuccess());
+        }).sorted(Comparator.comparing(AgentStatistics::getLastExecutionTime,
+                Comparator.nullsLast(Comparator.reverseOrder()))).collect(java.util.stream.Collectors.toList());
     }
 
     /** 获取指定Agent下按Session分组的执行统计数据
@@ -399,8 +376,29 @@ public class AgentExecutionTraceDomainService {
      * @param userId 用户ID
      * @return Session统计数据列表 */
     public List<SessionStatistics> getAgentSessionStatistics(String agentId, String userId) {
+        return getAgentSessionStatistics(agentId, userId, null, null);
+    }
+
+    /** 获取指定Agent下在指定时间范围内按Session分组的执行统计数据，时间过滤在数据库完成且只查询统计所需的列
+     * 
+     * @param agentId Agent ID
+     * @param userId 用户ID
+     * @param startTime 开始时间，为空时不限
+     * @param endTime 结束时间，为空时不限
+     * @return Session统计数据列表 */
+    public List<SessionStatistics> getAgentSessionStatistics(String agentId, String userId, LocalDateTime startTime,
+            LocalDateTime endTime) {
         LambdaQueryWrapper<AgentExecutionSummaryEntity> wrapper = Wrappers.<AgentExecutionSummaryEntity>lambdaQuery()
+                .select(AgentExecutionSummaryEntity::getSessionId, AgentExecutionSummaryEntity::getAgentId,
+                        AgentExecutionSummaryEntity::getExecutionStartTime,
+                        AgentExecutionSummaryEntity::getExecutionSuccess, AgentExecutionSummaryEntity::getTotalTokens,
+                        AgentExecutionSummaryEntity::getTotalInputTokens,
+                        AgentExecutionSummaryEntity::getTotalOutputTokens,
+                        AgentExecutionSummaryEntity::getToolCallCount,
+                        AgentExecutionSummaryEntity::getTotalExecutionTime)
                 .eq(AgentExecutionSummaryEntity::getAgentId, agentId).eq(AgentExecutionSummaryEntity::getUserId, userId)
+                .ge(startTime != null, AgentExecutionSummaryEntity::getExecutionStartTime, startTime)
+                .le(endTime != null, AgentExecutionSummaryEntity::getExecutionStartTime, endTime)
                 .orderByDesc(AgentExecutionSummaryEntity::getExecutionStartTime);
 
         List<AgentExecutionSummaryEntity> executions = summaryRepository.selectList(wrapper);
@@ -451,28 +449,9 @@ public class AgentExecutionTraceDomainService {
                 .collect(java.util.stream.Collectors.toList());
     }
 
-    /** 更新汇总的Token统计 */
-    private void updateSummaryTokens(String sessionId, Integer inputTokens, Integer outputTokens) {
-        LambdaQueryWrapper<AgentExecutionSummaryEntity> wrapper = Wrappers.<AgentExecutionSummaryEntity>lambdaQuery()
-                .eq(AgentExecutionSummaryEntity::getSessionId, sessionId);
-        AgentExecutionSummaryEntity summary = summaryRepository.selectOne(wrapper);
-
-        if (summary != null) {
-            summary.addTokens(inputTokens, outputTokens);
-            summaryRepository.updateById(summary);
-        }
-    }
-
-    /** 更新汇总的工具执行统计 */
-    private void updateSummaryToolExecution(String sessionId, Integer executionTime) {
-        LambdaQueryWrapper<AgentExecutionSummaryEntity> wrapper = Wrappers.<AgentExecutionSummaryEntity>lambdaQuery()
-                .eq(AgentExecutionSummaryEntity::getSessionId, sessionId);
-        AgentExecutionSummaryEntity summary = summaryRepository.selectOne(wrapper);
-
-        if (summary != null) {
-            summary.addToolExecution(executionTime);
-            summaryRepository.updateById(summary);
-        }
+    /** 汇总值超出int范围时取上限，避免统计页因溢出报错 */
+    private static int clampToInt(Long value) {
+        return value != null ? (int) Math.min(Integer.MAX_VALUE, value) : 0;
     }
 
     /** 更新用户消息的Token数量
@@ -484,11 +463,7 @@ public class AgentExecutionTraceDomainService {
             return;
         }
 
-        AgentExecutionDetailEntity detail = detailRepository.selectById(recordId);
-        if (detail != null) {
-            detail.setMessageTokens(messageTokens);
-            detailRepository.updateById(detail);
-        }
+        writeBuffer.updateMessageTokens(recordId, messageTokens);
     }
 
     /** 执行统计信息 */
@@ -610,7 +585,7 @@ public class AgentExecutionTraceDomainService {
             AgentExecutionDetailEntity errorEntity = AgentExecutionDetailEntity
                     .createErrorMessageStep(traceContext.getSessionId(), errorMessage, eventTime);
 
-            detailRepository.insert(errorEntity);
+            writeBuffer.addDetail(errorEntity);
 
             logger.debug("记录异常消息成功: SessionId={}, ErrorMessage={}", traceContext.getSessionId(), errorMessage);
         } catch (Exception e) {
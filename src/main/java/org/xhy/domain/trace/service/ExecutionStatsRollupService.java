@@ -0,0 +1,172 @@
+package org.xhy.domain.trace.service;
+
+import com.google.common.collect.Lists;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.xhy.domain.trace.model.AgentExecutionDailyStatsEntity;
+import org.xhy.domain.trace.repository.AgentExecutionDailyStatsRepository;
+import org.xhy.infrastructure.config.TraceProperties;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/** 执行统计日汇总维护 执行汇总变化的会话先登记为待刷新，定时按会话所在的汇总桶重算；启动时对空表回填历史数据，
+ * 每日对账最近几天以补上重启前未刷新的会话 */
+@Service
+public class ExecutionStatsRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionStatsRollupService.class);
+
+    /** 单条语句重算的最大会话数 */
+    private static final int REFRESH_CHUNK_SIZE = 500;
+
+    private final AgentExecutionDailyStatsRepository dailyStatsRepository;
+    private final TraceProperties properties;
+
+    /** 待刷新汇总桶的会话ID */
+    private final Set<String> dirtySessions = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean backfilling = new AtomicBoolean(false);
+
+    public ExecutionStatsRollupService(AgentExecutionDailyStatsRepository dailyStatsRepository,
+            TraceProperties properties) {
+        this.dailyStatsRepository = dailyStatsRepository;
+        this.properties = properties;
+    }
+
+    /** 登记会话的执行汇总已变化 */
+    public void markDirty(String sessionId) {
+        if (sessionId != null) {
+            dirtySessions.add(sessionId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${agentx.trace.rollup-interval:5000}")
+    public void refreshDirty() {
+        if (dirtySessions.isEmpty()) {
+            return;
+        }
+        List<String> sessionIds = new ArrayList<>(dirtySessions.size());
+        for (String sessionId : dirtySessions) {
+            if (dirtySessions.remove(sessionId)) {
+                sessionIds.add(sessionId);
+            }
+        }
+        for (List<String> chunk : Lists.partition(sessionIds, REFRESH_CHUNK_SIZE)) {
+            try {
+                dailyStatsRepository.refreshBySessions(chunk);
+            } catch (Exception e) {
+                // 放回待刷新集合，下一轮重试
+                dirtySessions.addAll(chunk);
+                logger.warn("刷新执行统计日汇总失败: sessions={}, error={}", chunk.size(), e.getMessage());
+            }
+        }
+    }
+
+    /** 每日对账最近几天的汇总 */
+    @Scheduled(cron = "${agentx.trace.rollup-reconcile-cron:0 30 3 * * *}")
+    public void reconcileRecentDays() {
+        LocalDate today = LocalDate.now();
+        backfill(today.minusDays(Math.max(0, properties.getRollupReconcileDays())), today);
+    }
+
+    /** 日汇总表为空时在后台回填历史数据 */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (!properties.isRollupBackfillOnStartup()) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                if (dailyStatsRepository.selectCount(null) > 0) {
+                    return;
+                }
+                LocalDate earliest = dailyStatsRepository.selectEarliestExecutionDate();
+                if (earliest != null) {
+                    backfill(earliest, LocalDate.now());
+                }
+            } catch (Exception e) {
+                logger.warn("执行统计日汇总回填失败: {}", e.getMessage(), e);
+            }
+        }, "trace-stats-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** 按天重算日汇总，同一时间只允许一个回填
+     *
+     * @param from 起始日期（含）
+     * @param to 结束日期（含）
+     * @return 重算的天数，已有回填在执行时为0 */
+    public int backfill(LocalDate from, LocalDate to) {
+        if (!backfilling.compareAndSet(false, true)) {
+            logger.info("执行统计日汇总回填已在执行，跳过: {} ~ {}", from, to);
+            return 0;
+        }
+        int days = 0;
+        try {
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                dailyStatsRepository.refreshDay(day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+                days++;
+            }
+            logger.info("执行统计日汇总回填完成: {} ~ {}, 共{}天", from, to, days);
+            return days;
+        } finally {
+            backfilling.set(false);
+        }
+    }
+
+    /** 按Agent统计任意时间区间，整天部分读日汇总，首尾不足一天的部分直接聚合执行汇总
+     *
+     * @param userId 用户ID
+     * @param agentId Agent ID，为空时统计全部Agent
+     * @param startTime 开始时间（含），为空时不限
+     * @param endTime 结束时间（含），为空时不限
+     * @return 每个Agent一条合并后的统计，statDate为空 */
+    public List<AgentExecutionDailyStatsEntity> sumByAgent(String userId, String agentId, LocalDateTime startTime,
+            LocalDateTime endTime) {
+        LocalDate fullFrom = null;
+        if (startTime != null) {
+            fullFrom = startTime.equals(startTime.toLocalDate().atStartOfDay())
+                    ? startTime.toLocalDate()
+                    : startTime.toLocalDate().plusDays(1);
+        }
+        LocalDate fullBefore = endTime != null ? endTime.toLocalDate() : null;
+
+        List<AgentExecutionDailyStatsEntity> parts = new ArrayList<>();
+        if (fullFrom != null && fullBefore != null && !fullFrom.isBefore(fullBefore)) {
+            // 区间不含完整的一天
+            parts.addAll(dailyStatsRepository.aggregateSummaries(userId, agentId, startTime, null, endTime));
+        } else {
+            parts.addAll(dailyStatsRepository.sumByAgent(userId, agentId, fullFrom, fullBefore));
+            if (fullFrom != null && startTime.isBefore(fullFrom.atStartOfDay())) {
+                parts.addAll(dailyStatsRepository.aggregateSummaries(userId, agentId, startTime,
+                        fullFrom.atStartOfDay(), null));
+            }
+            if (fullBefore != null) {
+                parts.addAll(dailyStatsRepository.aggregateSummaries(userId, agentId, fullBefore.atStartOfDay(), null,
+                        endTime));
+            }
+        }
+
+        Map<String, AgentExecutionDailyStatsEntity> merged = new LinkedHashMap<>();
+        for (AgentExecutionDailyStatsEntity part : parts) {
+            AgentExecutionDailyStatsEntity existing = merged.putIfAbsent(part.getAgentId(), part);
+            if (existing != null) {
+                existing.merge(part);
+            }
+        }
+        return new ArrayList<>(merged.values());
+    }
+}
@@ -0,0 +1,290 @@
+package org.xhy.domain.trace.service;
+
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.xhy.domain.trace.model.AgentExecutionDetailEntity;
+import org.xhy.domain.trace.repository.AgentExecutionDetailRepository;
+import org.xhy.domain.trace.repository.AgentExecutionSummaryRepository;
+import org.xhy.infrastructure.config.TraceProperties;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/** 追踪数据写入缓冲 对话线程只入队，由单个后台线程批量落库。
+ *
+ * 明细进入有界队列，满时按溢出策略丢弃；汇总统计按会话合并为增量，刷写时用一条原子累加语句写入，不再先读后写；
+ * 执行完成状态同一会话只保留最后一次，在本轮增量写入之后更新 */
+@Component
+public class TraceWriteBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(TraceWriteBuffer.class);
+
+    /** 每丢弃多少条明细打印一次告警 */
+    private static final long DROP_LOG_INTERVAL = 1000;
+
+    private final AgentExecutionSummaryRepository summaryRepository;
+    private final AgentExecutionDetailRepository detailRepository;
+    private final ExecutionStatsRollupService rollupService;
+    private final TraceProperties.OverflowPolicy overflowPolicy;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long shutdownTimeout;
+
+    /** 待插入的明细 */
+    private final BlockingQueue<AgentExecutionDetailEntity> details;
+
+    /** 会话ID -> 待累加的统计增量 */
+    private final Map<String, CounterDelta> pendingCounters = new ConcurrentHashMap<>();
+
+    /** 会话ID -> 待写入的完成状态 */
+    private final Map<String, Completion> pendingCompletions = new ConcurrentHashMap<>();
+
+    /** 用户消息明细ID -> 待更新的Token数 */
+    private final Map<Long, Integer> pendingMessageTokens = new ConcurrentHashMap<>();
+
+    private final AtomicLong droppedTotal = new AtomicLong();
+    private final Counter droppedCounter;
+
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    public TraceWriteBuffer(AgentExecutionSummaryRepository summaryRepository,
+            AgentExecutionDetailRepository detailRepository, ExecutionStatsRollupService rollupService,
+            TraceProperties properties, MeterRegistry registry) {
+        this.summaryRepository = summaryRepository;
+        this.detailRepository = detailRepository;
+        this.rollupService = rollupService;
+        this.overflowPolicy = properties.getOverflowPolicy();
+        this.batchSize = Math.max(1, properties.getBatchSize());
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(10, properties.getFlushInterval()));
+        this.shutdownTimeout = Math.max(0, properties.getShutdownTimeout());
+        this.details = new ArrayBlockingQueue<>(Math.max(this.batchSize, properties.getBufferCapacity()));
+
+        Gauge.builder("agentx.trace.buffer.size", details, BlockingQueue::size).description("待写入的追踪明细数")
+                .register(registry);
+        this.droppedCounter = Counter.builder("agentx.trace.dropped").description("缓冲区已满或写入失败而丢弃的追踪明细数")
+                .register(registry);
+
+        this.flusher = new Thread(this::runFlushLoop, "trace-write-buffer");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /** 明细入队，缓冲区已满时按溢出策略处理，不会阻塞调用线程（CALLER_RUNS除外） */
+    public void addDetail(AgentExecutionDetailEntity detail) {
+        if (details.offer(detail)) {
+            if (details.size() >= batchSize) {
+                LockSupport.unpark(flusher);
+            }
+            return;
+        }
+
+        switch (overflowPolicy) {
+            case CALLER_RUNS -> {
+                try {
+                    detailRepository.insert(detail);
+                } catch (Exception e) {
+                    logger.warn("追踪明细直接写入失败: sessionId={}, error={}", detail.getSessionId(), e.getMessage());
+                    recordDropped(1);
+                }
+            }
+            case DROP_OLDEST -> {
+                if (details.poll() != null) {
+                    recordDropped(1);
+                }
+                if (!details.offer(detail)) {
+                    recordDropped(1);
+                }
+            }
+            default -> recordDropped(1);
+        }
+    }
+
+    /** 累加会话的Token统计 */
+    public void addTokens(String sessionId, Integer inputTokens, Integer outputTokens) {
+        long input = inputTokens != null ? inputTokens : 0;
+        long output = outputTokens != null ? outputTokens : 0;
+        if (input == 0 && output == 0) {
+            return;
+        }
+        pendingCounters.merge(sessionId, new CounterDelta(input, output, 0, 0), CounterDelta::plus);
+    }
+
+    /** 累加会话的工具调用统计 */
+    public void addToolExecution(String sessionId, Integer executionTime) {
+        pendingCounters.merge(sessionId, new CounterDelta(0, 0, 1, executionTime != null ? executionTime : 0),
+                CounterDelta::plus);
+    }
+
+    /** 登记用户消息明细的Token数更新 */
+    public void updateMessageTokens(Long recordId, Integer messageTokens) {
+        pendingMessageTokens.put(recordId, messageTokens);
+    }
+
+    /** 登记会话执行完成，结束时间取调用时刻 */
+    public void complete(String sessionId, boolean success, String errorPhase, String errorMessage) {
+        pendingCompletions.put(sessionId, new Completion(LocalDateTime.now(), success, errorPhase, errorMessage));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        running = false;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join(shutdownTimeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (flusher.isAlive()) {
+            logger.warn("追踪数据未在{}ms内写完，剩余明细{}条", shutdownTimeout, details.size());
+        }
+    }
+
+    private void runFlushLoop() {
+        while (running) {
+            if (details.size() < batchSize) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            flushOnce();
+        }
+        // 关闭前写完剩余数据
+        do {
+            flushOnce();
+        } while (!details.isEmpty());
+    }
+
+    private void flushOnce() {
+        try {
+            flushDetails();
+            flushCounters();
+            flushMessageTokens();
+            flushCompletions();
+        } catch (Exception e) {
+            logger.warn("追踪数据刷写异常: {}", e.getMessage(), e);
+        }
+    }
+
+    private void flushDetails() {
+        List<AgentExecutionDetailEntity> batch = new ArrayList<>(batchSize);
+        while (details.drainTo(batch, batchSize) > 0) {
+            try {
+                detailRepository.checkedInsertBatch(batch, batchSize);
+            } catch (Exception e) {
+                logger.warn("追踪明细批量写入失败，丢弃{}条: {}", batch.size(), e.getMessage());
+                recordDropped(batch.size());
+            }
+            boolean full = batch.size() == batchSize;
+            batch.clear();
+            if (!full) {
+                return;
+            }
+        }
+    }
+
+    private void flushCounters() {
+        for (String sessionId : pendingCounters.keySet()) {
+            CounterDelta delta = pendingCounters.remove(sessionId);
+            if (delta == null) {
+                continue;
+            }
+            try {
+                summaryRepository.incrementCounters(sessionId, delta.inputTokens, delta.outputTokens, delta.toolCalls,
+                        delta.toolExecutionTime);
+                rollupService.markDirty(sessionId);
+            } catch (Exception e) {
+                // 增量合并回去等下一轮重试，会话数有限不会无限增长
+                pendingCounters.merge(sessionId, delta, CounterDelta::plus);
+                logger.warn("追踪汇总累加失败: sessionId={}, error={}", sessionId, e.getMessage());
+            }
+        }
+    }
+
+    private void flushMessageTokens() {
+        for (Long recordId : pendingMessageTokens.keySet()) {
+            Integer tokens = pendingMessageTokens.remove(recordId);
+            if (tokens == null) {
+                continue;
+            }
+            try {
+                detailRepository.update(Wrappers.<AgentExecutionDetailEntity>lambdaUpdate()
+                        .set(AgentExecutionDetailEntity::getMessageTokens, tokens)
+                        .eq(AgentExecutionDetailEntity::getId, recordId));
+            } catch (Exception e) {
+                logger.warn("更新用户消息Token数失败: recordId={}, error={}", recordId, e.getMessage());
+            }
+        }
+    }
+
+    private void flushCompletions() {
+        for (String sessionId : pendingCompletions.keySet()) {
+            Completion completion = pendingCompletions.remove(sessionId);
+            if (completion == null) {
+                continue;
+            }
+            try {
+                summaryRepository.markCompleted(sessionId, completion.endTime, completion.success,
+                        completion.errorPhase, completion.errorMessage);
+                rollupService.markDirty(sessionId);
+            } catch (Exception e) {
+                logger.warn("追踪完成状态写入失败: sessionId={}, error={}", sessionId, e.getMessage());
+            }
+        }
+    }
+
+    private void recordDropped(int count) {
+        droppedCounter.increment(count);
+        long before = droppedTotal.getAndAdd(count);
+        if (before == 0 || before / DROP_LOG_INTERVAL != (before + count) / DROP_LOG_INTERVAL) {
+            logger.warn("追踪缓冲区已满或写入失败，累计丢弃明细{}条，溢出策略={}", before + count, overflowPolicy);
+        }
+    }
+
+    /** 会话统计增量，不可变，合并时生成新对象 */
+    private static final class CounterDelta {
+        private final long inputTokens;
+        private final long outputTokens;
+        private final long toolCalls;
+        private final long toolExecutionTime;
+
+        CounterDelta(long inputTokens, long outputTokens, long toolCalls, long toolExecutionTime) {
+            this.inputTokens = inputTokens;
+            this.outputTokens = outputTokens;
+            this.toolCalls = toolCalls;
+            this.toolExecutionTime = toolExecutionTime;
+        }
+
+        CounterDelta plus(CounterDelta other) {
+            return new CounterDelta(inputTokens + other.inputTokens, outputTokens + other.outputTokens,
+                    toolCalls + other.toolCalls, toolExecutionTime + other.toolExecutionTime);
+        }
+    }
+
+    /** 会话执行完成状态 */
+    private static final class Completion {
+        private final LocalDateTime endTime;
+        private final boolean success;
+        private final String errorPhase;
+        private final String errorMessage;
+
+        Completion(LocalDateTime endTime, boolean success, String errorPhase, String errorMessage) {
+            this.endTime = endTime;
+            this.success = success;
+            this.errorPhase = errorPhase;
+            this.errorMessage = errorMessage;
+        }
+    }
+}
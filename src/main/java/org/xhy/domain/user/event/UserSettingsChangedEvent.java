@@ -0,0 +1,16 @@
+package org.xhy.domain.user.event;
+
+/** 用户设置变更事件 默认模型或降级链等设置变化时发布 */
+public class UserSettingsChangedEvent {
+
+    /** 用户ID */
+    private final String userId;
+
+    public UserSettingsChangedEvent(String userId) {
+        this.userId = userId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+}
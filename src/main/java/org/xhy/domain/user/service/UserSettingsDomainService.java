@@ -3,7 +3,9 @@ package org.xhy.domain.user.service;
 import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.xhy.domain.user.event.UserSettingsChangedEvent;
 import org.xhy.domain.user.model.UserSettingsEntity;
 import org.xhy.domain.user.model.config.FallbackConfig;
 import org.xhy.domain.user.repository.UserSettingsRepository;
@@ -16,9 +18,12 @@ import java.util.List;
 public class UserSettingsDomainService {
 
     private final UserSettingsRepository userSettingsRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public UserSettingsDomainService(UserSettingsRepository userSettingsRepository) {
+    public UserSettingsDomainService(UserSettingsRepository userSettingsRepository,
+            ApplicationEventPublisher eventPublisher) {
         this.userSettingsRepository = userSettingsRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /** 获取用户设置
@@ -36,6 +41,7 @@ public class UserSettingsDomainService {
         Wrapper<UserSettingsEntity> wrapper = Wrappers.<UserSettingsEntity>lambdaQuery()
                 .eq(UserSettingsEntity::getUserId, userSettings.getUserId());
         userSettingsRepository.checkedUpdate(userSettings, wrapper);
+        eventPublisher.publishEvent(new UserSettingsChangedEvent(userSettings.getUserId()));
     }
 
     /** 获取用户默认模型ID
@@ -81,5 +87,6 @@ public class UserSettingsDomainService {
                     .eq(UserSettingsEntity::getUserId, userId);
             userSettingsRepository.checkedUpdate(settings, wrapper);
         }
+        eventPublisher.publishEvent(new UserSettingsChangedEvent(userId));
     }
 }
\ No newline at end of file
@@ -3,81 +3,93 @@ package org.xhy.infrastructure.config;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.xhy.infrastructure.ratelimit.service.DownstreamLimiter;
 
 import java.util.concurrent.ThreadPoolExecutor;
 
-/** 异步配置 启用Spring的异步处理功能，用于异步事件处理 */
+/** 异步配置 启用Spring的异步处理功能，用于异步事件处理。
+ *
+ * 开启虚拟线程（agentx.execution.virtual-threads）时，以下阻塞I/O线程池均改为每任务一个虚拟线程，对下游的并发由 DownstreamLimiter
+ * 按下游控制，不再出现线程池占满后任务回落到请求线程执行的情况，线程池大小配置不再生效。
+ * 任务均以后台任务身份执行，下游繁忙时在许可上排队等待而不是超时失败。
+ * RAG快照复制主要占用数据库连接而不经过 DownstreamLimiter，始终使用有界的平台线程池，避免占满连接池。
+ * 关闭时使用平台线程池，各线程池的队列深度、活跃线程数等指标由Actuator自动注册（executor.*，name标签为bean名去掉TaskExecutor后缀） */
 @Configuration
 @EnableAsync
 public class AsyncConfig {
 
+    private final ExecutionProperties executionProperties;
+
+    public AsyncConfig(ExecutionProperties executionProperties) {
+        this.executionProperties = executionProperties;
+    }
+
     /** 专用于记忆抽取与持久化的线程池，避免与其他异步任务互相影响 */
     @Bean(name = "memoryTaskExecutor")
-    public ThreadPoolTaskExecutor memoryTaskExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(2);
-        executor.setMaxPoolSize(8);
-        executor.setQueueCapacity(200);
-        executor.setKeepAliveSeconds(60);
-        executor.setAllowCoreThreadTimeOut(true);
-        executor.setThreadNamePrefix("memory-async-");
-        // 繁忙时在调用线程执行，确保不丢任务
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
-        executor.initialize();
-        return executor;
+    public TaskExecutor memoryTaskExecutor() {
+        return ioTaskExecutor("memory-async-", 2, 8, 200);
     }
 
     /** OCR处理线程池，限制单文件内并发，避免压垮OCR模型/IO */
     @Bean(name = "ocrTaskExecutor")
-    public ThreadPoolTaskExecutor ocrTaskExecutor(
-            @Value("${rag.ocr.thread-pool.core:4}") int corePoolSize,
+    public TaskExecutor ocrTaskExecutor(@Value("${rag.ocr.thread-pool.core:4}") int corePoolSize,
             @Value("${rag.ocr.thread-pool.max:8}") int maxPoolSize,
             @Value("${rag.ocr.thread-pool.queue:200}") int queueCapacity) {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(corePoolSize);
-        executor.setMaxPoolSize(maxPoolSize);
-        executor.setQueueCapacity(queueCapacity);
-        executor.setKeepAliveSeconds(60);
-        executor.setAllowCoreThreadTimeOut(true);
-        executor.setThreadNamePrefix("ocr-async-");
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
-        executor.initialize();
-        return executor;
+        return ioTaskExecutor("ocr-async-", corePoolSize, maxPoolSize, queueCapacity);
     }
 
     /** Embedding线程池，按文件内并发处理向量化 */
     @Bean(name = "embeddingTaskExecutor")
-    public ThreadPoolTaskExecutor embeddingTaskExecutor(
-            @Value("${rag.embedding.thread-pool.core:4}") int corePoolSize,
+    public TaskExecutor embeddingTaskExecutor(@Value("${rag.embedding.thread-pool.core:4}") int corePoolSize,
             @Value("${rag.embedding.thread-pool.max:8}") int maxPoolSize,
             @Value("${rag.embedding.thread-pool.queue:200}") int queueCapacity) {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(corePoolSize);
-        executor.setMaxPoolSize(maxPoolSize);
-        executor.setQueueCapacity(queueCapacity);
-        executor.setKeepAliveSeconds(60);
-        executor.setAllowCoreThreadTimeOut(true);
-        executor.setThreadNamePrefix("embedding-async-");
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
-        executor.initialize();
-        return executor;
+        return ioTaskExecutor("embedding-async-", corePoolSize, maxPoolSize, queueCapacity);
     }
 
     /** 翻译/拆分线程池，控制文档单元并行度 */
     @Bean(name = "vectorizationTaskExecutor")
-    public ThreadPoolTaskExecutor vectorizationTaskExecutor(
-            @Value("${rag.vectorization.thread-pool.core:4}") int corePoolSize,
+    public TaskExecutor vectorizationTaskExecutor(@Value("${rag.vectorization.thread-pool.core:4}") int corePoolSize,
             @Value("${rag.vectorization.thread-pool.max:8}") int maxPoolSize,
             @Value("${rag.vectorization.thread-pool.queue:200}") int queueCapacity) {
+        return ioTaskExecutor("vectorization-async-", corePoolSize, maxPoolSize, queueCapacity);
+    }
+
+    /** RAG快照复制线程池，大型知识库安装时在后台复制快照，避免占用请求线程；线程数即同时占用的数据库连接数，不随虚拟线程开关变化 */
+    @Bean(name = "ragSnapshotTaskExecutor")
+    public TaskExecutor ragSnapshotTaskExecutor(@Value("${rag.snapshot.thread-pool.core:2}") int corePoolSize,
+            @Value("${rag.snapshot.thread-pool.max:4}") int maxPoolSize,
+            @Value("${rag.snapshot.thread-pool.queue:100}") int queueCapacity) {
+        return platformTaskExecutor("rag-snapshot-async-", corePoolSize, maxPoolSize, queueCapacity);
+    }
+
+    /** 阻塞I/O任务执行器，开启虚拟线程时忽略线程池参数 */
+    private TaskExecutor ioTaskExecutor(String threadNamePrefix, int corePoolSize, int maxPoolSize,
+            int queueCapacity) {
+        if (executionProperties.isVirtualThreads()) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+            executor.setVirtualThreads(true);
+            executor.setTaskDecorator(DownstreamLimiter::background);
+            return executor;
+        }
+        return platformTaskExecutor(threadNamePrefix, corePoolSize, maxPoolSize, queueCapacity);
+    }
+
+    /** 有界平台线程池 */
+    private TaskExecutor platformTaskExecutor(String threadNamePrefix, int corePoolSize, int maxPoolSize,
+            int queueCapacity) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(corePoolSize);
         executor.setMaxPoolSize(maxPoolSize);
         executor.setQueueCapacity(queueCapacity);
         executor.setKeepAliveSeconds(60);
         executor.setAllowCoreThreadTimeOut(true);
-        executor.setThreadNamePrefix("vectorization-async-");
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setTaskDecorator(DownstreamLimiter::background);
+        // 繁忙时在调用线程执行，确保不丢任务
         executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
         executor.initialize();
         return executor;
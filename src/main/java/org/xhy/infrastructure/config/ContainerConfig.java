@@ -27,6 +27,12 @@ public class ContainerConfig {
     /** 资源使用率更新间隔（毫秒） */
     private long statsUpdateInterval = 120000; // 2分钟
 
+    /** 状态对账的并发检查数 */
+    private int monitorParallelism = 16;
+
+    /** 流式 stats 订阅上限，每个订阅占用一个到 Docker 的长连接 */
+    private int maxStatsStreams = 500;
+
     public String getDockerHost() {
         return dockerHost;
     }
@@ -66,4 +72,20 @@ public class ContainerConfig {
     public void setStatsUpdateInterval(long statsUpdateInterval) {
         this.statsUpdateInterval = statsUpdateInterval;
     }
-}
\ No newline at end of file
+
+    public int getMonitorParallelism() {
+        return monitorParallelism;
+    }
+
+    public void setMonitorParallelism(int monitorParallelism) {
+        this.monitorParallelism = monitorParallelism;
+    }
+
+    public int getMaxStatsStreams() {
+        return maxStatsStreams;
+    }
+
+    public void setMaxStatsStreams(int maxStatsStreams) {
+        this.maxStatsStreams = maxStatsStreams;
+    }
+}
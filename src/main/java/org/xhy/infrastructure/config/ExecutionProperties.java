@@ -0,0 +1,75 @@
+package org.xhy.infrastructure.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/** 阻塞I/O执行配置 开启虚拟线程后，OCR、向量化、记忆等异步任务改由虚拟线程执行，不再按线程池大小限流，
+ * 对下游服务的并发改由按下游划分的信号量控制 */
+@Configuration
+@ConfigurationProperties(prefix = "agentx.execution")
+public class ExecutionProperties {
+
+    /** 大模型服务商，按服务商地址分别限流 */
+    public static final String DOWNSTREAM_LLM = "llm";
+    /** OCR模型 */
+    public static final String DOWNSTREAM_OCR = "ocr";
+    /** 嵌入模型，按服务商地址分别限流 */
+    public static final String DOWNSTREAM_EMBEDDING = "embedding";
+    /** 重排序服务 */
+    public static final String DOWNSTREAM_RERANK = "rerank";
+    /** MCP工具，按工具服务分别限流 */
+    public static final String DOWNSTREAM_TOOL = "tool";
+
+    /** 是否用虚拟线程执行阻塞I/O任务，需要Java 21 */
+    private boolean virtualThreads = true;
+
+    /** 请求线程等待下游许可的最长时间（毫秒），超时视为下游繁忙；异步执行器中的后台任务不受此限制 */
+    private long acquireTimeout = 120000;
+
+    /** 未单独配置的下游的并发上限 */
+    private int defaultPermits = 32;
+
+    /** 各下游的并发上限，按服务商或工具服务划分的下游对每个实例分别生效 */
+    private Map<String, Integer> permits = new HashMap<>();
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public long getAcquireTimeout() {
+        return acquireTimeout;
+    }
+
+    public void setAcquireTimeout(long acquireTimeout) {
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    public int getDefaultPermits() {
+        return defaultPermits;
+    }
+
+    public void setDefaultPermits(int defaultPermits) {
+        this.defaultPermits = defaultPermits;
+    }
+
+    public Map<String, Integer> getPermits() {
+        return permits;
+    }
+
+    public void setPermits(Map<String, Integer> permits) {
+        this.permits = permits;
+    }
+
+    /** 下游的并发上限 */
+    public int permitsFor(String downstream) {
+        Integer value = permits.get(downstream);
+        return Math.max(1, value != null ? value : defaultPermits);
+    }
+}
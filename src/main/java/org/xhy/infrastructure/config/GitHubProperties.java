@@ -40,6 +40,65 @@ public class GitHubProperties {
         }
     }
 
+    private Cache cache = new Cache();
+
+    /** 本地仓库镜像与源归档缓存配置 */
+    public static class Cache {
+        private String baseDir = System.getProperty("java.io.tmpdir") + "/agentx-github"; // 镜像与归档缓存根目录
+        private String remoteBaseUrl = "https://github.com/"; // 远程仓库地址前缀，可指向本地裸仓库目录
+        private int cloneDepth = 1; // 镜像克隆与增量拉取的深度，0表示完整历史
+        private int pushRetries = 3; // 推送被拒绝（远端已更新）时的重试次数
+        private int maxArchives = 100; // 源归档缓存的最大数量
+
+        public String getBaseDir() {
+            return baseDir;
+        }
+
+        public void setBaseDir(String baseDir) {
+            this.baseDir = baseDir;
+        }
+
+        public String getRemoteBaseUrl() {
+            return remoteBaseUrl;
+        }
+
+        public void setRemoteBaseUrl(String remoteBaseUrl) {
+            this.remoteBaseUrl = remoteBaseUrl;
+        }
+
+        public int getCloneDepth() {
+            return cloneDepth;
+        }
+
+        public void setCloneDepth(int cloneDepth) {
+            this.cloneDepth = cloneDepth;
+        }
+
+        public int getPushRetries() {
+            return pushRetries;
+        }
+
+        public void setPushRetries(int pushRetries) {
+            this.pushRetries = pushRetries;
+        }
+
+        public int getMaxArchives() {
+            return maxArchives;
+        }
+
+        public void setMaxArchives(int maxArchives) {
+            this.maxArchives = maxArchives;
+        }
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public void setCache(Cache cache) {
+        this.cache = cache;
+    }
+
     public Target getTarget() {
         return target;
     }
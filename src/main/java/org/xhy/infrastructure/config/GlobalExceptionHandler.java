@@ -17,6 +17,7 @@ import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.xhy.infrastructure.exception.BusinessException;
 import org.xhy.infrastructure.exception.EntityNotFoundException;
 import org.xhy.infrastructure.exception.ParamValidationException;
+import org.xhy.infrastructure.exception.RateLimitException;
 import org.xhy.interfaces.api.common.Result;
 
 import java.io.IOException;
@@ -37,6 +38,14 @@ public class GlobalExceptionHandler {
         return Result.error(400, e.getMessage());
     }
 
+    /** 处理限流异常 */
+    @ExceptionHandler(RateLimitException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public Result<Void> handleRateLimitException(RateLimitException e, HttpServletRequest request) {
+        logger.warn("限流: {}, URL: {}", e.getMessage(), request.getRequestURL());
+        return Result.error(429, e.getMessage());
+    }
+
     /** 处理参数校验异常 */
     @ExceptionHandler(ParamValidationException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
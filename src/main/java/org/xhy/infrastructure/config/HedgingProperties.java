@@ -0,0 +1,87 @@
+package org.xhy.infrastructure.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/** 流式调用对冲配置 主模型在自适应延迟内未返回首Token时，向降级链中的下一个模型发出对冲请求，先产出内容的一方胜出 */
+@Configuration
+@ConfigurationProperties(prefix = "agentx.llm.hedging")
+public class HedgingProperties {
+
+    /** 是否启用对冲，仅对配置了降级链的对话生效 */
+    private boolean enabled = true;
+
+    /** 对冲等待时间取主模型首Token延迟的该分位数 */
+    private double percentile = 0.95;
+
+    /** 样本不足时使用的对冲等待时间（毫秒） */
+    private long initialDelay = 3000;
+
+    /** 对冲等待时间下限（毫秒），避免健康时也频繁发出对冲请求 */
+    private long minDelay = 500;
+
+    /** 对冲等待时间上限（毫秒） */
+    private long maxDelay = 8000;
+
+    /** 每个模型保留的最近首Token延迟样本数 */
+    private int windowSize = 200;
+
+    /** 样本数达到该值后才按分位数计算等待时间 */
+    private int minSamples = 20;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    public void setPercentile(double percentile) {
+        this.percentile = percentile;
+    }
+
+    public long getInitialDelay() {
+        return initialDelay;
+    }
+
+    public void setInitialDelay(long initialDelay) {
+        this.initialDelay = initialDelay;
+    }
+
+    public long getMinDelay() {
+        return minDelay;
+    }
+
+    public void setMinDelay(long minDelay) {
+        this.minDelay = minDelay;
+    }
+
+    public long getMaxDelay() {
+        return maxDelay;
+    }
+
+    public void setMaxDelay(long maxDelay) {
+        this.maxDelay = maxDelay;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public void setWindowSize(int windowSize) {
+        this.windowSize = windowSize;
+    }
+
+    public int getMinSamples() {
+        return minSamples;
+    }
+
+    public void setMinSamples(int minSamples) {
+        this.minSamples = minSamples;
+    }
+}
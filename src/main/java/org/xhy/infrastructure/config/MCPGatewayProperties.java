@@ -12,6 +12,16 @@ public class MCPGatewayProperties {
     private String apiKey = "123456"; // API密钥
     private int connectTimeout = 60000; // 连接超时(毫秒)，默认30秒
     private int readTimeout = 60000; // 读取超时(毫秒)，默认60秒
+    private int connectionRequestTimeout = 5000; // 从连接池获取连接的超时(毫秒)
+    private int maxConnections = 100; // 连接池最大连接数
+    private int maxConnectionsPerRoute = 20; // 每个网关地址的最大连接数
+    private long keepAlive = 30000; // 服务端未声明时连接保持时间(毫秒)
+    private long idleEvictTimeout = 60000; // 空闲连接回收时间(毫秒)
+    private int maxRetries = 2; // 连接建立失败时的重试次数，请求已发出后不重试
+    private long retryBaseDelay = 200; // 重试初始退避(毫秒)，按次数指数增长并加入随机抖动
+    private int listToolsTimeout = 10000; // 获取工具列表的超时(毫秒)
+    private long toolsCacheTtl = 300000; // 工具列表缓存时间(毫秒)
+    private long toolsCacheMaxSize = 1000; // 工具列表缓存最大条目数
 
     public String getBaseUrl() {
         return baseUrl;
@@ -44,4 +54,84 @@ public class MCPGatewayProperties {
     public void setReadTimeout(int readTimeout) {
         this.readTimeout = readTimeout;
     }
-}
\ No newline at end of file
+
+    public int getConnectionRequestTimeout() {
+        return connectionRequestTimeout;
+    }
+
+    public void setConnectionRequestTimeout(int connectionRequestTimeout) {
+        this.connectionRequestTimeout = connectionRequestTimeout;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    }
+
+    public long getKeepAlive() {
+        return keepAlive;
+    }
+
+    public void setKeepAlive(long keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    public long getIdleEvictTimeout() {
+        return idleEvictTimeout;
+    }
+
+    public void setIdleEvictTimeout(long idleEvictTimeout) {
+        this.idleEvictTimeout = idleEvictTimeout;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public long getRetryBaseDelay() {
+        return retryBaseDelay;
+    }
+
+    public void setRetryBaseDelay(long retryBaseDelay) {
+        this.retryBaseDelay = retryBaseDelay;
+    }
+
+    public int getListToolsTimeout() {
+        return listToolsTimeout;
+    }
+
+    public void setListToolsTimeout(int listToolsTimeout) {
+        this.listToolsTimeout = listToolsTimeout;
+    }
+
+    public long getToolsCacheTtl() {
+        return toolsCacheTtl;
+    }
+
+    public void setToolsCacheTtl(long toolsCacheTtl) {
+        this.toolsCacheTtl = toolsCacheTtl;
+    }
+
+    public long getToolsCacheMaxSize() {
+        return toolsCacheMaxSize;
+    }
+
+    public void setToolsCacheMaxSize(long toolsCacheMaxSize) {
+        this.toolsCacheMaxSize = toolsCacheMaxSize;
+    }
+}
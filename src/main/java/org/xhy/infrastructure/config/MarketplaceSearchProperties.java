@@ -0,0 +1,76 @@
+package org.xhy.infrastructure.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/** 市场搜索配置 Agent与工具市场的相关度排序、热度权重、结果上限和短期结果缓存 */
+@Configuration
+@ConfigurationProperties(prefix = "agentx.marketplace-search")
+public class MarketplaceSearchProperties {
+
+    /** 热度权重，相关度乘以 1 + 权重 * ln(1 + 安装量)，0表示只按相关度排序 */
+    private double popularityWeight = 0.3;
+
+    /** 关键词搜索最多返回的Agent数 */
+    private int maxResults = 100;
+
+    /** 自动补全最多返回的名称数 */
+    private int suggestLimit = 10;
+
+    /** 关键词最大长度，超出部分截断 */
+    private int maxKeywordLength = 64;
+
+    /** 搜索结果缓存时间（毫秒），也是新上架内容出现在搜索结果中的最长延迟 */
+    private long cacheTtl = 30000;
+
+    /** 搜索结果缓存的最大条目数 */
+    private long cacheMaxSize = 2000;
+
+    public double getPopularityWeight() {
+        return popularityWeight;
+    }
+
+    public void setPopularityWeight(double popularityWeight) {
+        this.popularityWeight = popularityWeight;
+    }
+
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    public void setMaxResults(int maxResults) {
+        this.maxResults = maxResults;
+    }
+
+    public int getSuggestLimit() {
+        return suggestLimit;
+    }
+
+    public void setSuggestLimit(int suggestLimit) {
+        this.suggestLimit = suggestLimit;
+    }
+
+    public int getMaxKeywordLength() {
+        return maxKeywordLength;
+    }
+
+    public void setMaxKeywordLength(int maxKeywordLength) {
+        this.maxKeywordLength = maxKeywordLength;
+    }
+
+    public long getCacheTtl() {
+        return cacheTtl;
+    }
+
+    public void setCacheTtl(long cacheTtl) {
+        this.cacheTtl = cacheTtl;
+    }
+
+    public long getCacheMaxSize() {
+        return cacheMaxSize;
+    }
+
+    public void setCacheMaxSize(long cacheMaxSize) {
+        this.cacheMaxSize = cacheMaxSize;
+    }
+}
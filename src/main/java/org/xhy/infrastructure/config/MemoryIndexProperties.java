@@ -0,0 +1,55 @@
+package org.xhy.infrastructure.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/** 进程内记忆索引配置 每个用户的记忆向量按int8量化后缓存在本节点，检索时在内存中完成相似度与重要性加权排序；
+ * 记忆向量库仍是持久化数据源，本节点的写入与删除直接同步到索引，其他节点的变更依赖有效期收敛 */
+@Configuration
+@ConfigurationProperties(prefix = "agentx.memory-index")
+public class MemoryIndexProperties {
+
+    /** 是否启用进程内索引，关闭后每次检索都查询记忆向量库 */
+    private boolean enabled = true;
+
+    /** 索引加载后的最长缓存时间（毫秒），也是其他节点写入记忆后在本节点生效的最长延迟 */
+    private long ttl = 300000;
+
+    /** 最多缓存的用户数，超出时淘汰最久未使用的用户 */
+    private long maxUsers = 10000;
+
+    /** 单个用户的向量数超过该值时不建索引，回退到向量库检索 */
+    private int maxVectorsPerUser = 2000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(long ttl) {
+        this.ttl = ttl;
+    }
+
+    public long getMaxUsers() {
+        return maxUsers;
+    }
+
+    public void setMaxUsers(long maxUsers) {
+        this.maxUsers = maxUsers;
+    }
+
+    public int getMaxVectorsPerUser() {
+        return maxVectorsPerUser;
+    }
+
+    public void setMaxVectorsPerUser(int maxVectorsPerUser) {
+        this.maxVectorsPerUser = maxVectorsPerUser;
+    }
+}
@@ -2,22 +2,37 @@ package org.xhy.infrastructure.config;
 
 import com.baomidou.mybatisplus.annotation.DbType;
 import com.baomidou.mybatisplus.core.handlers.MetaObjectHandler;
+import com.baomidou.mybatisplus.core.injector.ISqlInjector;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
 import org.apache.ibatis.reflection.MetaObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.xhy.infrastructure.repository.BatchWriteSettings;
+import org.xhy.infrastructure.repository.injector.AgentXSqlInjector;
 
 import java.time.LocalDateTime;
 
-/** MyBatis-Plus配置类 用于配置MyBatis-Plus的自动填充、分页等功能 */
+/** MyBatis-Plus配置类 用于配置MyBatis-Plus的自动填充、分页、批量写入等功能 */
 @Configuration
 public class MybatisPlusConfig implements MetaObjectHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(MybatisPlusConfig.class);
 
+    public MybatisPlusConfig(@Value("${mybatis-plus.batch-size:" + BatchWriteSettings.DEFAULT_BATCH_SIZE
+            + "}") int batchSize) {
+        BatchWriteSettings.setBatchSize(batchSize);
+    }
+
+    /** 注入项目通用SQL方法（如 upsertById） */
+    @Bean
+    public ISqlInjector sqlInjector() {
+        return new AgentXSqlInjector();
+    }
+
     /** 添加分页插件 */
     @Bean
     public MybatisPlusInterceptor mybatisPlusInterceptor() {
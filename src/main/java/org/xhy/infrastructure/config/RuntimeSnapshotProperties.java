@@ -0,0 +1,55 @@
+package org.xhy.infrastructure.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/** Agent运行时快照配置 对话准备阶段所需的Agent、工作区、模型、工具等数据预解析后缓存，变更事件在本节点立即失效，
+ * 其他节点依赖有效期收敛 */
+@Configuration
+@ConfigurationProperties(prefix = "agentx.runtime-snapshot")
+public class RuntimeSnapshotProperties {
+
+    /** 是否启用快照缓存，关闭后每轮对话都直接查库 */
+    private boolean enabled = true;
+
+    /** 快照的最长缓存时间（毫秒），也是跨节点变更生效的最长延迟 */
+    private long ttl = 60000;
+
+    /** 用户级运行时快照的最大条目数 */
+    private long maxSize = 20000;
+
+    /** Agent定义（草稿与最新版本）缓存的最大条目数，被该Agent的所有用户共享 */
+    private long definitionMaxSize = 5000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(long ttl) {
+        this.ttl = ttl;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public long getDefinitionMaxSize() {
+        return definitionMaxSize;
+    }
+
+    public void setDefinitionMaxSize(long definitionMaxSize) {
+        this.definitionMaxSize = definitionMaxSize;
+    }
+}
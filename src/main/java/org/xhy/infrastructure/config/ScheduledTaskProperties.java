@@ -0,0 +1,122 @@
+package org.xhy.infrastructure.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.UUID;
+
+/** 定时任务调度配置 时间轮、到期索引扫描、执行租约与执行线程池参数 */
+@Configuration
+@ConfigurationProperties(prefix = "agentx.scheduled-task")
+public class ScheduledTaskProperties {
+
+    /** 当前节点标识，用于租约归属，默认随机生成 */
+    private String nodeId = "node-" + UUID.randomUUID().toString().substring(0, 8);
+
+    /** 时间轮刻度（毫秒） */
+    private long tickDuration = 1000;
+
+    /** 时间轮槽位数，必须为2的幂 */
+    private int wheelSize = 512;
+
+    /** 到期索引扫描间隔（毫秒） */
+    private long scanInterval = 30000;
+
+    /** 预加载窗口（毫秒），只有在该窗口内到期的任务才会进入时间轮 */
+    private long preloadWindow = 120000;
+
+    /** 单次扫描最多加载的任务数 */
+    private int scanBatchSize = 500;
+
+    /** 执行租约时长（毫秒），节点宕机后租约过期可由其他节点接管 */
+    private long leaseDuration = 300000;
+
+    /** 执行线程池核心线程数 */
+    private int executorCoreSize = 5;
+
+    /** 执行线程池最大线程数 */
+    private int executorMaxSize = 20;
+
+    /** 执行线程池队列容量 */
+    private int executorQueueCapacity = 1000;
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public long getTickDuration() {
+        return tickDuration;
+    }
+
+    public void setTickDuration(long tickDuration) {
+        this.tickDuration = tickDuration;
+    }
+
+    public int getWheelSize() {
+        return wheelSize;
+    }
+
+    public void setWheelSize(int wheelSize) {
+        this.wheelSize = wheelSize;
+    }
+
+    public long getScanInterval() {
+        return scanInterval;
+    }
+
+    public void setScanInterval(long scanInterval) {
+        this.scanInterval = scanInterval;
+    }
+
+    public long getPreloadWindow() {
+        return preloadWindow;
+    }
+
+    public void setPreloadWindow(long preloadWindow) {
+        this.preloadWindow = preloadWindow;
+    }
+
+    public int getScanBatchSize() {
+        return scanBatchSize;
+    }
+
+    public void setScanBatchSize(int scanBatchSize) {
+        this.scanBatchSize = scanBatchSize;
+    }
+
+    public long getLeaseDuration() {
+        return leaseDuration;
+    }
+
+    public void setLeaseDuration(long leaseDuration) {
+        this.leaseDuration = leaseDuration;
+    }
+
+    public int getExecutorCoreSize() {
+        return executorCoreSize;
+    }
+
+    public void setExecutorCoreSize(int executorCoreSize) {
+        this.executorCoreSize = executorCoreSize;
+    }
+
+    public int getExecutorMaxSize() {
+        return executorMaxSize;
+    }
+
+    public void setExecutorMaxSize(int executorMaxSize) {
+        this.executorMaxSize = executorMaxSize;
+    }
+
+    public int getExecutorQueueCapacity() {
+        return executorQueueCapacity;
+    }
+
+    public void setExecutorQueueCapacity(int executorQueueCapacity) {
+        this.executorQueueCapacity = executorQueueCapacity;
+    }
+}
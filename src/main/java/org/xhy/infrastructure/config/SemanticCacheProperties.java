@@ -0,0 +1,115 @@
+package org.xhy.infrastructure.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.xhy.infrastructure.rag.config.EmbeddingProperties;
+
+/** 语义响应缓存配置 开启缓存的Agent在无上下文的首问时按问题向量相似度复用已有回答 */
+@Configuration
+@ConfigurationProperties(prefix = "agentx.semantic-cache")
+public class SemanticCacheProperties {
+
+    /** 全局开关，关闭后所有Agent都不查也不写缓存 */
+    private boolean enabled = true;
+
+    /** 命中所需的最小余弦相似度 */
+    private double similarityThreshold = 0.95;
+
+    /** 缓存回答的有效期（毫秒） */
+    private long ttl = 86400000;
+
+    /** 问题超过该长度不缓存 */
+    private int maxQuestionLength = 500;
+
+    /** 回答超过该长度不缓存 */
+    private int maxAnswerLength = 8000;
+
+    /** 回放缓存回答时每个分片的字符数 */
+    private int replayChunkSize = 24;
+
+    /** 知识库版本摘要的本地缓存时间（毫秒），也是知识库变更后旧缓存最长的继续命中时间 */
+    private long scopeCacheTtl = 30000;
+
+    /** 每次清理过期条目的最大条数 */
+    private int cleanupBatchSize = 500;
+
+    /** 问题向量存储 */
+    private EmbeddingProperties.VectorStore vectorStore = new EmbeddingProperties.VectorStore();
+
+    public SemanticCacheProperties() {
+        vectorStore.setTable("public.semantic_cache_vector_store");
+        vectorStore.setCreateTable(true);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getSimilarityThreshold() {
+        return similarityThreshold;
+    }
+
+    public void setSimilarityThreshold(double similarityThreshold) {
+        this.similarityThreshold = similarityThreshold;
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(long ttl) {
+        this.ttl = ttl;
+    }
+
+    public int getMaxQuestionLength() {
+        return maxQuestionLength;
+    }
+
+    public void setMaxQuestionLength(int maxQuestionLength) {
+        this.maxQuestionLength = maxQuestionLength;
+    }
+
+    public int getMaxAnswerLength() {
+        return maxAnswerLength;
+    }
+
+    public void setMaxAnswerLength(int maxAnswerLength) {
+        this.maxAnswerLength = maxAnswerLength;
+    }
+
+    public int getReplayChunkSize() {
+        return replayChunkSize;
+    }
+
+    public void setReplayChunkSize(int replayChunkSize) {
+        this.replayChunkSize = replayChunkSize;
+    }
+
+    public long getScopeCacheTtl() {
+        return scopeCacheTtl;
+    }
+
+    public void setScopeCacheTtl(long scopeCacheTtl) {
+        this.scopeCacheTtl = scopeCacheTtl;
+    }
+
+    public int getCleanupBatchSize() {
+        return cleanupBatchSize;
+    }
+
+    public void setCleanupBatchSize(int cleanupBatchSize) {
+        this.cleanupBatchSize = cleanupBatchSize;
+    }
+
+    public EmbeddingProperties.VectorStore getVectorStore() {
+        return vectorStore;
+    }
+
+    public void setVectorStore(EmbeddingProperties.VectorStore vectorStore) {
+        this.vectorStore = vectorStore;
+    }
+}
@@ -0,0 +1,87 @@
+package org.xhy.infrastructure.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/** Web终端配置 会话上限、空闲超时与共享 I/O 线程参数 */
+@Configuration
+@ConfigurationProperties(prefix = "agentx.terminal")
+public class TerminalProperties {
+
+    /** 单个用户（容器所有者）同时打开的终端数上限 */
+    private int maxSessionsPerUser = 3;
+
+    /** 当前节点同时打开的终端数上限 */
+    private int maxSessionsPerNode = 200;
+
+    /** 空闲超时（毫秒），期间既无输入也无输出的会话会被关闭 */
+    private long idleTimeout = 1800000;
+
+    /** 输出转发与空闲检查共用的线程数 */
+    private int eventLoopThreads = 2;
+
+    /** 容器启动后等待其进入运行状态的最长时间（毫秒） */
+    private long containerStartTimeout = 10000;
+
+    /** 单个会话积压的待发送输出上限（字节），慢客户端超过后会被断开 */
+    private int sendBufferLimit = 512 * 1024;
+
+    /** 单次 WebSocket 发送的时间上限（毫秒） */
+    private int sendTimeLimit = 10000;
+
+    public int getMaxSessionsPerUser() {
+        return maxSessionsPerUser;
+    }
+
+    public void setMaxSessionsPerUser(int maxSessionsPerUser) {
+        this.maxSessionsPerUser = maxSessionsPerUser;
+    }
+
+    public int getMaxSessionsPerNode() {
+        return maxSessionsPerNode;
+    }
+
+    public void setMaxSessionsPerNode(int maxSessionsPerNode) {
+        this.maxSessionsPerNode = maxSessionsPerNode;
+    }
+
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public int getEventLoopThreads() {
+        return eventLoopThreads;
+    }
+
+    public void setEventLoopThreads(int eventLoopThreads) {
+        this.eventLoopThreads = eventLoopThreads;
+    }
+
+    public long getContainerStartTimeout() {
+        return containerStartTimeout;
+    }
+
+    public void setContainerStartTimeout(long containerStartTimeout) {
+        this.containerStartTimeout = containerStartTimeout;
+    }
+
+    public int getSendBufferLimit() {
+        return sendBufferLimit;
+    }
+
+    public void setSendBufferLimit(int sendBufferLimit) {
+        this.sendBufferLimit = sendBufferLimit;
+    }
+
+    public int getSendTimeLimit() {
+        return sendTimeLimit;
+    }
+
+    public void setSendTimeLimit(int sendTimeLimit) {
+        this.sendTimeLimit = sendTimeLimit;
+    }
+}
@@ -0,0 +1,132 @@
+package org.xhy.infrastructure.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/** 工具发布工作流配置 步骤轮询、租约、重试退避、超时与各阶段并发上限 */
+@Configuration
+@ConfigurationProperties(prefix = "agentx.tool-workflow")
+public class ToolWorkflowProperties {
+
+    /** 当前节点标识，租约令牌的前缀 */
+    private String nodeId = "node-" + UUID.randomUUID().toString().substring(0, 8);
+
+    /** 待执行步骤的轮询间隔（毫秒） */
+    private long pollInterval = 2000;
+
+    /** 单个步骤最多尝试次数，超过后工具进入 FAILED */
+    private int maxAttempts = 3;
+
+    /** 重试的初始退避（毫秒），之后按尝试次数指数增长 */
+    private long baseBackoff = 5000;
+
+    /** 重试退避上限（毫秒） */
+    private long maxBackoff = 300000;
+
+    /** 步骤默认超时（毫秒） */
+    private long defaultStepTimeout = 300000;
+
+    /** 租约在步骤超时之外额外保留的时间（毫秒），避免超时处理前被其他节点抢走 */
+    private long leaseMargin = 60000;
+
+    /** 每个阶段默认的并发上限 */
+    private int defaultConcurrency = 4;
+
+    /** 按阶段（ToolStatus 名称）覆盖的超时（毫秒） */
+    private Map<String, Long> stepTimeouts = new HashMap<>();
+
+    /** 按阶段（ToolStatus 名称）覆盖的并发上限 */
+    private Map<String, Integer> stageConcurrency = new HashMap<>();
+
+    public long getStepTimeout(String stage) {
+        return stepTimeouts.getOrDefault(stage, defaultStepTimeout);
+    }
+
+    public int getConcurrency(String stage) {
+        return Math.max(1, stageConcurrency.getOrDefault(stage, defaultConcurrency));
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public long getPollInterval() {
+        return pollInterval;
+    }
+
+    public void setPollInterval(long pollInterval) {
+        this.pollInterval = pollInterval;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public long getBaseBackoff() {
+        return baseBackoff;
+    }
+
+    public void setBaseBackoff(long baseBackoff) {
+        this.baseBackoff = baseBackoff;
+    }
+
+    public long getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    public void setMaxBackoff(long maxBackoff) {
+        this.maxBackoff = maxBackoff;
+    }
+
+    public long getDefaultStepTimeout() {
+        return defaultStepTimeout;
+    }
+
+    public void setDefaultStepTimeout(long defaultStepTimeout) {
+        this.defaultStepTimeout = defaultStepTimeout;
+    }
+
+    public long getLeaseMargin() {
+        return leaseMargin;
+    }
+
+    public void setLeaseMargin(long leaseMargin) {
+        this.leaseMargin = leaseMargin;
+    }
+
+    public int getDefaultConcurrency() {
+        return defaultConcurrency;
+    }
+
+    public void setDefaultConcurrency(int defaultConcurrency) {
+        this.defaultConcurrency = defaultConcurrency;
+    }
+
+    public Map<String, Long> getStepTimeouts() {
+        return stepTimeouts;
+    }
+
+    public void setStepTimeouts(Map<String, Long> stepTimeouts) {
+        this.stepTimeouts = stepTimeouts;
+    }
+
+    public Map<String, Integer> getStageConcurrency() {
+        return stageConcurrency;
+    }
+
+    public void setStageConcurrency(Map<String, Integer> stageConcurrency) {
+        this.stageConcurrency = stageConcurrency;
+    }
+}
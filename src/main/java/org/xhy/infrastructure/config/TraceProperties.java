@@ -0,0 +1,97 @@
+package org.xhy.infrastructure.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/** 执行链路追踪写入配置 追踪明细先进入有界缓冲区，由后台线程批量落库；执行统计按天汇总并定时对账 */
+@Configuration
+@ConfigurationProperties(prefix = "agentx.trace")
+public class TraceProperties {
+
+    /** 待写入明细的缓冲区容量 */
+    private int bufferCapacity = 10000;
+
+    /** 单次批量插入的最大明细数 */
+    private int batchSize = 200;
+
+    /** 缓冲区未攒满时的最长刷写间隔（毫秒） */
+    private long flushInterval = 500;
+
+    /** 缓冲区已满时的处理策略 */
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_NEWEST;
+
+    /** 应用关闭时等待剩余数据落库的最长时间（毫秒） */
+    private long shutdownTimeout = 5000;
+
+    /** 每日对账时重算最近多少天的统计日汇总 */
+    private int rollupReconcileDays = 2;
+
+    /** 启动时统计日汇总表为空则回填历史数据 */
+    private boolean rollupBackfillOnStartup = true;
+
+    public int getBufferCapacity() {
+        return bufferCapacity;
+    }
+
+    public void setBufferCapacity(int bufferCapacity) {
+        this.bufferCapacity = bufferCapacity;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getFlushInterval() {
+        return flushInterval;
+    }
+
+    public void setFlushInterval(long flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public long getShutdownTimeout() {
+        return shutdownTimeout;
+    }
+
+    public void setShutdownTimeout(long shutdownTimeout) {
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    public int getRollupReconcileDays() {
+        return rollupReconcileDays;
+    }
+
+    public void setRollupReconcileDays(int rollupReconcileDays) {
+        this.rollupReconcileDays = rollupReconcileDays;
+    }
+
+    public boolean isRollupBackfillOnStartup() {
+        return rollupBackfillOnStartup;
+    }
+
+    public void setRollupBackfillOnStartup(boolean rollupBackfillOnStartup) {
+        this.rollupBackfillOnStartup = rollupBackfillOnStartup;
+    }
+
+    /** 缓冲区溢出策略 */
+    public enum OverflowPolicy {
+        /** 丢弃新到的明细 */
+        DROP_NEWEST,
+        /** 丢弃缓冲区中最早的明细，为新明细腾出位置 */
+        DROP_OLDEST,
+        /** 由调用线程直接写库，不丢数据但会拖慢对话链路，仅用于排查问题 */
+        CALLER_RUNS
+    }
+}
@@ -0,0 +1,65 @@
+package org.xhy.infrastructure.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/** 公开小组件配置 快照缓存的有效期、容量与信息接口的HTTP缓存策略 */
+@Configuration
+@ConfigurationProperties(prefix = "agentx.widget")
+public class WidgetProperties {
+
+    /** 小组件快照的最长缓存时间（毫秒），也是跨节点变更生效的最长延迟 */
+    private long snapshotTtl = 60000;
+
+    /** 快照缓存的最大条目数 */
+    private long snapshotMaxSize = 10000;
+
+    /** 不存在或已禁用的公开ID的否定缓存时间（毫秒） */
+    private long negativeTtl = 10000;
+
+    /** 否定缓存的最大条目数 */
+    private long negativeMaxSize = 10000;
+
+    /** 信息接口响应允许浏览器和边缘节点缓存的时间（秒），0表示每次都需携带ETag重新验证 */
+    private long infoMaxAge = 30;
+
+    public long getSnapshotTtl() {
+        return snapshotTtl;
+    }
+
+    public void setSnapshotTtl(long snapshotTtl) {
+        this.snapshotTtl = snapshotTtl;
+    }
+
+    public long getSnapshotMaxSize() {
+        return snapshotMaxSize;
+    }
+
+    public void setSnapshotMaxSize(long snapshotMaxSize) {
+        this.snapshotMaxSize = snapshotMaxSize;
+    }
+
+    public long getNegativeTtl() {
+        return negativeTtl;
+    }
+
+    public void setNegativeTtl(long negativeTtl) {
+        this.negativeTtl = negativeTtl;
+    }
+
+    public long getNegativeMaxSize() {
+        return negativeMaxSize;
+    }
+
+    public void setNegativeMaxSize(long negativeMaxSize) {
+        this.negativeMaxSize = negativeMaxSize;
+    }
+
+    public long getInfoMaxAge() {
+        return infoMaxAge;
+    }
+
+    public void setInfoMaxAge(long infoMaxAge) {
+        this.infoMaxAge = infoMaxAge;
+    }
+}
@@ -0,0 +1,267 @@
+package org.xhy.infrastructure.docker;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.model.Event;
+import com.github.dockerjava.api.model.EventType;
+import com.github.dockerjava.api.model.Statistics;
+import com.github.dockerjava.core.DefaultDockerClientConfig;
+import com.github.dockerjava.core.DockerClientImpl;
+import com.github.dockerjava.httpclient5.ApacheDockerHttpClient;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.xhy.infrastructure.config.ContainerConfig;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/** 容器指标采集器
+ * <ul>
+ * <li>每个运行中的容器保持一个长连接的流式 stats 订阅，只在内存中保留最新一次采样，由调用方定期批量落库</li>
+ * <li>订阅 Docker 事件流感知容器启动、退出与删除，取代逐个 inspect 的轮询</li>
+ * <li>流式连接使用独立的 Docker 客户端与连接池，不占用 {@link DockerService} 的请求连接</li>
+ * </ul> */
+@Component
+public class ContainerMetricsCollector {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContainerMetricsCollector.class);
+
+    /** 事件流断开后的重连间隔（秒） */
+    private static final long EVENT_RECONNECT_DELAY_SECONDS = 5;
+
+    private final ContainerConfig containerConfig;
+
+    /** Docker容器ID -> stats 订阅 */
+    private final Map<String, Closeable> statsSubscriptions = new ConcurrentHashMap<>();
+
+    /** Docker容器ID -> 最近一次未落库的采样 */
+    private final Map<String, DockerService.ContainerStats> latestStats = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService reconnectScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "container-event-reconnect");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile DockerClient streamingClient;
+
+    private volatile Closeable eventSubscription;
+
+    private volatile boolean running = false;
+
+    public ContainerMetricsCollector(ContainerConfig containerConfig) {
+        this.containerConfig = containerConfig;
+    }
+
+    /** 启动 Docker 事件订阅，事件流异常断开后自动重连
+     * @param eventHandler 事件回调，参数为 Docker容器ID 与事件动作（start、die、stop、destroy 等） */
+    public synchronized void start(BiConsumer<String, String> eventHandler) {
+        if (running) {
+            return;
+        }
+        running = true;
+        subscribeEvents(eventHandler);
+        logger.info("容器指标采集器已启动，最大流式订阅数: {}", containerConfig.getMaxStatsStreams());
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        reconnectScheduler.shutdownNow();
+        closeQuietly(eventSubscription);
+        eventSubscription = null;
+        statsSubscriptions.values().forEach(this::closeQuietly);
+        statsSubscriptions.clear();
+        latestStats.clear();
+        if (streamingClient != null) {
+            closeQuietly(streamingClient);
+            streamingClient = null;
+        }
+        logger.info("容器指标采集器已关闭");
+    }
+
+    /** 为运行中的容器建立 stats 流式订阅，已订阅时忽略
+     * @param dockerContainerId Docker容器ID */
+    public void track(String dockerContainerId) {
+        if (!running || dockerContainerId == null || statsSubscriptions.containsKey(dockerContainerId)) {
+            return;
+        }
+        if (statsSubscriptions.size() >= containerConfig.getMaxStatsStreams()) {
+            logger.warn("流式订阅数已达上限，忽略容器: dockerId={}, limit={}", dockerContainerId,
+                    containerConfig.getMaxStatsStreams());
+            return;
+        }
+
+        StatsCallback callback = new StatsCallback(dockerContainerId);
+        if (statsSubscriptions.putIfAbsent(dockerContainerId, callback) != null) {
+            return;
+        }
+        try {
+            getStreamingClient().statsCmd(dockerContainerId).exec(callback);
+            logger.debug("已建立容器 stats 订阅: dockerId={}", dockerContainerId);
+        } catch (Exception e) {
+            statsSubscriptions.remove(dockerContainerId, callback);
+            logger.warn("建立容器 stats 订阅失败: dockerId={}, error={}", dockerContainerId, e.getMessage());
+        }
+    }
+
+    /** 关闭容器的 stats 订阅并丢弃未落库的采样
+     * @param dockerContainerId Docker容器ID */
+    public void untrack(String dockerContainerId) {
+        if (dockerContainerId == null) {
+            return;
+        }
+        Closeable subscription = statsSubscriptions.remove(dockerContainerId);
+        latestStats.remove(dockerContainerId);
+        if (subscription != null) {
+            closeQuietly(subscription);
+            logger.debug("已关闭容器 stats 订阅: dockerId={}", dockerContainerId);
+        }
+    }
+
+    /** 获取当前已订阅的容器
+     * @return Docker容器ID集合 */
+    public Set<String> getTrackedContainers() {
+        return Set.copyOf(statsSubscriptions.keySet());
+    }
+
+    /** 取出自上次调用以来每个容器的最新采样，取出后清空，未变化的容器不会重复落库
+     * @return Docker容器ID -> 采样 */
+    public Map<String, DockerService.ContainerStats> drainLatestStats() {
+        Map<String, DockerService.ContainerStats> drained = new HashMap<>();
+        for (String dockerContainerId : latestStats.keySet()) {
+            DockerService.ContainerStats stats = latestStats.remove(dockerContainerId);
+            if (stats != null) {
+                drained.put(dockerContainerId, stats);
+            }
+        }
+        return drained;
+    }
+
+    private void subscribeEvents(BiConsumer<String, String> eventHandler) {
+        if (!running) {
+            return;
+        }
+        ResultCallback.Adapter<Event> callback = new ResultCallback.Adapter<>() {
+            @Override
+            public void onNext(Event event) {
+                if (event == null || event.getId() == null || event.getAction() == null) {
+                    return;
+                }
+                try {
+                    eventHandler.accept(event.getId(), event.getAction());
+                } catch (Exception e) {
+                    logger.error("处理容器事件失败: dockerId={}, action={}", event.getId(), event.getAction(), e);
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                logger.warn("Docker 事件流异常断开，{} 秒后重连: {}", EVENT_RECONNECT_DELAY_SECONDS, throwable.getMessage());
+                scheduleReconnect(eventHandler);
+            }
+
+            @Override
+            public void onComplete() {
+                logger.info("Docker 事件流已结束，{} 秒后重连", EVENT_RECONNECT_DELAY_SECONDS);
+                scheduleReconnect(eventHandler);
+            }
+        };
+
+        try {
+            eventSubscription = getStreamingClient().eventsCmd().withEventTypeFilter(EventType.CONTAINER)
+                    .withEventFilter("start", "die", "stop", "kill", "destroy", "oom").exec(callback);
+        } catch (Exception e) {
+            logger.warn("订阅 Docker 事件流失败，{} 秒后重试: {}", EVENT_RECONNECT_DELAY_SECONDS, e.getMessage());
+            scheduleReconnect(eventHandler);
+        }
+    }
+
+    private void scheduleReconnect(BiConsumer<String, String> eventHandler) {
+        if (!running || reconnectScheduler.isShutdown()) {
+            return;
+        }
+        reconnectScheduler.schedule(() -> subscribeEvents(eventHandler), EVENT_RECONNECT_DELAY_SECONDS,
+                TimeUnit.SECONDS);
+    }
+
+    /** 流式连接独占 HTTP 连接，按订阅上限创建独立的客户端 */
+    private DockerClient getStreamingClient() {
+        DockerClient client = streamingClient;
+        if (client == null) {
+            synchronized (this) {
+                client = streamingClient;
+                if (client == null) {
+                    DefaultDockerClientConfig config = DefaultDockerClientConfig.createDefaultConfigBuilder()
+                            .withDockerHost(containerConfig.getDockerHost()).build();
+                    // 流式响应没有结束时间，不设置响应超时
+                    ApacheDockerHttpClient httpClient = new ApacheDockerHttpClient.Builder()
+                            .dockerHost(config.getDockerHost()).sslConfig(config.getSSLConfig())
+                            .maxConnections(containerConfig.getMaxStatsStreams() + 2)
+                            .connectionTimeout(Duration.ofSeconds(30)).build();
+                    client = DockerClientImpl.getInstance(config, httpClient);
+                    streamingClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    private void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            logger.debug("关闭订阅失败: {}", e.getMessage());
+        }
+    }
+
+    /** 单个容器的 stats 流回调，每次采样覆盖上一条 */
+    private class StatsCallback extends ResultCallback.Adapter<Statistics> {
+
+        private final String dockerContainerId;
+
+        private StatsCallback(String dockerContainerId) {
+            this.dockerContainerId = dockerContainerId;
+        }
+
+        @Override
+        public void onNext(Statistics stats) {
+            if (stats == null || statsSubscriptions.get(dockerContainerId) != this) {
+                return;
+            }
+            DockerService.ContainerStats containerStats = new DockerService.ContainerStats();
+            containerStats.setContainerId(dockerContainerId);
+            if (stats.getCpuStats() != null && stats.getPreCpuStats() != null) {
+                containerStats.setCpuUsage(DockerService.calculateCpuUsage(stats));
+            }
+            if (stats.getMemoryStats() != null) {
+                containerStats.setMemoryUsage(DockerService.calculateMemoryUsage(stats));
+            }
+            latestStats.put(dockerContainerId, containerStats);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            logger.debug("容器 stats 订阅异常结束: dockerId={}, error={}", dockerContainerId, throwable.getMessage());
+            statsSubscriptions.remove(dockerContainerId, this);
+        }
+
+        @Override
+        public void onComplete() {
+            statsSubscriptions.remove(dockerContainerId, this);
+        }
+    }
+}
@@ -418,11 +418,15 @@ public class DockerService {
     }
 
     /** 计算CPU使用率 */
-    private double calculateCpuUsage(Statistics stats) {
+    static double calculateCpuUsage(Statistics stats) {
         CpuStatsConfig cpuStats = stats.getCpuStats();
         CpuStatsConfig preCpuStats = stats.getPreCpuStats();
 
-        if (cpuStats == null || preCpuStats == null) {
+        // 流式订阅的第一条采样没有上一周期数据
+        if (cpuStats == null || preCpuStats == null || cpuStats.getCpuUsage() == null
+                || preCpuStats.getCpuUsage() == null || cpuStats.getCpuUsage().getTotalUsage() == null
+                || preCpuStats.getCpuUsage().getTotalUsage() == null || cpuStats.getSystemCpuUsage() == null
+                || preCpuStats.getSystemCpuUsage() == null || cpuStats.getOnlineCpus() == null) {
             return 0.0;
         }
 
@@ -437,7 +441,7 @@ public class DockerService {
     }
 
     /** 计算内存使用率 */
-    private double calculateMemoryUsage(Statistics stats) {
+    static double calculateMemoryUsage(Statistics stats) {
         MemoryStatsConfig memoryStats = stats.getMemoryStats();
         if (memoryStats == null || memoryStats.getLimit() == null || memoryStats.getUsage() == null) {
             return 0.0;
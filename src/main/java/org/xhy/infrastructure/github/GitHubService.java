@@ -2,8 +2,6 @@ package org.xhy.infrastructure.github;
 
 import jakarta.annotation.PostConstruct;
 import org.apache.commons.io.FileUtils;
-import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.api.PushCommand;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
 import org.kohsuke.github.*;
@@ -19,19 +17,36 @@ import java.io.IOException;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 /** 与 GitHub API 交互的服务。 负责从源GitHub仓库下载内容，验证仓库信息，以及将内容推送到目标GitHub仓库。 */
 @Service
 public class GitHubService {
     private static final Logger logger = LoggerFactory.getLogger(GitHubService.class);
 
+    /** 40位十六进制的commit SHA */
+    private static final Pattern COMMIT_SHA = Pattern.compile("^[0-9a-fA-F]{40}$");
+
     private final GitHubProperties gitHubProperties;
+    private final GitRepositoryMirror repositoryMirror;
     private final GitHub github;
 
-    public GitHubService(GitHubProperties gitHubProperties) throws IOException {
+    /** 归档下载的分段锁，同一提交并发请求只下载一次 */
+    private final Object[] archiveLocks = new Object[64];
+
+    public GitHubService(GitHubProperties gitHubProperties, GitRepositoryMirror repositoryMirror) throws IOException {
         this.gitHubProperties = gitHubProperties;
+        this.repositoryMirror = repositoryMirror;
+        for (int i = 0; i < archiveLocks.length; i++) {
+            archiveLocks[i] = new Object();
+        }
         // 配置超时时间和连接设置
         GitHubBuilder builder = new GitHubBuilder();
 
@@ -245,24 +260,98 @@ public class GitHubService {
         return basicInfo;
     }
 
-    /** 下载指定GitHub仓库特定ref的内容为ZIP归档文件。
+    /** 下载指定GitHub仓库特定ref的内容为ZIP归档文件。 归档按commit SHA缓存，同一提交只下载一次；
+     * 返回的文件是缓存的副本（无法解析提交时为新下载的临时文件），归调用方所有，使用后由调用方删除。
      *
      * @param repoInfo 包含仓库所有者、名称和ref的GitHubRepoInfo对象
-     * @return 下载的ZIP文件的本地临时路径
+     * @return 归档文件的本地路径
      * @throws IOException 如果下载或文件操作失败 */
     public Path downloadRepositoryArchive(GitHubRepoInfo repoInfo) throws IOException {
-        logger.info("开始下载仓库归档: {}/{}, ref: {}", repoInfo.getOwner(), repoInfo.getRepoName(), repoInfo.getRef());
-
-        String archiveUrlString = String.format("https://github.com/%s/%s/zipball/%s", repoInfo.getOwner(),
-                repoInfo.getRepoName(), repoInfo.getRef());
-        URL archiveUrl = new URL(archiveUrlString);
-
         Path tempZipFile = Files.createTempFile(
                 "source-repo-" + repoInfo.getRepoName() + "-" + UUID.randomUUID().toString().substring(0, 8), ".zip");
-        FileUtils.copyURLToFile(archiveUrl, tempZipFile.toFile(), 30000, 60000);
+        try {
+            String commitSha = resolveCommitSha(repoInfo);
+            if (commitSha == null) {
+                // 无法确定提交时不缓存，分支可能随时前进
+                downloadArchive(repoInfo.getOwner(), repoInfo.getRepoName(), repoInfo.getRef(), tempZipFile);
+                return tempZipFile;
+            }
 
-        logger.info("源仓库归档已下载到: {}", tempZipFile);
-        return tempZipFile;
+            Path archiveDir = Paths.get(gitHubProperties.getCache().getBaseDir(), "archives");
+            Path cachedArchive = archiveDir.resolve(
+                    repoInfo.getOwner() + "_" + repoInfo.getRepoName() + "_" + commitSha.toLowerCase() + ".zip");
+            boolean downloaded = false;
+            synchronized (archiveLock(cachedArchive)) {
+                if (Files.exists(cachedArchive)) {
+                    logger.info("命中源仓库归档缓存: {}/{}@{}", repoInfo.getOwner(), repoInfo.getRepoName(), commitSha);
+                    Files.setLastModifiedTime(cachedArchive, FileTime.fromMillis(System.currentTimeMillis()));
+                } else {
+                    Files.createDirectories(archiveDir);
+                    Path partial = archiveDir.resolve(cachedArchive.getFileName() + "." + UUID.randomUUID() + ".part");
+                    try {
+                        downloadArchive(repoInfo.getOwner(), repoInfo.getRepoName(), commitSha, partial);
+                        Files.move(partial, cachedArchive, StandardCopyOption.ATOMIC_MOVE);
+                    } finally {
+                        Files.deleteIfExists(partial);
+                    }
+                    downloaded = true;
+                }
+                // 在锁内复制，淘汰同样需要持有该归档的锁，复制期间不会被删除
+                Files.copy(cachedArchive, tempZipFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (downloaded) {
+                // 释放当前归档的锁后再淘汰，避免与其他下载线程交叉持锁
+                evictArchives(archiveDir);
+            }
+            return tempZipFile;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempZipFile);
+            throw e;
+        }
+    }
+
+    private Object archiveLock(Path archive) {
+        return archiveLocks[Math.floorMod(archive.hashCode(), archiveLocks.length)];
+    }
+
+    private void downloadArchive(String owner, String repoName, String ref, Path destination) throws IOException {
+        logger.info("开始下载仓库归档: {}/{}, ref: {}", owner, repoName, ref);
+        String archiveUrlString = String.format("https://github.com/%s/%s/zipball/%s", owner, repoName, ref);
+        FileUtils.copyURLToFile(new URL(archiveUrlString), destination.toFile(), 30000, 60000);
+        logger.info("源仓库归档已下载到: {}", destination);
+    }
+
+    /** 把ref解析为commit SHA，无法解析时返回null */
+    private String resolveCommitSha(GitHubRepoInfo repoInfo) {
+        String ref = repoInfo.getRef();
+        if (ref != null && COMMIT_SHA.matcher(ref).matches()) {
+            return ref;
+        }
+        try {
+            GHRepository repository = github.getRepository(repoInfo.getFullName());
+            String target = ref == null || ref.isBlank() ? repository.getDefaultBranch() : ref;
+            return repository.getCommit(target).getSHA1();
+        } catch (IOException e) {
+            logger.warn("无法解析 {} 的ref {} 对应的提交，跳过归档缓存: {}", repoInfo.getFullName(), ref, e.getMessage());
+            return null;
+        }
+    }
+
+    /** 超出数量上限时按最近使用时间淘汰归档 */
+    private void evictArchives(Path archiveDir) {
+        int maxArchives = gitHubProperties.getCache().getMaxArchives();
+        try (Stream<Path> files = Files.list(archiveDir)) {
+            List<Path> archives = files.filter(path -> path.getFileName().toString().endsWith(".zip"))
+                    .sorted(Comparator.comparingLong(path -> path.toFile().lastModified())).toList();
+            for (int i = 0; i < archives.size() - maxArchives; i++) {
+                Path archive = archives.get(i);
+                synchronized (archiveLock(archive)) {
+                    Files.deleteIfExists(archive);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("清理源仓库归档缓存失败: {}", e.getMessage());
+        }
     }
 
     /** 将指定目录的内容提交并推送到目标GitHub仓库的指定路径下。
@@ -275,74 +364,14 @@ public class GitHubService {
      * @throws BusinessException 如果目标仓库配置不完整 */
     public void commitAndPushToTargetRepo(Path sourceDirectoryPath, String targetPathInRepo, String commitMessage)
             throws IOException, GitAPIException {
-
-        String targetUsername = gitHubProperties.getTarget().getUsername();
-        String targetToken = gitHubProperties.getTarget().getToken();
         String targetRepoName = gitHubProperties.getTarget().getRepoName();
-
-        if (targetUsername == null || targetUsername.trim().isEmpty()) {
-            throw new BusinessException("目标GitHub仓库的用户名未配置 (github.target.username)");
-        }
-        if (targetToken == null || targetToken.trim().isEmpty()) {
-            throw new BusinessException("目标GitHub仓库的Token未配置或为空 (github.target.token)");
-        }
         if (targetRepoName == null || targetRepoName.trim().isEmpty()) {
             throw new BusinessException("目标GitHub仓库的名称未配置 (github.target.repo-name)");
         }
-
-        String targetRepoFullName = targetUsername + "/" + targetRepoName;
-        String targetRemoteUrl = "https://github.com/" + targetRepoFullName + ".git";
-        logger.info("准备提交到目标仓库: {}，目标路径: {}，操作用户: {}", targetRemoteUrl, targetPathInRepo, targetUsername);
-
-        Path tempCloneDir = Files
-                .createTempDirectory("target-repo-clone-" + UUID.randomUUID().toString().substring(0, 8));
-        Git git = null;
-
-        try {
-            logger.info("克隆目标仓库 {} 到临时目录 {}", targetRemoteUrl, tempCloneDir);
-            git = Git.cloneRepository().setURI(targetRemoteUrl).setDirectory(tempCloneDir.toFile())
-                    .setCredentialsProvider(new UsernamePasswordCredentialsProvider(targetUsername, targetToken))
-                    .call();
-
-            Path fullTargetPathInClone = tempCloneDir.resolve(targetPathInRepo);
-            if (Files.exists(fullTargetPathInClone)) {
-                logger.info("目标路径 {} 在克隆仓库中已存在，将被清理。", fullTargetPathInClone);
-                FileUtils.deleteDirectory(fullTargetPathInClone.toFile());
-            }
-            Files.createDirectories(fullTargetPathInClone);
-
-            logger.info("复制文件从源路径 {} 到克隆仓库的目标路径 {}", sourceDirectoryPath, fullTargetPathInClone);
-            FileUtils.copyDirectory(sourceDirectoryPath.toFile(), fullTargetPathInClone.toFile());
-
-            logger.info("执行 git add {} (相对于仓库根)", targetPathInRepo);
-            git.add().addFilepattern(targetPathInRepo).call();
-
-            logger.info("执行 git commit -m \"{}\"", commitMessage);
-            git.commit().setMessage(commitMessage).call();
-
-            logger.info("执行 git push 到远程仓库 {}", targetRemoteUrl);
-            PushCommand pushCommand = git.push();
-            pushCommand.setCredentialsProvider(new UsernamePasswordCredentialsProvider(targetUsername, targetToken));
-            pushCommand.call();
-
-            logger.info("成功提交并推送到目标GitHub仓库: {}", targetRepoFullName);
-
-        } finally {
-            if (git != null) {
-                git.close();
-            }
-            if (Files.exists(tempCloneDir)) {
-                try {
-                    FileUtils.deleteDirectory(tempCloneDir.toFile());
-                    logger.info("临时克隆目录 {} 已成功清理。", tempCloneDir);
-                } catch (IOException e) {
-                    logger.error("清理临时克隆目录 {} 失败: {}", tempCloneDir, e.getMessage());
-                }
-            }
-        }
+        commitAndPushToTargetRepo(sourceDirectoryPath, targetRepoName, targetPathInRepo, commitMessage);
     }
 
-    /** 提供给其他服务使用的重载方法，支持指定目标仓库名
+    /** 提供给其他服务使用的重载方法，支持指定目标仓库名。 提交在目标仓库的本地镜像中完成，只增量拉取远端更新
      *
      * @param sourceDirectoryPath 本地源文件目录的Path对象
      * @param targetRepoName 目标仓库的名称 (不包含所有者/用户名)
@@ -369,54 +398,10 @@ public class GitHubService {
         }
 
         String targetRepoFullName = targetUsername + "/" + targetRepoName;
-        String targetRemoteUrl = "https://github.com/" + targetRepoFullName + ".git";
-        logger.info("准备提交到目标仓库: {}，目标路径: {}，操作用户: {}", targetRemoteUrl, targetPathInRepo, targetUsername);
-
-        Path tempCloneDir = Files
-                .createTempDirectory("target-repo-clone-" + UUID.randomUUID().toString().substring(0, 8));
-        Git git = null;
-
-        try {
-            logger.info("克隆目标仓库 {} 到临时目录 {}", targetRemoteUrl, tempCloneDir);
-            git = Git.cloneRepository().setURI(targetRemoteUrl).setDirectory(tempCloneDir.toFile())
-                    .setCredentialsProvider(new UsernamePasswordCredentialsProvider(targetUsername, targetToken))
-                    .call();
-
-            Path fullTargetPathInClone = tempCloneDir.resolve(targetPathInRepo);
-            if (Files.exists(fullTargetPathInClone)) {
-                logger.info("目标路径 {} 在克隆仓库中已存在，将被清理。", fullTargetPathInClone);
-                FileUtils.deleteDirectory(fullTargetPathInClone.toFile());
-            }
-            Files.createDirectories(fullTargetPathInClone);
-
-            logger.info("复制文件从源路径 {} 到克隆仓库的目标路径 {}", sourceDirectoryPath, fullTargetPathInClone);
-            FileUtils.copyDirectory(sourceDirectoryPath.toFile(), fullTargetPathInClone.toFile());
-
-            logger.info("执行 git add {} (相对于仓库根)", targetPathInRepo);
-            git.add().addFilepattern(targetPathInRepo).call();
+        logger.info("准备提交到目标仓库: {}，目标路径: {}，操作用户: {}", targetRepoFullName, targetPathInRepo, targetUsername);
 
-            logger.info("执行 git commit -m \"{}\"", commitMessage);
-            git.commit().setMessage(commitMessage).call();
-
-            logger.info("执行 git push 到远程仓库 {}", targetRemoteUrl);
-            PushCommand pushCommand = git.push();
-            pushCommand.setCredentialsProvider(new UsernamePasswordCredentialsProvider(targetUsername, targetToken));
-            pushCommand.call();
-
-            logger.info("成功提交并推送到目标GitHub仓库: {}", targetRepoFullName);
-
-        } finally {
-            if (git != null) {
-                git.close();
-            }
-            if (Files.exists(tempCloneDir)) {
-                try {
-                    FileUtils.deleteDirectory(tempCloneDir.toFile());
-                    logger.info("临时克隆目录 {} 已成功清理。", tempCloneDir);
-                } catch (IOException e) {
-                    logger.error("清理临时克隆目录 {} 失败: {}", tempCloneDir, e.getMessage());
-                }
-            }
-        }
+        repositoryMirror.commitAndPush(targetRepoFullName,
+                new UsernamePasswordCredentialsProvider(targetUsername, targetToken), sourceDirectoryPath,
+                targetPathInRepo, commitMessage);
     }
 }
\ No newline at end of file
@@ -0,0 +1,160 @@
+package org.xhy.infrastructure.github;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ResetCommand;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.transport.PushResult;
+import org.eclipse.jgit.transport.RemoteRefUpdate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.xhy.infrastructure.config.GitHubProperties;
+import org.xhy.infrastructure.exception.BusinessException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/** 目标仓库的本地镜像 每个远程仓库在本地保留一个浅克隆的工作区，发布时只做增量拉取并重置到远端最新提交，再在工作区中提交推送。
+ * 同一仓库的发布由仓库级锁串行化，推送因远端已更新被拒绝时重新拉取后重试。 */
+@Component
+public class GitRepositoryMirror {
+
+    private static final Logger logger = LoggerFactory.getLogger(GitRepositoryMirror.class);
+
+    private static final String REMOTE = "origin";
+
+    private final GitHubProperties gitHubProperties;
+
+    /** 仓库全名 -> 锁 */
+    private final Map<String, ReentrantLock> repoLocks = new ConcurrentHashMap<>();
+
+    public GitRepositoryMirror(GitHubProperties gitHubProperties) {
+        this.gitHubProperties = gitHubProperties;
+    }
+
+    /** 将目录内容同步到镜像工作区的指定路径，提交并推送。 内容与远端一致时不产生提交
+     *
+     * @param repoFullName 仓库全名（owner/repo）
+     * @param credentials 推送凭据，可为null
+     * @param sourceDirectoryPath 本地源目录
+     * @param targetPathInRepo 仓库内目标路径
+     * @param commitMessage 提交信息
+     * @return 是否产生了新提交 */
+    public boolean commitAndPush(String repoFullName, CredentialsProvider credentials, Path sourceDirectoryPath,
+            String targetPathInRepo, String commitMessage) throws IOException, GitAPIException {
+        ReentrantLock lock = repoLocks.computeIfAbsent(repoFullName, k -> new ReentrantLock());
+        lock.lock();
+        try (Git git = openOrClone(repoFullName, credentials)) {
+            int maxAttempts = Math.max(1, gitHubProperties.getCache().getPushRetries() + 1);
+            for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+                String branch = syncWithRemote(git, credentials);
+
+                Path worktree = git.getRepository().getWorkTree().toPath();
+                Path targetDir = worktree.resolve(targetPathInRepo).normalize();
+                if (!targetDir.startsWith(worktree) || targetDir.equals(worktree)) {
+                    throw new BusinessException("非法的仓库目标路径: " + targetPathInRepo);
+                }
+                if (Files.exists(targetDir)) {
+                    FileUtils.deleteDirectory(targetDir.toFile());
+                }
+                Files.createDirectories(targetDir);
+                FileUtils.copyDirectory(sourceDirectoryPath.toFile(), targetDir.toFile());
+
+                // 新增、修改与删除的文件都需要暂存
+                git.add().addFilepattern(targetPathInRepo).call();
+                git.add().setUpdate(true).addFilepattern(targetPathInRepo).call();
+                if (git.status().addPath(targetPathInRepo).call().isClean()) {
+                    logger.info("仓库 {} 的路径 {} 内容未变化，跳过提交", repoFullName, targetPathInRepo);
+                    return false;
+                }
+
+                git.commit().setMessage(commitMessage).call();
+                if (push(git, credentials, branch)) {
+                    logger.info("成功提交并推送到仓库 {} 分支 {}: {}", repoFullName, branch, targetPathInRepo);
+                    return true;
+                }
+                logger.warn("推送被拒绝，远端已有新提交，重新拉取后重试 ({}/{}): {}", attempt, maxAttempts, repoFullName);
+            }
+            throw new BusinessException("推送到仓库 " + repoFullName + " 失败：远端持续更新，重试次数已用尽");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** 打开本地镜像，不存在或已损坏时重新浅克隆 */
+    private Git openOrClone(String repoFullName, CredentialsProvider credentials) throws IOException, GitAPIException {
+        Path mirrorDir = Paths.get(gitHubProperties.getCache().getBaseDir(), "mirrors", repoFullName.replace('/', '_'));
+        if (Files.isDirectory(mirrorDir.resolve(".git"))) {
+            try {
+                return Git.open(mirrorDir.toFile());
+            } catch (IOException e) {
+                logger.warn("本地镜像 {} 无法打开，将重新克隆: {}", mirrorDir, e.getMessage());
+            }
+        }
+
+        if (Files.exists(mirrorDir)) {
+            FileUtils.deleteDirectory(mirrorDir.toFile());
+        }
+        Files.createDirectories(mirrorDir.getParent());
+        String remoteUrl = gitHubProperties.getCache().getRemoteBaseUrl() + repoFullName + ".git";
+        logger.info("创建仓库 {} 的本地镜像: {}", remoteUrl, mirrorDir);
+        var clone = Git.cloneRepository().setURI(remoteUrl).setDirectory(mirrorDir.toFile())
+                .setCredentialsProvider(credentials);
+        if (gitHubProperties.getCache().getCloneDepth() > 0) {
+            clone.setDepth(gitHubProperties.getCache().getCloneDepth());
+        }
+        return clone.call();
+    }
+
+    /** 增量拉取当前分支并把工作区硬重置到远端，丢弃上一次失败发布残留的改动
+     * @return 当前分支名 */
+    private String syncWithRemote(Git git, CredentialsProvider credentials) throws IOException, GitAPIException {
+        String branch = git.getRepository().getBranch();
+        var fetch = git.fetch().setRemote(REMOTE).setCredentialsProvider(credentials)
+                .setRefSpecs("+refs/heads/" + branch + ":refs/remotes/" + REMOTE + "/" + branch);
+        if (gitHubProperties.getCache().getCloneDepth() > 0) {
+            fetch.setDepth(gitHubProperties.getCache().getCloneDepth());
+        }
+        fetch.call();
+
+        git.reset().setMode(ResetCommand.ResetType.HARD).setRef(REMOTE + "/" + branch).call();
+        git.clean().setCleanDirectories(true).setForce(true).call();
+        return branch;
+    }
+
+    /** 推送当前分支
+     * @return false表示因非快进被拒绝，其他失败直接抛出 */
+    private boolean push(Git git, CredentialsProvider credentials, String branch) throws GitAPIException {
+        Iterable<PushResult> results = git.push().setRemote(REMOTE).setCredentialsProvider(credentials)
+                .add(branch).call();
+        for (PushResult result : results) {
+            for (RemoteRefUpdate update : result.getRemoteUpdates()) {
+                switch (update.getStatus()) {
+                    case OK :
+                    case UP_TO_DATE :
+                        break;
+                    case REJECTED_NONFASTFORWARD :
+                    case REJECTED_REMOTE_CHANGED :
+                        return false;
+                    case REJECTED_OTHER_REASON :
+                        // 远端正在被其他推送更新（cannot lock ref），与非快进同样重新拉取后重试
+                        if (update.getMessage() != null && update.getMessage().contains("lock")) {
+                            return false;
+                        }
+                        throw new BusinessException("推送失败: " + update.getStatus() + " " + update.getMessage());
+                    default :
+                        throw new BusinessException(
+                                "推送失败: " + update.getStatus() + " " + (update.getMessage() == null ? "" : update.getMessage()));
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -2,17 +2,35 @@ package org.xhy.infrastructure.llm;
 
 import dev.langchain4j.model.chat.ChatModel;
 import dev.langchain4j.model.chat.StreamingChatModel;
+import org.springframework.stereotype.Service;
+import org.xhy.infrastructure.config.ExecutionProperties;
 import org.xhy.infrastructure.llm.config.ProviderConfig;
 import org.xhy.infrastructure.llm.factory.LLMProviderFactory;
+import org.xhy.infrastructure.llm.limit.ConcurrencyLimitedChatModel;
 import org.xhy.infrastructure.llm.protocol.enums.ProviderProtocol;
+import org.xhy.infrastructure.ratelimit.service.DownstreamLimiter;
 
+/** 大模型客户端服务 同步客户端按服务商地址限制并发，流式调用不占用许可 */
+@Service
 public class LLMProviderService {
 
-    public static ChatModel getStrand(ProviderProtocol protocol, ProviderConfig providerConfig) {
-        return LLMProviderFactory.getLLMProvider(protocol, providerConfig);
+    private final DownstreamLimiter downstreamLimiter;
+
+    /** @param downstreamLimiter 下游并发控制，为空时不限流（如基准测试） */
+    public LLMProviderService(DownstreamLimiter downstreamLimiter) {
+        this.downstreamLimiter = downstreamLimiter;
+    }
+
+    public ChatModel getStrand(ProviderProtocol protocol, ProviderConfig providerConfig) {
+        ChatModel model = LLMProviderFactory.getLLMProvider(protocol, providerConfig);
+        if (model == null || downstreamLimiter == null) {
+            return model;
+        }
+        return new ConcurrencyLimitedChatModel(model, downstreamLimiter, ExecutionProperties.DOWNSTREAM_LLM,
+                DownstreamLimiter.hostOf(providerConfig.getBaseUrl()));
     }
 
-    public static StreamingChatModel getStream(ProviderProtocol protocol, ProviderConfig providerConfig) {
+    public StreamingChatModel getStream(ProviderProtocol protocol, ProviderConfig providerConfig) {
         return LLMProviderFactory.getLLMProviderByStream(protocol, providerConfig);
     }
 }
@@ -11,6 +11,12 @@ import org.xhy.infrastructure.llm.config.ProviderConfig;
 @Component
 public class LLMServiceFactory {
 
+    private final LLMProviderService llmProviderService;
+
+    public LLMServiceFactory(LLMProviderService llmProviderService) {
+        this.llmProviderService = llmProviderService;
+    }
+
     /** 获取流式LLM客户端
      * 
      * @param provider 服务商实体
@@ -22,7 +28,7 @@ public class LLMServiceFactory {
         ProviderConfig providerConfig = new ProviderConfig(config.getApiKey(), config.getBaseUrl(),
                 model.getModelEndpoint(), provider.getProtocol());
 
-        return LLMProviderService.getStream(provider.getProtocol(), providerConfig);
+        return llmProviderService.getStream(provider.getProtocol(), providerConfig);
     }
 
     /** 获取标准LLM客户端
@@ -36,6 +42,6 @@ public class LLMServiceFactory {
         ProviderConfig providerConfig = new ProviderConfig(config.getApiKey(), config.getBaseUrl(),
                 model.getModelEndpoint(), provider.getProtocol());
 
-        return LLMProviderService.getStrand(provider.getProtocol(), providerConfig);
+        return llmProviderService.getStrand(provider.getProtocol(), providerConfig);
     }
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package org.xhy.infrastructure.llm.hedge;
+
+import org.springframework.stereotype.Component;
+import org.xhy.infrastructure.config.HedgingProperties;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** 首Token延迟统计 每个模型保留最近一段窗口内的首Token延迟，按配置的分位数给出对冲等待时间 */
+@Component
+public class FirstTokenLatencyTracker {
+
+    private final HedgingProperties properties;
+
+    /** 模型ID -> 延迟样本窗口 */
+    private final Map<String, LatencyWindow> windows = new ConcurrentHashMap<>();
+
+    public FirstTokenLatencyTracker(HedgingProperties properties) {
+        this.properties = properties;
+    }
+
+    /** 记录一次首Token延迟
+     *
+     * @param modelId 模型ID
+     * @param latencyMillis 从发出请求到收到首个分片的耗时 */
+    public void record(String modelId, long latencyMillis) {
+        if (modelId == null || latencyMillis < 0) {
+            return;
+        }
+        windows.computeIfAbsent(modelId, id -> new LatencyWindow(Math.max(1, properties.getWindowSize())))
+                .add(latencyMillis);
+    }
+
+    /** 计算对冲等待时间，样本不足时使用初始值，结果限制在上下限之间
+     *
+     * @param modelId 模型ID
+     * @return 等待时间（毫秒） */
+    public long hedgeDelay(String modelId) {
+        LatencyWindow window = modelId != null ? windows.get(modelId) : null;
+        long delay = window != null
+                ? window.percentile(properties.getPercentile(), properties.getMinSamples(), properties.getInitialDelay())
+                : properties.getInitialDelay();
+        return Math.min(Math.max(delay, properties.getMinDelay()), properties.getMaxDelay());
+    }
+
+    /** 固定长度的环形样本窗口 */
+    private static final class LatencyWindow {
+        private final long[] samples;
+        private int next;
+        private int count;
+
+        LatencyWindow(int size) {
+            this.samples = new long[size];
+        }
+
+        synchronized void add(long value) {
+            samples[next] = value;
+            next = (next + 1) % samples.length;
+            if (count < samples.length) {
+                count++;
+            }
+        }
+
+        long percentile(double percentile, int minSamples, long defaultValue) {
+            long[] copy;
+            synchronized (this) {
+                if (count < Math.max(1, minSamples)) {
+                    return defaultValue;
+                }
+                copy = Arrays.copyOf(samples, count);
+            }
+            Arrays.sort(copy);
+            double p = Math.min(Math.max(percentile, 0), 1);
+            int index = (int) Math.ceil(p * copy.length) - 1;
+            return copy[Math.min(Math.max(index, 0), copy.length - 1)];
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package org.xhy.infrastructure.llm.hedge;
+
+/** 对冲调用回调 在胜出方的首个回调转发给调用方之前同步执行 */
+public interface HedgeListener {
+
+    /** 已向备用模型发出对冲请求
+     *
+     * @param elapsedMillis 距主模型请求发出的时间 */
+    default void onHedgeStarted(long elapsedMillis) {
+    }
+
+    /** 备用模型胜出，此后同一实例的调用都发往备用模型
+     *
+     * @param elapsedMillis 距主模型请求发出的时间 */
+    void onBackupWon(long elapsedMillis);
+}
@@ -0,0 +1,269 @@
+package org.xhy.infrastructure.llm.hedge;
+
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/** 对冲流式模型 先向主模型发起请求，等待时间内未收到首个分片时再向备用模型发起同样的请求，先产出内容（分片或完整响应）的一方胜出，
+ * 另一方的后续回调全部丢弃。
+ *
+ * 当前langchain4j的流式接口没有取消句柄，落败的请求无法中断底层连接，只能脱离回调直至其自然结束；计费与追踪只依据转发给调用方的胜出结果。
+ * 备用模型胜出后，同一实例的后续调用（如工具调用后的下一轮）直接发往备用模型 */
+public class HedgedStreamingChatModel implements StreamingChatModel {
+
+    private static final Logger logger = LoggerFactory.getLogger(HedgedStreamingChatModel.class);
+
+    private static final int NONE = 0;
+    private static final int PRIMARY = 1;
+    private static final int BACKUP = 2;
+    private static final int FAILED = 3;
+
+    private final String primaryModelId;
+    private final StreamingChatModel primary;
+    private final Supplier<StreamingChatModel> backupSupplier;
+    private final HedgeListener listener;
+    private final FirstTokenLatencyTracker latencyTracker;
+    private final ScheduledExecutorService scheduler;
+    private final Executor backupExecutor;
+
+    /** 备用模型胜出后固定使用的模型 */
+    private volatile StreamingChatModel pinned;
+
+    public HedgedStreamingChatModel(String primaryModelId, StreamingChatModel primary,
+            Supplier<StreamingChatModel> backupSupplier, HedgeListener listener,
+            FirstTokenLatencyTracker latencyTracker, ScheduledExecutorService scheduler, Executor backupExecutor) {
+        this.primaryModelId = primaryModelId;
+        this.primary = primary;
+        this.backupSupplier = backupSupplier;
+        this.listener = listener;
+        this.latencyTracker = latencyTracker;
+        this.scheduler = scheduler;
+        this.backupExecutor = backupExecutor;
+    }
+
+    @Override
+    public void chat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+        StreamingChatModel pinnedModel = pinned;
+        if (pinnedModel != null) {
+            pinnedModel.chat(chatRequest, handler);
+            return;
+        }
+        new HedgedCall(chatRequest, handler).start();
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return primary.defaultRequestParameters();
+    }
+
+    /** 一次对冲调用的状态 */
+    private final class HedgedCall {
+
+        private final ChatRequest request;
+        private final StreamingChatResponseHandler downstream;
+        private final long startNanos = System.nanoTime();
+
+        private final AtomicInteger winner = new AtomicInteger(NONE);
+        private final AtomicBoolean primaryFirstSeen = new AtomicBoolean(false);
+        private final AtomicBoolean backupStarted = new AtomicBoolean(false);
+
+        private volatile StreamingChatModel backup;
+        private volatile ScheduledFuture<?> hedgeTimer;
+
+        /** 已发出和已失败的请求数，仅在同步块内修改 */
+        private int started;
+        private int failed;
+        private boolean backupUnavailable;
+        private Throwable lastError;
+
+        HedgedCall(ChatRequest request, StreamingChatResponseHandler downstream) {
+            this.request = request;
+            this.downstream = downstream;
+        }
+
+        void start() {
+            long delay = latencyTracker.hedgeDelay(primaryModelId);
+            synchronized (this) {
+                started++;
+            }
+            hedgeTimer = scheduler.schedule(this::dispatchBackup, delay, TimeUnit.MILLISECONDS);
+            try {
+                primary.chat(request, new AttemptHandler(PRIMARY));
+            } catch (RuntimeException e) {
+                onAttemptError(PRIMARY, e);
+            }
+        }
+
+        /** 计时线程为所有调用共用，只负责投递；查找备用模型涉及数据库查询，在备用执行器上发出对冲请求 */
+        private void dispatchBackup() {
+            try {
+                backupExecutor.execute(this::startBackup);
+            } catch (RejectedExecutionException e) {
+                logger.warn("对冲请求投递失败: primaryModelId={}, error={}", primaryModelId, e.getMessage());
+                if (backupStarted.compareAndSet(false, true)) {
+                    markBackupUnavailable();
+                }
+            }
+        }
+
+        /** 发出对冲请求，主模型已产出内容、已发出过或无可用备用模型时不发 */
+        private void startBackup() {
+            if (winner.get() != NONE || !backupStarted.compareAndSet(false, true)) {
+                return;
+            }
+            StreamingChatModel model;
+            try {
+                model = backupSupplier.get();
+            } catch (RuntimeException e) {
+                logger.warn("获取对冲备用模型失败: primaryModelId={}, error={}", primaryModelId, e.getMessage());
+                model = null;
+            }
+            if (model == null) {
+                markBackupUnavailable();
+                return;
+            }
+            synchronized (this) {
+                started++;
+            }
+            backup = model;
+            long elapsed = elapsedMillis();
+            logger.info("主模型{}ms内未返回首Token，发出对冲请求: primaryModelId={}", elapsed, primaryModelId);
+            listener.onHedgeStarted(elapsed);
+            try {
+                model.chat(request, new AttemptHandler(BACKUP));
+            } catch (RuntimeException e) {
+                onAttemptError(BACKUP, e);
+            }
+        }
+
+        /** 抢占胜出权，已胜出的一方返回true */
+        private boolean claim(int attempt) {
+            if (winner.get() == attempt) {
+                return true;
+            }
+            if (!winner.compareAndSet(NONE, attempt)) {
+                return false;
+            }
+            ScheduledFuture<?> timer = hedgeTimer;
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            if (attempt == BACKUP) {
+                pinned = backup;
+                long elapsed = elapsedMillis();
+                logger.info("对冲请求胜出，本轮后续调用改用备用模型: primaryModelId={}, elapsed={}ms", primaryModelId, elapsed);
+                listener.onBackupWon(elapsed);
+            }
+            return true;
+        }
+
+        /** 主模型的首个分片无论胜负都计入延迟样本，落败的慢样本同样反映主模型当前的延迟分布 */
+        private void recordFirstToken(int attempt) {
+            if (attempt == PRIMARY && primaryFirstSeen.compareAndSet(false, true)) {
+                latencyTracker.record(primaryModelId, elapsedMillis());
+            }
+        }
+
+        private void onAttemptError(int attempt, Throwable error) {
+            int current = winner.get();
+            if (current == attempt) {
+                // 胜出方在输出过程中出错，直接交给调用方
+                downstream.onError(error);
+                return;
+            }
+            if (current != NONE) {
+                return;
+            }
+            boolean startBackupNow = false;
+            synchronized (this) {
+                failed++;
+                lastError = error;
+                if (attempt == PRIMARY && !backupStarted.get()) {
+                    startBackupNow = true;
+                }
+            }
+            if (startBackupNow) {
+                // 主模型在首Token前失败，不再等待，立即发出对冲请求
+                logger.warn("主模型首Token前调用失败，立即发出对冲请求: primaryModelId={}, error={}", primaryModelId,
+                        error.getMessage());
+                ScheduledFuture<?> timer = hedgeTimer;
+                if (timer != null) {
+                    timer.cancel(false);
+                }
+                startBackup();
+                return;
+            }
+            failIfExhausted();
+        }
+
+        private void markBackupUnavailable() {
+            synchronized (this) {
+                backupUnavailable = true;
+            }
+            failIfExhausted();
+        }
+
+        /** 所有已发出的请求都失败且不会再有新请求时，把最后一个错误交给调用方 */
+        private void failIfExhausted() {
+            Throwable error;
+            synchronized (this) {
+                boolean noMoreAttempts = backupUnavailable || started > 1;
+                if (!noMoreAttempts || failed < started) {
+                    return;
+                }
+                error = lastError;
+            }
+            if (winner.compareAndSet(NONE, FAILED)) {
+                downstream.onError(error);
+            }
+        }
+
+        private long elapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        }
+
+        /** 单个请求的回调，落败方的回调直接丢弃 */
+        private final class AttemptHandler implements StreamingChatResponseHandler {
+
+            private final int attempt;
+
+            AttemptHandler(int attempt) {
+                this.attempt = attempt;
+            }
+
+            @Override
+            public void onPartialResponse(String partialResponse) {
+                recordFirstToken(attempt);
+                if (claim(attempt)) {
+                    downstream.onPartialResponse(partialResponse);
+                }
+            }
+
+            @Override
+            public void onCompleteResponse(ChatResponse completeResponse) {
+                recordFirstToken(attempt);
+                if (claim(attempt)) {
+                    downstream.onCompleteResponse(completeResponse);
+                }
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                onAttemptError(attempt, error);
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.xhy.infrastructure.llm.hedge;
+
+import dev.langchain4j.model.chat.StreamingChatModel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+import org.xhy.infrastructure.config.HedgingProperties;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.function.Supplier;
+
+/** 对冲流式客户端工厂 持有对冲计时线程、备用请求执行器与首Token延迟统计，按需把流式客户端包装为对冲客户端。
+ * 计时线程只做投递，备用模型的查找与请求在虚拟线程上进行，避免一次慢查询推迟其他调用的对冲 */
+@Component
+public class HedgedStreamingClientFactory {
+
+    private final HedgingProperties properties;
+    private final FirstTokenLatencyTracker latencyTracker;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService backupExecutor;
+    private final Counter hedgeStartedCounter;
+    private final Counter backupWonCounter;
+
+    public HedgedStreamingClientFactory(HedgingProperties properties, FirstTokenLatencyTracker latencyTracker,
+            MeterRegistry registry) {
+        this.properties = properties;
+        this.latencyTracker = latencyTracker;
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+            thread.setName("llm-hedge-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 主模型按时返回时计时任务会被取消，及时移出队列
+        executor.setRemoveOnCancelPolicy(true);
+        this.scheduler = executor;
+        this.backupExecutor = Executors
+                .newThreadPerTaskExecutor(Thread.ofVirtual().name("llm-hedge-backup-", 0).factory());
+        this.hedgeStartedCounter = Counter.builder("agentx.llm.hedge").description("流式调用对冲次数")
+                .tag("outcome", "started").register(registry);
+        this.backupWonCounter = Counter.builder("agentx.llm.hedge").description("流式调用对冲次数")
+                .tag("outcome", "backup_won").register(registry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /** 包装为对冲客户端
+     *
+     * @param primaryModelId 主模型ID，用于统计首Token延迟
+     * @param primary 主模型客户端
+     * @param backupSupplier 备用模型客户端，对冲触发时才调用，无可用备用模型时返回null
+     * @param listener 对冲回调
+     * @return 对冲客户端 */
+    public StreamingChatModel wrap(String primaryModelId, StreamingChatModel primary,
+            Supplier<StreamingChatModel> backupSupplier, HedgeListener listener) {
+        HedgeListener countingListener = new HedgeListener() {
+            @Override
+            public void onHedgeStarted(long elapsedMillis) {
+                hedgeStartedCounter.increment();
+                listener.onHedgeStarted(elapsedMillis);
+            }
+
+            @Override
+            public void onBackupWon(long elapsedMillis) {
+                backupWonCounter.increment();
+                listener.onBackupWon(elapsedMillis);
+            }
+        };
+        return new HedgedStreamingChatModel(primaryModelId, primary, backupSupplier, countingListener,
+                latencyTracker, scheduler, backupExecutor);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        scheduler.shutdownNow();
+        backupExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,42 @@
+package org.xhy.infrastructure.llm.limit;
+
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import org.xhy.infrastructure.ratelimit.service.DownstreamLimiter;
+
+import java.util.Set;
+
+/** 限制并发的同步模型 每次调用先取得所属下游的许可，调用结束后归还 */
+public class ConcurrencyLimitedChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final DownstreamLimiter limiter;
+    private final String downstream;
+    private final String instance;
+
+    public ConcurrencyLimitedChatModel(ChatModel delegate, DownstreamLimiter limiter, String downstream,
+            String instance) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+        this.downstream = downstream;
+        this.instance = instance;
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest chatRequest) {
+        return limiter.call(downstream, instance, () -> delegate.chat(chatRequest));
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+}
@@ -0,0 +1,36 @@
+package org.xhy.infrastructure.llm.limit;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import org.xhy.infrastructure.ratelimit.service.DownstreamLimiter;
+
+import java.util.List;
+
+/** 限制并发的嵌入模型 单条与批量向量化都经由 embedAll，每次请求占用一个下游许可 */
+public class ConcurrencyLimitedEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final DownstreamLimiter limiter;
+    private final String downstream;
+    private final String instance;
+
+    public ConcurrencyLimitedEmbeddingModel(EmbeddingModel delegate, DownstreamLimiter limiter, String downstream,
+            String instance) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+        this.downstream = downstream;
+        this.instance = instance;
+    }
+
+    @Override
+    public Response<List<Embedding>> embedAll(List<TextSegment> textSegments) {
+        return limiter.call(downstream, instance, () -> delegate.embedAll(textSegments));
+    }
+
+    @Override
+    public int dimension() {
+        return delegate.dimension();
+    }
+}
@@ -1,17 +1,25 @@
 package org.xhy.infrastructure.mcp_gateway;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import dev.langchain4j.agent.tool.ToolSpecification;
 import dev.langchain4j.mcp.client.DefaultMcpClient;
 import dev.langchain4j.mcp.client.McpClient;
 import dev.langchain4j.mcp.client.transport.http.HttpMcpTransport;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.apache.http.HttpEntity;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,11 +31,19 @@ import org.xhy.infrastructure.exception.BusinessException;
 import org.xhy.infrastructure.utils.JsonUtils;
 
 import java.io.IOException;
+import java.net.ConnectException;
 import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
-/** MCP Gateway服务 处理与MCP网关的所有API交互 */
+/** MCP Gateway服务 处理与MCP网关的所有API交互 所有部署请求共用一个带连接池的HTTP客户端；网关上的工具列表按（网关、服务、部署版本）缓存，
+ * 部署成功后版本递增，旧列表随即失效 */
 @Service
 public class MCPGatewayService {
 
@@ -35,11 +51,23 @@ public class MCPGatewayService {
 
     private final MCPGatewayProperties properties;
 
+    /** 共享的部署请求客户端 */
+    private final CloseableHttpClient httpClient;
+
+    /** 网关|服务名|部署版本 -> 工具列表 */
+    private final Cache<String, List<ToolDefinition>> toolListCache;
+
+    /** 网关|服务名 -> 部署版本 */
+    private final Map<String, AtomicLong> deployVersions = new ConcurrentHashMap<>();
+
     /** 通过构造函数注入配置
      * 
      * @param properties MCP Gateway配置 */
     public MCPGatewayService(MCPGatewayProperties properties) {
         this.properties = properties;
+        this.httpClient = createHttpClient();
+        this.toolListCache = CacheBuilder.newBuilder().expireAfterWrite(Duration.ofMillis(properties.getToolsCacheTtl()))
+                .maximumSize(properties.getToolsCacheMaxSize()).build();
     }
 
     /** 初始化时验证配置有效性 */
@@ -56,6 +84,15 @@ public class MCPGatewayService {
         logger.info("MCP Gateway服务已初始化，基础URL: {}", properties.getBaseUrl());
     }
 
+    @PreDestroy
+    public void destroy() {
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            logger.warn("关闭MCP Gateway HTTP客户端失败: {}", e.getMessage());
+        }
+    }
+
     /** 构建用户容器SSE URL（纯技术方法）
      * 
      * @param mcpServerName 工具服务名称
@@ -81,8 +118,7 @@ public class MCPGatewayService {
      * @return 部署成功返回true，否则抛出异常
      * @throws BusinessException 如果API调用失败 */
     public boolean deployTool(String installCommand) {
-        String url = properties.getBaseUrl() + "/deploy";
-        return deployToolToUrl(installCommand, url);
+        return deployToolToGateway(installCommand, properties.getBaseUrl());
     }
 
     /** 部署工具到用户容器（方法重载）
@@ -93,13 +129,22 @@ public class MCPGatewayService {
      * @return 部署成功返回true，否则抛出异常
      * @throws BusinessException 如果API调用失败 */
     public boolean deployTool(String installCommand, String containerIp, Integer containerPort) {
-        String url = "http://" + containerIp + ":" + containerPort + "/deploy";
-        return deployToolToUrl(installCommand, url);
+        return deployToolToGateway(installCommand, containerBaseUrl(containerIp, containerPort));
     }
 
-    /** 部署工具到指定URL的通用方法 */
+    /** 部署工具到指定网关，成功后使该网关上相关服务的工具列表缓存失效 */
+    private boolean deployToolToGateway(String installCommand, String gatewayBaseUrl) {
+        boolean success = deployToolToUrl(installCommand, gatewayBaseUrl + "/deploy");
+        if (success) {
+            invalidateToolLists(gatewayBaseUrl, installCommand);
+        }
+        return success;
+    }
+
+    /** 部署工具到指定URL的通用方法 仅在连接未建立时按退避重试；请求一旦发出，网关可能已开始部署，无响应或超时都不重试 */
     private boolean deployToolToUrl(String installCommand, String url) {
-        try (CloseableHttpClient httpClient = createHttpClient()) {
+        int maxAttempts = Math.max(0, properties.getMaxRetries()) + 1;
+        for (int attempt = 1;; attempt++) {
             HttpPost httpPost = new HttpPost(url);
             httpPost.setHeader("Content-Type", "application/json");
             httpPost.setHeader("Authorization", "Bearer " + properties.getApiKey());
@@ -115,14 +160,19 @@ public class MCPGatewayService {
                     Map result = JsonUtils.parseObject(responseBody, Map.class);
                     logger.info("部署响应: {}", result);
                     return result.containsKey("success");
-                } else {
-                    String errorMsg = String.format("工具部署失败，状态码: %d，响应: %s", statusCode, responseBody);
-                    logger.error(errorMsg);
-                    throw new BusinessException(errorMsg);
                 }
+                String errorMsg = String.format("工具部署失败，状态码: %d，响应: %s", statusCode, responseBody);
+                logger.error(errorMsg);
+                throw new BusinessException(errorMsg);
+            } catch (ConnectException | ConnectTimeoutException e) {
+                if (attempt >= maxAttempts) {
+                    throw new BusinessException("调用部署API失败: " + e.getMessage(), e);
+                }
+                logger.warn("连接部署API失败，准备重试 ({}/{}): {}", attempt, maxAttempts, e.getMessage());
+            } catch (IOException e) {
+                throw new BusinessException("调用部署API失败: " + e.getMessage(), e);
             }
-        } catch (IOException e) {
-            throw new BusinessException("调用部署API失败: " + e.getMessage(), e);
+            backoff(attempt);
         }
     }
 
@@ -132,19 +182,16 @@ public class MCPGatewayService {
      * @return 工具定义列表
      * @throws BusinessException 如果API调用失败 */
     public List<ToolDefinition> listTools(String toolName) throws Exception {
-        String url = properties.getBaseUrl() + "/" + toolName + "/sse/sse?api_key=" + properties.getApiKey();
-        HttpMcpTransport transport = new HttpMcpTransport.Builder().sseUrl(url).timeout(Duration.ofSeconds(10))
-                .logRequests(false).logResponses(true).build();
-        McpClient client = new DefaultMcpClient.Builder().transport(transport).build();
-        try {
-            List<ToolSpecification> toolSpecifications = client.listTools();
-            return ToolSpecificationConverter.convert(toolSpecifications);
-        } catch (Exception e) {
-            logger.error("调用MCP Gateway API失败", e);
-            throw new BusinessException("调用MCP Gateway API失败: " + e.getMessage(), e);
-        } finally {
-            client.close();
-        }
+        String gatewayBaseUrl = properties.getBaseUrl();
+        return getCachedToolList(gatewayBaseUrl, toolName, () -> {
+            String url = gatewayBaseUrl + "/" + toolName + "/sse/sse?api_key=" + properties.getApiKey();
+            try {
+                return fetchToolList(url, Duration.ofMillis(properties.getListToolsTimeout()));
+            } catch (Exception e) {
+                logger.error("调用MCP Gateway API失败", e);
+                throw new BusinessException("调用MCP Gateway API失败: " + e.getMessage(), e);
+            }
+        });
     }
 
     /** 从审核容器获取工具列表
@@ -156,51 +203,129 @@ public class MCPGatewayService {
      * @throws BusinessException 如果API调用失败 */
     public List<ToolDefinition> listToolsFromReviewContainer(String toolName, String containerIp, Integer containerPort)
             throws Exception {
-        String url = "http://" + containerIp + ":" + containerPort + "/" + toolName + "/sse/sse?api_key="
-                + properties.getApiKey();
-
-        logger.info("从审核容器获取工具列表: {}", url);
+        String gatewayBaseUrl = containerBaseUrl(containerIp, containerPort);
+        return getCachedToolList(gatewayBaseUrl, toolName, () -> {
+            String url = gatewayBaseUrl + "/" + toolName + "/sse/sse?api_key=" + properties.getApiKey();
+            logger.info("从审核容器获取工具列表: {}", url);
+            try {
+                List<ToolDefinition> result = fetchToolList(url, Duration.ofMillis(properties.getListToolsTimeout()));
+                logger.info("成功从审核容器获取到工具列表，共 {} 个工具定义", result != null ? result.size() : 0);
+                return result;
+            } catch (Exception e) {
+                logger.error("从审核容器调用MCP Gateway API失败: {}:{}", containerIp, containerPort, e);
+                throw new BusinessException("从审核容器调用MCP Gateway API失败: " + e.getMessage(), e);
+            }
+        });
+    }
 
-        HttpMcpTransport transport = new HttpMcpTransport.Builder().sseUrl(url).timeout(Duration.ofSeconds(10))
-                .logRequests(false).logResponses(true).build();
-        McpClient client = new DefaultMcpClient.Builder().transport(transport).build();
+    /** List tools directly from an SSE URL (no gateway deploy). Not cached: there is no deploy event to invalidate
+     * it. */
+    public List<ToolDefinition> listToolsBySseUrl(String sseUrl) throws Exception {
         try {
-            List<ToolSpecification> toolSpecifications = client.listTools();
-            List<ToolDefinition> result = ToolSpecificationConverter.convert(toolSpecifications);
-
-            logger.info("成功从审核容器获取到工具列表，共 {} 个工具定义", result != null ? result.size() : 0);
-            return result;
-
+            return fetchToolList(sseUrl, Duration.ofSeconds(60));
         } catch (Exception e) {
-            logger.error("从审核容器调用MCP Gateway API失败: {}:{}", containerIp, containerPort, e);
-            throw new BusinessException("从审核容器调用MCP Gateway API失败: " + e.getMessage(), e);
-        } finally {
-            client.close();
+            logger.error("List tools by SSE URL failed: {}", sseUrl, e);
+            throw new BusinessException("List tools by SSE URL failed: " + e.getMessage(), e);
         }
     }
 
-    /** List tools directly from an SSE URL (no gateway deploy). */
-    public List<ToolDefinition> listToolsBySseUrl(String sseUrl) throws Exception {
-        HttpMcpTransport transport = new HttpMcpTransport.Builder().sseUrl(sseUrl).timeout(Duration.ofSeconds(60))
+    /** 建立一次MCP连接获取工具列表 */
+    private List<ToolDefinition> fetchToolList(String sseUrl, Duration timeout) throws Exception {
+        HttpMcpTransport transport = new HttpMcpTransport.Builder().sseUrl(sseUrl).timeout(timeout)
                 .logRequests(false).logResponses(true).build();
         McpClient client = new DefaultMcpClient.Builder().transport(transport).build();
         try {
             List<ToolSpecification> toolSpecifications = client.listTools();
             return ToolSpecificationConverter.convert(toolSpecifications);
-        } catch (Exception e) {
-            logger.error("List tools by SSE URL failed: {}", sseUrl, e);
-            throw new BusinessException("List tools by SSE URL failed: " + e.getMessage(), e);
         } finally {
             client.close();
         }
     }
 
-    /** 创建配置了超时的HTTP客户端 */
+    /** 读取工具列表缓存，未命中时加载，同一键的并发请求只加载一次；空列表多为服务尚未就绪，不缓存 */
+    private List<ToolDefinition> getCachedToolList(String gatewayBaseUrl, String serverName,
+            Callable<List<ToolDefinition>> loader) throws Exception {
+        String serverKey = gatewayBaseUrl + "|" + serverName;
+        String cacheKey = serverKey + "|" + deployVersions.computeIfAbsent(serverKey, k -> new AtomicLong()).get();
+        try {
+            List<ToolDefinition> tools = toolListCache.get(cacheKey, loader);
+            if (tools.isEmpty()) {
+                toolListCache.invalidate(cacheKey);
+            }
+            return tools;
+        } catch (UncheckedExecutionException | ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception exception) {
+                throw exception;
+            }
+            throw e;
+        }
+    }
+
+    /** 部署后递增相关服务的版本，并清理旧版本的缓存 */
+    private void invalidateToolLists(String gatewayBaseUrl, String installCommand) {
+        Map<?, ?> servers = null;
+        try {
+            Map<?, ?> command = JsonUtils.parseObject(installCommand, Map.class);
+            Object serversObj = command != null ? command.get("mcpServers") : null;
+            servers = serversObj instanceof Map ? (Map<?, ?>) serversObj : null;
+        } catch (Exception e) {
+            logger.debug("解析安装命令失败，清理该网关的全部工具列表缓存: {}", e.getMessage());
+        }
+
+        if (servers == null || servers.isEmpty()) {
+            String prefix = gatewayBaseUrl + "|";
+            deployVersions.forEach((key, version) -> {
+                if (key.startsWith(prefix)) {
+                    version.incrementAndGet();
+                }
+            });
+            toolListCache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+            return;
+        }
+        for (Object serverName : servers.keySet()) {
+            String serverKey = gatewayBaseUrl + "|" + serverName;
+            deployVersions.computeIfAbsent(serverKey, k -> new AtomicLong()).incrementAndGet();
+            toolListCache.asMap().keySet().removeIf(key -> key.startsWith(serverKey + "|"));
+        }
+    }
+
+    private String containerBaseUrl(String containerIp, Integer containerPort) {
+        return "http://" + containerIp + ":" + containerPort;
+    }
+
+    /** 指数退避加随机抖动，避免大量重试同时打到网关 */
+    private void backoff(int attempt) {
+        long base = properties.getRetryBaseDelay() * (1L << Math.min(attempt - 1, 10));
+        long delay = base / 2 + ThreadLocalRandom.current().nextLong(base + 1);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("部署请求重试被中断", e);
+        }
+    }
+
+    /** 创建带连接池的HTTP客户端 */
     private CloseableHttpClient createHttpClient() {
         RequestConfig config = RequestConfig.custom().setConnectTimeout(properties.getConnectTimeout())
-                .setSocketTimeout(properties.getReadTimeout()).build();
+                .setSocketTimeout(properties.getReadTimeout())
+                .setConnectionRequestTimeout(properties.getConnectionRequestTimeout()).build();
+
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(properties.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(properties.getMaxConnectionsPerRoute());
+        connectionManager.setValidateAfterInactivity(2000);
+
+        // 服务端未声明Keep-Alive时长时使用配置值
+        ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+            long declared = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return declared > 0 ? declared : properties.getKeepAlive();
+        };
 
-        return HttpClients.custom().setDefaultRequestConfig(config).build();
+        return HttpClients.custom().setDefaultRequestConfig(config).setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(keepAliveStrategy).disableAutomaticRetries().evictExpiredConnections()
+                .evictIdleConnections(properties.getIdleEvictTimeout(), TimeUnit.MILLISECONDS).build();
     }
 
 }
@@ -1,6 +1,7 @@
 package org.xhy.infrastructure.memory.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.xhy.infrastructure.rag.config.VectorIndexProperties;
 
 /** Memory 向量存储配置属性（与 embedding.vector-store 结构一致，独立命名空间） */
 @ConfigurationProperties(prefix = "memory.embedding")
@@ -24,6 +25,7 @@ public class MemoryEmbeddingProperties {
         private int dimension = 1024;
         private boolean dropTableFirst = false;
         private boolean createTable = true;
+        private VectorIndexProperties index = new VectorIndexProperties();
 
         public String getHost() {
             return host;
@@ -79,6 +81,12 @@ public class MemoryEmbeddingProperties {
         public void setCreateTable(boolean createTable) {
             this.createTable = createTable;
         }
+        public VectorIndexProperties getIndex() {
+            return index;
+        }
+        public void setIndex(VectorIndexProperties index) {
+            this.index = index;
+        }
     }
 
     public String getName() {
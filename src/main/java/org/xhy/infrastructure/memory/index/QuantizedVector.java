@@ -0,0 +1,85 @@
+package org.xhy.infrastructure.memory.index;
+
+/** int8标量量化向量 每个向量按自身最大绝对值缩放到[-127,127]，占用为float向量的四分之一；
+ * 余弦相似度与缩放系数无关，因此只保存量化值与其范数 */
+public final class QuantizedVector {
+
+    private final byte[] values;
+    private final float norm;
+
+    private QuantizedVector(byte[] values, float norm) {
+        this.values = values;
+        this.norm = norm;
+    }
+
+    /** 量化向量
+     *
+     * @param vector 原始向量
+     * @return 量化后的向量 */
+    public static QuantizedVector quantize(float[] vector) {
+        float maxAbs = 0f;
+        for (float v : vector) {
+            maxAbs = Math.max(maxAbs, Math.abs(v));
+        }
+        byte[] values = new byte[vector.length];
+        long sumSquares = 0;
+        if (maxAbs > 0f) {
+            float factor = 127f / maxAbs;
+            for (int i = 0; i < vector.length; i++) {
+                int q = Math.round(vector[i] * factor);
+                values[i] = (byte) q;
+                sumSquares += (long) q * q;
+            }
+        }
+        return new QuantizedVector(values, (float) Math.sqrt(sumSquares));
+    }
+
+    /** 解析pgvector的文本格式，如 [0.1,0.2,...]
+     *
+     * @param text 向量文本
+     * @return 原始向量 */
+    public static float[] parse(String text) {
+        String body = text.trim();
+        if (body.startsWith("[")) {
+            body = body.substring(1, body.length() - 1);
+        }
+        if (body.isEmpty()) {
+            return new float[0];
+        }
+        String[] parts = body.split(",");
+        float[] vector = new float[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            vector[i] = Float.parseFloat(parts[i].trim());
+        }
+        return vector;
+    }
+
+    /** 向量的范数，查询向量只需计算一次 */
+    public static float norm(float[] vector) {
+        double sum = 0;
+        for (float v : vector) {
+            sum += v * v;
+        }
+        return (float) Math.sqrt(sum);
+    }
+
+    /** 与查询向量的余弦相似度
+     *
+     * @param query 查询向量
+     * @param queryNorm 查询向量的范数
+     * @return 余弦相似度，维度不一致或零向量时返回NaN */
+    public double cosine(float[] query, float queryNorm) {
+        if (query.length != values.length || norm == 0f || queryNorm == 0f) {
+            return Double.NaN;
+        }
+        float dot = 0f;
+        for (int i = 0; i < values.length; i++) {
+            dot += values[i] * query[i];
+        }
+        return dot / (norm * queryNorm);
+    }
+
+    public int dimension() {
+        return values.length;
+    }
+}
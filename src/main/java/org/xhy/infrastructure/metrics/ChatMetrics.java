@@ -0,0 +1,204 @@
+package org.xhy.infrastructure.metrics;
+
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.service.tool.ToolExecutor;
+import dev.langchain4j.service.tool.ToolProvider;
+import dev.langchain4j.service.tool.ToolProviderResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/** 对话链路指标 准备阶段耗时、首Token延迟、生成速率、Token用量与工具调用耗时。
+ *
+ * 标签只使用模型、服务商协议、处理器类型等低基数值，不带用户、会话或工具名 */
+@Component
+public class ChatMetrics {
+
+    public static final String STAGE_SESSION = "session";
+    public static final String STAGE_SNAPSHOT = "runtime_snapshot";
+    public static final String STAGE_TOOLS = "tools";
+    public static final String STAGE_MODEL_SELECT = "model_select";
+    public static final String STAGE_CONTEXT = "context";
+    public static final String STAGE_TOOL_PROVIDER = "tool_provider";
+    public static final String STAGE_BALANCE = "balance";
+    public static final String STAGE_HISTORY = "history";
+    public static final String STAGE_MEMORY_RECALL = "memory_recall";
+    public static final String STAGE_RAG_RETRIEVAL = "rag_retrieval";
+    public static final String STAGE_BILLING = "billing";
+
+    public static final String TOOL_SOURCE_BUILTIN = "builtin";
+    public static final String TOOL_SOURCE_MCP = "mcp";
+
+    private static final String UNKNOWN = "unknown";
+
+    private final MeterRegistry registry;
+
+    public ChatMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /** 记录一个阶段的耗时
+     *
+     * @param stage 阶段名，使用STAGE_*常量
+     * @param agentType 处理器类型
+     * @param action 阶段逻辑
+     * @return 阶段返回值 */
+    public <T> T timeStage(String stage, String agentType, Supplier<T> action) {
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            return action.get();
+        } catch (RuntimeException e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            stageTimer(stage, agentType, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** 无返回值阶段的耗时记录 */
+    public void timeStage(String stage, String agentType, Runnable action) {
+        timeStage(stage, agentType, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /** 记录从startNanos到当前的阶段耗时，用于不便包装为lambda的代码段 */
+    public void recordStage(String stage, String agentType, long startNanos) {
+        stageTimer(stage, agentType, "success").record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** 开始一次模型调用的计时，首个分片与结束时分别回调返回的对象 */
+    public ModelCallTimer startModelCall(String model, String provider, String agentType) {
+        return new ModelCallTimer(Tags.of("model", tagValue(model), "provider", tagValue(provider), "agent_type",
+                tagValue(agentType)));
+    }
+
+    /** 为内置工具的执行器加上耗时统计 */
+    public Map<ToolSpecification, ToolExecutor> timeTools(Map<ToolSpecification, ToolExecutor> tools,
+            String agentType) {
+        if (tools == null || tools.isEmpty()) {
+            return tools;
+        }
+        Map<ToolSpecification, ToolExecutor> timed = new LinkedHashMap<>();
+        tools.forEach((spec, executor) -> timed.put(spec, timeTool(executor, TOOL_SOURCE_BUILTIN, agentType)));
+        return timed;
+    }
+
+    /** 为外部工具提供者返回的执行器加上耗时统计 */
+    public ToolProvider timeTools(ToolProvider toolProvider, String agentType) {
+        if (toolProvider == null) {
+            return null;
+        }
+        return request -> {
+            ToolProviderResult result = toolProvider.provideTools(request);
+            if (result == null || result.tools() == null || result.tools().isEmpty()) {
+                return result;
+            }
+            ToolProviderResult.Builder builder = ToolProviderResult.builder();
+            result.tools().forEach((spec, executor) -> builder.add(spec,
+                    timeTool(executor, TOOL_SOURCE_MCP, agentType)));
+            return builder.build();
+        };
+    }
+
+    private ToolExecutor timeTool(ToolExecutor executor, String source, String agentType) {
+        return (request, memoryId) -> {
+            long start = System.nanoTime();
+            String outcome = "success";
+            try {
+                return executor.execute(request, memoryId);
+            } catch (RuntimeException e) {
+                outcome = "error";
+                throw e;
+            } finally {
+                Timer.builder("agentx.chat.tool.call").description("工具调用耗时").tag("source", source)
+                        .tag("agent_type", tagValue(agentType)).tag("outcome", outcome).register(registry)
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        };
+    }
+
+    private Timer stageTimer(String stage, String agentType, String outcome) {
+        return Timer.builder("agentx.chat.stage").description("对话准备与收尾各阶段耗时").tag("stage", stage)
+                .tag("agent_type", tagValue(agentType)).tag("outcome", outcome).register(registry);
+    }
+
+    private static String tagValue(String value) {
+        return value == null || value.isBlank() ? UNKNOWN : value;
+    }
+
+    /** 单次模型调用的计时器 首个分片记录首Token延迟，结束时记录总耗时、Token用量与生成速率。重复结束只记录一次 */
+    public class ModelCallTimer {
+
+        private final Tags tags;
+        private final long startNanos = System.nanoTime();
+        private volatile long firstTokenNanos;
+        private final AtomicBoolean firstToken = new AtomicBoolean(false);
+        private final AtomicBoolean finished = new AtomicBoolean(false);
+
+        private ModelCallTimer(Tags tags) {
+            this.tags = tags;
+        }
+
+        /** 收到流式分片时调用 */
+        public void onPartial() {
+            if (firstToken.compareAndSet(false, true)) {
+                firstTokenNanos = System.nanoTime();
+                Timer.builder("agentx.chat.ttft").description("首Token延迟").tags(tags).register(registry)
+                        .record(firstTokenNanos - startNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        /** 调用成功结束
+         *
+         * @param inputTokens 输入Token数，可为空
+         * @param outputTokens 输出Token数，可为空 */
+        public void onComplete(Integer inputTokens, Integer outputTokens) {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            long end = System.nanoTime();
+            record(end, "success");
+
+            if (inputTokens != null && inputTokens > 0) {
+                Counter.builder("agentx.chat.tokens").description("模型调用Token用量").tags(tags).tag("direction", "input")
+                        .register(registry).increment(inputTokens);
+            }
+            if (outputTokens != null && outputTokens > 0) {
+                Counter.builder("agentx.chat.tokens").description("模型调用Token用量").tags(tags).tag("direction", "output")
+                        .register(registry).increment(outputTokens);
+
+                // 流式调用按首Token之后的生成时间计算，同步调用按总耗时
+                long generationNanos = end - (firstToken.get() ? firstTokenNanos : startNanos);
+                if (generationNanos > 0) {
+                    DistributionSummary.builder("agentx.chat.tokens.per.second").description("输出Token生成速率")
+                            .baseUnit("tokens").tags(tags).register(registry)
+                            .record(outputTokens * 1_000_000_000d / generationNanos);
+                }
+            }
+        }
+
+        /** 调用失败结束 */
+        public void onError() {
+            if (finished.compareAndSet(false, true)) {
+                record(System.nanoTime(), "error");
+            }
+        }
+
+        private void record(long endNanos, String outcome) {
+            Timer.builder("agentx.chat.model.call").description("模型调用总耗时").tags(tags).tag("outcome", outcome)
+                    .register(registry).record(endNanos - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
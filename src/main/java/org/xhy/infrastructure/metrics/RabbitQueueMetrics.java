@@ -0,0 +1,81 @@
+package org.xhy.infrastructure.metrics;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.xhy.infrastructure.mq.events.RagDocSyncOcrEvent;
+import org.xhy.infrastructure.mq.events.RagDocSyncStorageEvent;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** RabbitMQ消费积压指标 定时被动声明队列读取积压消息数与消费者数；消费时按消息信封时间戳记录排队时长 */
+@Component
+public class RabbitQueueMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(RabbitQueueMetrics.class);
+
+    /** 需要采样的队列 */
+    private static final List<String> QUEUES = List.of(RagDocSyncOcrEvent.QUEUE_NAME,
+            RagDocSyncStorageEvent.QUEUE_NAME);
+
+    private final Connection connection;
+    private final MeterRegistry registry;
+
+    /** 队列名 -> [积压消息数, 消费者数]，采样失败时保留上一次的值 */
+    private final Map<String, AtomicLong[]> samples = new ConcurrentHashMap<>();
+
+    public RabbitQueueMetrics(Connection connection, MeterRegistry registry) {
+        this.connection = connection;
+        this.registry = registry;
+        for (String queue : QUEUES) {
+            AtomicLong[] sample = {new AtomicLong(), new AtomicLong()};
+            samples.put(queue, sample);
+            Gauge.builder("agentx.mq.queue.depth", sample[0], AtomicLong::get).description("队列积压消息数")
+                    .tag("queue", queue).register(registry);
+            Gauge.builder("agentx.mq.queue.consumers", sample[1], AtomicLong::get).description("队列消费者数")
+                    .tag("queue", queue).register(registry);
+        }
+    }
+
+    /** 记录消息从发布到开始消费的排队时长
+     *
+     * @param queue 队列名
+     * @param publishedAt 消息信封中的发布时间戳(毫秒)，为空时忽略 */
+    public void recordConsumeLag(String queue, Long publishedAt) {
+        if (publishedAt == null) {
+            return;
+        }
+        long lag = Math.max(0, System.currentTimeMillis() - publishedAt);
+        Timer.builder("agentx.mq.consume.lag").description("消息发布到开始消费的时长").tag("queue", queue)
+                .register(registry).record(lag, TimeUnit.MILLISECONDS);
+    }
+
+    @Scheduled(fixedDelayString = "${agentx.metrics.queue-poll-interval:15000}")
+    public void refresh() {
+        if (!connection.isOpen()) {
+            return;
+        }
+        for (String queue : QUEUES) {
+            // 队列不存在时被动声明会关闭通道，因此每个队列单独开通道
+            try (Channel channel = connection.createChannel()) {
+                AMQP.Queue.DeclareOk ok = channel.queueDeclarePassive(queue);
+                AtomicLong[] sample = samples.get(queue);
+                sample[0].set(ok.getMessageCount());
+                sample[1].set(ok.getConsumerCount());
+            } catch (Exception e) {
+                log.debug("采样队列积压失败: queue={}, error={}", queue, e.getMessage());
+            }
+        }
+    }
+}
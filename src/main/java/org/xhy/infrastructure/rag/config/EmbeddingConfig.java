@@ -2,10 +2,12 @@ package org.xhy.infrastructure.rag.config;
 
 import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.store.embedding.EmbeddingStore;
-import dev.langchain4j.store.embedding.pgvector.PgVectorEmbeddingStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.xhy.infrastructure.rag.vector.VectorIndexManager;
+import org.xhy.infrastructure.rag.vector.VectorStoreSpec;
 
 /** 嵌入式配置
  * @author shilong.zang
@@ -16,24 +18,35 @@ import org.springframework.context.annotation.Configuration;
 public class EmbeddingConfig {
 
     private final EmbeddingProperties embeddingProperties;
+    private final VectorIndexManager vectorIndexManager;
 
     /** 构造方法，注入配置属性
-     * @param embeddingProperties 嵌入服务配置属性 */
-    public EmbeddingConfig(EmbeddingProperties embeddingProperties) {
+     * @param embeddingProperties 嵌入服务配置属性
+     * @param vectorIndexManager 向量索引管理 */
+    public EmbeddingConfig(EmbeddingProperties embeddingProperties, VectorIndexManager vectorIndexManager) {
         this.embeddingProperties = embeddingProperties;
+        this.vectorIndexManager = vectorIndexManager;
     }
 
     /** 向量化存储配置
      * @return PgVectorEmbeddingStore实例 */
     @Bean
     public EmbeddingStore<TextSegment> initEmbeddingStore() {
-        EmbeddingProperties.VectorStore vectorStoreConfig = embeddingProperties.getVectorStore();
+        return vectorIndexManager.createStore(VectorStoreSpec.of("rag", embeddingProperties.getVectorStore()));
+    }
 
-        return PgVectorEmbeddingStore.builder().table(vectorStoreConfig.getTable())
-                .dropTableFirst(vectorStoreConfig.isDropTableFirst()).createTable(vectorStoreConfig.isCreateTable())
-                .host(vectorStoreConfig.getHost()).port(vectorStoreConfig.getPort()).user(vectorStoreConfig.getUser())
-                .password(vectorStoreConfig.getPassword()).dimension(vectorStoreConfig.getDimension())
-                .database(vectorStoreConfig.getDatabase()).build();
+    /** 维度迁移目标向量库，与知识库向量库同库，仅配置了 embedding.migration.table 时创建；
+     * 目标表不能是当前知识库向量表，迁移开始时会清空目标表
+     * @return PgVectorEmbeddingStore实例 */
+    @Bean(name = "migrationEmbeddingStore")
+    @ConditionalOnExpression("!'${embedding.migration.table:}'.isBlank()")
+    public EmbeddingStore<TextSegment> migrationEmbeddingStore() {
+        VectorStoreSpec target = VectorStoreSpec.migrationTarget(embeddingProperties);
+        if (target.sameTable(VectorStoreSpec.of("rag", embeddingProperties.getVectorStore()))) {
+            throw new IllegalStateException("embedding.migration.table 不能与当前知识库向量表相同: "
+                    + target.qualifiedTableName() + "，切换完成后请清空 VECTOR_DB_MIGRATION_TABLE");
+        }
+        return vectorIndexManager.createStore(target);
     }
 
 }
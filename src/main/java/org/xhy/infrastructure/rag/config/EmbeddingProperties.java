@@ -25,6 +25,50 @@ public class EmbeddingProperties {
     /** 向量存储配置 */
     private VectorStore vectorStore = new VectorStore();
 
+    /** 向量维度迁移配置 */
+    private Migration migration = new Migration();
+
+    /** 向量维度迁移配置内部类 迁移期间检索仍读当前表，重新向量化任务写入目标表，完成后再切换 */
+    public static class Migration {
+        /** 迁移目标表，为空表示没有进行中的迁移 */
+        private String table;
+
+        /** 目标表的向量维度 */
+        private int dimension = 1024;
+
+        /** 重新向量化任务每页处理的向量数 */
+        private int batchSize = 64;
+
+        /** 是否配置了迁移目标表 */
+        public boolean isEnabled() {
+            return table != null && !table.isBlank();
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        public void setTable(String table) {
+            this.table = table;
+        }
+
+        public int getDimension() {
+            return dimension;
+        }
+
+        public void setDimension(int dimension) {
+            this.dimension = dimension;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+    }
+
     /** 向量存储配置内部类 */
     public static class VectorStore {
         /** 数据库主机地址 */
@@ -54,6 +98,9 @@ public class EmbeddingProperties {
         /** 是否创建表 */
         private boolean createTable = false;
 
+        /** 向量索引配置 */
+        private VectorIndexProperties index = new VectorIndexProperties();
+
         public String getHost() {
             return host;
         }
@@ -125,6 +172,14 @@ public class EmbeddingProperties {
         public void setCreateTable(boolean createTable) {
             this.createTable = createTable;
         }
+
+        public VectorIndexProperties getIndex() {
+            return index;
+        }
+
+        public void setIndex(VectorIndexProperties index) {
+            this.index = index;
+        }
     }
 
     /** 获取嵌入服务名称
@@ -198,4 +253,16 @@ public class EmbeddingProperties {
     public void setVectorStore(VectorStore vectorStore) {
         this.vectorStore = vectorStore;
     }
+
+    /** 获取向量维度迁移配置
+     * @return 向量维度迁移配置 */
+    public Migration getMigration() {
+        return migration;
+    }
+
+    /** 设置向量维度迁移配置
+     * @param migration 向量维度迁移配置 */
+    public void setMigration(Migration migration) {
+        this.migration = migration;
+    }
 }
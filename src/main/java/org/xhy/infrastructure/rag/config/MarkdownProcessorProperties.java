@@ -11,6 +11,9 @@ public class MarkdownProcessorProperties {
     /** 段落拆分配置 */
     private SegmentSplit segmentSplit = new SegmentSplit();
 
+    /** 特殊节点翻译配置 */
+    private Translation translation = new Translation();
+
     /** 段落拆分配置内部类 */
     public static class SegmentSplit {
         /** 最大段落字符数 */
@@ -80,6 +83,75 @@ public class MarkdownProcessorProperties {
         }
     }
 
+    /** 特殊节点翻译配置内部类 */
+    public static class Translation {
+        /** 是否启用翻译缓存 */
+        private boolean cacheEnabled = true;
+
+        /** 本节点内存缓存条数，未命中时再查数据库 */
+        private int memoryCacheMaxSize = 10000;
+
+        /** 是否启用批量翻译 */
+        private boolean batchEnabled = true;
+
+        /** 单次批量请求的最大节点数 */
+        private int batchMaxItems = 20;
+
+        /** 单次批量请求的最大内容字符数 */
+        private int batchMaxChars = 8000;
+
+        /** 超过该字符数的节点单独翻译 */
+        private int batchItemMaxChars = 2000;
+
+        public boolean isCacheEnabled() {
+            return cacheEnabled;
+        }
+
+        public void setCacheEnabled(boolean cacheEnabled) {
+            this.cacheEnabled = cacheEnabled;
+        }
+
+        public int getMemoryCacheMaxSize() {
+            return memoryCacheMaxSize;
+        }
+
+        public void setMemoryCacheMaxSize(int memoryCacheMaxSize) {
+            this.memoryCacheMaxSize = memoryCacheMaxSize;
+        }
+
+        public boolean isBatchEnabled() {
+            return batchEnabled;
+        }
+
+        public void setBatchEnabled(boolean batchEnabled) {
+            this.batchEnabled = batchEnabled;
+        }
+
+        public int getBatchMaxItems() {
+            return batchMaxItems;
+        }
+
+        public void setBatchMaxItems(int batchMaxItems) {
+            this.batchMaxItems = batchMaxItems;
+        }
+
+        public int getBatchMaxChars() {
+            return batchMaxChars;
+        }
+
+        public void setBatchMaxChars(int batchMaxChars) {
+            this.batchMaxChars = batchMaxChars;
+        }
+
+        public int getBatchItemMaxChars() {
+            return batchItemMaxChars;
+        }
+
+        public void setBatchItemMaxChars(int batchItemMaxChars) {
+            this.batchItemMaxChars = batchItemMaxChars;
+        }
+    }
+
     public SegmentSplit getSegmentSplit() {
         return segmentSplit;
     }
@@ -87,4 +159,12 @@ public class MarkdownProcessorProperties {
     public void setSegmentSplit(SegmentSplit segmentSplit) {
         this.segmentSplit = segmentSplit;
     }
-}
\ No newline at end of file
+
+    public Translation getTranslation() {
+        return translation;
+    }
+
+    public void setTranslation(Translation translation) {
+        this.translation = translation;
+    }
+}
@@ -0,0 +1,112 @@
+package org.xhy.infrastructure.rag.config;
+
+/** 向量索引配置 由 VectorIndexManager 在向量表上维护近似最近邻索引，参数变化时重建并清理旧索引 */
+public class VectorIndexProperties {
+
+    /** 索引类型：hnsw、ivfflat、none */
+    private String type = "hnsw";
+
+    /** HNSW每个节点的最大连接数 */
+    private int m = 16;
+
+    /** HNSW构建时的候选列表大小 */
+    private int efConstruction = 64;
+
+    /** HNSW查询时的默认候选列表大小，单次查询可通过 VectorSearchTuning 调大 */
+    private int efSearch = 40;
+
+    /** IVFFlat聚类中心数，建议约为行数/1000 */
+    private int lists = 100;
+
+    /** IVFFlat查询时探测的聚类数 */
+    private int probes = 10;
+
+    /** pgvector 0.8+ 的过滤后迭代扫描：relaxed_order、strict_order，为空不设置；更早版本不识别该参数，需置空 */
+    private String iterativeScan;
+
+    /** 按租户或数据集划分的元数据键，非空时为其建立表达式索引 */
+    private String partitionKey;
+
+    /** 分区行数达到该值时为其单独建立部分向量索引，0为不建立 */
+    private int partialIndexMinRows = 0;
+
+    public boolean isEnabled() {
+        return "hnsw".equalsIgnoreCase(type) || "ivfflat".equalsIgnoreCase(type);
+    }
+
+    public boolean isHnsw() {
+        return "hnsw".equalsIgnoreCase(type);
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public int getM() {
+        return m;
+    }
+
+    public void setM(int m) {
+        this.m = m;
+    }
+
+    public int getEfConstruction() {
+        return efConstruction;
+    }
+
+    public void setEfConstruction(int efConstruction) {
+        this.efConstruction = efConstruction;
+    }
+
+    public int getEfSearch() {
+        return efSearch;
+    }
+
+    public void setEfSearch(int efSearch) {
+        this.efSearch = efSearch;
+    }
+
+    public int getLists() {
+        return lists;
+    }
+
+    public void setLists(int lists) {
+        this.lists = lists;
+    }
+
+    public int getProbes() {
+        return probes;
+    }
+
+    public void setProbes(int probes) {
+        this.probes = probes;
+    }
+
+    public String getIterativeScan() {
+        return iterativeScan;
+    }
+
+    public void setIterativeScan(String iterativeScan) {
+        this.iterativeScan = iterativeScan;
+    }
+
+    public String getPartitionKey() {
+        return partitionKey;
+    }
+
+    public void setPartitionKey(String partitionKey) {
+        this.partitionKey = partitionKey;
+    }
+
+    public int getPartialIndexMinRows() {
+        return partialIndexMinRows;
+    }
+
+    public void setPartialIndexMinRows(int partialIndexMinRows) {
+        this.partialIndexMinRows = partialIndexMinRows;
+    }
+}
@@ -1,7 +1,13 @@
 package org.xhy.infrastructure.rag.factory;
 
+import dev.langchain4j.model.embedding.EmbeddingModel;
 import dev.langchain4j.model.openai.OpenAiEmbeddingModel;
 import org.springframework.stereotype.Component;
+import org.xhy.infrastructure.config.ExecutionProperties;
+import org.xhy.infrastructure.exception.BusinessException;
+import org.xhy.infrastructure.llm.limit.ConcurrencyLimitedEmbeddingModel;
+import org.xhy.infrastructure.rag.config.EmbeddingProperties;
+import org.xhy.infrastructure.ratelimit.service.DownstreamLimiter;
 
 /** 嵌入模型工厂类 根据用户配置动态创建嵌入模型实例
  * 
@@ -10,19 +16,34 @@ import org.springframework.stereotype.Component;
 @Component
 public class EmbeddingModelFactory {
 
+    private final DownstreamLimiter downstreamLimiter;
+    private final EmbeddingProperties embeddingProperties;
+
+    public EmbeddingModelFactory(DownstreamLimiter downstreamLimiter, EmbeddingProperties embeddingProperties) {
+        this.downstreamLimiter = downstreamLimiter;
+        this.embeddingProperties = embeddingProperties;
+    }
+
     /** 嵌入模型配置类 */
     public static class EmbeddingConfig {
         private String apiKey;
         private String baseUrl;
         private String modelEndpoint;
+        /** 输出维度，为空时使用目标向量库的维度 */
+        private Integer dimensions;
 
         public EmbeddingConfig() {
         }
 
         public EmbeddingConfig(String apiKey, String baseUrl, String modelName) {
+            this(apiKey, baseUrl, modelName, null);
+        }
+
+        public EmbeddingConfig(String apiKey, String baseUrl, String modelName, Integer dimensions) {
             this.apiKey = apiKey;
             this.baseUrl = baseUrl;
             this.modelEndpoint = modelName;
+            this.dimensions = dimensions;
         }
 
         public String getApiKey() {
@@ -48,14 +69,39 @@ public class EmbeddingModelFactory {
         public void setModelEndpoint(String modelEndpoint) {
             this.modelEndpoint = modelEndpoint;
         }
+
+        public Integer getDimensions() {
+            return dimensions;
+        }
+
+        public void setDimensions(Integer dimensions) {
+            this.dimensions = dimensions;
+        }
     }
 
-    /** 根据配置创建OpenAI嵌入模型实例
+    /** 创建用于知识库向量库的嵌入模型
      * 
      * @param config 嵌入模型配置
-     * @return OpenAiEmbeddingModel实例 */
-    public OpenAiEmbeddingModel createEmbeddingModel(EmbeddingConfig config) {
-        return OpenAiEmbeddingModel.builder().apiKey(config.getApiKey()).baseUrl(config.getBaseUrl())
-                .modelName(config.getModelEndpoint()).dimensions(1024).build();
+     * @return 按服务商限制并发的嵌入模型实例 */
+    public EmbeddingModel createEmbeddingModel(EmbeddingConfig config) {
+        return createEmbeddingModel(config, embeddingProperties.getVectorStore().getDimension());
+    }
+
+    /** 根据配置创建OpenAI嵌入模型实例，各向量库（知识库、记忆、语义缓存）维度独立配置
+     * 
+     * @param config 嵌入模型配置
+     * @param storeDimension 目标向量库的维度
+     * @return 按服务商限制并发的嵌入模型实例 */
+    public EmbeddingModel createEmbeddingModel(EmbeddingConfig config, int storeDimension) {
+        int dimensions = config.getDimensions() != null ? config.getDimensions() : storeDimension;
+        // 维度与向量表不一致时写入和检索都会失败，提前给出明确提示
+        if (dimensions != storeDimension) {
+            throw new BusinessException(String.format("嵌入模型输出维度%d与向量库维度%d不一致，请调整模型维度或按新维度迁移向量库",
+                    dimensions, storeDimension));
+        }
+        OpenAiEmbeddingModel model = OpenAiEmbeddingModel.builder().apiKey(config.getApiKey())
+                .baseUrl(config.getBaseUrl()).modelName(config.getModelEndpoint()).dimensions(dimensions).build();
+        return new ConcurrencyLimitedEmbeddingModel(model, downstreamLimiter, ExecutionProperties.DOWNSTREAM_EMBEDDING,
+                DownstreamLimiter.hostOf(config.getBaseUrl()));
     }
 }
\ No newline at end of file
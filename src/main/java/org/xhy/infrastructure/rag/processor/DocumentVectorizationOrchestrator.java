@@ -3,7 +3,7 @@ package org.xhy.infrastructure.rag.processor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Service;
 import jakarta.annotation.Resource;
 import org.xhy.domain.rag.message.RagDocMessage;
@@ -11,6 +11,7 @@ import org.xhy.domain.rag.message.RagDocSyncStorageMessage;
 import org.xhy.domain.rag.model.DocumentUnitEntity;
 import org.xhy.domain.rag.model.FileDetailEntity;
 import org.xhy.domain.rag.repository.DocumentUnitRepository;
+import org.xhy.domain.rag.service.EmbeddingDomainService;
 import org.xhy.domain.rag.service.FileDetailDomainService;
 import org.xhy.domain.rag.strategy.context.ProcessingContext;
 import org.xhy.infrastructure.mq.core.MessageEnvelope;
@@ -26,7 +27,9 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 /** 向量段落处理器
  * 
- * 负责翻译+分割+向量化的完整处理链： 1. 读取DocumentUnitEntity原文 2. 翻译特殊节点（内存处理） 3. 检查翻译后长度 4. 如超限则二次分割 5. 触发向量化处理 */
+ * 负责翻译+分割+向量化的完整处理链： 1. 读取DocumentUnitEntity原文 2. 翻译特殊节点（内存处理） 3. 检查翻译后长度 4. 如超限则二次分割 5. 触发向量化处理
+ * 
+ * 重新处理文件时，内容未变化的片段直接认领旧向量，全部片段处理成功后删除未被认领的旧向量 */
 @Service
 public class DocumentVectorizationOrchestrator {
 
@@ -38,22 +41,25 @@ public class DocumentVectorizationOrchestrator {
     private final MessagePublisher messagePublisher;
     private final FileDetailDomainService fileDetailDomainService;
     private final UserModelConfigResolver userModelConfigResolver;
+    private final EmbeddingDomainService embeddingDomainService;
 
     @Resource(name = "vectorizationTaskExecutor")
-    private ThreadPoolTaskExecutor vectorizationTaskExecutor;
+    private TaskExecutor vectorizationTaskExecutor;
 
     @Value("${rag.vectorization.parallelism:4}")
     private int vectorizationParallelism;
 
     public DocumentVectorizationOrchestrator(MarkdownAstRewriter translator, MarkdownContentSplitter splitter,
             DocumentUnitRepository documentUnitRepository, MessagePublisher messagePublisher,
-            FileDetailDomainService fileDetailDomainService, UserModelConfigResolver userModelConfigResolver) {
+            FileDetailDomainService fileDetailDomainService, UserModelConfigResolver userModelConfigResolver,
+            EmbeddingDomainService embeddingDomainService) {
         this.translator = translator;
         this.splitter = splitter;
         this.documentUnitRepository = documentUnitRepository;
         this.messagePublisher = messagePublisher;
         this.fileDetailDomainService = fileDetailDomainService;
         this.userModelConfigResolver = userModelConfigResolver;
+        this.embeddingDomainService = embeddingDomainService;
     }
 
     /** 批量处理文档单元
@@ -94,6 +100,16 @@ public class DocumentVectorizationOrchestrator {
 
         log.info("Vector segment processing completed. Success: {}, Error: {}",
                 successCount.get(), errorCount.get());
+
+        // 所有片段都已认领或重新向量化后，删除内容已变化或已删除片段的旧向量；有失败时保留，重试时仍可复用
+        if (errorCount.get() == 0) {
+            try {
+                embeddingDomainService.purgeStaleEmbeddings(units.get(0).getFileId());
+            } catch (Exception e) {
+                log.warn("Failed to purge stale embeddings for file {}: {}", units.get(0).getFileId(),
+                        e.getMessage());
+            }
+        }
     }
 
     /** 处理单个文档单元
@@ -205,6 +221,14 @@ public class DocumentVectorizationOrchestrator {
                 // 继续处理，让后续流程处理模型配置问题
             }
 
+            // 内容未变化时认领重新处理前的向量，向量化消息只推进状态，不再调用嵌入模型
+            try {
+                storageMessage.setReused(embeddingDomainService.reuseEmbedding(storageMessage));
+            } catch (Exception e) {
+                log.warn("Failed to reuse embedding for segment {} of unit {}: {}", segmentIndex,
+                        originalUnit.getId(), e.getMessage());
+            }
+
             // 发送向量化消息到消息队列
             MessageEnvelope<RagDocSyncStorageMessage> env = MessageEnvelope.builder(storageMessage)
                     .addEventType(EventType.DOC_SYNC_RAG)
@@ -12,6 +12,10 @@ import org.springframework.stereotype.Component;
 import org.xhy.domain.rag.strategy.context.ProcessingContext;
 import org.xhy.infrastructure.rag.translator.NodeTranslatorService;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 /** Markdown AST 重写器
  * 
  * 使用 Flexmark AST 重写 markdown 文档，翻译特殊节点： - 代码块 -> 自然语言描述 - 表格 -> 结构化文本描述 - 图片 -> OCR文本识别 - 公式 -> 数学表达式描述
@@ -52,9 +56,16 @@ public class MarkdownAstRewriter {
             // 解析 markdown 为 AST
             Node document = parser.parse(originalContent);
 
+            // 收集所有特殊节点，一次提交翻译（缓存命中与批量请求由翻译服务处理）
+            List<Node> specialNodes = new ArrayList<>();
+            collectSpecialNodes(document, specialNodes);
+            Map<Node, String> translations = specialNodes.isEmpty()
+                    ? Map.of()
+                    : translatorService.translateAll(specialNodes, context);
+
             // 使用文档重写器处理所有节点
             StringBuilder result = new StringBuilder();
-            rewriteDocument(document, result, context);
+            rewriteDocument(document, result, translations);
 
             String translatedContent = result.toString();
 
@@ -73,15 +84,29 @@ public class MarkdownAstRewriter {
         }
     }
 
+    /** 按重写顺序收集特殊节点，特殊节点的子节点不再遍历
+     * 
+     * @param node 当前节点
+     * @param specialNodes 收集结果 */
+    private void collectSpecialNodes(Node node, List<Node> specialNodes) {
+        for (Node child : node.getChildren()) {
+            if (isSpecialNode(child)) {
+                specialNodes.add(child);
+            } else if (!(child instanceof Text)) {
+                collectSpecialNodes(child, specialNodes);
+            }
+        }
+    }
+
     /** 重写整个文档，递归处理所有节点
      * 
      * @param document AST 文档根节点
      * @param result 结果构建器
-     * @param context 处理上下文 */
-    private void rewriteDocument(Node document, StringBuilder result, ProcessingContext context) {
+     * @param translations 特殊节点的翻译结果 */
+    private void rewriteDocument(Node document, StringBuilder result, Map<Node, String> translations) {
         // 递归处理文档的所有子节点
         for (Node child : document.getChildren()) {
-            rewriteNode(child, result, context);
+            rewriteNode(child, result, translations);
         }
     }
 
@@ -89,11 +114,11 @@ public class MarkdownAstRewriter {
      * 
      * @param node 当前节点
      * @param result 结果构建器
-     * @param context 处理上下文 */
-    private void rewriteNode(Node node, StringBuilder result, ProcessingContext context) {
+     * @param translations 特殊节点的翻译结果 */
+    private void rewriteNode(Node node, StringBuilder result, Map<Node, String> translations) {
         if (isSpecialNode(node)) {
             // 特殊节点：翻译后替换
-            String translatedContent = translateSpecialNode(node, context);
+            String translatedContent = translateSpecialNode(node, translations);
             result.append(translatedContent);
 
         } else if (node instanceof Text) {
@@ -107,7 +132,7 @@ public class MarkdownAstRewriter {
 
             result.append(startMarkup);
             for (Node child : node.getChildren()) {
-                rewriteNode(child, result, context);
+                rewriteNode(child, result, translations);
             }
             result.append(endMarkup);
 
@@ -122,7 +147,7 @@ public class MarkdownAstRewriter {
         } else {
             // 其他节点：递归处理子节点
             for (Node child : node.getChildren()) {
-                rewriteNode(child, result, context);
+                rewriteNode(child, result, translations);
             }
         }
     }
@@ -151,12 +176,12 @@ public class MarkdownAstRewriter {
     }
 
     /** 翻译特殊节点 */
-    private String translateSpecialNode(Node node, ProcessingContext context) {
+    private String translateSpecialNode(Node node, Map<Node, String> translations) {
         try {
             String originalContent = node.getChars().toString();
 
-            // 直接传递AST节点给翻译服务
-            String translatedContent = translatorService.translate(node, context);
+            // 读取预先完成的翻译结果
+            String translatedContent = translations.get(node);
 
             if (translatedContent != null && !translatedContent.equals(originalContent)) {
                 log.debug("{} node translated: {} chars -> {} chars", node.getClass().getSimpleName(),
@@ -168,6 +168,7 @@ public class UserModelConfigResolver {
             ModelConfig modelConfig = new ModelConfig(providerEntity.getConfig().getApiKey(),
                     providerEntity.getConfig().getBaseUrl(), modelEntity.getType(), providerEntity.getProtocol(),
                     modelEntity.getModelEndpoint());
+            modelConfig.setDimensions(modelEntity.getDimensions());
 
             log.info("成功获取用户{}的模型配置: modelId={}, baseUrl={}", userId, modelEntity.getModelId(),
                     providerEntity.getConfig().getBaseUrl());
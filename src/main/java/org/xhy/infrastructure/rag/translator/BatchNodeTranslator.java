@@ -0,0 +1,42 @@
+package org.xhy.infrastructure.rag.translator;
+
+import com.vladsch.flexmark.util.ast.Node;
+import org.xhy.domain.rag.strategy.context.ProcessingContext;
+
+/** 支持批量翻译的节点翻译器
+ * 
+ * 翻译结果由“原文 + LLM描述”组合而成的翻译器实现此接口后，NodeTranslatorService 可以把多个小节点打包进一次结构化LLM请求，
+ * 再按节点拆分描述并通过 {@link #composeTranslation} 组合为最终文本 */
+public interface BatchNodeTranslator extends NodeTranslator {
+
+    /** 批量请求中对每个片段的分析要求（不含输出格式约束）
+     * 
+     * @return 分析要求 */
+    String getBatchInstruction();
+
+    /** 提取送入批量请求的节点内容
+     * 
+     * @param node AST节点
+     * @return 节点内容 */
+    String extractBatchContent(Node node);
+
+    /** 使用LLM生成单个节点的描述，失败时抛出异常而不是返回回退描述
+     * 
+     * @param node AST节点
+     * @param context 处理上下文
+     * @return LLM描述 */
+    String describe(Node node, ProcessingContext context);
+
+    /** LLM不可用时的回退描述
+     * 
+     * @param node AST节点
+     * @return 回退描述 */
+    String describeFallback(Node node);
+
+    /** 将描述与原文组合为翻译结果
+     * 
+     * @param node AST节点
+     * @param description 节点描述
+     * @return 翻译后的文本内容 */
+    String composeTranslation(Node node, String description);
+}
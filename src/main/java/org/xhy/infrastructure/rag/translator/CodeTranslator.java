@@ -17,10 +17,16 @@ import org.xhy.infrastructure.llm.protocol.enums.ProviderProtocol;
  * 
  * 将代码块翻译为自然语言描述，便于RAG检索 */
 @Component
-public class CodeTranslator implements NodeTranslator {
+public class CodeTranslator implements BatchNodeTranslator {
 
     private static final Logger log = LoggerFactory.getLogger(CodeTranslator.class);
 
+    private final LLMProviderService llmProviderService;
+
+    public CodeTranslator(LLMProviderService llmProviderService) {
+        this.llmProviderService = llmProviderService;
+    }
+
     @Override
     public boolean canTranslate(Node node) {
         return node instanceof FencedCodeBlock || node instanceof IndentedCodeBlock;
@@ -29,36 +35,27 @@ public class CodeTranslator implements NodeTranslator {
     @Override
     public String translate(Node node, ProcessingContext context) {
         try {
-            // 基于AST节点准确提取代码信息
-            String language = null;
-            String codeContent = null;
             String originalMarkdown = node.getChars().toString();
 
-            if (node instanceof FencedCodeBlock) {
-                FencedCodeBlock codeBlock = (FencedCodeBlock) node;
-                language = codeBlock.getInfo() != null && !codeBlock.getInfo().isBlank()
-                        ? codeBlock.getInfo().toString().trim()
-                        : "text";
-                codeContent = codeBlock.getContentChars().toString(); // 准确提取，无需字符串解析
-            } else if (node instanceof IndentedCodeBlock) {
-                IndentedCodeBlock codeBlock = (IndentedCodeBlock) node;
-                language = "text";
-                codeContent = codeBlock.getContentChars().toString(); // 准确提取，无需字符串解析
-            }
-
             // 检查是否有可用的LLM配置
             if (context.getLlmConfig() == null) {
                 log.warn("No LLM config available for code analysis, using fallback translation");
-                return generateFallbackDescription(codeContent, language);
+                return describeFallback(node);
             }
 
             // 使用LLM生成代码描述
-            String codeDescription = describeCodeWithLLM(codeContent, language, context);
+            String codeDescription;
+            try {
+                codeDescription = describe(node, context);
+            } catch (Exception e) {
+                log.warn("Failed to describe code with LLM: {}", e.getMessage());
+                codeDescription = describeFallback(node);
+            }
 
             // 增强内容：保留原始代码 + 添加LLM描述
-            String enhancedContent = String.format("%s\n\n代码功能描述：%s", originalMarkdown, codeDescription);
+            String enhancedContent = composeTranslation(node, codeDescription);
 
-            log.debug("Enhanced code: language={}, original_length={}, enhanced_length={}", language,
+            log.debug("Enhanced code: language={}, original_length={}, enhanced_length={}", extractLanguage(node),
                     originalMarkdown.length(), enhancedContent.length());
 
             return enhancedContent;
@@ -74,25 +71,64 @@ public class CodeTranslator implements NodeTranslator {
         return 10; // 高优先级处理代码块
     }
 
+    @Override
+    public String getBatchInstruction() {
+        return "请分析每个代码片段并用简洁的中文自然语言描述其功能和作用，便于搜索和理解。每个片段的描述按以下格式：\n" + "功能：[代码的主要功能]\n"
+                + "详细说明：[具体实现逻辑或关键步骤]\n" + "关键词：[便于搜索的关键技术词汇]";
+    }
+
+    @Override
+    public String extractBatchContent(Node node) {
+        String language = extractLanguage(node);
+        return "```" + language + "\n" + extractCode(node) + "\n```";
+    }
+
     /** 使用LLM生成代码描述 */
-    private String describeCodeWithLLM(String code, String language, ProcessingContext context) {
-        try {
-            ChatModel chatModel = LLMProviderService.getStrand(ProviderProtocol.OPENAI, context.getLlmConfig());
+    @Override
+    public String describe(Node node, ProcessingContext context) {
+        String language = extractLanguage(node);
+        ChatModel chatModel = llmProviderService.getStrand(ProviderProtocol.OPENAI, context.getLlmConfig());
 
-            String prompt = buildCodeAnalysisPrompt(code, language);
+        String prompt = buildCodeAnalysisPrompt(extractCode(node), language);
 
-            UserMessage message = UserMessage.from(prompt);
-            ChatResponse response = chatModel.chat(message);
+        UserMessage message = UserMessage.from(prompt);
+        ChatResponse response = chatModel.chat(message);
 
-            String description = response.aiMessage().text().trim();
-            log.debug("Generated code description for {} code: {}", language, description);
+        String description = response.aiMessage().text().trim();
+        log.debug("Generated code description for {} code: {}", language, description);
 
-            return description;
+        return description;
+    }
 
-        } catch (Exception e) {
-            log.warn("Failed to describe code with LLM: {}", e.getMessage());
-            return generateFallbackDescription(code, language);
+    @Override
+    public String describeFallback(Node node) {
+        return generateFallbackDescription(extractCode(node), extractLanguage(node));
+    }
+
+    @Override
+    public String composeTranslation(Node node, String description) {
+        return String.format("%s\n\n代码功能描述：%s", node.getChars().toString(), description);
+    }
+
+    /** 基于AST节点准确提取代码语言 */
+    private String extractLanguage(Node node) {
+        if (node instanceof FencedCodeBlock) {
+            FencedCodeBlock codeBlock = (FencedCodeBlock) node;
+            return codeBlock.getInfo() != null && !codeBlock.getInfo().isBlank()
+                    ? codeBlock.getInfo().toString().trim()
+                    : "text";
+        }
+        return "text";
+    }
+
+    /** 基于AST节点准确提取代码内容，无需字符串解析 */
+    private String extractCode(Node node) {
+        if (node instanceof FencedCodeBlock) {
+            return ((FencedCodeBlock) node).getContentChars().toString();
+        } else if (node instanceof IndentedCodeBlock) {
+            return ((IndentedCodeBlock) node).getContentChars().toString();
         }
+        return node.getChars().toString();
     }
 
     /** 构建代码分析提示词 */
@@ -16,10 +16,16 @@ import org.xhy.infrastructure.llm.protocol.enums.ProviderProtocol;
  * 
  * 将数学公式翻译为自然语言描述，便于RAG检索 */
 @Component
-public class FormulaTranslator implements NodeTranslator {
+public class FormulaTranslator implements BatchNodeTranslator {
 
     private static final Logger log = LoggerFactory.getLogger(FormulaTranslator.class);
 
+    private final LLMProviderService llmProviderService;
+
+    public FormulaTranslator(LLMProviderService llmProviderService) {
+        this.llmProviderService = llmProviderService;
+    }
+
     @Override
     public boolean canTranslate(Node node) {
         // 检测文本节点中的公式
@@ -35,19 +41,24 @@ public class FormulaTranslator implements NodeTranslator {
         try {
             // 基于AST节点准确提取公式信息
             String originalContent = node.getChars().toString();
-            String formulaContent = originalContent.trim();
 
             // 检查是否有可用的LLM配置
             if (context.getLlmConfig() == null) {
                 log.warn("No LLM config available for formula analysis, using fallback translation");
-                return generateFallbackFormulaDescription(formulaContent);
+                return describeFallback(node);
             }
 
             // 使用LLM分析公式
-            String formulaAnalysis = analyzeFormulaWithLLM(formulaContent, context);
+            String formulaAnalysis;
+            try {
+                formulaAnalysis = describe(node, context);
+            } catch (Exception e) {
+                log.warn("Failed to analyze formula with LLM: {}", e.getMessage());
+                formulaAnalysis = describeFallback(node);
+            }
 
             // 增强内容：保留原始公式 + 添加LLM解释
-            String enhancedContent = String.format("%s\n\n公式解释：%s", originalContent, formulaAnalysis);
+            String enhancedContent = composeTranslation(node, formulaAnalysis);
 
             log.debug("Enhanced formula: original_length={}, enhanced_length={}", originalContent.length(),
                     enhancedContent.length());
@@ -65,6 +76,43 @@ public class FormulaTranslator implements NodeTranslator {
         return 25; // 公式处理优先级较低
     }
 
+    @Override
+    public String getBatchInstruction() {
+        return "请分析每个数学公式，用中文解释公式的含义、变量定义和应用场景，便于理解和搜索。每个公式的分析按以下格式：\n" + "公式含义：[公式表达的数学或物理概念]\n"
+                + "变量说明：[各个变量或符号的含义]\n" + "应用场景：[这个公式常用于哪些领域或问题]\n" + "关键词：[便于搜索的数学或科学术语]";
+    }
+
+    @Override
+    public String extractBatchContent(Node node) {
+        return node.getChars().toString().trim();
+    }
+
+    /** 使用LLM分析公式 */
+    @Override
+    public String describe(Node node, ProcessingContext context) {
+        ChatModel chatModel = llmProviderService.getStrand(ProviderProtocol.OPENAI, context.getLlmConfig());
+
+        String prompt = buildFormulaAnalysisPrompt(extractBatchContent(node));
+
+        UserMessage message = UserMessage.from(prompt);
+        ChatResponse response = chatModel.chat(message);
+
+        String analysis = response.aiMessage().text().trim();
+        log.debug("Generated formula analysis: {}", analysis);
+
+        return analysis;
+    }
+
+    @Override
+    public String describeFallback(Node node) {
+        return generateFallbackFormulaDescription(extractBatchContent(node));
+    }
+
+    @Override
+    public String composeTranslation(Node node, String description) {
+        return String.format("%s\n\n公式解释：%s", node.getChars().toString(), description);
+    }
+
     /** 检测内容是否包含数学公式 */
     private boolean containsFormula(String content) {
         if (content == null) {
@@ -80,27 +128,6 @@ public class FormulaTranslator implements NodeTranslator {
                 content.matches(".*[a-zA-Z]\\s*=\\s*.*"); // 简单等式检测
     }
 
-    /** 使用LLM分析公式 */
-    private String analyzeFormulaWithLLM(String formulaContent, ProcessingContext context) {
-        try {
-            ChatModel chatModel = LLMProviderService.getStrand(ProviderProtocol.OPENAI, context.getLlmConfig());
-
-            String prompt = buildFormulaAnalysisPrompt(formulaContent);
-
-            UserMessage message = UserMessage.from(prompt);
-            ChatResponse response = chatModel.chat(message);
-
-            String analysis = response.aiMessage().text().trim();
-            log.debug("Generated formula analysis: {}", analysis);
-
-            return analysis;
-
-        } catch (Exception e) {
-            log.warn("Failed to analyze formula with LLM: {}", e.getMessage());
-            return generateFallbackFormulaDescription(formulaContent);
-        }
-    }
-
     /** 构建公式分析提示词 */
     private String buildFormulaAnalysisPrompt(String formulaContent) {
         StringBuilder prompt = new StringBuilder();
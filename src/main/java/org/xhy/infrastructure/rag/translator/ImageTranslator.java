@@ -11,6 +11,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import org.xhy.domain.rag.strategy.context.ProcessingContext;
 import org.xhy.infrastructure.llm.LLMProviderService;
+import org.xhy.infrastructure.llm.config.ProviderConfig;
 import org.xhy.infrastructure.llm.protocol.enums.ProviderProtocol;
 
 import java.util.Arrays;
@@ -25,6 +26,12 @@ public class ImageTranslator implements NodeTranslator {
 
     private static final Logger log = LoggerFactory.getLogger(ImageTranslator.class);
 
+    private final LLMProviderService llmProviderService;
+
+    public ImageTranslator(LLMProviderService llmProviderService) {
+        this.llmProviderService = llmProviderService;
+    }
+
     @Override
     public boolean canTranslate(Node node) {
         return node instanceof Image;
@@ -64,10 +71,15 @@ public class ImageTranslator implements NodeTranslator {
         return 20; // 图片处理优先级较低，因为可能涉及网络请求
     }
 
+    @Override
+    public ProviderConfig getModelConfig(ProcessingContext context) {
+        return context.getVisionModelConfig();
+    }
+
     /** 使用视觉模型分析图片 */
     private String analyzeImageWithVisionModel(String imageUrl, ProcessingContext context) {
         try {
-            ChatModel chatModel = LLMProviderService.getStrand(ProviderProtocol.OPENAI, context.getVisionModelConfig());
+            ChatModel chatModel = llmProviderService.getStrand(ProviderProtocol.OPENAI, context.getVisionModelConfig());
 
             UserMessage textMessage = UserMessage.from(SYSTEM_PROMPT);
             ImageContent imageContent = new ImageContent(imageUrl);
@@ -0,0 +1,133 @@
+package org.xhy.infrastructure.rag.translator;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.xhy.domain.rag.model.NodeTranslationCacheEntity;
+import org.xhy.domain.rag.repository.NodeTranslationCacheRepository;
+import org.xhy.infrastructure.exception.BusinessException;
+import org.xhy.infrastructure.rag.config.MarkdownProcessorProperties;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** 特殊节点翻译缓存
+ *
+ * 以（翻译器类型、提示词版本、模型、内容哈希）为键持久化翻译结果，重复处理的文件或不同文档中相同的片段不再调用LLM。 本节点内存缓存在前，数据库在后；缓存读写失败只记录日志，不影响翻译流程 */
+@Component
+public class NodeTranslationCache {
+
+    private static final Logger log = LoggerFactory.getLogger(NodeTranslationCache.class);
+
+    /** 单次按主键查询的最大数量 */
+    private static final int QUERY_CHUNK_SIZE = 500;
+
+    private final NodeTranslationCacheRepository repository;
+
+    private final boolean enabled;
+
+    /** 缓存键 -> 翻译结果 */
+    private final Cache<String, String> memory;
+
+    public NodeTranslationCache(NodeTranslationCacheRepository repository, MarkdownProcessorProperties properties) {
+        this.repository = repository;
+        MarkdownProcessorProperties.Translation config = properties.getTranslation();
+        this.enabled = config.isCacheEnabled();
+        this.memory = CacheBuilder.newBuilder().maximumSize(Math.max(0, config.getMemoryCacheMaxSize())).build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** 构建缓存条目
+     *
+     * @param translator 翻译器
+     * @param model 模型名称
+     * @param content 节点原文
+     * @return 未填充翻译结果的缓存条目，id即缓存键 */
+    public NodeTranslationCacheEntity newEntry(NodeTranslator translator, String model, String content) {
+        NodeTranslationCacheEntity entry = new NodeTranslationCacheEntity();
+        entry.setTranslatorType(translator.getType());
+        entry.setPromptVersion(translator.getPromptVersion());
+        entry.setModel(model);
+        entry.setContentHash(sha256(content));
+        entry.setId(sha256(entry.getTranslatorType() + "\n" + entry.getPromptVersion() + "\n" + model + "\n"
+                + entry.getContentHash()));
+        return entry;
+    }
+
+    /** 批量读取缓存
+     *
+     * @param keys 缓存键
+     * @return 命中的缓存键 -> 翻译结果 */
+    public Map<String, String> getAll(Collection<String> keys) {
+        Map<String, String> result = new HashMap<>();
+        if (!enabled || keys.isEmpty()) {
+            return result;
+        }
+
+        result.putAll(memory.getAllPresent(keys));
+        List<String> missing = new ArrayList<>();
+        for (String key : keys) {
+            if (!result.containsKey(key)) {
+                missing.add(key);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        try {
+            for (List<String> chunk : Lists.partition(missing, QUERY_CHUNK_SIZE)) {
+                for (NodeTranslationCacheEntity entity : repository.selectByIds(chunk)) {
+                    result.put(entity.getId(), entity.getTranslatedContent());
+                    memory.put(entity.getId(), entity.getTranslatedContent());
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Failed to load node translation cache: {}", e.getMessage());
+        }
+        return result;
+    }
+
+    /** 批量写入缓存
+     *
+     * @param entries 已填充翻译结果的缓存条目 */
+    public void putAll(Collection<NodeTranslationCacheEntity> entries) {
+        if (!enabled || entries.isEmpty()) {
+            return;
+        }
+
+        for (NodeTranslationCacheEntity entry : entries) {
+            memory.put(entry.getId(), entry.getTranslatedContent());
+        }
+        try {
+            repository.checkedUpsertBatch(entries);
+        } catch (Exception e) {
+            log.warn("Failed to persist {} node translation cache entries: {}", entries.size(), e.getMessage());
+        }
+    }
+
+    private static String sha256(String content) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] digest = md.digest(content.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (Exception e) {
+            throw new BusinessException("计算hash失败", e);
+        }
+    }
+}
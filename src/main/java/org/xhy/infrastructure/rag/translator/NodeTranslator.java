@@ -2,6 +2,7 @@ package org.xhy.infrastructure.rag.translator;
 
 import com.vladsch.flexmark.util.ast.Node;
 import org.xhy.domain.rag.strategy.context.ProcessingContext;
+import org.xhy.infrastructure.llm.config.ProviderConfig;
 
 /** 节点翻译器接口
  * 
@@ -40,4 +41,23 @@ public interface NodeTranslator {
     default String getType() {
         return this.getClass().getSimpleName().replace("Translator", "").toLowerCase();
     }
-}
\ No newline at end of file
+
+    /** 获取提示词版本
+     * 
+     * 作为翻译缓存键的一部分，修改提示词或输出格式后需要递增，旧的缓存结果随即不再命中
+     * 
+     * @return 提示词版本 */
+    default String getPromptVersion() {
+        return "v1";
+    }
+
+    /** 获取翻译使用的模型配置
+     * 
+     * 用于翻译缓存键与批量请求，返回null表示无可用模型（翻译器将使用回退描述，结果不缓存）
+     * 
+     * @param context 处理上下文
+     * @return 模型配置 */
+    default ProviderConfig getModelConfig(ProcessingContext context) {
+        return context.getLlmConfig();
+    }
+}
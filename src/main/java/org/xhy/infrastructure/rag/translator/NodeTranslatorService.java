@@ -1,17 +1,32 @@
 package org.xhy.infrastructure.rag.translator;
 
 import com.vladsch.flexmark.util.ast.Node;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.response.ChatResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.xhy.domain.rag.model.NodeTranslationCacheEntity;
 import org.xhy.domain.rag.strategy.context.ProcessingContext;
+import org.xhy.infrastructure.llm.LLMProviderService;
+import org.xhy.infrastructure.llm.config.ProviderConfig;
+import org.xhy.infrastructure.llm.protocol.enums.ProviderProtocol;
+import org.xhy.infrastructure.rag.config.MarkdownProcessorProperties;
+import org.xhy.infrastructure.utils.JsonUtils;
 
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /** 节点翻译服务
  * 
- * 负责协调所有的 NodeTranslator 实现，选择合适的翻译器处理特定类型的节点 */
+ * 负责协调所有的 NodeTranslator 实现，选择合适的翻译器处理特定类型的节点。 整篇文档的节点通过 {@link #translateAll} 一次提交：先查翻译缓存，
+ * 未命中的小节点按翻译器分组打包为结构化的批量LLM请求，其余节点逐个翻译 */
 @Service
 public class NodeTranslatorService {
 
@@ -19,7 +34,18 @@ public class NodeTranslatorService {
 
     private final List<NodeTranslator> translators;
 
-    public NodeTranslatorService(List<NodeTranslator> translators) {
+    private final NodeTranslationCache translationCache;
+
+    private final MarkdownProcessorProperties.Translation config;
+
+    private final LLMProviderService llmProviderService;
+
+    public NodeTranslatorService(List<NodeTranslator> translators, NodeTranslationCache translationCache,
+            MarkdownProcessorProperties markdownProcessorProperties, LLMProviderService llmProviderService) {
+        this.translationCache = translationCache;
+        this.llmProviderService = llmProviderService;
+        this.config = markdownProcessorProperties.getTranslation();
+
         // 按优先级排序翻译器
         this.translators = translators.stream().sorted(Comparator.comparingInt(NodeTranslator::getPriority)).toList();
 
@@ -65,6 +91,103 @@ public class NodeTranslatorService {
         return originalContent;
     }
 
+    /** 批量翻译一篇文档中的节点
+     * 
+     * 内容相同的节点只翻译一次；有可用模型时结果写入翻译缓存，回退描述不缓存
+     * 
+     * @param nodes AST节点
+     * @param context 处理上下文
+     * @return 节点 -> 翻译后的内容，没有合适翻译器的节点对应原内容 */
+    public Map<Node, String> translateAll(List<Node> nodes, ProcessingContext context) {
+        Map<Node, String> results = new IdentityHashMap<>();
+
+        // 1. 选择翻译器，按缓存键合并相同内容的节点
+        Map<String, List<PendingNode>> pendingByKey = new LinkedHashMap<>();
+        for (Node node : nodes) {
+            NodeTranslator translator = findTranslator(node);
+            ProviderConfig modelConfig = translator != null ? translator.getModelConfig(context) : null;
+            if (modelConfig == null || modelConfig.getModel() == null) {
+                // 无翻译器或无可用模型：走原有逐个翻译流程
+                results.put(node, translate(node, context));
+                continue;
+            }
+            NodeTranslationCacheEntity entry = translationCache.newEntry(translator, modelConfig.getModel(),
+                    node.getChars().toString());
+            pendingByKey.computeIfAbsent(entry.getId(), k -> new ArrayList<>())
+                    .add(new PendingNode(node, translator, modelConfig, entry));
+        }
+        if (pendingByKey.isEmpty()) {
+            return results;
+        }
+
+        // 2. 读取缓存
+        Map<String, String> cached = translationCache.getAll(pendingByKey.keySet());
+        List<PendingNode> misses = new ArrayList<>();
+        for (Map.Entry<String, List<PendingNode>> e : pendingByKey.entrySet()) {
+            String hit = cached.get(e.getKey());
+            if (hit != null) {
+                e.getValue().forEach(pending -> results.put(pending.node, hit));
+            } else {
+                misses.add(e.getValue().get(0));
+            }
+        }
+
+        // 3. 翻译未命中的节点
+        List<NodeTranslationCacheEntity> translated = new ArrayList<>();
+        int batchRequests = 0;
+        int singleRequests = 0;
+        Map<NodeTranslator, List<PendingNode>> batchable = new LinkedHashMap<>();
+        List<PendingNode> singles = new ArrayList<>();
+        for (PendingNode pending : misses) {
+            if (config.isBatchEnabled() && pending.translator instanceof BatchNodeTranslator && pending.batchContent()
+                    .length() <= config.getBatchItemMaxChars()) {
+                batchable.computeIfAbsent(pending.translator, k -> new ArrayList<>()).add(pending);
+            } else {
+                singles.add(pending);
+            }
+        }
+        for (List<PendingNode> group : batchable.values()) {
+            for (List<PendingNode> batch : packBatches(group)) {
+                if (batch.size() == 1) {
+                    singles.add(batch.get(0));
+                    continue;
+                }
+                batchRequests++;
+                requestBatch(batch, context);
+                for (PendingNode pending : batch) {
+                    if (pending.translation == null) {
+                        singles.add(pending);
+                    }
+                }
+            }
+        }
+        for (PendingNode pending : singles) {
+            singleRequests++;
+            translateSingle(pending, context);
+        }
+
+        // 4. 回填结果，写入缓存
+        for (PendingNode pending : misses) {
+            String content = pending.translation != null ? pending.translation : pending.fallback;
+            if (content == null) {
+                content = pending.node.getChars().toString();
+            }
+            for (PendingNode same : pendingByKey.get(pending.entry.getId())) {
+                results.put(same.node, content);
+            }
+            if (pending.translation != null) {
+                pending.entry.setTranslatedContent(pending.translation);
+                translated.add(pending.entry);
+            }
+        }
+        translationCache.putAll(translated);
+
+        log.info("Translated {} special nodes: {} unique, {} cache hits, {} batch requests, {} single requests",
+                nodes.size(), pendingByKey.size(), pendingByKey.size() - misses.size(), batchRequests,
+                singleRequests);
+        return results;
+    }
+
     /** 检查是否有翻译器可以处理指定类型的节点
      * 
      * @param node AST节点
@@ -88,4 +211,173 @@ public class NodeTranslatorService {
                 .map(translator -> String.format("%s (priority: %d)", translator.getType(), translator.getPriority()))
                 .toList();
     }
-}
\ No newline at end of file
+
+    /** 查找第一个可以处理该节点的翻译器 */
+    private NodeTranslator findTranslator(Node node) {
+        for (NodeTranslator translator : translators) {
+            try {
+                if (translator.canTranslate(node)) {
+                    return translator;
+                }
+            } catch (Exception e) {
+                log.warn("Error checking translator capability: {}", e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    /** 按节点数与字符数把同一翻译器的节点分批 */
+    private List<List<PendingNode>> packBatches(List<PendingNode> group) {
+        List<List<PendingNode>> batches = new ArrayList<>();
+        List<PendingNode> current = new ArrayList<>();
+        int currentChars = 0;
+        for (PendingNode pending : group) {
+            int chars = pending.batchContent().length();
+            if (!current.isEmpty() && (current.size() >= config.getBatchMaxItems()
+                    || currentChars + chars > config.getBatchMaxChars())) {
+                batches.add(current);
+                current = new ArrayList<>();
+                currentChars = 0;
+            }
+            current.add(pending);
+            currentChars += chars;
+        }
+        if (!current.isEmpty()) {
+            batches.add(current);
+        }
+        return batches;
+    }
+
+    /** 发送一次批量翻译请求，按编号把描述拆回各节点；未返回的节点由调用方逐个翻译 */
+    private void requestBatch(List<PendingNode> batch, ProcessingContext context) {
+        BatchNodeTranslator translator = (BatchNodeTranslator) batch.get(0).translator;
+        try {
+            ChatModel chatModel = llmProviderService.getStrand(ProviderProtocol.OPENAI, batch.get(0).modelConfig);
+            ChatResponse response = chatModel.chat(UserMessage.from(buildBatchPrompt(translator, batch)));
+
+            Map<Integer, String> descriptions = parseBatchResponse(response.aiMessage().text());
+            for (int i = 0; i < batch.size(); i++) {
+                String description = descriptions.get(i + 1);
+                if (description != null && !description.isBlank()) {
+                    PendingNode pending = batch.get(i);
+                    pending.translation = translator.composeTranslation(pending.node, description.trim());
+                }
+            }
+            log.debug("Batch {} translation: {} nodes, {} answered", translator.getType(), batch.size(),
+                    descriptions.size());
+        } catch (Exception e) {
+            log.warn("Batch {} translation of {} nodes failed, falling back to single requests: {}",
+                    translator.getType(), batch.size(), e.getMessage());
+        }
+    }
+
+    /** 逐个翻译节点 */
+    private void translateSingle(PendingNode pending, ProcessingContext context) {
+        String originalContent = pending.node.getChars().toString();
+        if (pending.translator instanceof BatchNodeTranslator) {
+            BatchNodeTranslator translator = (BatchNodeTranslator) pending.translator;
+            try {
+                pending.translation = translator.composeTranslation(pending.node,
+                        translator.describe(pending.node, context));
+            } catch (Exception e) {
+                log.warn("Translator {} failed to describe {} node: {}", translator.getType(),
+                        pending.node.getClass().getSimpleName(), e.getMessage());
+                pending.fallback = translator.composeTranslation(pending.node, translator.describeFallback(pending.node));
+            }
+            return;
+        }
+
+        try {
+            String translatedContent = pending.translator.translate(pending.node, context);
+            if (translatedContent != null && !translatedContent.equals(originalContent)) {
+                pending.translation = translatedContent;
+            }
+        } catch (Exception e) {
+            log.warn("Translator {} failed to process {} node: {}", pending.translator.getType(),
+                    pending.node.getClass().getSimpleName(), e.getMessage());
+        }
+    }
+
+    /** 构建批量翻译提示词 */
+    private String buildBatchPrompt(BatchNodeTranslator translator, List<PendingNode> batch) {
+        StringBuilder prompt = new StringBuilder();
+        prompt.append(translator.getBatchInstruction()).append("\n\n");
+        prompt.append("下面共有").append(batch.size()).append("个片段，请逐个独立分析。");
+        prompt.append("只输出一个JSON数组，不要输出其他内容，每个片段对应数组中的一个元素，格式为：");
+        prompt.append("{\"id\": 片段编号, \"description\": \"该片段的分析结果\"}\n\n");
+        for (int i = 0; i < batch.size(); i++) {
+            prompt.append("【片段 ").append(i + 1).append("】\n");
+            prompt.append(batch.get(i).batchContent()).append("\n\n");
+        }
+        return prompt.toString();
+    }
+
+    /** 解析批量翻译结果，容忍模型在JSON外包裹代码块或说明文字 */
+    private Map<Integer, String> parseBatchResponse(String text) {
+        Map<Integer, String> descriptions = new HashMap<>();
+        if (text == null) {
+            return descriptions;
+        }
+        int start = text.indexOf('[');
+        int end = text.lastIndexOf(']');
+        if (start < 0 || end <= start) {
+            return descriptions;
+        }
+        for (BatchItem item : JsonUtils.parseArray(text.substring(start, end + 1), BatchItem.class)) {
+            if (item != null && item.getId() != null && item.getDescription() != null) {
+                descriptions.putIfAbsent(item.getId(), item.getDescription());
+            }
+        }
+        return descriptions;
+    }
+
+    /** 待翻译节点 */
+    private static class PendingNode {
+        private final Node node;
+        private final NodeTranslator translator;
+        private final ProviderConfig modelConfig;
+        private final NodeTranslationCacheEntity entry;
+        private String batchContent;
+        /** LLM翻译结果，写入缓存 */
+        private String translation;
+        /** 回退描述，不写入缓存 */
+        private String fallback;
+
+        PendingNode(Node node, NodeTranslator translator, ProviderConfig modelConfig,
+                NodeTranslationCacheEntity entry) {
+            this.node = node;
+            this.translator = translator;
+            this.modelConfig = modelConfig;
+            this.entry = entry;
+        }
+
+        String batchContent() {
+            if (batchContent == null) {
+                batchContent = ((BatchNodeTranslator) translator).extractBatchContent(node);
+            }
+            return batchContent;
+        }
+    }
+
+    /** 批量翻译结果中的单个元素 */
+    public static class BatchItem {
+        private Integer id;
+        private String description;
+
+        public Integer getId() {
+            return id;
+        }
+
+        public void setId(Integer id) {
+            this.id = id;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public void setDescription(String description) {
+            this.description = description;
+        }
+    }
+}
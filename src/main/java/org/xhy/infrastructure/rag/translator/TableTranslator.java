@@ -16,10 +16,16 @@ import org.xhy.infrastructure.llm.protocol.enums.ProviderProtocol;
  * 
  * 将表格内容翻译为自然语言描述，便于RAG检索 */
 @Component
-public class TableTranslator implements NodeTranslator {
+public class TableTranslator implements BatchNodeTranslator {
 
     private static final Logger log = LoggerFactory.getLogger(TableTranslator.class);
 
+    private final LLMProviderService llmProviderService;
+
+    public TableTranslator(LLMProviderService llmProviderService) {
+        this.llmProviderService = llmProviderService;
+    }
+
     @Override
     public boolean canTranslate(Node node) {
         return node instanceof TableBlock;
@@ -30,19 +36,24 @@ public class TableTranslator implements NodeTranslator {
         try {
             // 基于AST节点准确提取表格信息
             String originalMarkdown = node.getChars().toString();
-            String tableContent = originalMarkdown.trim();
 
             // 检查是否有可用的LLM配置
             if (context.getLlmConfig() == null) {
                 log.warn("No LLM config available for table analysis, using fallback translation");
-                return generateFallbackTableDescription(tableContent);
+                return describeFallback(node);
             }
 
             // 使用LLM分析表格内容
-            String tableAnalysis = analyzeTableWithLLM(tableContent, context);
+            String tableAnalysis;
+            try {
+                tableAnalysis = describe(node, context);
+            } catch (Exception e) {
+                log.warn("Failed to analyze table with LLM: {}", e.getMessage());
+                tableAnalysis = describeFallback(node);
+            }
 
             // 增强内容：保留原始表格 + 添加LLM分析
-            String enhancedContent = String.format("%s\n\n表格分析：%s", originalMarkdown, tableAnalysis);
+            String enhancedContent = composeTranslation(node, tableAnalysis);
 
             log.debug("Enhanced table: original_length={}, enhanced_length={}", originalMarkdown.length(),
                     enhancedContent.length());
@@ -60,25 +71,42 @@ public class TableTranslator implements NodeTranslator {
         return 15; // 表格处理优先级稍低于代码
     }
 
+    @Override
+    public String getBatchInstruction() {
+        return "请分析每个Markdown表格的内容，用中文描述表格的结构、主要信息和数据特点，便于搜索和理解。每个表格的分析按以下格式：\n"
+                + "表格结构：[表格有多少行多少列，包含哪些字段]\n" + "主要内容：[表格记录的核心信息]\n" + "数据特点：[数据的分布、趋势或重要发现]\n"
+                + "关键词：[便于搜索的关键词]";
+    }
+
+    @Override
+    public String extractBatchContent(Node node) {
+        return node.getChars().toString().trim();
+    }
+
     /** 使用LLM分析表格内容 */
-    private String analyzeTableWithLLM(String tableContent, ProcessingContext context) {
-        try {
-            ChatModel chatModel = LLMProviderService.getStrand(ProviderProtocol.OPENAI, context.getLlmConfig());
+    @Override
+    public String describe(Node node, ProcessingContext context) {
+        ChatModel chatModel = llmProviderService.getStrand(ProviderProtocol.OPENAI, context.getLlmConfig());
 
-            String prompt = buildTableAnalysisPrompt(tableContent);
+        String prompt = buildTableAnalysisPrompt(extractBatchContent(node));
 
-            UserMessage message = UserMessage.from(prompt);
-            ChatResponse response = chatModel.chat(message);
+        UserMessage message = UserMessage.from(prompt);
+        ChatResponse response = chatModel.chat(message);
 
-            String analysis = response.aiMessage().text().trim();
-            log.debug("Generated table analysis: {}", analysis);
+        String analysis = response.aiMessage().text().trim();
+        log.debug("Generated table analysis: {}", analysis);
 
-            return analysis;
+        return analysis;
+    }
 
-        } catch (Exception e) {
-            log.warn("Failed to analyze table with LLM: {}", e.getMessage());
-            return generateFallbackTableDescription(tableContent);
-        }
+    @Override
+    public String describeFallback(Node node) {
+        return generateFallbackTableDescription(extractBatchContent(node));
+    }
+
+    @Override
+    public String composeTranslation(Node node, String description) {
+        return String.format("%s\n\n表格分析：%s", node.getChars().toString(), description);
     }
 
     /** 构建表格分析提示词 */
@@ -0,0 +1,59 @@
+package org.xhy.infrastructure.rag.vector;
+
+import org.postgresql.ds.PGSimpleDataSource;
+import org.xhy.infrastructure.rag.config.VectorIndexProperties;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/** 向量库数据源 连接建立时通过启动参数设置索引查询参数的默认值，调用方通过 VectorSearchTuning 指定更大的 ef_search 时在取连接后单独设置。
+ * 与原先由 PgVectorEmbeddingStore 内部创建的数据源一样不做连接池，每次查询使用新连接，会话参数不会泄漏到其他查询 */
+public class TunedVectorDataSource extends PGSimpleDataSource {
+
+    private final VectorIndexProperties index;
+
+    public TunedVectorDataSource(VectorStoreSpec spec) {
+        this.index = spec.getIndex();
+        setServerNames(new String[]{spec.getHost()});
+        setPortNumbers(new int[]{spec.getPort()});
+        setDatabaseName(spec.getDatabase());
+        setUser(spec.getUser());
+        setPassword(spec.getPassword());
+        String options = buildOptions(index);
+        if (options != null) {
+            setOptions(options);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connection = super.getConnection();
+        Integer efSearch = VectorSearchTuning.currentEfSearch();
+        if (efSearch != null && index.isHnsw() && efSearch > index.getEfSearch()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET hnsw.ef_search = " + efSearch);
+            } catch (SQLException e) {
+                connection.close();
+                throw e;
+            }
+        }
+        return connection;
+    }
+
+    private static String buildOptions(VectorIndexProperties index) {
+        StringBuilder options = new StringBuilder();
+        if (index.isHnsw()) {
+            options.append("-c hnsw.ef_search=").append(Math.max(1, index.getEfSearch()));
+            if (index.getIterativeScan() != null && !index.getIterativeScan().isBlank()) {
+                options.append(" -c hnsw.iterative_scan=").append(index.getIterativeScan().trim());
+            }
+        } else if ("ivfflat".equalsIgnoreCase(index.getType())) {
+            options.append("-c ivfflat.probes=").append(Math.max(1, index.getProbes()));
+            if (index.getIterativeScan() != null && !index.getIterativeScan().isBlank()) {
+                options.append(" -c ivfflat.iterative_scan=").append(index.getIterativeScan().trim());
+            }
+        }
+        return options.length() > 0 ? options.toString() : null;
+    }
+}
@@ -0,0 +1,374 @@
+package org.xhy.infrastructure.rag.vector;
+
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.pgvector.PgVectorEmbeddingStore;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.xhy.infrastructure.rag.config.VectorIndexProperties;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/** 向量索引管理 创建PgVector向量库并维护其索引：
+ * <ul>
+ * <li>全表近似最近邻索引（HNSW/IVFFlat），索引名包含构建参数，参数变化时先建新索引再删除旧索引</li>
+ * <li>分区键（租户、数据集）上的表达式索引，小分区的过滤查询直接按分区扫描后精确排序</li>
+ * <li>大分区的部分向量索引，单分区查询不再受全表索引过滤后召回不足的影响</li>
+ * </ul>
+ * 索引均以 CONCURRENTLY 方式在后台线程创建，不阻塞写入；多节点同时启动时由咨询锁保证只有一个节点执行。
+ * 启动时同时校验向量列的实际维度，与配置不一致时提示迁移 */
+@Component
+public class VectorIndexManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(VectorIndexManager.class);
+
+    /** HNSW与IVFFlat支持的最大维度 */
+    private static final int MAX_INDEX_DIMENSION = 2000;
+
+    /** 索引名前缀中表名部分的最大长度，保证索引名不超过PostgreSQL的63字节限制 */
+    private static final int MAX_PREFIX_LENGTH = 24;
+
+    private final boolean enabled;
+
+    /** 向量库名称 -> 配置与数据源 */
+    private final Map<String, ManagedStore> stores = new ConcurrentHashMap<>();
+
+    private final ExecutorService maintainer;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public VectorIndexManager(@Value("${agentx.vector-index.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+        this.maintainer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "vector-index-maintainer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** 创建向量库并登记索引维护，索引由 PgVectorEmbeddingStore 之外的本类负责
+     *
+     * @param spec 向量库配置
+     * @return 向量库 */
+    public EmbeddingStore<TextSegment> createStore(VectorStoreSpec spec) {
+        TunedVectorDataSource dataSource = new TunedVectorDataSource(spec);
+        EmbeddingStore<TextSegment> store = PgVectorEmbeddingStore.datasourceBuilder().datasource(dataSource)
+                .table(spec.getTable()).dimension(spec.getDimension()).useIndex(false)
+                .createTable(spec.isCreateTable()).dropTableFirst(spec.isDropTableFirst()).build();
+        stores.put(spec.getName(), new ManagedStore(spec, dataSource));
+        return store;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        submitMaintenance();
+    }
+
+    /** 定期按分区行数调整部分索引 */
+    @Scheduled(initialDelayString = "${agentx.vector-index.reconcile-interval:3600000}",
+            fixedDelayString = "${agentx.vector-index.reconcile-interval:3600000}")
+    public void reconcile() {
+        submitMaintenance();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        maintainer.shutdownNow();
+    }
+
+    private void submitMaintenance() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        maintainer.execute(() -> {
+            try {
+                stores.values().forEach(this::maintain);
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    private void maintain(ManagedStore store) {
+        VectorStoreSpec spec = store.spec;
+        long lockKey = spec.getTable().hashCode();
+        try (Connection connection = store.dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            if (!tryLock(connection, lockKey)) {
+                logger.debug("其他节点正在维护向量索引，跳过: store={}", spec.getName());
+                return;
+            }
+            try {
+                if (!tableExists(connection, spec)) {
+                    return;
+                }
+                boolean dimensionMatched = checkDimension(connection, spec);
+                Map<String, Boolean> indexes = listIndexes(connection, spec);
+                dropInvalidIndexes(connection, spec, indexes);
+                ensurePartitionIndex(connection, spec, indexes);
+                if (dimensionMatched) {
+                    ensureTableIndex(connection, spec, indexes);
+                    reconcilePartialIndexes(connection, spec, indexes);
+                }
+            } finally {
+                unlock(connection, lockKey);
+            }
+        } catch (Exception e) {
+            logger.error("维护向量索引失败: store={}, table={}, error={}", spec.getName(), spec.getTable(), e.getMessage(),
+                    e);
+        }
+    }
+
+    /** 校验向量列维度，不一致时不建向量索引 */
+    private boolean checkDimension(Connection connection, VectorStoreSpec spec) throws SQLException {
+        int actual = queryInt(connection,
+                "SELECT atttypmod FROM pg_attribute WHERE attrelid = to_regclass(?) AND attname = 'embedding'",
+                spec.getTable());
+        if (actual > 0 && actual != spec.getDimension()) {
+            logger.error("向量表{}的维度为{}，与配置的{}不一致，写入与检索将失败。请恢复原维度配置；知识库更换维度时配置"
+                    + " embedding.migration 目标表，调用 POST /admin/rags/re-embedding 在后台重新向量化完成后再切换表",
+                    spec.getTable(), actual, spec.getDimension());
+            return false;
+        }
+        return true;
+    }
+
+    /** 全表向量索引 */
+    private void ensureTableIndex(Connection connection, VectorStoreSpec spec, Map<String, Boolean> indexes)
+            throws SQLException {
+        VectorIndexProperties index = spec.getIndex();
+        String prefix = indexPrefix(spec) + "_ann_";
+        String desired = null;
+        if (index.isEnabled()) {
+            if (spec.getDimension() > MAX_INDEX_DIMENSION) {
+                logger.warn("向量维度{}超过索引支持的上限{}，不建向量索引: table={}", spec.getDimension(), MAX_INDEX_DIMENSION,
+                        spec.getTable());
+            } else {
+                desired = prefix + parameterTag(index);
+                if (!indexes.containsKey(desired)) {
+                    createIndex(connection, spec, desired, "", index);
+                    indexes.put(desired, true);
+                }
+            }
+        }
+        // 新索引可用后再删除参数不同的旧索引
+        for (String name : Set.copyOf(indexes.keySet())) {
+            if (name.startsWith(prefix) && !name.equals(desired)) {
+                dropIndex(connection, spec, name);
+                indexes.remove(name);
+            }
+        }
+    }
+
+    /** 分区键上的表达式索引 */
+    private void ensurePartitionIndex(Connection connection, VectorStoreSpec spec, Map<String, Boolean> indexes)
+            throws SQLException {
+        String partitionKey = spec.getIndex().getPartitionKey();
+        if (partitionKey == null || partitionKey.isBlank()) {
+            return;
+        }
+        String name = indexPrefix(spec) + "_part_" + digest(partitionKey).substring(0, 8);
+        if (indexes.containsKey(name)) {
+            return;
+        }
+        execute(connection, "CREATE INDEX CONCURRENTLY IF NOT EXISTS " + name + " ON " + spec.getTable() + " (("
+                + partitionExpression(partitionKey) + "))");
+        indexes.put(name, true);
+        logger.info("已创建向量表分区键索引: table={}, key={}", spec.getTable(), partitionKey);
+    }
+
+    /** 为行数达到阈值的分区建立部分向量索引，低于阈值一半时删除，避免在阈值附近反复重建 */
+    private void reconcilePartialIndexes(Connection connection, VectorStoreSpec spec, Map<String, Boolean> indexes)
+            throws SQLException {
+        VectorIndexProperties index = spec.getIndex();
+        String partitionKey = index.getPartitionKey();
+        String prefix = indexPrefix(spec) + "_annp_";
+        Set<String> keep = new HashSet<>();
+
+        if (index.isEnabled() && partitionKey != null && !partitionKey.isBlank() && index.getPartialIndexMinRows() > 0
+                && spec.getDimension() <= MAX_INDEX_DIMENSION) {
+            String expression = partitionExpression(partitionKey);
+            Map<String, Long> counts = new HashMap<>();
+            try (PreparedStatement statement = connection.prepareStatement("SELECT " + expression + ", COUNT(*) FROM "
+                    + spec.getTable() + " WHERE " + expression + " IS NOT NULL GROUP BY 1 HAVING COUNT(*) >= ?")) {
+                statement.setLong(1, Math.max(1, index.getPartialIndexMinRows() / 2));
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        counts.put(rs.getString(1), rs.getLong(2));
+                    }
+                }
+            }
+            String tag = parameterTag(index);
+            for (Map.Entry<String, Long> entry : counts.entrySet()) {
+                String name = prefix + digest(entry.getKey()).substring(0, 12) + "_" + tag;
+                if (indexes.containsKey(name)) {
+                    keep.add(name);
+                } else if (entry.getValue() >= index.getPartialIndexMinRows()) {
+                    createIndex(connection, spec, name,
+                            " WHERE " + expression + " = '" + entry.getKey().replace("'", "''") + "'", index);
+                    indexes.put(name, true);
+                    keep.add(name);
+                }
+            }
+        }
+        for (String name : Set.copyOf(indexes.keySet())) {
+            if (name.startsWith(prefix) && !keep.contains(name)) {
+                dropIndex(connection, spec, name);
+                indexes.remove(name);
+            }
+        }
+    }
+
+    /** 上次中断的 CONCURRENTLY 构建会留下无效索引，删除后重建 */
+    private void dropInvalidIndexes(Connection connection, VectorStoreSpec spec, Map<String, Boolean> indexes)
+            throws SQLException {
+        String prefix = indexPrefix(spec) + "_";
+        for (Map.Entry<String, Boolean> entry : Map.copyOf(indexes).entrySet()) {
+            if (!entry.getValue() && entry.getKey().startsWith(prefix)) {
+                dropIndex(connection, spec, entry.getKey());
+                indexes.remove(entry.getKey());
+            }
+        }
+    }
+
+    private void createIndex(Connection connection, VectorStoreSpec spec, String name, String predicate,
+            VectorIndexProperties index) throws SQLException {
+        String method;
+        String options;
+        if (index.isHnsw()) {
+            method = "hnsw";
+            options = "m = " + index.getM() + ", ef_construction = " + index.getEfConstruction();
+        } else {
+            method = "ivfflat";
+            options = "lists = " + index.getLists();
+        }
+        long start = System.currentTimeMillis();
+        logger.info("开始创建向量索引: table={}, index={}", spec.getTable(), name);
+        execute(connection, "CREATE INDEX CONCURRENTLY IF NOT EXISTS " + name + " ON " + spec.getTable() + " USING "
+                + method + " (embedding vector_cosine_ops) WITH (" + options + ")" + predicate);
+        logger.info("向量索引创建完成: table={}, index={}, 耗时{}ms", spec.getTable(), name,
+                System.currentTimeMillis() - start);
+    }
+
+    private void dropIndex(Connection connection, VectorStoreSpec spec, String name) throws SQLException {
+        execute(connection, "DROP INDEX CONCURRENTLY IF EXISTS " + spec.schemaName() + "." + name);
+        logger.info("已删除向量索引: table={}, index={}", spec.getTable(), name);
+    }
+
+    /** 索引名 -> 是否有效 */
+    private Map<String, Boolean> listIndexes(Connection connection, VectorStoreSpec spec) throws SQLException {
+        Map<String, Boolean> indexes = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT c.relname, i.indisvalid FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid "
+                        + "WHERE i.indrelid = to_regclass(?)")) {
+            statement.setString(1, spec.getTable());
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    indexes.put(rs.getString(1), rs.getBoolean(2));
+                }
+            }
+        }
+        return indexes;
+    }
+
+    private boolean tableExists(Connection connection, VectorStoreSpec spec) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT to_regclass(?) IS NOT NULL")) {
+            statement.setString(1, spec.getTable());
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private boolean tryLock(Connection connection, long key) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            statement.setLong(1, key);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private void unlock(Connection connection, long key) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            statement.setLong(1, key);
+            statement.execute();
+        }
+    }
+
+    private int queryInt(Connection connection, String sql, String param) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, param);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : -1;
+            }
+        }
+    }
+
+    private void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    /** 与 PgVectorEmbeddingStore 生成的元数据过滤条件一致，部分索引才能被查询使用 */
+    private static String partitionExpression(String partitionKey) {
+        return "(metadata->>'" + partitionKey.replace("'", "''") + "')";
+    }
+
+    private static String indexPrefix(VectorStoreSpec spec) {
+        String table = spec.tableName().toLowerCase().replaceAll("[^a-z0-9_]", "_");
+        return table.length() > MAX_PREFIX_LENGTH ? table.substring(0, MAX_PREFIX_LENGTH) : table;
+    }
+
+    /** 索引构建参数标签，参数变化时索引名随之变化 */
+    private static String parameterTag(VectorIndexProperties index) {
+        return index.isHnsw()
+                ? "hnsw_m" + index.getM() + "_ef" + index.getEfConstruction()
+                : "ivf_l" + index.getLists();
+    }
+
+    private static String digest(String value) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("MD5");
+            byte[] hash = md.digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (byte b : hash) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (Exception e) {
+            throw new IllegalStateException("计算索引名失败", e);
+        }
+    }
+
+    /** 登记的向量库 */
+    private static final class ManagedStore {
+        private final VectorStoreSpec spec;
+        private final TunedVectorDataSource dataSource;
+
+        private ManagedStore(VectorStoreSpec spec, TunedVectorDataSource dataSource) {
+            this.spec = spec;
+            this.dataSource = dataSource;
+        }
+    }
+}
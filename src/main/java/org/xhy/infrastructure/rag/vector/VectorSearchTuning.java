@@ -0,0 +1,37 @@
+package org.xhy.infrastructure.rag.vector;
+
+import java.util.function.Supplier;
+
+/** 单次向量查询的索引参数 在回调内发起的查询使用指定的 hnsw.ef_search，回调结束后恢复默认值 */
+public final class VectorSearchTuning {
+
+    /** pgvector 允许的 ef_search 上限 */
+    public static final int MAX_EF_SEARCH = 1000;
+
+    private static final ThreadLocal<Integer> EF_SEARCH = new ThreadLocal<>();
+
+    private VectorSearchTuning() {
+    }
+
+    /** 以指定的候选列表大小执行查询，小于向量库默认值时使用默认值
+     *
+     * @param efSearch HNSW查询候选列表大小，至少应不小于返回条数
+     * @param search 查询 */
+    public static <T> T withEfSearch(int efSearch, Supplier<T> search) {
+        Integer previous = EF_SEARCH.get();
+        EF_SEARCH.set(Math.min(efSearch, MAX_EF_SEARCH));
+        try {
+            return search.get();
+        } finally {
+            if (previous != null) {
+                EF_SEARCH.set(previous);
+            } else {
+                EF_SEARCH.remove();
+            }
+        }
+    }
+
+    static Integer currentEfSearch() {
+        return EF_SEARCH.get();
+    }
+}
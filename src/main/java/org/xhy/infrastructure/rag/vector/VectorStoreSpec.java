@@ -0,0 +1,125 @@
+package org.xhy.infrastructure.rag.vector;
+
+import org.xhy.infrastructure.memory.config.MemoryEmbeddingProperties;
+import org.xhy.infrastructure.rag.config.EmbeddingProperties;
+import org.xhy.infrastructure.rag.config.VectorIndexProperties;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/** 一个PgVector向量表的连接、建表与索引配置 */
+public class VectorStoreSpec {
+
+    /** 向量库名称，用于日志 */
+    private final String name;
+    private final String host;
+    private final int port;
+    private final String user;
+    private final String password;
+    private final String database;
+    private final String table;
+    private final int dimension;
+    private final boolean dropTableFirst;
+    private final boolean createTable;
+    private final VectorIndexProperties index;
+
+    public VectorStoreSpec(String name, String host, int port, String user, String password, String database,
+            String table, int dimension, boolean dropTableFirst, boolean createTable, VectorIndexProperties index) {
+        this.name = name;
+        this.host = host;
+        this.port = port;
+        this.user = user;
+        this.password = password;
+        this.database = database;
+        this.table = table;
+        this.dimension = dimension;
+        this.dropTableFirst = dropTableFirst;
+        this.createTable = createTable;
+        this.index = index != null ? index : new VectorIndexProperties();
+    }
+
+    public static VectorStoreSpec of(String name, EmbeddingProperties.VectorStore c) {
+        return new VectorStoreSpec(name, c.getHost(), c.getPort(), c.getUser(), c.getPassword(), c.getDatabase(),
+                c.getTable(), c.getDimension(), c.isDropTableFirst(), c.isCreateTable(), c.getIndex());
+    }
+
+    public static VectorStoreSpec of(String name, MemoryEmbeddingProperties.VectorStore c) {
+        return new VectorStoreSpec(name, c.getHost(), c.getPort(), c.getUser(), c.getPassword(), c.getDatabase(),
+                c.getTable(), c.getDimension(), c.isDropTableFirst(), c.isCreateTable(), c.getIndex());
+    }
+
+    /** 知识库维度迁移的目标表，与知识库向量表同库，由迁移任务写入，不删表 */
+    public static VectorStoreSpec migrationTarget(EmbeddingProperties properties) {
+        EmbeddingProperties.VectorStore c = properties.getVectorStore();
+        EmbeddingProperties.Migration migration = properties.getMigration();
+        return new VectorStoreSpec("rag-migration", c.getHost(), c.getPort(), c.getUser(), c.getPassword(),
+                c.getDatabase(), migration.getTable().trim(), migration.getDimension(), false, true, c.getIndex());
+    }
+
+    /** 是否与另一配置指向同一张表 按库与带模式的表名比较，未加引号的标识符不区分大小写 */
+    public boolean sameTable(VectorStoreSpec other) {
+        return Objects.equals(host, other.host) && port == other.port && Objects.equals(database, other.database)
+                && qualifiedTableName().equals(other.qualifiedTableName());
+    }
+
+    /** 带模式的表名，统一为小写且去掉引号 */
+    public String qualifiedTableName() {
+        return (schemaName() + "." + tableName()).replace("\"", "").toLowerCase(Locale.ROOT);
+    }
+
+    /** 表所在的模式，未指定时为public */
+    public String schemaName() {
+        int dot = table.indexOf('.');
+        return dot > 0 ? table.substring(0, dot) : "public";
+    }
+
+    /** 不含模式的表名 */
+    public String tableName() {
+        int dot = table.indexOf('.');
+        return dot > 0 ? table.substring(dot + 1) : table;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public String getDatabase() {
+        return database;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    public boolean isDropTableFirst() {
+        return dropTableFirst;
+    }
+
+    public boolean isCreateTable() {
+        return createTable;
+    }
+
+    public VectorIndexProperties getIndex() {
+        return index;
+    }
+}
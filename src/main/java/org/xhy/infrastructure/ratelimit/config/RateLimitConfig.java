@@ -11,10 +11,17 @@ public class RateLimitConfig {
     /** 充值限流配置 */
     private final Recharge recharge = new Recharge();
 
+    /** 公开小组件准入控制配置 */
+    private final Widget widget = new Widget();
+
     public Recharge getRecharge() {
         return recharge;
     }
 
+    public Widget getWidget() {
+        return widget;
+    }
+
     /** 充值限流配置 */
     public static class Recharge {
 
@@ -62,4 +69,140 @@ public class RateLimitConfig {
             this.cleanupIntervalMinutes = cleanupIntervalMinutes;
         }
     }
+
+    /** 公开小组件准入控制配置 */
+    public static class Widget {
+
+        /** 是否启用准入控制 */
+        private boolean enabled = true;
+
+        /** 本节点同时进行的小组件对话总数上限 */
+        private int maxConcurrentStreams = 200;
+
+        /** 单个小组件同时进行的对话数上限 */
+        private int maxConcurrentStreamsPerWidget = 20;
+
+        /** 单个小组件并发已满时允许排队的请求数，超出直接返回繁忙 */
+        private int maxQueuedPerWidget = 20;
+
+        /** 排队等待的最长时间（毫秒） */
+        private long queueTimeoutMillis = 3000;
+
+        /** 单个访客（按指纹）每分钟允许的对话数 */
+        private double visitorPermitsPerMinute = 10;
+
+        /** 单个访客允许的突发对话数 */
+        private int visitorBurst = 5;
+
+        /** 单个IP每分钟允许的对话数 */
+        private double ipPermitsPerMinute = 30;
+
+        /** 单个IP允许的突发对话数 */
+        private int ipBurst = 10;
+
+        /** 小组件未设置每日调用限制时使用的默认值，-1为无限制 */
+        private long defaultDailyLimit = -1;
+
+        /** 单次对话最长占用并发名额的时间（毫秒），超时后强制归还，防止连接异常导致名额泄漏 */
+        private long maxStreamHoldMillis = 1800000;
+
+        /** 令牌桶缓存的最大条目数 */
+        private int maxCachedBuckets = 100000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxConcurrentStreams() {
+            return maxConcurrentStreams;
+        }
+
+        public void setMaxConcurrentStreams(int maxConcurrentStreams) {
+            this.maxConcurrentStreams = maxConcurrentStreams;
+        }
+
+        public int getMaxConcurrentStreamsPerWidget() {
+            return maxConcurrentStreamsPerWidget;
+        }
+
+        public void setMaxConcurrentStreamsPerWidget(int maxConcurrentStreamsPerWidget) {
+            this.maxConcurrentStreamsPerWidget = maxConcurrentStreamsPerWidget;
+        }
+
+        public int getMaxQueuedPerWidget() {
+            return maxQueuedPerWidget;
+        }
+
+        public void setMaxQueuedPerWidget(int maxQueuedPerWidget) {
+            this.maxQueuedPerWidget = maxQueuedPerWidget;
+        }
+
+        public long getQueueTimeoutMillis() {
+            return queueTimeoutMillis;
+        }
+
+        public void setQueueTimeoutMillis(long queueTimeoutMillis) {
+            this.queueTimeoutMillis = queueTimeoutMillis;
+        }
+
+        public double getVisitorPermitsPerMinute() {
+            return visitorPermitsPerMinute;
+        }
+
+        public void setVisitorPermitsPerMinute(double visitorPermitsPerMinute) {
+            this.visitorPermitsPerMinute = visitorPermitsPerMinute;
+        }
+
+        public int getVisitorBurst() {
+            return visitorBurst;
+        }
+
+        public void setVisitorBurst(int visitorBurst) {
+            this.visitorBurst = visitorBurst;
+        }
+
+        public double getIpPermitsPerMinute() {
+            return ipPermitsPerMinute;
+        }
+
+        public void setIpPermitsPerMinute(double ipPermitsPerMinute) {
+            this.ipPermitsPerMinute = ipPermitsPerMinute;
+        }
+
+        public int getIpBurst() {
+            return ipBurst;
+        }
+
+        public void setIpBurst(int ipBurst) {
+            this.ipBurst = ipBurst;
+        }
+
+        public long getDefaultDailyLimit() {
+            return defaultDailyLimit;
+        }
+
+        public void setDefaultDailyLimit(long defaultDailyLimit) {
+            this.defaultDailyLimit = defaultDailyLimit;
+        }
+
+        public long getMaxStreamHoldMillis() {
+            return maxStreamHoldMillis;
+        }
+
+        public void setMaxStreamHoldMillis(long maxStreamHoldMillis) {
+            this.maxStreamHoldMillis = maxStreamHoldMillis;
+        }
+
+        public int getMaxCachedBuckets() {
+            return maxCachedBuckets;
+        }
+
+        public void setMaxCachedBuckets(int maxCachedBuckets) {
+            this.maxCachedBuckets = maxCachedBuckets;
+        }
+    }
 }
\ No newline at end of file
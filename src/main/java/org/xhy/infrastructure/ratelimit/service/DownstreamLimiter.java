@@ -0,0 +1,128 @@
+package org.xhy.infrastructure.ratelimit.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.xhy.infrastructure.config.ExecutionProperties;
+import org.xhy.infrastructure.exception.RateLimitException;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/** 下游并发控制 对每个下游（服务商、OCR、嵌入、重排序、工具服务）用信号量限制同时进行的阻塞调用数，替代按线程池大小间接限流。
+ * 调用方线程在许可可用前阻塞等待，虚拟线程下等待不占用平台线程。请求线程超过等待时间抛出限流异常；
+ * 经 background 包装的后台任务（OCR、向量化、记忆等）一直排队等待，不会因下游繁忙丢弃页面或分段 */
+@Service
+public class DownstreamLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(DownstreamLimiter.class);
+
+    /** 当前线程是否在执行后台任务 */
+    private static final ThreadLocal<Boolean> BACKGROUND = new ThreadLocal<>();
+
+    private final ExecutionProperties properties;
+    private final MeterRegistry registry;
+
+    /** 下游[:实例] -> 并发许可 */
+    private final Map<String, Semaphore> semaphores = new ConcurrentHashMap<>();
+
+    public DownstreamLimiter(ExecutionProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        this.registry = registry;
+    }
+
+    /** 包装后台任务，任务内的下游调用不设等待超时，供异步执行器的TaskDecorator使用 */
+    public static Runnable background(Runnable task) {
+        return () -> {
+            Boolean previous = BACKGROUND.get();
+            BACKGROUND.set(Boolean.TRUE);
+            try {
+                task.run();
+            } finally {
+                if (previous == null) {
+                    BACKGROUND.remove();
+                } else {
+                    BACKGROUND.set(previous);
+                }
+            }
+        };
+    }
+
+    /** 在下游许可内执行调用
+     *
+     * @param downstream 下游类型，见 ExecutionProperties.DOWNSTREAM_*
+     * @param instance 下游实例（服务商地址、工具服务名），为空时整个下游共用许可
+     * @param call 阻塞调用
+     * @return 调用结果 */
+    public <T> T call(String downstream, String instance, Supplier<T> call) {
+        Semaphore semaphore = semaphores.computeIfAbsent(key(downstream, instance),
+                k -> new Semaphore(properties.permitsFor(downstream), true));
+        acquire(semaphore, downstream, instance);
+        try {
+            return call.get();
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    /** 在下游许可内执行无返回值的调用 */
+    public void run(String downstream, String instance, Runnable call) {
+        call(downstream, instance, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /** 取地址的主机部分作为下游实例，同一服务商的不同模型共用许可 */
+    public static String hostOf(String baseUrl) {
+        if (baseUrl == null || baseUrl.isBlank()) {
+            return null;
+        }
+        try {
+            String host = URI.create(baseUrl.trim()).getHost();
+            return host != null ? host : baseUrl;
+        } catch (IllegalArgumentException e) {
+            return baseUrl;
+        }
+    }
+
+    private void acquire(Semaphore semaphore, String downstream, String instance) {
+        // 有空闲许可时不记录等待
+        if (semaphore.tryAcquire()) {
+            return;
+        }
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            if (Boolean.TRUE.equals(BACKGROUND.get())) {
+                semaphore.acquire();
+                acquired = true;
+            } else {
+                acquired = semaphore.tryAcquire(properties.getAcquireTimeout(), TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RateLimitException("等待下游服务许可时被中断", e);
+        }
+        Timer.builder("agentx.downstream.wait").description("等待下游并发许可的耗时").tag("downstream", downstream)
+                .tag("outcome", acquired ? "acquired" : "timeout").register(registry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            Counter.builder("agentx.downstream.rejected").description("等待许可超时的下游调用数")
+                    .tag("downstream", downstream).register(registry).increment();
+            logger.warn("下游服务并发已满，等待超时: downstream={}, instance={}", downstream, instance);
+            throw new RateLimitException("下游服务繁忙，请稍后再试");
+        }
+    }
+
+    private static String key(String downstream, String instance) {
+        return instance == null ? downstream : downstream + ":" + instance;
+    }
+}
@@ -0,0 +1,59 @@
+package org.xhy.infrastructure.ratelimit.service;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/** 小组件对话的准入凭证 持有并发名额，对话结束时归还；对话未能发起时退回占用的每日额度。重复归还与退回都是安全的 */
+public class WidgetAdmission implements AutoCloseable {
+
+    /** 未启用准入控制时使用的空凭证 */
+    static final WidgetAdmission UNLIMITED = new WidgetAdmission(null, null);
+
+    private final Runnable releaseAction;
+
+    private final Runnable refundAction;
+
+    private final AtomicBoolean released = new AtomicBoolean(false);
+
+    private final AtomicBoolean refunded = new AtomicBoolean(false);
+
+    private volatile ScheduledFuture<?> watchdog;
+
+    WidgetAdmission(Runnable releaseAction, Runnable refundAction) {
+        this.releaseAction = releaseAction;
+        this.refundAction = refundAction;
+    }
+
+    void setWatchdog(ScheduledFuture<?> watchdog) {
+        this.watchdog = watchdog;
+    }
+
+    /** 归还并发名额 */
+    public void release() {
+        if (releaseAction == null || !released.compareAndSet(false, true)) {
+            return;
+        }
+        ScheduledFuture<?> future = watchdog;
+        if (future != null) {
+            future.cancel(false);
+        }
+        releaseAction.run();
+    }
+
+    /** 对话未能发起时退回每日额度，并归还并发名额 */
+    public void refund() {
+        if (refundAction != null && refunded.compareAndSet(false, true)) {
+            refundAction.run();
+        }
+        release();
+    }
+
+    public boolean isReleased() {
+        return released.get();
+    }
+
+    @Override
+    public void close() {
+        release();
+    }
+}
@@ -0,0 +1,169 @@
+package org.xhy.infrastructure.ratelimit.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.xhy.infrastructure.exception.RateLimitException;
+import org.xhy.infrastructure.ratelimit.config.RateLimitConfig;
+import org.xhy.infrastructure.ratelimit.store.RateLimitStore;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** 公开小组件准入控制 匿名访客发起对话前依次检查：IP与访客令牌桶、小组件每日额度、小组件与节点的并发名额（名额已满时短暂排队）。
+ * 任一项不满足立即抛出限流异常并退回已占用的额度，不占用任何LLM与线程资源 */
+@Service
+public class WidgetAdmissionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WidgetAdmissionService.class);
+
+    private static final String BUSY_MESSAGE = "当前访问人数较多，请稍后再试";
+
+    private final RateLimitConfig.Widget config;
+    private final RateLimitStore rateLimitStore;
+
+    /** 本节点的小组件对话总名额 */
+    private final Semaphore nodeSlots;
+
+    /** 小组件ID -> 并发名额 */
+    private final Map<String, WidgetSlots> widgetSlots = new ConcurrentHashMap<>();
+
+    /** 名额超时强制归还 */
+    private final ScheduledThreadPoolExecutor watchdogExecutor;
+
+    public WidgetAdmissionService(RateLimitConfig rateLimitConfig, RateLimitStore rateLimitStore) {
+        this.config = rateLimitConfig.getWidget();
+        this.rateLimitStore = rateLimitStore;
+        this.nodeSlots = new Semaphore(Math.max(1, config.getMaxConcurrentStreams()));
+        this.watchdogExecutor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "widget-admission-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.watchdogExecutor.setRemoveOnCancelPolicy(true);
+    }
+
+    /** 为一次小组件对话申请准入
+     *
+     * @param widgetId 小组件ID
+     * @param widgetDailyLimit 小组件配置的每日调用限制，-1或null为不限制
+     * @param clientIp 访客IP
+     * @param visitorId 访客指纹
+     * @return 准入凭证，对话结束后必须归还
+     * @throws RateLimitException 触发任一限制时抛出 */
+    public WidgetAdmission admit(String widgetId, Integer widgetDailyLimit, String clientIp, String visitorId) {
+        if (!config.isEnabled()) {
+            return WidgetAdmission.UNLIMITED;
+        }
+
+        // 1. 访客与IP令牌桶
+        if (clientIp != null && !rateLimitStore.tryAcquire("widget:ip:" + clientIp,
+                config.getIpPermitsPerMinute() / 60d, config.getIpBurst())) {
+            logger.warn("小组件访问触发IP限流: widgetId={}, ip={}", widgetId, clientIp);
+            throw new RateLimitException("请求过于频繁，请稍后再试");
+        }
+        if (visitorId != null && !rateLimitStore.tryAcquire("widget:visitor:" + widgetId + ":" + visitorId,
+                config.getVisitorPermitsPerMinute() / 60d, config.getVisitorBurst())) {
+            logger.warn("小组件访问触发访客限流: widgetId={}, visitor={}", widgetId, visitorId);
+            throw new RateLimitException("请求过于频繁，请稍后再试");
+        }
+
+        // 2. 每日额度，先于排队检查，额度用尽时不必等待名额；不限制时也计数，供小组件信息展示当日调用次数
+        long dailyLimit = widgetDailyLimit != null && widgetDailyLimit > 0
+                ? widgetDailyLimit
+                : config.getDefaultDailyLimit();
+        String dailyKey = dailyKey(widgetId);
+        if (!rateLimitStore.tryIncrementDaily(dailyKey, dailyLimit > 0 ? dailyLimit : Long.MAX_VALUE)) {
+            throw new RateLimitException("该小组件今日调用次数已达上限");
+        }
+
+        // 3. 并发名额，已满时在有限队列中等待；未取得名额时退回已占用的每日额度
+        WidgetSlots slots = widgetSlots.computeIfAbsent(widgetId,
+                k -> new WidgetSlots(Math.max(1, config.getMaxConcurrentStreamsPerWidget())));
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getQueueTimeoutMillis());
+        if (!slots.acquire(deadline, config.getMaxQueuedPerWidget())) {
+            rateLimitStore.decrementDaily(dailyKey);
+            logger.warn("小组件并发已满: widgetId={}, 并发上限={}", widgetId, config.getMaxConcurrentStreamsPerWidget());
+            throw new RateLimitException(BUSY_MESSAGE);
+        }
+        if (!acquireUntil(nodeSlots, deadline)) {
+            slots.release();
+            rateLimitStore.decrementDaily(dailyKey);
+            logger.warn("节点小组件对话总并发已满: 上限={}", config.getMaxConcurrentStreams());
+            throw new RateLimitException(BUSY_MESSAGE);
+        }
+
+        WidgetAdmission admission = new WidgetAdmission(() -> {
+            nodeSlots.release();
+            slots.release();
+        }, () -> rateLimitStore.decrementDaily(dailyKey));
+        admission.setWatchdog(watchdogExecutor.schedule(() -> {
+            if (!admission.isReleased()) {
+                logger.warn("小组件对话占用名额超时，强制归还: widgetId={}", widgetId);
+                admission.release();
+            }
+        }, config.getMaxStreamHoldMillis(), TimeUnit.MILLISECONDS));
+        return admission;
+    }
+
+    /** 获取小组件当日已准入的对话数 */
+    public long getDailyCalls(String widgetId) {
+        return rateLimitStore.getDailyCount(dailyKey(widgetId));
+    }
+
+    private static String dailyKey(String widgetId) {
+        return "widget:daily:" + widgetId;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        watchdogExecutor.shutdownNow();
+    }
+
+    private static boolean acquireUntil(Semaphore semaphore, long deadlineNanos) {
+        if (semaphore.tryAcquire()) {
+            return true;
+        }
+        try {
+            return semaphore.tryAcquire(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /** 单个小组件的并发名额与排队计数 */
+    private static class WidgetSlots {
+        private final Semaphore permits;
+        private final AtomicInteger waiting = new AtomicInteger();
+
+        WidgetSlots(int maxConcurrent) {
+            this.permits = new Semaphore(maxConcurrent);
+        }
+
+        boolean acquire(long deadlineNanos, int maxQueued) {
+            if (permits.tryAcquire()) {
+                return true;
+            }
+            // 排队已满时快速失败
+            if (waiting.incrementAndGet() > maxQueued) {
+                waiting.decrementAndGet();
+                return false;
+            }
+            try {
+                return acquireUntil(permits, deadlineNanos);
+            } finally {
+                waiting.decrementAndGet();
+            }
+        }
+
+        void release() {
+            permits.release();
+        }
+    }
+}
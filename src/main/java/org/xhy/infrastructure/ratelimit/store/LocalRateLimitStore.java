@@ -0,0 +1,100 @@
+package org.xhy.infrastructure.ratelimit.store;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.stereotype.Component;
+import org.xhy.infrastructure.ratelimit.config.RateLimitConfig;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** 基于本节点内存的限流计数存储 令牌桶长时间不访问后自动回收，每日计数按日期分键、次日自然过期 */
+@Component
+public class LocalRateLimitStore implements RateLimitStore {
+
+    /** 桶标识 -> 令牌桶 */
+    private final Cache<String, TokenBucket> buckets;
+
+    /** 计数标识:日期 -> 当日计数 */
+    private final Cache<String, AtomicLong> dailyCounters;
+
+    public LocalRateLimitStore(RateLimitConfig rateLimitConfig) {
+        this.buckets = CacheBuilder.newBuilder().expireAfterAccess(Duration.ofMinutes(10))
+                .maximumSize(rateLimitConfig.getWidget().getMaxCachedBuckets()).build();
+        this.dailyCounters = CacheBuilder.newBuilder().expireAfterWrite(Duration.ofHours(25)).build();
+    }
+
+    @Override
+    public boolean tryAcquire(String key, double permitsPerSecond, int burst) {
+        return getOrCreate(buckets, key, () -> new TokenBucket(permitsPerSecond, burst)).tryAcquire();
+    }
+
+    @Override
+    public boolean tryIncrementDaily(String key, long limit) {
+        AtomicLong counter = getOrCreate(dailyCounters, dailyKey(key), AtomicLong::new);
+        while (true) {
+            long current = counter.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (counter.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public void decrementDaily(String key) {
+        AtomicLong counter = dailyCounters.getIfPresent(dailyKey(key));
+        if (counter != null) {
+            counter.updateAndGet(value -> Math.max(0, value - 1));
+        }
+    }
+
+    @Override
+    public long getDailyCount(String key) {
+        AtomicLong counter = dailyCounters.getIfPresent(dailyKey(key));
+        return counter != null ? counter.get() : 0;
+    }
+
+    private static String dailyKey(String key) {
+        return key + ":" + LocalDate.now();
+    }
+
+    private static <T> T getOrCreate(Cache<String, T> cache, String key, Callable<T> loader) {
+        try {
+            return cache.get(key, loader);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /** 令牌桶 按流逝时间补充令牌，最多累积到桶容量 */
+    private static class TokenBucket {
+        private final double permitsPerNano;
+        private final double capacity;
+        private double tokens;
+        private long lastRefillNanos;
+
+        TokenBucket(double permitsPerSecond, int burst) {
+            this.permitsPerNano = permitsPerSecond / 1_000_000_000d;
+            this.capacity = Math.max(1, burst);
+            this.tokens = this.capacity;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        synchronized boolean tryAcquire() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * permitsPerNano);
+            lastRefillNanos = now;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+    }
+}
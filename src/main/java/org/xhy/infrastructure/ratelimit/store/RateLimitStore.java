@@ -0,0 +1,26 @@
+package org.xhy.infrastructure.ratelimit.store;
+
+/** 限流计数存储 令牌桶与每日计数的存取，默认实现保存在本节点内存中，多节点共享额度时可替换为集中式实现 */
+public interface RateLimitStore {
+
+    /** 从令牌桶中取一个令牌
+     *
+     * @param key 桶标识
+     * @param permitsPerSecond 每秒补充的令牌数
+     * @param burst 桶容量
+     * @return 是否取到令牌 */
+    boolean tryAcquire(String key, double permitsPerSecond, int burst);
+
+    /** 在上限内把当日计数加一
+     *
+     * @param key 计数标识
+     * @param limit 当日上限
+     * @return 未超过上限且计数成功时返回true */
+    boolean tryIncrementDaily(String key, long limit);
+
+    /** 回退一次当日计数 */
+    void decrementDaily(String key);
+
+    /** 获取当日计数 */
+    long getDailyCount(String key);
+}
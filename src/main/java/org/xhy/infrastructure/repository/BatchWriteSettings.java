@@ -0,0 +1,24 @@
+package org.xhy.infrastructure.repository;
+
+/** 批量写入配置 仓储接口的默认方法无法注入Spring配置，由 MybatisPlusConfig 在启动时写入 */
+public final class BatchWriteSettings {
+
+    /** 默认批大小 */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private static volatile int batchSize = DEFAULT_BATCH_SIZE;
+
+    private BatchWriteSettings() {
+    }
+
+    public static int getBatchSize() {
+        return batchSize;
+    }
+
+    public static void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize必须大于0");
+        }
+        BatchWriteSettings.batchSize = batchSize;
+    }
+}
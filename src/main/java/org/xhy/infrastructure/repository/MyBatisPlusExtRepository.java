@@ -1,8 +1,19 @@
 package org.xhy.infrastructure.repository;
 
+import com.baomidou.mybatisplus.core.batch.MybatisBatch;
 import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.override.MybatisMapperProxy;
+import com.baomidou.mybatisplus.core.toolkit.MybatisBatchUtils;
+import com.baomidou.mybatisplus.core.toolkit.MybatisUtils;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.SqlSessionFactory;
 import org.xhy.infrastructure.exception.BusinessException;
+import org.xhy.infrastructure.repository.injector.UpsertById;
+
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.List;
 
 public interface MyBatisPlusExtRepository<T> extends BaseMapper<T> {
 
@@ -41,4 +52,81 @@ public interface MyBatisPlusExtRepository<T> extends BaseMapper<T> {
         }
     }
 
+    /** 按主键插入或更新，由 {@link UpsertById} 注入
+     * @param entity 实体
+     * @return 影响行数 */
+    int upsertById(T entity);
+
+    /** 批量插入，按配置的批大小使用JDBC批处理提交，任一行未写入即抛出异常
+     * @param entities 实体集合
+     * @return 插入行数 */
+    default int checkedInsertBatch(Collection<T> entities) {
+        return checkedInsertBatch(entities, BatchWriteSettings.getBatchSize());
+    }
+
+    default int checkedInsertBatch(Collection<T> entities, int batchSize) {
+        if (entities == null || entities.isEmpty()) {
+            return 0;
+        }
+        return checkBatchResults(insert(entities, batchSize), entities.size(), "数据批量插入失败");
+    }
+
+    /** 按主键批量更新非空字段，任一行未更新即抛出异常
+     * @param entities 实体集合
+     * @return 更新行数 */
+    default int checkedUpdateBatchById(Collection<T> entities) {
+        return checkedUpdateBatchById(entities, BatchWriteSettings.getBatchSize());
+    }
+
+    default int checkedUpdateBatchById(Collection<T> entities, int batchSize) {
+        if (entities == null || entities.isEmpty()) {
+            return 0;
+        }
+        return checkBatchResults(updateById(entities, batchSize), entities.size(), "数据批量更新失败");
+    }
+
+    /** 按主键批量插入或更新（ON CONFLICT），任一语句执行失败即抛出异常。 已存在且没有非空字段可覆盖的行按 DO NOTHING 处理，不计入写入行数
+     * @param entities 实体集合
+     * @return 写入行数 */
+    default int checkedUpsertBatch(Collection<T> entities) {
+        return checkedUpsertBatch(entities, BatchWriteSettings.getBatchSize());
+    }
+
+    default int checkedUpsertBatch(Collection<T> entities, int batchSize) {
+        if (entities == null || entities.isEmpty()) {
+            return 0;
+        }
+        MybatisMapperProxy<?> mapperProxy = MybatisUtils.getMybatisMapperProxy(this);
+        SqlSessionFactory sqlSessionFactory = MybatisUtils.getSqlSessionFactory(mapperProxy);
+        MybatisBatch.Method<T> method = new MybatisBatch.Method<>(mapperProxy.getMapperInterface());
+        List<BatchResult> results = MybatisBatchUtils.execute(sqlSessionFactory, entities,
+                method.get(UpsertById.METHOD_NAME), batchSize);
+        int affected = 0;
+        for (BatchResult result : results) {
+            for (int count : result.getUpdateCounts()) {
+                if (count == Statement.EXECUTE_FAILED) {
+                    throw new BusinessException("数据批量写入失败");
+                }
+                affected += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+            }
+        }
+        return affected;
+    }
+
+    /** 汇总批处理结果并校验影响行数。 开启 reWriteBatchedInserts 后驱动对改写的语句返回 SUCCESS_NO_INFO，按成功一行计 */
+    private static int checkBatchResults(List<BatchResult> results, int expected, String errorMessage) {
+        int affected = 0;
+        for (BatchResult result : results) {
+            for (int count : result.getUpdateCounts()) {
+                if (count == Statement.EXECUTE_FAILED || count == 0) {
+                    throw new BusinessException(errorMessage);
+                }
+                affected += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+            }
+        }
+        if (affected < expected) {
+            throw new BusinessException(errorMessage);
+        }
+        return affected;
+    }
 }
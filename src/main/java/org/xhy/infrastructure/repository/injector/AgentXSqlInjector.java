@@ -0,0 +1,20 @@
+package org.xhy.infrastructure.repository.injector;
+
+import com.baomidou.mybatisplus.core.injector.AbstractMethod;
+import com.baomidou.mybatisplus.core.injector.DefaultSqlInjector;
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+import org.apache.ibatis.session.Configuration;
+
+import java.util.List;
+
+/** 在MyBatis-Plus默认方法之外注入项目通用的SQL方法 */
+public class AgentXSqlInjector extends DefaultSqlInjector {
+
+    @Override
+    public List<AbstractMethod> getMethodList(Configuration configuration, Class<?> mapperClass,
+            TableInfo tableInfo) {
+        List<AbstractMethod> methods = super.getMethodList(configuration, mapperClass, tableInfo);
+        methods.add(new UpsertById());
+        return methods;
+    }
+}
@@ -0,0 +1,77 @@
+package org.xhy.infrastructure.repository.injector;
+
+import com.baomidou.mybatisplus.annotation.FieldFill;
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.core.injector.AbstractMethod;
+import com.baomidou.mybatisplus.core.metadata.TableFieldInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+import com.baomidou.mybatisplus.core.toolkit.sql.SqlInjectionUtils;
+import com.baomidou.mybatisplus.core.toolkit.sql.SqlScriptUtils;
+import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
+import org.apache.ibatis.executor.keygen.KeyGenerator;
+import org.apache.ibatis.executor.keygen.NoKeyGenerator;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** 按主键插入或更新（PostgreSQL ON CONFLICT），冲突时只覆盖非空字段，逻辑删除字段与仅插入时填充的字段（如 created_at）保持不变；
+ * 没有可覆盖的非空字段时改为 DO NOTHING，避免生成空的 SET 子句 */
+public class UpsertById extends AbstractMethod {
+
+    public static final String METHOD_NAME = "upsertById";
+
+    private static final String SQL_TEMPLATE = "<script>\nINSERT INTO %s %s VALUES %s ON CONFLICT (%s) %s\n</script>";
+
+    public UpsertById() {
+        super(METHOD_NAME);
+    }
+
+    @Override
+    public MappedStatement injectMappedStatement(Class<?> mapperClass, Class<?> modelClass, TableInfo tableInfo) {
+        if (!tableInfo.havePK()) {
+            // 没有主键的表无法判断冲突，不注入该方法
+            return null;
+        }
+
+        String columnScript = SqlScriptUtils.convertTrim(tableInfo.getAllInsertSqlColumnMaybeIf(null), LEFT_BRACKET,
+                RIGHT_BRACKET, null, COMMA);
+        String valuesScript = SqlScriptUtils.convertTrim(tableInfo.getAllInsertSqlPropertyMaybeIf(null),
+                LEFT_BRACKET, RIGHT_BRACKET, null, COMMA);
+
+        StringBuilder updateSet = new StringBuilder();
+        List<String> updateConditions = new ArrayList<>();
+        for (TableFieldInfo field : tableInfo.getFieldList()) {
+            if (field.isLogicDelete() || field.getFieldFill() == FieldFill.INSERT) {
+                continue;
+            }
+            String condition = field.getProperty() + " != null";
+            String assignment = field.getColumn() + " = EXCLUDED." + field.getColumn() + COMMA;
+            updateSet.append(SqlScriptUtils.convertIf(assignment, condition, false));
+            updateConditions.add(condition);
+        }
+        String conflictScript = "DO NOTHING";
+        if (!updateConditions.isEmpty()) {
+            String updateScript = "DO UPDATE SET "
+                    + SqlScriptUtils.convertTrim(updateSet.toString(), null, null, null, COMMA);
+            conflictScript = SqlScriptUtils.convertChoose(String.join(" or ", updateConditions), updateScript,
+                    conflictScript);
+        }
+
+        String sql = String.format(SQL_TEMPLATE, tableInfo.getTableName(), columnScript, valuesScript,
+                tableInfo.getKeyColumn(), conflictScript);
+        SqlSource sqlSource = languageDriver.createSqlSource(configuration, sql, modelClass);
+
+        KeyGenerator keyGenerator = NoKeyGenerator.INSTANCE;
+        String keyProperty = null;
+        String keyColumn = null;
+        if (tableInfo.getIdType() == IdType.AUTO) {
+            keyGenerator = Jdbc3KeyGenerator.INSTANCE;
+            keyProperty = tableInfo.getKeyProperty();
+            keyColumn = SqlInjectionUtils.removeEscapeCharacter(tableInfo.getKeyColumn());
+        }
+        return this.addInsertMappedStatement(mapperClass, modelClass, methodName, sqlSource, keyGenerator,
+                keyProperty, keyColumn);
+    }
+}
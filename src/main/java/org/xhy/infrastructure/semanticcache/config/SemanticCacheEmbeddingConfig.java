@@ -0,0 +1,28 @@
+package org.xhy.infrastructure.semanticcache.config;
+
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.xhy.infrastructure.config.SemanticCacheProperties;
+import org.xhy.infrastructure.rag.vector.VectorIndexManager;
+import org.xhy.infrastructure.rag.vector.VectorStoreSpec;
+
+/** 语义缓存问题向量存储 Bean 装配（独立表 public.semantic_cache_vector_store） */
+@Configuration
+public class SemanticCacheEmbeddingConfig {
+
+    private final SemanticCacheProperties props;
+    private final VectorIndexManager vectorIndexManager;
+
+    public SemanticCacheEmbeddingConfig(SemanticCacheProperties props, VectorIndexManager vectorIndexManager) {
+        this.props = props;
+        this.vectorIndexManager = vectorIndexManager;
+    }
+
+    /** 语义缓存向量库（PgVector） */
+    @Bean(name = "semanticCacheEmbeddingStore")
+    public EmbeddingStore<TextSegment> semanticCacheEmbeddingStore() {
+        return vectorIndexManager.createStore(VectorStoreSpec.of("semantic-cache", props.getVectorStore()));
+    }
+}
@@ -0,0 +1,81 @@
+package org.xhy.infrastructure.terminal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/** 终端标准输入流 WebSocket 线程只把输入块放入队列后立即返回，由 exec 连接的 stdin 转发线程读取。
+ * 与 PipedInputStream 不同，写入方线程结束后流仍可用，读取也不会按秒轮询等待 */
+class TerminalInputStream extends InputStream {
+
+    private static final byte[] EOF = new byte[0];
+
+    private final LinkedBlockingQueue<byte[]> chunks;
+
+    private byte[] current;
+
+    private int position;
+
+    private volatile boolean closed = false;
+
+    TerminalInputStream(int capacity) {
+        this.chunks = new LinkedBlockingQueue<>(capacity);
+    }
+
+    /** 写入一段输入，队列已满或流已关闭时返回false
+     * @param data 输入字节
+     * @return 是否写入成功 */
+    boolean offer(byte[] data) {
+        if (closed || data == null || data.length == 0) {
+            return !closed;
+        }
+        return chunks.offer(data);
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int n = read(single, 0, 1);
+        return n == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (current == null || position >= current.length) {
+            try {
+                current = chunks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("终端输入读取被中断", e);
+            }
+            position = 0;
+            if (current == EOF) {
+                // 保留结束标记，后续读取继续返回-1
+                chunks.offer(EOF);
+                return -1;
+            }
+        }
+        int n = Math.min(length, current.length - position);
+        System.arraycopy(current, position, buffer, offset, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return current == null ? 0 : current.length - position;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        chunks.clear();
+        chunks.offer(EOF);
+    }
+}
@@ -68,8 +68,10 @@ public class TerminalWebSocketHandler implements WebSocketHandler {
                     String input = jsonNode.get("data").asText();
                     webTerminalService.sendCommand(session.getId(), input);
                 } else if ("resize".equals(type)) {
-                    // 处理终端大小调整（可选实现）
-                    logger.debug("终端大小调整: {}", payload);
+                    int cols = jsonNode.path("cols").asInt(0);
+                    int rows = jsonNode.path("rows").asInt(0);
+                    logger.debug("终端大小调整: {} -> {}x{}", session.getId(), cols, rows);
+                    webTerminalService.resizeTerminal(session.getId(), cols, rows);
                 }
             } catch (Exception e) {
                 // 如果不是JSON格式，直接作为命令发送
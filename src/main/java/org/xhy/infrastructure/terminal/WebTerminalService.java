@@ -4,57 +4,123 @@ import com.github.dockerjava.api.DockerClient;
 import com.github.dockerjava.api.async.ResultCallback;
 import com.github.dockerjava.api.command.ExecCreateCmdResponse;
 import com.github.dockerjava.api.model.Frame;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
 import org.xhy.domain.container.constant.ContainerStatus;
 import org.xhy.domain.container.model.ContainerEntity;
 import org.xhy.domain.container.service.ContainerDomainService;
+import org.xhy.infrastructure.config.TerminalProperties;
 import org.xhy.infrastructure.docker.DockerService;
 import org.xhy.infrastructure.entity.Operator;
 
 import java.io.IOException;
-import java.io.PipedInputStream;
-import java.io.PipedOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
-/** Web终端服务 */
+/** Web终端服务 exec 的标准输入输出直接挂在 Docker 连接上：输入入队即返回，输出在共享的少量 I/O 线程上合并后转发到 WebSocket，
+ * 会话按用户与节点限流，空闲超时自动关闭 */
 @Service
 public class WebTerminalService {
 
     private static final Logger logger = LoggerFactory.getLogger(WebTerminalService.class);
 
+    /** 单个会话排队的输入块上限 */
+    private static final int INPUT_QUEUE_CAPACITY = 1024;
+
+    /** 等待容器进入运行状态的轮询间隔（毫秒） */
+    private static final long CONTAINER_READY_POLL_INTERVAL = 200;
+
+    /** 终端使用的shell，轻量级容器通常只有sh */
+    private static final String SHELL = "/bin/sh";
+
     private final DockerService dockerService;
     private final ContainerDomainService containerDomainService;
+    private final TerminalProperties properties;
     private final ConcurrentHashMap<String, TerminalSession> activeSessions = new ConcurrentHashMap<>();
 
-    public WebTerminalService(DockerService dockerService, ContainerDomainService containerDomainService) {
+    /** 用户ID -> 已占用的会话数，与节点会话数一起在同一把锁内维护 */
+    private final Map<String, Integer> userSessionCounts = new HashMap<>();
+    private int nodeSessionCount = 0;
+
+    /** 输出转发与空闲检查共用的事件线程 */
+    private ScheduledExecutorService eventLoop;
+
+    public WebTerminalService(DockerService dockerService, ContainerDomainService containerDomainService,
+            TerminalProperties properties) {
         this.dockerService = dockerService;
         this.containerDomainService = containerDomainService;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        eventLoop = Executors.newScheduledThreadPool(Math.max(1, properties.getEventLoopThreads()), r -> {
+            Thread thread = new Thread(r, "terminal-io-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long sweepInterval = Math.max(1000, properties.getIdleTimeout() / 4);
+        eventLoop.scheduleWithFixedDelay(this::closeIdleSessions, sweepInterval, sweepInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        activeSessions.keySet().forEach(this::closeTerminalSession);
+        if (eventLoop != null) {
+            eventLoop.shutdownNow();
+        }
     }
 
     /** 创建终端会话
-     * 
+     *
      * @param sessionId 会话ID
      * @param containerId 数据库容器ID
      * @param webSocketSession WebSocket会话
      * @return 是否创建成功 */
     public boolean createTerminalSession(String sessionId, String containerId, WebSocketSession webSocketSession) {
+        WebSocketSession outbound = new ConcurrentWebSocketSessionDecorator(webSocketSession,
+                properties.getSendTimeLimit(), properties.getSendBufferLimit());
+        String ownerId = null;
         try {
             // 根据数据库容器ID查找容器实体
             ContainerEntity containerEntity = containerDomainService.getContainerById(containerId);
             if (containerEntity == null) {
-                sendMessage(webSocketSession, "错误: 容器不存在\r\n");
+                sendMessage(outbound, "错误: 容器不存在\r\n");
                 return false;
             }
 
             // 获取实际的Docker容器ID
             String dockerContainerId = containerEntity.getDockerContainerId();
             if (dockerContainerId == null || dockerContainerId.trim().isEmpty()) {
-                sendMessage(webSocketSession, "错误: Docker容器ID为空\r\n");
+                sendMessage(outbound, "错误: Docker容器ID为空\r\n");
+                return false;
+            }
+
+            ownerId = containerEntity.getUserId() != null ? containerEntity.getUserId() : containerId;
+            String rejectReason = reserveSlot(ownerId);
+            if (rejectReason != null) {
+                logger.warn("终端会话数超限，拒绝创建: {} -> {}, reason={}", sessionId, containerId, rejectReason);
+                sendMessage(outbound, "错误: " + rejectReason + "\r\n");
+                ownerId = null;
                 return false;
             }
 
@@ -63,10 +129,10 @@ public class WebTerminalService {
             logger.info("容器当前状态: {} -> {}", dockerContainerId, containerStatus);
 
             if (!"running".equalsIgnoreCase(containerStatus)) {
-                sendMessage(webSocketSession, "容器未运行，正在启动容器...\r\n");
+                sendMessage(outbound, "容器未运行，正在启动容器...\r\n");
                 try {
                     dockerService.startContainer(dockerContainerId);
-                    sendMessage(webSocketSession, "容器启动成功\r\n");
+                    sendMessage(outbound, "容器启动成功\r\n");
 
                     // 更新数据库中的容器状态
                     try {
@@ -76,20 +142,17 @@ public class WebTerminalService {
                     } catch (Exception updateException) {
                         logger.warn("更新数据库容器状态失败，但容器已成功启动: {}", containerId, updateException);
                     }
-
-                    // 等待容器完全启动
-                    Thread.sleep(2000);
                 } catch (Exception e) {
                     logger.error("启动容器失败: {}", dockerContainerId, e);
-                    sendMessage(webSocketSession, "错误: 启动容器失败 - " + e.getMessage() + "\r\n");
+                    sendMessage(outbound, "错误: 启动容器失败 - " + e.getMessage() + "\r\n");
                     return false;
                 }
-            }
 
-            // 再次检查容器是否可以执行命令
-            if (!dockerService.canExecuteCommands(dockerContainerId)) {
-                sendMessage(webSocketSession, "错误: 容器启动后仍无法连接\r\n");
-                return false;
+                // 容器进入运行状态即可创建exec，不再固定等待
+                if (!awaitContainerRunning(dockerContainerId)) {
+                    sendMessage(outbound, "错误: 容器启动后仍无法连接\r\n");
+                    return false;
+                }
             }
 
             // 更新容器最后访问时间
@@ -102,22 +165,27 @@ public class WebTerminalService {
             }
 
             // 创建终端会话（使用Docker容器ID）
-            TerminalSession terminalSession = new TerminalSession(sessionId, dockerContainerId, webSocketSession);
+            TerminalSession terminalSession = new TerminalSession(sessionId, ownerId, dockerContainerId, outbound);
+            activeSessions.put(sessionId, terminalSession);
+            ownerId = null; // 名额归会话所有，关闭会话时释放
             terminalSession.start();
 
-            activeSessions.put(sessionId, terminalSession);
             logger.info("创建终端会话成功: {} -> {} (Docker: {})", sessionId, containerId, dockerContainerId);
-
             return true;
         } catch (Exception e) {
             logger.error("创建终端会话失败: {} -> {}", sessionId, containerId, e);
-            sendMessage(webSocketSession, "错误: " + e.getMessage() + "\r\n");
+            sendMessage(outbound, "错误: " + e.getMessage() + "\r\n");
+            closeTerminalSession(sessionId);
             return false;
+        } finally {
+            if (ownerId != null) {
+                releaseSlot(ownerId);
+            }
         }
     }
 
     /** 发送命令到终端
-     * 
+     *
      * @param sessionId 会话ID
      * @param command 命令 */
     public void sendCommand(String sessionId, String command) {
@@ -127,168 +195,159 @@ public class WebTerminalService {
         }
     }
 
+    /** 调整终端窗口大小
+     *
+     * @param sessionId 会话ID
+     * @param cols 列数
+     * @param rows 行数 */
+    public void resizeTerminal(String sessionId, int cols, int rows) {
+        TerminalSession session = activeSessions.get(sessionId);
+        if (session != null && cols > 0 && rows > 0) {
+            session.resize(cols, rows);
+        }
+    }
+
     /** 关闭终端会话
-     * 
+     *
      * @param sessionId 会话ID */
     public void closeTerminalSession(String sessionId) {
         TerminalSession session = activeSessions.remove(sessionId);
         if (session != null) {
             session.close();
+            releaseSlot(session.ownerId);
             logger.info("关闭终端会话: {}", sessionId);
         }
     }
 
-    /** 发送消息到WebSocket */
-    private void sendMessage(WebSocketSession session, String message) {
-        try {
-            if (session.isOpen()) {
-                session.sendMessage(new TextMessage(message));
-            }
-        } catch (IOException e) {
-            logger.error("发送WebSocket消息失败", e);
+    /** 占用一个会话名额
+     * @return 超限原因，成功时返回null */
+    private synchronized String reserveSlot(String ownerId) {
+        if (nodeSessionCount >= properties.getMaxSessionsPerNode()) {
+            return "当前节点终端会话数已达上限，请稍后重试";
+        }
+        int userCount = userSessionCounts.getOrDefault(ownerId, 0);
+        if (userCount >= properties.getMaxSessionsPerUser()) {
+            return "终端会话数已达上限(" + properties.getMaxSessionsPerUser() + ")，请先关闭其他终端";
         }
+        userSessionCounts.put(ownerId, userCount + 1);
+        nodeSessionCount++;
+        return null;
     }
 
-    /** 测试shell是否在容器中可用 */
-    private boolean testShellAvailable(DockerClient dockerClient, String containerId, String shell) {
-        try {
-            logger.debug("测试shell: {} 通过创建exec会话", shell);
-            // 直接尝试创建exec会话来测试shell是否存在
-            ExecCreateCmdResponse execCreateCmd = dockerClient.execCreateCmd(containerId).withAttachStdout(true)
-                    .withAttachStderr(true).withCmd(shell, "-c", "echo 'shell_test_ok'").exec();
-
-            String execId = execCreateCmd.getId();
-
-            // 启动并等待执行完成
-            StringBuilder output = new StringBuilder();
-            dockerClient.execStartCmd(execId).withDetach(false).exec(new ResultCallback.Adapter<Frame>() {
-                @Override
-                public void onNext(Frame frame) {
-                    if (frame.getPayload() != null) {
-                        output.append(new String(frame.getPayload()));
-                    }
-                }
-            }).awaitCompletion(3, TimeUnit.SECONDS);
+    private synchronized void releaseSlot(String ownerId) {
+        Integer userCount = userSessionCounts.get(ownerId);
+        if (userCount == null) {
+            return;
+        }
+        if (userCount <= 1) {
+            userSessionCounts.remove(ownerId);
+        } else {
+            userSessionCounts.put(ownerId, userCount - 1);
+        }
+        nodeSessionCount--;
+    }
 
-            // 检查执行结果
-            var inspectResponse = dockerClient.inspectExecCmd(execId).exec();
-            Integer exitCode = inspectResponse.getExitCode();
+    /** 等待容器进入运行状态 */
+    private boolean awaitContainerRunning(String dockerContainerId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + properties.getContainerStartTimeout();
+        while (true) {
+            if (dockerService.canExecuteCommands(dockerContainerId)) {
+                return true;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            Thread.sleep(CONTAINER_READY_POLL_INTERVAL);
+        }
+    }
 
-            boolean success = exitCode != null && exitCode == 0 && output.toString().contains("shell_test_ok");
-            logger.debug("Shell {} 测试结果: exitCode={}, output={}, success={}", shell, exitCode, output.toString().trim(),
-                    success);
-            return success;
+    /** 关闭超过空闲时间的会话 */
+    private void closeIdleSessions() {
+        long now = System.currentTimeMillis();
+        for (TerminalSession session : activeSessions.values()) {
+            if (now - session.lastActivityAt > properties.getIdleTimeout()) {
+                logger.info("终端会话空闲超时: {}", session.sessionId);
+                sendMessage(session.webSocketSession, "\r\n[终端空闲超时，连接已断开]\r\n");
+                closeTerminalSession(session.sessionId);
+                try {
+                    session.webSocketSession.close(CloseStatus.GOING_AWAY.withReason("idle timeout"));
+                } catch (IOException e) {
+                    logger.debug("关闭空闲WebSocket失败: {}", session.sessionId, e);
+                }
+            }
+        }
+    }
 
+    /** 发送消息到WebSocket */
+    private void sendMessage(WebSocketSession session, String message) {
+        try {
+            if (session.isOpen()) {
+                session.sendMessage(new TextMessage(message));
+            }
         } catch (Exception e) {
-            logger.debug("测试Shell {} 失败: {}", shell, e.getMessage());
-            return false;
+            logger.error("发送WebSocket消息失败", e);
         }
     }
 
     /** 终端会话类 */
     private class TerminalSession {
         private final String sessionId;
+        private final String ownerId;
         private final String containerId;
         private final WebSocketSession webSocketSession;
-        private String execId;
-        private PipedOutputStream inputStream;
-        private boolean active = false;
+        private final TerminalInputStream inputStream = new TerminalInputStream(INPUT_QUEUE_CAPACITY);
+        private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        /** 待转发的输出，由 Docker 回调线程写入、事件线程取出 */
+        private final StringBuilder pendingOutput = new StringBuilder();
+
+        /** 跨帧被截断的UTF-8字节 */
+        private ByteBuffer undecoded = ByteBuffer.allocate(0);
+
+        private volatile String execId;
+        private volatile ResultCallback.Adapter<Frame> execCallback;
+        private volatile boolean active = false;
+        private volatile long lastActivityAt = System.currentTimeMillis();
+
+        private long lastOutputTime = 0;
+        private int consecutivePrompts = 0;
+        private boolean suppressOutput = false;
 
-        public TerminalSession(String sessionId, String containerId, WebSocketSession webSocketSession) {
+        TerminalSession(String sessionId, String ownerId, String containerId, WebSocketSession webSocketSession) {
             this.sessionId = sessionId;
+            this.ownerId = ownerId;
             this.containerId = containerId;
             this.webSocketSession = webSocketSession;
         }
 
-        public void start() throws Exception {
+        void start() throws Exception {
             logger.info("开始创建终端会话: {} -> {}", sessionId, containerId);
-
-            // 创建Docker exec会话
             DockerClient dockerClient = dockerService.getDockerClient();
 
             try {
-                // 测试可用的shell (优先使用sh，因为轻量级容器通常只有sh)
-                String[] shells = {"/bin/sh", "/bin/bash"};
-                String selectedShell = null;
-
-                for (String shell : shells) {
-                    logger.debug("测试shell是否可用: {}", shell);
-                    if (testShellAvailable(dockerClient, containerId, shell)) {
-                        selectedShell = shell;
-                        logger.info("选择shell: {}", shell);
-                        break;
-                    } else {
-                        logger.warn("Shell {} 不可用", shell);
-                    }
-                }
-
-                if (selectedShell == null) {
-                    throw new Exception("容器中没有可用的shell (/bin/bash 或 /bin/sh)");
-                }
-
-                // 创建真正的exec会话
-                logger.debug("创建exec会话使用shell: {}", selectedShell);
                 ExecCreateCmdResponse execCreateCmd = dockerClient.execCreateCmd(containerId).withAttachStdout(true)
                         .withAttachStderr(true).withAttachStdin(true).withTty(true).withWorkingDir("/") // 设置工作目录为根目录，避免特定应用目录的干扰
-                        .withCmd(selectedShell).exec();
+                        .withCmd(SHELL).exec();
 
                 execId = execCreateCmd.getId();
                 logger.info("成功创建exec会话，execId: {}", execId);
 
-                // 创建输入管道
-                PipedInputStream pipedInputStream = new PipedInputStream();
-                inputStream = new PipedOutputStream(pipedInputStream);
-
-                // 启动exec会话
-                logger.debug("启动exec会话: {}", execId);
-                dockerClient.execStartCmd(execId).withDetach(false).withTty(true).withStdIn(pipedInputStream)
-                        .exec(new ResultCallback.Adapter<Frame>() {
-                            private long lastOutputTime = 0;
-                            private String lastOutput = "";
-                            private int consecutivePrompts = 0;
-                            private boolean suppressOutput = false;
-
+                execCallback = dockerClient.execStartCmd(execId).withDetach(false).withTty(true)
+                        .withStdIn(inputStream).exec(new ResultCallback.Adapter<Frame>() {
                             @Override
                             public void onNext(Frame frame) {
                                 if (frame != null && frame.getPayload() != null) {
-                                    String output = new String(frame.getPayload());
-                                    long currentTime = System.currentTimeMillis();
-
-                                    // 简化检测逻辑：只检测空的shell提示符行
-                                    String trimmedOutput = output.trim();
-                                    boolean isEmptyPrompt = trimmedOutput.matches("^[/#$]\\s*$")
-                                            || trimmedOutput.matches("^\\s*[/#$]\\s*$");
-
-                                    // 如果是连续的空提示符，且时间间隔很短
-                                    if (isEmptyPrompt && (currentTime - lastOutputTime) < 100) {
-                                        consecutivePrompts++;
-
-                                        if (consecutivePrompts > 3) {
-                                            if (!suppressOutput) {
-                                                logger.warn("检测到连续空提示符输出，启用抑制模式");
-                                                suppressOutput = true;
-                                            }
-                                            return; // 跳过连续的空提示符
-                                        }
-                                    } else {
-                                        // 重置计数器和抑制状态
-                                        if (consecutivePrompts > 0 || suppressOutput) {
-                                            consecutivePrompts = 0;
-                                            if (suppressOutput) {
-                                                logger.info("检测到有效输出，退出抑制模式");
-                                                suppressOutput = false;
-                                            }
-                                        }
-                                    }
-
-                                    lastOutput = output;
-                                    lastOutputTime = currentTime;
-                                    sendMessage(webSocketSession, output);
+                                    onOutput(frame.getPayload());
                                 }
                             }
 
                             @Override
                             public void onError(Throwable throwable) {
+                                if (!active) {
+                                    return;
+                                }
                                 logger.error("终端会话错误: {}", sessionId, throwable);
                                 sendMessage(webSocketSession, "\r\n[终端连接出错: " + throwable.getMessage() + "]\r\n");
                                 closeTerminalSession(sessionId);
@@ -307,7 +366,7 @@ public class WebTerminalService {
                 sendMessage(webSocketSession, "\033[2J\033[H"); // 清屏并移动光标到左上角
                 sendMessage(webSocketSession, "Welcome to AgentX Container Terminal\r\n");
                 sendMessage(webSocketSession, "Container: " + containerId + "\r\n");
-                sendMessage(webSocketSession, "Shell: " + selectedShell + "\r\n");
+                sendMessage(webSocketSession, "Shell: " + SHELL + "\r\n");
                 sendMessage(webSocketSession, "Working Directory: /\r\n");
                 sendMessage(webSocketSession, "Type 'exit' to close the terminal.\r\n\r\n");
 
@@ -319,38 +378,120 @@ public class WebTerminalService {
             }
         }
 
-        public void sendCommand(String command) {
-            if (active && inputStream != null) {
+        void sendCommand(String command) {
+            if (!active) {
+                return;
+            }
+            lastActivityAt = System.currentTimeMillis();
+            // 直接发送命令，不添加额外的换行符（xterm.js会处理回车）
+            if (!inputStream.offer(command.getBytes(StandardCharsets.UTF_8))) {
+                logger.warn("终端输入积压，丢弃输入: {}", sessionId);
+            }
+        }
+
+        void resize(int cols, int rows) {
+            if (!active || execId == null) {
+                return;
+            }
+            eventLoop.execute(() -> {
                 try {
-                    // 直接发送命令，不添加额外的换行符（xterm.js会处理回车）
-                    inputStream.write(command.getBytes());
-                    inputStream.flush();
-                } catch (IOException e) {
-                    logger.error("发送命令失败: {}", sessionId, e);
+                    dockerService.getDockerClient().resizeExecCmd(execId).withSize(rows, cols).exec();
+                } catch (Exception e) {
+                    logger.debug("调整终端大小失败: {}, error={}", sessionId, e.getMessage());
                 }
-            }
+            });
         }
 
-        public void close() {
-            active = false;
+        /** Docker 回调线程：解码并暂存输出，合并后由事件线程统一转发 */
+        private void onOutput(byte[] payload) {
+            String output;
+            synchronized (pendingOutput) {
+                output = decode(payload);
+                if (output.isEmpty() || shouldSuppress(output)) {
+                    return;
+                }
+                pendingOutput.append(output);
+            }
+            lastActivityAt = System.currentTimeMillis();
+            if (flushScheduled.compareAndSet(false, true)) {
+                eventLoop.execute(this::flush);
+            }
+        }
 
+        /** 同一会话同时只有一个flush在执行：标记在发送完成且无待转发输出时才释放，
+         * 发送期间到达的输出由下一轮转发，不会被另一个事件线程抢先发送 */
+        private void flush() {
+            String output;
+            synchronized (pendingOutput) {
+                if (pendingOutput.length() == 0) {
+                    flushScheduled.set(false);
+                    return;
+                }
+                output = pendingOutput.toString();
+                pendingOutput.setLength(0);
+            }
             try {
-                if (inputStream != null) {
-                    inputStream.close();
+                if (webSocketSession.isOpen()) {
+                    webSocketSession.sendMessage(new TextMessage(output));
                 }
-            } catch (IOException e) {
-                logger.error("关闭输入流失败: {}", sessionId, e);
+            } catch (Exception e) {
+                // 慢客户端积压超限时装饰器会抛出异常，直接断开
+                logger.warn("转发终端输出失败，关闭会话: {}, error={}", sessionId, e.getMessage());
+                closeTerminalSession(sessionId);
+                return;
             }
+            // 重新排队而不是循环发送，避免输出持续的会话占住事件线程
+            eventLoop.execute(this::flush);
+        }
 
-            if (execId != null) {
+        /** 按UTF-8解码，保留跨帧截断的字节 */
+        private String decode(byte[] payload) {
+            ByteBuffer in = ByteBuffer.allocate(undecoded.remaining() + payload.length);
+            in.put(undecoded).put(payload).flip();
+            CharBuffer out = CharBuffer.allocate(in.remaining());
+            decoder.decode(in, out, false);
+            undecoded = ByteBuffer.allocate(in.remaining()).put(in).flip();
+            return out.flip().toString();
+        }
+
+        /** 检测连续的空shell提示符输出，避免刷屏 */
+        private boolean shouldSuppress(String output) {
+            long currentTime = System.currentTimeMillis();
+            String trimmedOutput = output.trim();
+            boolean isEmptyPrompt = trimmedOutput.matches("^\\s*[/#$]\\s*$");
+
+            if (isEmptyPrompt && (currentTime - lastOutputTime) < 100) {
+                consecutivePrompts++;
+                if (consecutivePrompts > 3) {
+                    if (!suppressOutput) {
+                        logger.warn("检测到连续空提示符输出，启用抑制模式");
+                        suppressOutput = true;
+                    }
+                    return true;
+                }
+            } else if (consecutivePrompts > 0 || suppressOutput) {
+                consecutivePrompts = 0;
+                if (suppressOutput) {
+                    logger.info("检测到有效输出，退出抑制模式");
+                    suppressOutput = false;
+                }
+            }
+            lastOutputTime = currentTime;
+            return false;
+        }
+
+        void close() {
+            active = false;
+            // 关闭标准输入后 shell 收到 EOF 退出，再断开 exec 连接
+            inputStream.close();
+            ResultCallback.Adapter<Frame> callback = execCallback;
+            if (callback != null) {
                 try {
-                    // 尝试优雅地终止exec会话
-                    DockerClient dockerClient = dockerService.getDockerClient();
-                    dockerClient.execStartCmd(execId).exec(new ResultCallback.Adapter<Frame>()).close();
-                } catch (Exception e) {
-                    logger.warn("终止exec会话失败: {}", sessionId, e);
+                    callback.close();
+                } catch (IOException e) {
+                    logger.warn("关闭exec连接失败: {}", sessionId, e);
                 }
             }
         }
     }
-}
\ No newline at end of file
+}
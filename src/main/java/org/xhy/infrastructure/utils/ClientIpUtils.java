@@ -0,0 +1,16 @@
+package org.xhy.infrastructure.utils;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/** 客户端IP工具类 代理转发头由 server.forward-headers-strategy 只在受信任的代理（内网地址）处解析，
+ * 这里只读取解析后的地址；直接读取 X-Forwarded-For 等请求头可被客户端任意伪造 */
+public class ClientIpUtils {
+
+    /** 获取客户端IP
+     *
+     * @param request HTTP请求
+     * @return 客户端IP */
+    public static String getClientIp(HttpServletRequest request) {
+        return request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,52 @@
+package org.xhy.infrastructure.utils;
+
+/** 搜索关键词工具类 */
+public class SearchKeywordUtils {
+
+    /** 规整关键词：去掉首尾空白、合并连续空白并截断到最大长度
+     *
+     * @param keyword 原始关键词
+     * @param maxLength 最大长度
+     * @return 规整后的关键词，为空时返回null */
+    public static String normalize(String keyword, int maxLength) {
+        if (keyword == null) {
+            return null;
+        }
+        String normalized = keyword.trim().replaceAll("\\s+", " ");
+        if (normalized.isEmpty()) {
+            return null;
+        }
+        if (normalized.length() <= maxLength) {
+            return normalized;
+        }
+        // 截断时不拆开代理对，也不留下结尾空白
+        int end = maxLength > 0 && Character.isHighSurrogate(normalized.charAt(maxLength - 1))
+                ? maxLength - 1
+                : maxLength;
+        String truncated = normalized.substring(0, end).stripTrailing();
+        return truncated.isEmpty() ? null : truncated;
+    }
+
+    /** 任意位置匹配的 LIKE/ILIKE 模式，关键词中的通配符按字面匹配 */
+    public static String containsPattern(String keyword) {
+        return "%" + escapeLike(keyword) + "%";
+    }
+
+    /** 前缀匹配的 LIKE/ILIKE 模式，关键词中的通配符按字面匹配 */
+    public static String prefixPattern(String keyword) {
+        return escapeLike(keyword) + "%";
+    }
+
+    /** 转义 LIKE 通配符，使用 PostgreSQL 默认的反斜杠转义符 */
+    public static String escapeLike(String keyword) {
+        StringBuilder builder = new StringBuilder(keyword.length() + 8);
+        for (int i = 0; i < keyword.length(); i++) {
+            char c = keyword.charAt(i);
+            if (c == '\\' || c == '%' || c == '_') {
+                builder.append('\\');
+            }
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+}
@@ -6,10 +6,12 @@ import org.springframework.web.bind.annotation.*;
 import org.xhy.application.rag.dto.RagContentPreviewDTO;
 import org.xhy.application.rag.dto.RagStatisticsDTO;
 import org.xhy.application.rag.dto.RagVersionDTO;
+import org.xhy.application.rag.dto.ReEmbeddingJobDTO;
 import org.xhy.application.rag.request.BatchReviewRequest;
 import org.xhy.application.rag.request.QueryRagVersionRequest;
 import org.xhy.application.rag.request.ReviewRagVersionRequest;
 import org.xhy.application.rag.service.manager.RagPublishAppService;
+import org.xhy.application.rag.service.manager.RagReEmbeddingAppService;
 import org.xhy.interfaces.api.common.Result;
 import org.xhy.interfaces.dto.rag.request.QueryPendingReviewRequest;
 
@@ -22,9 +24,12 @@ import org.xhy.interfaces.dto.rag.request.QueryPendingReviewRequest;
 public class AdminRagReviewController {
 
     private final RagPublishAppService ragPublishAppService;
+    private final RagReEmbeddingAppService ragReEmbeddingAppService;
 
-    public AdminRagReviewController(RagPublishAppService ragPublishAppService) {
+    public AdminRagReviewController(RagPublishAppService ragPublishAppService,
+            RagReEmbeddingAppService ragReEmbeddingAppService) {
         this.ragPublishAppService = ragPublishAppService;
+        this.ragReEmbeddingAppService = ragReEmbeddingAppService;
     }
 
     /** 获取待审核的RAG版本列表
@@ -107,4 +112,20 @@ public class AdminRagReviewController {
         RagContentPreviewDTO result = ragPublishAppService.getRagContentPreview(versionId);
         return Result.success(result);
     }
-}
\ No newline at end of file
+
+    /** 启动知识库重新向量化任务，在后台将当前向量表按迁移目标维度重新向量化到目标表，检索不受影响
+     * 
+     * @return 任务状态 */
+    @PostMapping("/re-embedding")
+    public Result<ReEmbeddingJobDTO> startReEmbedding() {
+        return Result.success(ragReEmbeddingAppService.start());
+    }
+
+    /** 获取知识库重新向量化任务的进度
+     * 
+     * @return 任务状态 */
+    @GetMapping("/re-embedding")
+    public Result<ReEmbeddingJobDTO> getReEmbeddingStatus() {
+        return Result.success(ragReEmbeddingAppService.getStatus());
+    }
+}
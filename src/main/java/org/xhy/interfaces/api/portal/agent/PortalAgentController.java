@@ -6,6 +6,7 @@ import org.xhy.application.agent.dto.AgentDTO;
 import org.xhy.application.agent.dto.AgentVersionDTO;
 import org.xhy.application.agent.service.AgentAppService;
 import org.xhy.application.agent.service.SystemPromptGeneratorAppService;
+import org.xhy.application.conversation.dto.SemanticCacheStatsDTO;
 import org.xhy.infrastructure.auth.UserContext;
 import org.xhy.interfaces.api.common.Result;
 import org.xhy.interfaces.dto.agent.request.*;
@@ -55,6 +56,12 @@ public class PortalAgentController {
         return Result.success(agentAppService.getPublishedAgentsByName(searchAgentsRequest, userId));
     }
 
+    /** 已上架Agent名称的自动补全 */
+    @GetMapping("/published/suggest")
+    public Result<List<String>> suggestPublishedAgents(@RequestParam(required = false) String prefix) {
+        return Result.success(agentAppService.suggestPublishedAgentNames(prefix));
+    }
+
     /** 更新Agent信息（基本信息和配置合并更新） */
     @PutMapping("/{agentId}")
     public Result<AgentDTO> updateAgent(@PathVariable String agentId,
@@ -78,6 +85,21 @@ public class PortalAgentController {
         return Result.success(null);
     }
 
+    /** 获取Agent的语义缓存统计 */
+    @GetMapping("/{agentId}/semantic-cache/stats")
+    public Result<SemanticCacheStatsDTO> getSemanticCacheStats(@PathVariable String agentId) {
+        String userId = UserContext.getCurrentUserId();
+        return Result.success(agentAppService.getSemanticCacheStats(agentId, userId));
+    }
+
+    /** 清空Agent的语义缓存 */
+    @DeleteMapping("/{agentId}/semantic-cache")
+    public Result<Void> clearSemanticCache(@PathVariable String agentId) {
+        String userId = UserContext.getCurrentUserId();
+        agentAppService.clearSemanticCache(agentId, userId);
+        return Result.success(null);
+    }
+
     /** 发布Agent版本 */
     @PostMapping("/{agentId}/publish")
     public Result<AgentVersionDTO> publishAgentVersion(@PathVariable String agentId,
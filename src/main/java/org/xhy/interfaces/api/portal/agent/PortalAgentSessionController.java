@@ -9,6 +9,8 @@ import org.xhy.application.agent.service.AgentSessionAppService;
 import org.xhy.application.conversation.dto.AgentPreviewRequest;
 import org.xhy.application.conversation.dto.ChatRequest;
 import org.xhy.application.conversation.dto.MessageDTO;
+import org.xhy.application.conversation.dto.MessagePageDTO;
+import org.xhy.application.conversation.dto.MessagePageRequest;
 import org.xhy.application.conversation.dto.SessionDTO;
 import org.xhy.application.conversation.service.ChatSessionManager;
 import org.xhy.application.conversation.service.ConversationAppService;
@@ -49,6 +51,29 @@ public class PortalAgentSessionController {
         return Result.success(conversationAppService.getConversationMessages(sessionId, userId));
     }
 
+    /** 按游标分页获取会话历史，最新的一页在前，工具调用等大内容默认只返回预览 */
+    @GetMapping("/{sessionId}/messages/page")
+    public Result<MessagePageDTO> getConversationMessagePage(@PathVariable String sessionId,
+            MessagePageRequest request) {
+        String userId = UserContext.getCurrentUserId();
+        return Result.success(conversationAppService.getConversationMessagePage(sessionId, request, userId));
+    }
+
+    /** 获取游标之后新增的消息，供断线重连的客户端补齐 */
+    @GetMapping("/{sessionId}/messages/since")
+    public Result<MessagePageDTO> getConversationMessagesSince(@PathVariable String sessionId,
+            MessagePageRequest request) {
+        String userId = UserContext.getCurrentUserId();
+        return Result.success(conversationAppService.getConversationMessagesSince(sessionId, request, userId));
+    }
+
+    /** 获取单条消息的完整内容 */
+    @GetMapping("/{sessionId}/messages/{messageId}")
+    public Result<MessageDTO> getConversationMessage(@PathVariable String sessionId, @PathVariable String messageId) {
+        String userId = UserContext.getCurrentUserId();
+        return Result.success(conversationAppService.getConversationMessage(sessionId, messageId, userId));
+    }
+
     /** Get current active plan for the session */
     @GetMapping("/{sessionId}/plan")
     public Result<PlanViewDTO> getSessionPlan(@PathVariable String sessionId) {
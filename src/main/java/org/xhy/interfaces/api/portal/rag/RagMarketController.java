@@ -112,11 +112,24 @@ public class RagMarketController {
      * 
      * @param userRagId 用户RAG安装记录ID
      * @param targetVersionId 目标版本ID
+     * @param async 是否在后台复制快照
      * @return 切换后的RAG信息 */
     @PutMapping("/installed/{userRagId}/switch-version")
-    public Result<UserRagDTO> switchRagVersion(@PathVariable String userRagId, @RequestParam String targetVersionId) {
+    public Result<UserRagDTO> switchRagVersion(@PathVariable String userRagId, @RequestParam String targetVersionId,
+            @RequestParam(defaultValue = "false") boolean async) {
         String userId = UserContext.getCurrentUserId();
-        UserRagDTO result = ragMarketAppService.switchRagVersion(userRagId, targetVersionId, userId);
+        UserRagDTO result = ragMarketAppService.switchRagVersion(userRagId, targetVersionId, userId, async);
+        return Result.success(result);
+    }
+
+    /** 获取已安装RAG的快照复制状态
+     * 
+     * @param userRagId 用户RAG安装记录ID
+     * @return 快照复制状态与进度 */
+    @GetMapping("/installed/{userRagId}/snapshot-status")
+    public Result<UserRagDTO> getSnapshotStatus(@PathVariable String userRagId) {
+        String userId = UserContext.getCurrentUserId();
+        UserRagDTO result = ragMarketAppService.getSnapshotStatus(userRagId, userId);
         return Result.success(result);
     }
 
@@ -103,6 +103,15 @@ public class PortalToolController {
         return Result.success(toolAppService.marketTools(queryToolRequest));
     }
 
+    /** 工具市场名称的自动补全
+     *
+     * @param prefix 已输入的前缀
+     * @return 按安装量排序的工具名称，前缀为空时返回空列表 */
+    @GetMapping("/market/suggest")
+    public Result<List<String>> suggestMarketTools(@RequestParam(required = false) String prefix) {
+        return Result.success(toolAppService.suggestMarketTools(prefix));
+    }
+
     /** 获取工具版本详情
      * 
      * @param toolId 工具id
@@ -7,6 +7,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.xhy.application.user.service.LoginAppService;
+import org.xhy.infrastructure.utils.ClientIpUtils;
 import org.xhy.infrastructure.verification.CaptchaUtils;
 import org.xhy.interfaces.api.common.Result;
 import org.xhy.interfaces.dto.user.request.*;
@@ -61,7 +62,7 @@ public class LoginController {
     public Result<?> sendEmailCode(@RequestBody @Validated SendEmailCodeRequest request,
             HttpServletRequest httpRequest) {
         // 获取客户端IP
-        String clientIp = getClientIp(httpRequest);
+        String clientIp = ClientIpUtils.getClientIp(httpRequest);
 
         loginAppService.sendEmailVerificationCode(request.getEmail(), request.getCaptchaUuid(),
                 request.getCaptchaCode(), clientIp);
@@ -76,7 +77,7 @@ public class LoginController {
     public Result<?> sendResetPasswordCode(@RequestBody @Validated SendResetPasswordCodeRequest request,
             HttpServletRequest httpRequest) {
         // 获取客户端IP
-        String clientIp = getClientIp(httpRequest);
+        String clientIp = ClientIpUtils.getClientIp(httpRequest);
 
         loginAppService.sendResetPasswordCode(request.getEmail(), request.getCaptchaUuid(), request.getCaptchaCode(),
                 clientIp);
@@ -104,33 +105,4 @@ public class LoginController {
         loginAppService.resetPassword(request.getEmail(), request.getNewPassword(), request.getCode());
         return Result.success().message("密码重置成功");
     }
-
-    /** 获取客户端IP
-     * @param request
-     * @return */
-    private String getClientIp(HttpServletRequest request) {
-        String ip = request.getHeader("X-Forwarded-For");
-        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getHeader("Proxy-Client-IP");
-        }
-        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getHeader("WL-Proxy-Client-IP");
-        }
-        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getHeader("HTTP_CLIENT_IP");
-        }
-        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getHeader("HTTP_X_FORWARDED_FOR");
-        }
-        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getRemoteAddr();
-        }
-
-        // 对于通过多个代理的情况，第一个IP为客户端真实IP
-        if (ip != null && ip.contains(",")) {
-            ip = ip.split(",")[0].trim();
-        }
-
-        return ip;
-    }
 }
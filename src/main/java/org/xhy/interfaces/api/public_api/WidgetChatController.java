@@ -1,19 +1,31 @@
 package org.xhy.interfaces.api.public_api;
 
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.xhy.application.agent.service.AgentWidgetAppService;
+import org.xhy.application.agent.service.WidgetSnapshot;
 import org.xhy.application.conversation.dto.ChatResponse;
 import org.xhy.application.conversation.service.ConversationAppService;
 import org.xhy.domain.agent.model.AgentWidgetEntity;
+import org.xhy.infrastructure.config.WidgetProperties;
 import org.xhy.infrastructure.exception.BusinessException;
+import org.xhy.infrastructure.exception.RateLimitException;
+import org.xhy.infrastructure.ratelimit.service.WidgetAdmission;
+import org.xhy.infrastructure.ratelimit.service.WidgetAdmissionService;
+import org.xhy.infrastructure.utils.ClientIpUtils;
 import org.xhy.interfaces.api.common.Result;
 import org.xhy.interfaces.dto.agent.request.WidgetChatRequest;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.time.Duration;
+import java.util.Objects;
 
 /** 小组件聊天控制器 - 公开API，无需认证 */
 @RestController
@@ -22,32 +34,51 @@ public class WidgetChatController {
 
     private final ConversationAppService conversationAppService;
     private final AgentWidgetAppService agentWidgetAppService;
+    private final WidgetProperties widgetProperties;
+    private final WidgetAdmissionService widgetAdmissionService;
+
+    /** 嵌入脚本上报的访客ID请求头 */
+    private static final String VISITOR_ID_HEADER = "X-Widget-Visitor-Id";
 
     public WidgetChatController(ConversationAppService conversationAppService,
-            AgentWidgetAppService agentWidgetAppService) {
+            AgentWidgetAppService agentWidgetAppService, WidgetProperties widgetProperties,
+            WidgetAdmissionService widgetAdmissionService) {
         this.conversationAppService = conversationAppService;
         this.agentWidgetAppService = agentWidgetAppService;
+        this.widgetProperties = widgetProperties;
+        this.widgetAdmissionService = widgetAdmissionService;
     }
 
-    /** 获取小组件配置信息（公开访问）
+    /** 获取小组件配置信息（公开访问） 响应携带ETag，客户端或边缘节点带 If-None-Match 重新验证时内容与当日调用次数都未变返回304
      *
      * @param publicId 公开访问ID
      * @param request HTTP请求
      * @return 小组件配置基本信息 */
     @GetMapping("/{publicId}/info")
-    public Result<WidgetInfoResponse> getWidgetInfo(@PathVariable String publicId, HttpServletRequest request) {
+    public ResponseEntity<Result<WidgetInfoResponse>> getWidgetInfo(@PathVariable String publicId,
+            HttpServletRequest request) {
         try {
             // 1. 验证域名访问权限
             String referer = request.getHeader("Referer");
             if (!validateDomainAccess(publicId, referer)) {
-                return Result.forbidden("域名访问被拒绝");
+                return ResponseEntity.ok(Result.forbidden("域名访问被拒绝"));
             }
 
-            // 2. 获取小组件配置
-            AgentWidgetEntity widget = agentWidgetAppService.getWidgetForPublicAccess(publicId);
+            // 2. 获取小组件快照（包括agent配置）
+            WidgetSnapshot snapshot = agentWidgetAppService.getWidgetSnapshot(publicId);
+            if (snapshot.getInfo() == null) {
+                return ResponseEntity.ok(Result.error(404, snapshot.getInfoError()));
+            }
 
-            // 3. 获取完整的widget信息（包括agent配置）
-            var fullWidgetInfo = agentWidgetAppService.getWidgetInfoForPublicAccess(publicId);
+            // 3. 配置与当日调用次数都未变化时直接返回304
+            AgentWidgetEntity widget = snapshot.getWidget();
+            long dailyCalls = widgetAdmissionService.getDailyCalls(widget.getId());
+            String etag = infoEtag(snapshot, dailyCalls);
+            String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+            if (ifNoneMatch != null && ifNoneMatch.contains(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(infoCacheControl())
+                        .varyBy(HttpHeaders.REFERER).build();
+            }
 
             // 4. 构建响应信息
             WidgetInfoResponse response = new WidgetInfoResponse();
@@ -58,22 +89,22 @@ public class WidgetChatController {
             response.setEnabled(widget.getEnabled());
 
             // 5. 设置agent相关信息（用于无会话聊天）
-            if (fullWidgetInfo != null) {
-                response.setAgentName(fullWidgetInfo.getAgentName());
-                response.setAgentAvatar(fullWidgetInfo.getAgentAvatar());
-                response.setWelcomeMessage(fullWidgetInfo.getWelcomeMessage());
-                response.setSystemPrompt(fullWidgetInfo.getSystemPrompt());
-                response.setToolIds(fullWidgetInfo.getToolIds());
-                response.setKnowledgeBaseIds(fullWidgetInfo.getKnowledgeBaseIds());
-                response.setDailyCalls(fullWidgetInfo.getDailyCalls());
-            }
-
-            return Result.success(response);
+            var fullWidgetInfo = snapshot.getInfo();
+            response.setAgentName(fullWidgetInfo.getAgentName());
+            response.setAgentAvatar(fullWidgetInfo.getAgentAvatar());
+            response.setWelcomeMessage(fullWidgetInfo.getWelcomeMessage());
+            response.setSystemPrompt(fullWidgetInfo.getSystemPrompt());
+            response.setToolIds(fullWidgetInfo.getToolIds());
+            response.setKnowledgeBaseIds(fullWidgetInfo.getKnowledgeBaseIds());
+            response.setDailyCalls((int) Math.min(Integer.MAX_VALUE, dailyCalls));
+
+            return ResponseEntity.ok().eTag(etag).cacheControl(infoCacheControl())
+                    .varyBy(HttpHeaders.REFERER).body(Result.success(response));
 
         } catch (BusinessException e) {
-            return Result.error(404, e.getMessage());
+            return ResponseEntity.ok(Result.error(404, e.getMessage()));
         } catch (Exception e) {
-            return Result.error(500, "获取小组件信息失败");
+            return ResponseEntity.ok(Result.error(500, "获取小组件信息失败"));
         }
     }
 
@@ -96,8 +127,16 @@ public class WidgetChatController {
             // 2. 获取小组件配置
             AgentWidgetEntity widget = agentWidgetAppService.getWidgetForPublicAccess(publicId);
 
-            // 3. 处理小组件聊天
-            return conversationAppService.widgetChat(publicId, request, widget);
+            // 3. 准入控制，流结束时归还并发名额，对话未能发起时退回每日额度
+            WidgetAdmission admission = admit(widget, httpRequest);
+            try {
+                SseEmitter emitter = conversationAppService.widgetChat(publicId, request, widget);
+                emitter.onCompletion(admission::release);
+                return emitter;
+            } catch (RuntimeException e) {
+                admission.refund();
+                throw e;
+            }
 
         } catch (BusinessException e) {
             throw e;
@@ -125,10 +164,19 @@ public class WidgetChatController {
             // 2. 获取小组件配置
             AgentWidgetEntity widget = agentWidgetAppService.getWidgetForPublicAccess(publicId);
 
-            // 3. 处理同步聊天
-            ChatResponse response = conversationAppService.widgetChatSync(publicId, request, widget);
-            return Result.success(response);
+            // 3. 准入控制后处理同步聊天
+            WidgetAdmission admission = admit(widget, httpRequest);
+            try {
+                ChatResponse response = conversationAppService.widgetChatSync(publicId, request, widget);
+                admission.release();
+                return Result.success(response);
+            } catch (RuntimeException e) {
+                admission.refund();
+                throw e;
+            }
 
+        } catch (RateLimitException e) {
+            return Result.error(429, e.getMessage());
         } catch (BusinessException e) {
             return Result.error(400, e.getMessage());
         } catch (Exception e) {
@@ -136,6 +184,30 @@ public class WidgetChatController {
         }
     }
 
+    /** 申请小组件对话准入 IP取受信任代理解析后的地址；访客ID可由客户端任意生成，只在同一IP内区分访客，
+     * 轮换访客ID不能绕过IP限流。缺少访客ID时按User-Agent区分 */
+    private WidgetAdmission admit(AgentWidgetEntity widget, HttpServletRequest httpRequest) {
+        String clientIp = ClientIpUtils.getClientIp(httpRequest);
+        String visitorId = httpRequest.getHeader(VISITOR_ID_HEADER);
+        if (visitorId == null || visitorId.isBlank()) {
+            visitorId = httpRequest.getHeader(HttpHeaders.USER_AGENT);
+        }
+        String visitorKey = clientIp + ":" + Integer.toHexString(Objects.hashCode(visitorId));
+        return widgetAdmissionService.admit(widget.getId(), widget.getDailyLimit(), clientIp, visitorKey);
+    }
+
+    /** 信息接口的ETag 快照ETag只反映配置内容，响应中的当日调用次数随对话变化，一并计入 */
+    private static String infoEtag(WidgetSnapshot snapshot, long dailyCalls) {
+        String etag = snapshot.getEtag();
+        return etag.substring(0, etag.length() - 1) + "-" + dailyCalls + "\"";
+    }
+
+    /** 信息接口的缓存策略，域名校验依赖Referer，因此按Referer区分缓存 */
+    private CacheControl infoCacheControl() {
+        long maxAge = widgetProperties.getInfoMaxAge();
+        return maxAge > 0 ? CacheControl.maxAge(Duration.ofSeconds(maxAge)).cachePublic() : CacheControl.noCache();
+    }
+
     /** 验证域名访问权限
      *
      * @param publicId 公开访问ID
@@ -19,6 +19,7 @@ public class CreateAgentRequest {
     private List<String> knowledgeBaseIds;
     private Map<String, Map<String, Map<String, String>>> toolPresetParams;
     private Boolean multiModal;
+    private Boolean semanticCacheEnabled;
     // 构造方法
     public CreateAgentRequest() {
     }
@@ -94,4 +95,12 @@ public class CreateAgentRequest {
     public void setMultiModal(Boolean multiModal) {
         this.multiModal = multiModal;
     }
+
+    public Boolean getSemanticCacheEnabled() {
+        return semanticCacheEnabled;
+    }
+
+    public void setSemanticCacheEnabled(Boolean semanticCacheEnabled) {
+        this.semanticCacheEnabled = semanticCacheEnabled;
+    }
 }
\ No newline at end of file
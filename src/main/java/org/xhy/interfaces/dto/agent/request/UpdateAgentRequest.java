@@ -24,6 +24,7 @@ public class UpdateAgentRequest {
     private List<String> knowledgeBaseIds;
     private Map<String, Map<String, Map<String, String>>> toolPresetParams;
     private Boolean multiModal;
+    private Boolean semanticCacheEnabled;
 
     public String getId() {
         return id;
@@ -113,4 +114,12 @@ public class UpdateAgentRequest {
     public void setMultiModal(Boolean multiModal) {
         this.multiModal = multiModal;
     }
+
+    public Boolean getSemanticCacheEnabled() {
+        return semanticCacheEnabled;
+    }
+
+    public void setSemanticCacheEnabled(Boolean semanticCacheEnabled) {
+        this.semanticCacheEnabled = semanticCacheEnabled;
+    }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package org.xhy.interfaces.dto.llm.request;
 
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
 import org.xhy.domain.llm.model.enums.ModelType;
 
 /** 模型创建请求 */
@@ -26,6 +27,10 @@ public class ModelCreateRequest {
     /** 模型部署名称 */
     private String modelEndpoint;
 
+    /** 嵌入模型输出维度，为空时使用向量库维度 */
+    @Positive(message = "维度必须大于0")
+    private Integer dimensions;
+
     public String getProviderId() {
         return providerId;
     }
@@ -74,4 +79,11 @@ public class ModelCreateRequest {
         this.modelEndpoint = modelEndpoint;
     }
 
-}
\ No newline at end of file
+    public Integer getDimensions() {
+        return dimensions;
+    }
+
+    public void setDimensions(Integer dimensions) {
+        this.dimensions = dimensions;
+    }
+}
@@ -1,6 +1,7 @@
 package org.xhy.interfaces.dto.llm.request;
 
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
 
 /** 模型更新请求 */
 public class ModelUpdateRequest {
@@ -22,6 +23,10 @@ public class ModelUpdateRequest {
     /** 模型部署名称 */
     private String modelEndpoint;
 
+    /** 嵌入模型输出维度，为空时使用向量库维度 */
+    @Positive(message = "维度必须大于0")
+    private Integer dimensions;
+
     /** 模型状态 */
     public String getId() {
         return id;
@@ -62,4 +67,12 @@ public class ModelUpdateRequest {
     public void setModelEndpoint(String modelEndpoint) {
         this.modelEndpoint = modelEndpoint;
     }
-}
\ No newline at end of file
+
+    public Integer getDimensions() {
+        return dimensions;
+    }
+
+    public void setDimensions(Integer dimensions) {
+        this.dimensions = dimensions;
+    }
+}
@@ -0,0 +1,129 @@
+package org.xhy.application.conversation.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xhy.domain.agent.model.AgentEntity;
+import org.xhy.domain.agent.model.AgentVersionEntity;
+import org.xhy.domain.agent.model.AgentWorkspaceEntity;
+import org.xhy.domain.agent.model.LLMModelConfig;
+import org.xhy.domain.agent.service.AgentDomainService;
+import org.xhy.domain.agent.service.AgentWorkspaceDomainService;
+import org.xhy.domain.llm.model.ModelEntity;
+import org.xhy.domain.llm.model.ProviderEntity;
+import org.xhy.domain.llm.service.LLMDomainService;
+import org.xhy.domain.tool.service.UserToolDomainService;
+import org.xhy.domain.user.service.UserSettingsDomainService;
+import org.xhy.infrastructure.config.RuntimeSnapshotProperties;
+import org.xhy.infrastructure.exception.BusinessException;
+import org.xhy.infrastructure.metrics.ChatMetrics;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/** AgentRuntimeSnapshotCache 测试 创建者使用草稿，安装者使用最新版本，两者的工作区都按会话绑定的Agent ID查找 */
+class AgentRuntimeSnapshotCacheTest {
+
+    private static final String AGENT_ID = "agent-1";
+    private static final String VERSION_ID = "version-1";
+    private static final String OWNER_ID = "owner";
+    private static final String INSTALLER_ID = "installer";
+
+    private final AgentDomainService agentDomainService = mock(AgentDomainService.class);
+    private final AgentWorkspaceDomainService agentWorkspaceDomainService = mock(AgentWorkspaceDomainService.class);
+    private final LLMDomainService llmDomainService = mock(LLMDomainService.class);
+    private final UserToolDomainService userToolDomainService = mock(UserToolDomainService.class);
+    private final UserSettingsDomainService userSettingsDomainService = mock(UserSettingsDomainService.class);
+
+    private AgentEntity draft;
+    private AgentRuntimeSnapshotCache cache;
+
+    @BeforeEach
+    void setUp() {
+        draft = new AgentEntity();
+        draft.setId(AGENT_ID);
+        draft.setUserId(OWNER_ID);
+        draft.setEnabled(true);
+        draft.setSystemPrompt("draft prompt");
+        draft.setUpdatedAt(LocalDateTime.of(2024, 5, 1, 12, 0));
+        when(agentDomainService.getAgentById(AGENT_ID)).thenReturn(draft);
+
+        AgentVersionEntity version = new AgentVersionEntity();
+        version.setId(VERSION_ID);
+        version.setAgentId(AGENT_ID);
+        version.setUserId(OWNER_ID);
+        version.setSystemPrompt("published prompt");
+        when(agentDomainService.getLatestAgentVersion(AGENT_ID)).thenReturn(version);
+
+        LLMModelConfig llmModelConfig = new LLMModelConfig();
+        llmModelConfig.setModelId("model-1");
+        AgentWorkspaceEntity workspace = new AgentWorkspaceEntity();
+        workspace.setAgentId(AGENT_ID);
+        workspace.setLlmModelConfig(llmModelConfig);
+        // 工作区表中只有Agent ID，按版本ID查找时与线上一样抛出"助理不存在"
+        doThrow(new BusinessException("助理不存在")).when(agentWorkspaceDomainService).getWorkspace(anyString(),
+                anyString());
+        doReturn(workspace).when(agentWorkspaceDomainService).getWorkspace(eq(AGENT_ID), anyString());
+
+        ModelEntity model = new ModelEntity();
+        model.setId("model-1");
+        model.setProviderId("provider-1");
+        model.setStatus(true);
+        when(llmDomainService.findModelById("model-1")).thenReturn(model);
+        when(llmDomainService.getProvider("provider-1")).thenReturn(new ProviderEntity());
+        when(userSettingsDomainService.getUserFallbackChain(anyString())).thenReturn(List.of());
+
+        cache = new AgentRuntimeSnapshotCache(agentDomainService, agentWorkspaceDomainService, llmDomainService,
+                userToolDomainService, userSettingsDomainService, new ChatMetrics(new SimpleMeterRegistry()),
+                new RuntimeSnapshotProperties(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void installerUsesPublishedVersionAndSessionAgentWorkspace() {
+        AgentRuntimeSnapshot snapshot = cache.get(AGENT_ID, INSTALLER_ID);
+
+        assertThat(snapshot.getAgentId()).isEqualTo(AGENT_ID);
+        assertThat(snapshot.getResolvedAgentId()).isEqualTo(VERSION_ID);
+        assertThat(snapshot.getAgentVersion()).isEqualTo(VERSION_ID);
+        assertThat(snapshot.getStaticSystemPrompt()).startsWith("published prompt");
+        verify(agentWorkspaceDomainService).getWorkspace(AGENT_ID, INSTALLER_ID);
+        verify(agentWorkspaceDomainService, never()).getWorkspace(VERSION_ID, INSTALLER_ID);
+    }
+
+    @Test
+    void ownerUsesDraft() {
+        AgentRuntimeSnapshot snapshot = cache.get(AGENT_ID, OWNER_ID);
+
+        assertThat(snapshot.getResolvedAgentId()).isEqualTo(AGENT_ID);
+        assertThat(snapshot.getAgentVersion()).startsWith("draft@");
+        assertThat(snapshot.getStaticSystemPrompt()).startsWith("draft prompt");
+        verify(agentWorkspaceDomainService).getWorkspace(AGENT_ID, OWNER_ID);
+    }
+
+    @Test
+    void installerIsRejectedWhenAgentIsDisabled() {
+        draft.setEnabled(false);
+
+        assertThatThrownBy(() -> cache.get(AGENT_ID, INSTALLER_ID)).isInstanceOf(BusinessException.class)
+                .hasMessage("agent已被禁用");
+        assertThat(cache.get(AGENT_ID, OWNER_ID).getResolvedAgentId()).isEqualTo(AGENT_ID);
+    }
+
+    @Test
+    void installerIsRejectedWithoutPublishedVersion() {
+        when(agentDomainService.getLatestAgentVersion(AGENT_ID)).thenReturn(null);
+
+        assertThatThrownBy(() -> cache.get(AGENT_ID, INSTALLER_ID)).isInstanceOf(BusinessException.class);
+    }
+}
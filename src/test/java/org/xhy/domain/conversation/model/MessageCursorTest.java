@@ -0,0 +1,94 @@
+package org.xhy.domain.conversation.model;
+
+import org.junit.jupiter.api.Test;
+import org.xhy.infrastructure.exception.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** MessageCursor 编解码与 MessageSlice 边界游标测试 */
+class MessageCursorTest {
+
+    @Test
+    void roundTripsCreatedAtAndId() {
+        MessageCursor cursor = new MessageCursor(LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123456000), "msg-1");
+
+        MessageCursor decoded = MessageCursor.decode(cursor.encode());
+
+        assertThat(decoded.getCreatedAt()).isEqualTo(cursor.getCreatedAt());
+        assertThat(decoded.getId()).isEqualTo("msg-1");
+    }
+
+    @Test
+    void roundTripsWholeMinutesAndNanoseconds() {
+        // LocalDateTime.toString 在秒为0时省略秒，纳秒不为0时保留全部位数
+        LocalDateTime wholeMinute = LocalDateTime.of(2024, 5, 1, 12, 30);
+        LocalDateTime nanos = LocalDateTime.of(2024, 5, 1, 12, 30, 0, 1);
+
+        assertThat(MessageCursor.decode(new MessageCursor(wholeMinute, "a").encode()).getCreatedAt())
+                .isEqualTo(wholeMinute);
+        assertThat(MessageCursor.decode(new MessageCursor(nanos, "b").encode()).getCreatedAt()).isEqualTo(nanos);
+    }
+
+    @Test
+    void keepsSeparatorInsideId() {
+        MessageCursor cursor = new MessageCursor(LocalDateTime.of(2024, 5, 1, 0, 0), "a|b");
+
+        assertThat(MessageCursor.decode(cursor.encode()).getId()).isEqualTo("a|b");
+    }
+
+    @Test
+    void encodesAsUrlSafeStringWithoutPadding() {
+        String encoded = new MessageCursor(LocalDateTime.of(2024, 5, 1, 12, 30, 15), "??>>").encode();
+
+        assertThat(encoded).doesNotContain("+", "/", "=");
+    }
+
+    @Test
+    void blankCursorMeansFromTheEdge() {
+        assertThat(MessageCursor.decode(null)).isNull();
+        assertThat(MessageCursor.decode("  ")).isNull();
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        String withoutSeparator = Base64.getUrlEncoder().encodeToString("2024-05-01T12:30".getBytes(
+                StandardCharsets.UTF_8));
+        String badTime = Base64.getUrlEncoder().encodeToString("yesterday|msg-1".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> MessageCursor.decode("not base64!")).isInstanceOf(BusinessException.class);
+        assertThatThrownBy(() -> MessageCursor.decode(withoutSeparator)).isInstanceOf(BusinessException.class);
+        assertThatThrownBy(() -> MessageCursor.decode(badTime)).isInstanceOf(BusinessException.class);
+    }
+
+    @Test
+    void sliceCursorsPointAtOldestAndNewestMessages() {
+        MessageEntity oldest = message("m1", LocalDateTime.of(2024, 5, 1, 10, 0));
+        MessageEntity newest = message("m2", LocalDateTime.of(2024, 5, 1, 11, 0));
+        MessageSlice slice = new MessageSlice(List.of(oldest, newest), true);
+
+        assertThat(slice.firstCursor().getId()).isEqualTo("m1");
+        assertThat(slice.lastCursor().getId()).isEqualTo("m2");
+        assertThat(slice.lastCursor().getCreatedAt()).isEqualTo(newest.getCreatedAt());
+    }
+
+    @Test
+    void emptySliceHasNoCursors() {
+        MessageSlice slice = new MessageSlice(List.of(), false);
+
+        assertThat(slice.firstCursor()).isNull();
+        assertThat(slice.lastCursor()).isNull();
+    }
+
+    private static MessageEntity message(String id, LocalDateTime createdAt) {
+        MessageEntity message = new MessageEntity();
+        message.setId(id);
+        message.setCreatedAt(createdAt);
+        return message;
+    }
+}
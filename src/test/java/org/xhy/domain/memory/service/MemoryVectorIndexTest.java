@@ -0,0 +1,197 @@
+package org.xhy.domain.memory.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xhy.domain.memory.model.MemoryItemEntity;
+import org.xhy.domain.memory.model.MemoryVectorRow;
+import org.xhy.domain.memory.repository.MemoryItemRepository;
+import org.xhy.domain.memory.repository.MemoryVectorRepository;
+import org.xhy.infrastructure.config.MemoryIndexProperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/** MemoryVectorIndex 测试 仓储由内存中的记忆表与向量表模拟，加载期间的并发写入通过读库后的回调注入 */
+class MemoryVectorIndexTest {
+
+    private static final String USER_ID = "u1";
+    private static final float[] QUERY = {1f, 0f};
+
+    private final MemoryItemRepository memoryItemRepository = mock(MemoryItemRepository.class);
+    private final MemoryVectorRepository memoryVectorRepository = mock(MemoryVectorRepository.class);
+
+    /** 模拟的记忆表与向量表 */
+    private final Map<String, MemoryItemEntity> items = new LinkedHashMap<>();
+    private final List<MemoryVectorRow> vectors = new ArrayList<>();
+
+    /** 读取向量表之后、加载完成之前执行，模拟加载期间其他线程的写入 */
+    private final List<Runnable> writesDuringLoad = new ArrayList<>();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private MemoryIndexProperties properties;
+    private MemoryVectorIndex index;
+
+    @BeforeEach
+    void setUp() {
+        properties = new MemoryIndexProperties();
+        properties.setMaxVectorsPerUser(10);
+        when(memoryVectorRepository.listByUser(eq(USER_ID), anyInt())).thenAnswer(invocation -> {
+            loads.incrementAndGet();
+            int limit = invocation.getArgument(1);
+            List<MemoryVectorRow> snapshot = new ArrayList<>(vectors.subList(0, Math.min(limit, vectors.size())));
+            if (!writesDuringLoad.isEmpty()) {
+                writesDuringLoad.remove(0).run();
+            }
+            return snapshot;
+        });
+        when(memoryItemRepository.selectList(any())).thenAnswer(invocation -> new ArrayList<>(items.values()));
+        index = newIndex();
+    }
+
+    @Test
+    void ranksByScoreAndKeepsBestVectorPerItem() {
+        insert("near", 1f, 0.1f);
+        insert("far", 0f, 1f);
+        // 同一条目合并更新后的第二条向量
+        insertVector("far", 1f, 0.5f);
+        insert("opposite", -1f, 0f);
+
+        List<MemoryVectorIndex.Hit> hits = index.search(USER_ID, QUERY, 10, 0.6);
+
+        assertThat(hits).extracting(hit -> hit.getItem().getId()).containsExactly("near", "far");
+        assertThat(hits.get(0).getScore()).isGreaterThan(hits.get(1).getScore());
+        assertThat(index.search(USER_ID, QUERY, 1, 0.0)).hasSize(1);
+    }
+
+    @Test
+    void skipsVectorsOfDeletedItems() {
+        insert("kept", 1f, 0f);
+        vectors.add(row("deleted", 1f, 0f));
+
+        assertThat(index.search(USER_ID, QUERY, 10, 0.0)).extracting(hit -> hit.getItem().getId())
+                .containsExactly("kept");
+    }
+
+    @Test
+    void localWritesUpdateLoadedIndexWithoutReload() {
+        insert("a", 1f, 0f);
+        assertThat(index.search(USER_ID, QUERY, 10, 0.0)).hasSize(1);
+
+        save("b", 0.9f, 0.1f);
+        assertThat(ids(index.search(USER_ID, QUERY, 10, 0.0))).containsExactlyInAnyOrder("a", "b");
+
+        delete("a");
+        assertThat(ids(index.search(USER_ID, QUERY, 10, 0.0))).containsExactly("b");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void writeDuringLoadTriggersReload() {
+        insert("a", 1f, 0f);
+        writesDuringLoad.add(() -> save("b", 1f, 0f));
+
+        List<MemoryVectorIndex.Hit> hits = index.search(USER_ID, QUERY, 10, 0.0);
+
+        // 首次加载读库之后才写入b，索引不含b，检索时发现并重新加载
+        assertThat(ids(hits)).containsExactlyInAnyOrder("a", "b");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void laterLocalWriteDoesNotHideWriteMissedDuringLoad() {
+        insert("a", 1f, 0f);
+        writesDuringLoad.add(() -> save("b", 1f, 0f));
+        // 重新加载期间再次写入c，本次检索返回的索引缺少c
+        writesDuringLoad.add(() -> save("c", 1f, 0f));
+        assertThat(ids(index.search(USER_ID, QUERY, 10, 0.0))).containsExactlyInAnyOrder("a", "b");
+
+        // d直接写入已加载的索引，但索引仍缺少c，版本不能推进到d
+        save("d", 1f, 0f);
+
+        assertThat(ids(index.search(USER_ID, QUERY, 10, 0.0))).containsExactlyInAnyOrder("a", "b", "c", "d");
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void deleteDuringLoadTriggersReload() {
+        insert("a", 1f, 0f);
+        insert("b", 1f, 0f);
+        writesDuringLoad.add(() -> delete("a"));
+
+        assertThat(ids(index.search(USER_ID, QUERY, 10, 0.0))).containsExactly("b");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void oversizedUserFallsBackToVectorStore() {
+        properties.setMaxVectorsPerUser(1);
+        index = newIndex();
+        insert("a", 1f, 0f);
+        insert("b", 1f, 0f);
+
+        assertThat(index.search(USER_ID, QUERY, 10, 0.0)).isNull();
+    }
+
+    @Test
+    void disabledIndexFallsBackToVectorStore() {
+        properties.setEnabled(false);
+        index = newIndex();
+        insert("a", 1f, 0f);
+
+        assertThat(index.search(USER_ID, QUERY, 10, 0.0)).isNull();
+        assertThat(loads).hasValue(0);
+    }
+
+    private MemoryVectorIndex newIndex() {
+        return new MemoryVectorIndex(memoryItemRepository, memoryVectorRepository, properties,
+                new SimpleMeterRegistry());
+    }
+
+    /** 直接写入模拟表，不经过索引 */
+    private MemoryItemEntity insert(String id, float x, float y) {
+        MemoryItemEntity item = new MemoryItemEntity();
+        item.setId(id);
+        item.setUserId(USER_ID);
+        item.setText(id);
+        items.put(id, item);
+        insertVector(id, x, y);
+        return item;
+    }
+
+    private void insertVector(String itemId, float x, float y) {
+        vectors.add(row(itemId, x, y));
+    }
+
+    /** 与 MemoryDomainService 一致：写库后通知索引 */
+    private void save(String id, float x, float y) {
+        MemoryItemEntity item = insert(id, x, y);
+        index.onSaved(item, new float[]{x, y});
+    }
+
+    private void delete(String id) {
+        items.remove(id);
+        index.onDeleted(USER_ID, id);
+    }
+
+    private static MemoryVectorRow row(String itemId, float x, float y) {
+        MemoryVectorRow row = new MemoryVectorRow();
+        row.setItemId(itemId);
+        row.setEmbedding("[" + x + "," + y + "]");
+        return row;
+    }
+
+    private static List<String> ids(List<MemoryVectorIndex.Hit> hits) {
+        return hits.stream().map(hit -> hit.getItem().getId()).toList();
+    }
+}
@@ -0,0 +1,197 @@
+package org.xhy.domain.rag.service;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.xhy.domain.rag.model.FileDetailEntity;
+import org.xhy.domain.rag.model.ModelConfig;
+import org.xhy.domain.rag.model.VectorMigrationBatch;
+import org.xhy.domain.rag.model.VectorStoreResult;
+import org.xhy.domain.rag.repository.FileDetailRepository;
+import org.xhy.domain.rag.repository.VectorStoreRepository;
+import org.xhy.infrastructure.exception.BusinessException;
+import org.xhy.infrastructure.rag.config.EmbeddingProperties;
+import org.xhy.infrastructure.rag.factory.EmbeddingModelFactory;
+import org.xhy.infrastructure.rag.service.UserModelConfigResolver;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/** VectorMigrationDomainService 测试 按文件所属用户分组重新向量化，沿用原向量ID与元数据写入目标表 */
+class VectorMigrationDomainServiceTest {
+
+    private final VectorStoreRepository vectorStoreRepository = mock(VectorStoreRepository.class);
+    private final FileDetailRepository fileDetailRepository = mock(FileDetailRepository.class);
+    private final EmbeddingModelFactory embeddingModelFactory = mock(EmbeddingModelFactory.class);
+    private final UserModelConfigResolver userModelConfigResolver = mock(UserModelConfigResolver.class);
+    private final EmbeddingModel embeddingModel = mock(EmbeddingModel.class);
+
+    @SuppressWarnings("unchecked")
+    private final EmbeddingStore<TextSegment> targetStore = mock(EmbeddingStore.class);
+    @SuppressWarnings("unchecked")
+    private final ObjectProvider<EmbeddingStore<TextSegment>> storeProvider = mock(ObjectProvider.class);
+
+    private EmbeddingProperties properties;
+    private VectorMigrationDomainService service;
+
+    @BeforeEach
+    void setUp() {
+        properties = new EmbeddingProperties();
+        properties.getMigration().setTable("public.vector_store_1536");
+        properties.getMigration().setDimension(1536);
+        properties.getMigration().setBatchSize(10);
+        when(storeProvider.getIfAvailable()).thenReturn(targetStore);
+        when(embeddingModelFactory.createEmbeddingModel(any(), eq(1536))).thenReturn(embeddingModel);
+        when(embeddingModel.embedAll(anyList())).thenAnswer(invocation -> {
+            List<TextSegment> segments = invocation.getArgument(0);
+            return Response.from(segments.stream().map(s -> Embedding.from(new float[]{1f})).toList());
+        });
+        service = new VectorMigrationDomainService(vectorStoreRepository, fileDetailRepository,
+                embeddingModelFactory, userModelConfigResolver, properties, storeProvider);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reEmbedsRowsWithOwnersModelAtTargetDimension() {
+        when(vectorStoreRepository.listActiveAfter(null, 10))
+                .thenReturn(List.of(row("id-1", "f1", "hello"), row("id-2", "f1", "world")));
+        when(fileDetailRepository.selectByIds(List.of("f1"))).thenReturn(List.of(file("f1", "u1")));
+        when(userModelConfigResolver.getUserEmbeddingModelConfig("u1")).thenReturn(modelConfig());
+
+        VectorMigrationBatch batch = service.migrateBatch(null, new HashMap<>());
+
+        assertThat(batch.getRead()).isEqualTo(2);
+        assertThat(batch.getMigrated()).isEqualTo(2);
+        assertThat(batch.getLastId()).isEqualTo("id-2");
+        ArgumentCaptor<EmbeddingModelFactory.EmbeddingConfig> config = ArgumentCaptor
+                .forClass(EmbeddingModelFactory.EmbeddingConfig.class);
+        verify(embeddingModelFactory).createEmbeddingModel(config.capture(), eq(1536));
+        assertThat(config.getValue().getDimensions()).isEqualTo(1536);
+        assertThat(config.getValue().getModelEndpoint()).isEqualTo("text-embedding-3");
+
+        ArgumentCaptor<List<TextSegment>> segments = ArgumentCaptor.forClass(List.class);
+        verify(targetStore).addAll(eq(List.of("id-1", "id-2")), anyList(), segments.capture());
+        assertThat(segments.getValue().get(0).text()).isEqualTo("hello");
+        assertThat(segments.getValue().get(0).metadata().getString("FILE_ID")).isEqualTo("f1");
+        assertThat(segments.getValue().get(0).metadata().getString("DATA_SET_ID")).isEqualTo("ds");
+    }
+
+    @Test
+    void countsRowsOfDeletedFilesAndFailingUsersAsFailed() {
+        when(vectorStoreRepository.listActiveAfter("id-0", 10)).thenReturn(
+                List.of(row("id-1", "gone", "a"), row("id-2", "f1", "b"), row("id-3", "f2", "c")));
+        when(fileDetailRepository.selectByIds(List.of("gone", "f1", "f2")))
+                .thenReturn(List.of(file("f1", "u1"), file("f2", "u2")));
+        when(userModelConfigResolver.getUserEmbeddingModelConfig("u1")).thenReturn(modelConfig());
+        when(userModelConfigResolver.getUserEmbeddingModelConfig("u2"))
+                .thenThrow(new BusinessException("用户 u2 未配置默认嵌入模型"));
+
+        VectorMigrationBatch batch = service.migrateBatch("id-0", new HashMap<>());
+
+        assertThat(batch.getRead()).isEqualTo(3);
+        assertThat(batch.getMigrated()).isEqualTo(1);
+        assertThat(batch.getFailed()).isEqualTo(2);
+        assertThat(batch.getLastId()).isEqualTo("id-3");
+        verify(targetStore, times(1)).addAll(anyList(), anyList(), anyList());
+    }
+
+    @Test
+    void reusesResolvedModelConfigAcrossBatches() {
+        when(vectorStoreRepository.listActiveAfter(any(), anyInt())).thenReturn(List.of(row("id-1", "f1", "a")));
+        when(fileDetailRepository.selectByIds(List.of("f1"))).thenReturn(List.of(file("f1", "u1")));
+        when(userModelConfigResolver.getUserEmbeddingModelConfig("u1")).thenReturn(modelConfig());
+        Map<String, ModelConfig> modelConfigs = new HashMap<>();
+
+        service.migrateBatch(null, modelConfigs);
+        service.migrateBatch("id-1", modelConfigs);
+
+        verify(userModelConfigResolver, times(1)).getUserEmbeddingModelConfig("u1");
+    }
+
+    @Test
+    void emptyPageMeansDone() {
+        when(vectorStoreRepository.listActiveAfter("id-9", 10)).thenReturn(List.of());
+
+        VectorMigrationBatch batch = service.migrateBatch("id-9", new HashMap<>());
+
+        assertThat(batch.isEmpty()).isTrue();
+        verify(targetStore, never()).addAll(anyList(), anyList(), anyList());
+    }
+
+    @Test
+    void rejectsWhenMigrationTableIsNotConfigured() {
+        properties.getMigration().setTable(" ");
+
+        assertThatThrownBy(() -> service.checkConfigured()).isInstanceOf(BusinessException.class);
+        assertThatThrownBy(() -> service.migrateBatch(null, new HashMap<>()))
+                .isInstanceOf(BusinessException.class);
+    }
+
+    @Test
+    void refusesToMigrateIntoLiveTable() {
+        properties.getVectorStore().setTable("public.vector_store");
+
+        List<String> sameTable = List.of("public.vector_store", "vector_store", " VECTOR_STORE ",
+                "\"public\".vector_store");
+        for (String table : sameTable) {
+            properties.getMigration().setTable(table);
+
+            assertThatThrownBy(() -> service.checkConfigured()).isInstanceOf(BusinessException.class)
+                    .hasMessageContaining("public.vector_store");
+            assertThatThrownBy(() -> service.clearTarget()).isInstanceOf(BusinessException.class);
+        }
+        verify(targetStore, never()).removeAll();
+        verify(vectorStoreRepository, never()).listActiveAfter(any(), anyInt());
+    }
+
+    @Test
+    void allowsTableWithSameNameInAnotherSchema() {
+        properties.getVectorStore().setTable("public.vector_store");
+        properties.getMigration().setTable("migration.vector_store");
+
+        service.clearTarget();
+
+        verify(targetStore).removeAll();
+    }
+
+    private static VectorStoreResult row(String id, String fileId, String text) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("FILE_ID", fileId);
+        metadata.put("DATA_SET_ID", "ds");
+        return new VectorStoreResult(id, text, metadata, null, null);
+    }
+
+    private static FileDetailEntity file(String id, String userId) {
+        FileDetailEntity file = new FileDetailEntity();
+        file.setId(id);
+        file.setUserId(userId);
+        return file;
+    }
+
+    private static ModelConfig modelConfig() {
+        ModelConfig config = new ModelConfig();
+        config.setApiKey("key");
+        config.setBaseUrl("https://api.example.com/v1");
+        config.setModelEndpoint("text-embedding-3");
+        return config;
+    }
+}
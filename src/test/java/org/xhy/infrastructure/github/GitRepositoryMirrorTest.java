@@ -0,0 +1,223 @@
+package org.xhy.infrastructure.github;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.transport.RefSpec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.xhy.infrastructure.config.GitHubProperties;
+import org.xhy.infrastructure.exception.BusinessException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** GitRepositoryMirror 针对本地裸仓库的发布测试 */
+class GitRepositoryMirrorTest {
+
+    private static final String REPO = "owner/tools";
+
+    @TempDir
+    Path tempDir;
+
+    private Path bareRepo;
+    private String remoteBaseUrl;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Path remoteRoot = tempDir.resolve("remote");
+        bareRepo = remoteRoot.resolve(REPO + ".git");
+        Git.init().setBare(true).setInitialBranch("main").setDirectory(bareRepo.toFile()).call().close();
+        remoteBaseUrl = remoteRoot.toUri().toString();
+
+        // 远端初始提交
+        Path seed = tempDir.resolve("seed");
+        try (Git git = Git.init().setInitialBranch("main").setDirectory(seed.toFile()).call()) {
+            write(seed.resolve("README.md"), "tools");
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("init").call();
+            git.push().setRemote(bareRepo.toUri().toString()).setRefSpecs(new RefSpec("main:main")).call();
+        }
+    }
+
+    @Test
+    void publishesDirectoryIntoBareRepository() throws Exception {
+        GitRepositoryMirror mirror = newMirror("node-a");
+
+        boolean committed = mirror.commitAndPush(REPO, null, source("v1", "a.txt", "hello"), "tools/weather/v1",
+                "publish weather v1");
+
+        assertThat(committed).isTrue();
+        Path checkout = cloneRemote();
+        assertThat(read(checkout.resolve("tools/weather/v1/a.txt"))).isEqualTo("hello");
+        assertThat(checkout.resolve("README.md")).exists();
+    }
+
+    @Test
+    void unchangedContentDoesNotCreateCommit() throws Exception {
+        GitRepositoryMirror mirror = newMirror("node-a");
+        mirror.commitAndPush(REPO, null, source("v1", "a.txt", "hello"), "tools/weather/v1", "first");
+        ObjectId head = remoteHead();
+
+        boolean committed = mirror.commitAndPush(REPO, null, source("v1-again", "a.txt", "hello"),
+                "tools/weather/v1", "second");
+
+        assertThat(committed).isFalse();
+        assertThat(remoteHead()).isEqualTo(head);
+    }
+
+    @Test
+    void fetchesRemoteUpdatesBeforeCommitting() throws Exception {
+        GitRepositoryMirror mirror = newMirror("node-a");
+        mirror.commitAndPush(REPO, null, source("v1", "a.txt", "hello"), "tools/weather/v1", "first");
+
+        // 镜像之外的提交推送到远端
+        Path other = cloneRemote();
+        try (Git git = Git.open(other.toFile())) {
+            write(other.resolve("other.txt"), "external");
+            git.add().addFilepattern("other.txt").call();
+            git.commit().setMessage("external change").call();
+            git.push().call();
+        }
+        ObjectId externalHead = remoteHead();
+
+        boolean committed = mirror.commitAndPush(REPO, null, source("v2", "a.txt", "hello v2"), "tools/weather/v2",
+                "second");
+
+        assertThat(committed).isTrue();
+        Path checkout = cloneRemote();
+        assertThat(read(checkout.resolve("other.txt"))).isEqualTo("external");
+        assertThat(read(checkout.resolve("tools/weather/v2/a.txt"))).isEqualTo("hello v2");
+        try (Git git = Git.open(bareRepo.toFile()); RevWalk walk = new RevWalk(git.getRepository())) {
+            RevCommit head = walk.parseCommit(remoteHead());
+            assertThat(head.getParent(0).getId()).isEqualTo(externalHead);
+        }
+    }
+
+    @Test
+    void removesFilesDeletedFromSource() throws Exception {
+        GitRepositoryMirror mirror = newMirror("node-a");
+        Path first = source("full", "a.txt", "a");
+        write(first.resolve("b.txt"), "b");
+        mirror.commitAndPush(REPO, null, first, "tools/weather/v1", "first");
+
+        mirror.commitAndPush(REPO, null, source("partial", "a.txt", "a"), "tools/weather/v1", "second");
+
+        Path checkout = cloneRemote();
+        assertThat(checkout.resolve("tools/weather/v1/a.txt")).exists();
+        assertThat(checkout.resolve("tools/weather/v1/b.txt")).doesNotExist();
+    }
+
+    @Test
+    void serializesConcurrentPublishesToSameRepository() throws Exception {
+        GitRepositoryMirror mirror = newMirror("node-a");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                Path source = source("tool-" + i, "a.txt", "tool " + i);
+                String target = "tools/tool-" + i + "/v1";
+                results.add(executor.submit(() -> mirror.commitAndPush(REPO, null, source, target, "publish")));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get(60, TimeUnit.SECONDS)).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Path checkout = cloneRemote();
+        for (int i = 0; i < 4; i++) {
+            assertThat(read(checkout.resolve("tools/tool-" + i + "/v1/a.txt"))).isEqualTo("tool " + i);
+        }
+    }
+
+    @Test
+    void retriesWhenAnotherNodePushedFirst() throws Exception {
+        GitRepositoryMirror nodeA = newMirror("node-a");
+        GitRepositoryMirror nodeB = newMirror("node-b");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                Path sourceA = source("a-" + i, "a.txt", "a " + i);
+                Path sourceB = source("b-" + i, "b.txt", "b " + i);
+                String targetA = "tools/a-" + i;
+                String targetB = "tools/b-" + i;
+                results.add(executor.submit(() -> nodeA.commitAndPush(REPO, null, sourceA, targetA, "a")));
+                results.add(executor.submit(() -> nodeB.commitAndPush(REPO, null, sourceB, targetB, "b")));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get(60, TimeUnit.SECONDS)).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Path checkout = cloneRemote();
+        for (int i = 0; i < 5; i++) {
+            assertThat(checkout.resolve("tools/a-" + i + "/a.txt")).exists();
+            assertThat(checkout.resolve("tools/b-" + i + "/b.txt")).exists();
+        }
+    }
+
+    @Test
+    void rejectsTargetPathOutsideWorktree() throws Exception {
+        GitRepositoryMirror mirror = newMirror("node-a");
+
+        assertThatThrownBy(() -> mirror.commitAndPush(REPO, null, source("bad", "a.txt", "x"), "../escape", "bad"))
+                .isInstanceOf(BusinessException.class);
+    }
+
+    private GitRepositoryMirror newMirror(String node) {
+        GitHubProperties properties = new GitHubProperties();
+        properties.getCache().setBaseDir(tempDir.resolve(node).toString());
+        properties.getCache().setRemoteBaseUrl(remoteBaseUrl);
+        properties.getCache().setCloneDepth(1);
+        // 两个节点并发推送时给足重试次数
+        properties.getCache().setPushRetries(20);
+        return new GitRepositoryMirror(properties);
+    }
+
+    private Path source(String name, String file, String content) throws IOException {
+        Path dir = tempDir.resolve("sources").resolve(name);
+        Files.createDirectories(dir);
+        write(dir.resolve(file), content);
+        return dir;
+    }
+
+    private Path cloneRemote() throws Exception {
+        Path checkout = Files.createTempDirectory(tempDir, "checkout");
+        Files.delete(checkout);
+        Git.cloneRepository().setURI(bareRepo.toUri().toString()).setDirectory(checkout.toFile()).call().close();
+        return checkout;
+    }
+
+    private ObjectId remoteHead() throws IOException {
+        try (Git git = Git.open(bareRepo.toFile())) {
+            return git.getRepository().resolve("refs/heads/main");
+        }
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+    }
+
+    private static String read(Path file) throws IOException {
+        return Files.readString(file, StandardCharsets.UTF_8);
+    }
+}
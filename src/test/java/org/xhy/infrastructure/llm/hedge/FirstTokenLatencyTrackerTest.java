@@ -0,0 +1,97 @@
+package org.xhy.infrastructure.llm.hedge;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xhy.infrastructure.config.HedgingProperties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** FirstTokenLatencyTracker 分位数与窗口测试 */
+class FirstTokenLatencyTrackerTest {
+
+    private HedgingProperties properties;
+    private FirstTokenLatencyTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        properties = new HedgingProperties();
+        properties.setPercentile(0.9);
+        properties.setInitialDelay(3000);
+        properties.setMinDelay(100);
+        properties.setMaxDelay(8000);
+        properties.setWindowSize(10);
+        properties.setMinSamples(5);
+        tracker = new FirstTokenLatencyTracker(properties);
+    }
+
+    @Test
+    void usesInitialDelayUntilEnoughSamples() {
+        for (int i = 0; i < 4; i++) {
+            tracker.record("m1", 200);
+        }
+
+        assertThat(tracker.hedgeDelay("m1")).isEqualTo(3000);
+        assertThat(tracker.hedgeDelay("unknown")).isEqualTo(3000);
+        assertThat(tracker.hedgeDelay(null)).isEqualTo(3000);
+    }
+
+    @Test
+    void returnsConfiguredPercentileOfSamples() {
+        for (int i = 1; i <= 10; i++) {
+            tracker.record("m1", i * 100L);
+        }
+
+        // 10个样本的P90为第9个
+        assertThat(tracker.hedgeDelay("m1")).isEqualTo(900);
+    }
+
+    @Test
+    void keepsOnlyMostRecentWindow() {
+        for (int i = 0; i < 10; i++) {
+            tracker.record("m1", 5000);
+        }
+        for (int i = 0; i < 10; i++) {
+            tracker.record("m1", 400);
+        }
+
+        assertThat(tracker.hedgeDelay("m1")).isEqualTo(400);
+    }
+
+    @Test
+    void clampsToMinAndMaxDelay() {
+        for (int i = 0; i < 5; i++) {
+            tracker.record("fast", 10);
+            tracker.record("slow", 60_000);
+        }
+
+        assertThat(tracker.hedgeDelay("fast")).isEqualTo(100);
+        assertThat(tracker.hedgeDelay("slow")).isEqualTo(8000);
+    }
+
+    @Test
+    void clampsInitialDelay() {
+        properties.setInitialDelay(20_000);
+
+        assertThat(tracker.hedgeDelay("m1")).isEqualTo(8000);
+    }
+
+    @Test
+    void tracksModelsIndependently() {
+        for (int i = 0; i < 5; i++) {
+            tracker.record("m1", 300);
+        }
+
+        assertThat(tracker.hedgeDelay("m1")).isEqualTo(300);
+        assertThat(tracker.hedgeDelay("m2")).isEqualTo(3000);
+    }
+
+    @Test
+    void ignoresInvalidSamples() {
+        for (int i = 0; i < 5; i++) {
+            tracker.record(null, 300);
+            tracker.record("m1", -1);
+        }
+
+        assertThat(tracker.hedgeDelay("m1")).isEqualTo(3000);
+    }
+}
@@ -0,0 +1,291 @@
+package org.xhy.infrastructure.llm.hedge;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xhy.infrastructure.config.HedgingProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/** HedgedStreamingChatModel 测试 对冲计时器由测试手动触发，备用执行器默认同步执行，主备模型的回调由测试逐个驱动 */
+class HedgedStreamingChatModelTest {
+
+    private static final String PRIMARY_MODEL_ID = "primary";
+
+    private final ScriptedModel primary = new ScriptedModel();
+    private final ScriptedModel backup = new ScriptedModel();
+    private final RecordingHandler downstream = new RecordingHandler();
+    private final HedgeListener listener = mock(HedgeListener.class);
+    private final AtomicInteger backupLookups = new AtomicInteger();
+
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> hedgeTimer;
+    private Runnable hedgeTask;
+    private FirstTokenLatencyTracker latencyTracker;
+    private StreamingChatModel backupOrNull;
+    private Executor backupExecutor = Runnable::run;
+
+    @BeforeEach
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void setUp() {
+        HedgingProperties properties = new HedgingProperties();
+        properties.setInitialDelay(1000);
+        properties.setMinDelay(100);
+        properties.setMaxDelay(5000);
+        properties.setMinSamples(1);
+        latencyTracker = new FirstTokenLatencyTracker(properties);
+
+        scheduler = mock(ScheduledExecutorService.class);
+        hedgeTimer = mock(ScheduledFuture.class);
+        when(scheduler.schedule(any(Runnable.class), anyLong(), eq(TimeUnit.MILLISECONDS))).thenAnswer(invocation -> {
+            hedgeTask = invocation.getArgument(0);
+            return hedgeTimer;
+        });
+        backupOrNull = backup;
+    }
+
+    @Test
+    void primaryWinsBeforeHedgeDelay() {
+        newModel().chat(request(), downstream);
+
+        primary.partial("hello");
+        primary.complete("hello");
+
+        assertThat(downstream.partials).containsExactly("hello");
+        assertThat(downstream.completed).hasSize(1);
+        assertThat(downstream.errors).isEmpty();
+        verify(hedgeTimer).cancel(false);
+        assertThat(backupLookups).hasValue(0);
+        verify(listener, never()).onBackupWon(anyLong());
+    }
+
+    @Test
+    void primaryFirstTokenIsRecordedAsLatencySample() {
+        newModel().chat(request(), downstream);
+
+        primary.partial("hello");
+
+        // 一个样本即满足minSamples，等待时间不再是初始值
+        assertThat(latencyTracker.hedgeDelay(PRIMARY_MODEL_ID)).isLessThan(1000);
+    }
+
+    @Test
+    void backupWinsAndLaterCallsArePinnedToIt() {
+        HedgedStreamingChatModel model = newModel();
+        model.chat(request(), downstream);
+
+        hedgeTask.run();
+        backup.partial("from backup");
+        primary.partial("late primary");
+        primary.complete("late primary");
+        backup.complete("from backup");
+
+        assertThat(downstream.partials).containsExactly("from backup");
+        assertThat(downstream.completed).hasSize(1);
+        assertThat(downstream.completed.get(0).aiMessage().text()).isEqualTo("from backup");
+        verify(listener).onHedgeStarted(anyLong());
+        verify(listener).onBackupWon(anyLong());
+
+        // 同一实例的下一轮直接发往备用模型
+        RecordingHandler next = new RecordingHandler();
+        model.chat(request(), next);
+        assertThat(primary.calls).hasValue(1);
+        assertThat(backup.calls).hasValue(2);
+    }
+
+    @Test
+    void primaryWinsAfterHedgeStartedAndBackupIsDiscarded() {
+        newModel().chat(request(), downstream);
+
+        hedgeTask.run();
+        primary.partial("primary");
+        backup.partial("backup");
+        backup.error(new RuntimeException("backup failed"));
+        primary.complete("primary");
+
+        assertThat(downstream.partials).containsExactly("primary");
+        assertThat(downstream.completed).hasSize(1);
+        assertThat(downstream.errors).isEmpty();
+        verify(listener, never()).onBackupWon(anyLong());
+    }
+
+    @Test
+    void primaryFailureBeforeFirstTokenStartsBackupImmediately() {
+        newModel().chat(request(), downstream);
+
+        primary.error(new RuntimeException("connection reset"));
+
+        assertThat(backup.calls).hasValue(1);
+        verify(hedgeTimer).cancel(false);
+        backup.partial("from backup");
+        backup.complete("from backup");
+        assertThat(downstream.partials).containsExactly("from backup");
+        assertThat(downstream.completed).hasSize(1);
+        assertThat(downstream.errors).isEmpty();
+
+        // 计时器随后触发也不会再发请求
+        hedgeTask.run();
+        assertThat(backup.calls).hasValue(1);
+    }
+
+    @Test
+    void bothFailingReportsLastErrorOnce() {
+        newModel().chat(request(), downstream);
+
+        hedgeTask.run();
+        primary.error(new RuntimeException("primary failed"));
+        assertThat(downstream.errors).isEmpty();
+        backup.error(new RuntimeException("backup failed"));
+
+        assertThat(downstream.errors).hasSize(1);
+        assertThat(downstream.errors.get(0)).hasMessage("backup failed");
+        assertThat(downstream.partials).isEmpty();
+    }
+
+    @Test
+    void noBackupAvailableKeepsWaitingForPrimary() {
+        backupOrNull = null;
+        newModel().chat(request(), downstream);
+
+        hedgeTask.run();
+        primary.partial("slow primary");
+        primary.complete("slow primary");
+
+        assertThat(backupLookups).hasValue(1);
+        assertThat(downstream.partials).containsExactly("slow primary");
+        assertThat(downstream.completed).hasSize(1);
+        verify(listener, never()).onHedgeStarted(anyLong());
+    }
+
+    @Test
+    void noBackupAvailableSurfacesPrimaryFailure() {
+        backupOrNull = null;
+        newModel().chat(request(), downstream);
+
+        primary.error(new RuntimeException("primary failed"));
+
+        assertThat(downstream.errors).hasSize(1);
+        assertThat(downstream.errors.get(0)).hasMessage("primary failed");
+    }
+
+    @Test
+    void hedgeTimerOnlyDispatchesBackupStart() {
+        List<Runnable> dispatched = new ArrayList<>();
+        backupExecutor = dispatched::add;
+        newModel().chat(request(), downstream);
+
+        hedgeTask.run();
+        assertThat(backupLookups).hasValue(0);
+        assertThat(dispatched).hasSize(1);
+
+        dispatched.get(0).run();
+        assertThat(backupLookups).hasValue(1);
+        assertThat(backup.calls).hasValue(1);
+        verify(listener).onHedgeStarted(anyLong());
+    }
+
+    @Test
+    void rejectedBackupDispatchSurfacesPrimaryFailure() {
+        backupExecutor = task -> {
+            throw new RejectedExecutionException("shutdown");
+        };
+        newModel().chat(request(), downstream);
+
+        hedgeTask.run();
+        assertThat(downstream.errors).isEmpty();
+        primary.error(new RuntimeException("primary failed"));
+
+        assertThat(backupLookups).hasValue(0);
+        assertThat(downstream.errors).hasSize(1);
+        assertThat(downstream.errors.get(0)).hasMessage("primary failed");
+    }
+
+    @Test
+    void winnerErrorMidStreamIsPassedThrough() {
+        newModel().chat(request(), downstream);
+
+        primary.partial("partial");
+        primary.error(new RuntimeException("stream broken"));
+
+        assertThat(downstream.partials).containsExactly("partial");
+        assertThat(downstream.errors).hasSize(1);
+        assertThat(backup.calls).hasValue(0);
+    }
+
+    private HedgedStreamingChatModel newModel() {
+        return new HedgedStreamingChatModel(PRIMARY_MODEL_ID, primary, () -> {
+            backupLookups.incrementAndGet();
+            return backupOrNull;
+        }, listener, latencyTracker, scheduler, backupExecutor);
+    }
+
+    private static ChatRequest request() {
+        return ChatRequest.builder().messages(UserMessage.from("hi")).build();
+    }
+
+    /** 记录调用并保存回调，由测试决定何时产出分片、完成或失败 */
+    private static final class ScriptedModel implements StreamingChatModel {
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile StreamingChatResponseHandler handler;
+
+        @Override
+        public void chat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+            calls.incrementAndGet();
+            this.handler = handler;
+        }
+
+        void partial(String text) {
+            handler.onPartialResponse(text);
+        }
+
+        void complete(String text) {
+            handler.onCompleteResponse(ChatResponse.builder().aiMessage(AiMessage.from(text)).build());
+        }
+
+        void error(Throwable error) {
+            handler.onError(error);
+        }
+    }
+
+    private static final class RecordingHandler implements StreamingChatResponseHandler {
+        private final List<String> partials = new ArrayList<>();
+        private final List<ChatResponse> completed = new ArrayList<>();
+        private final List<Throwable> errors = new ArrayList<>();
+
+        @Override
+        public void onPartialResponse(String partialResponse) {
+            partials.add(partialResponse);
+        }
+
+        @Override
+        public void onCompleteResponse(ChatResponse completeResponse) {
+            completed.add(completeResponse);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            errors.add(error);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.xhy.infrastructure.memory.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/** QuantizedVector 量化误差、余弦相似度与文本解析测试 */
+class QuantizedVectorTest {
+
+    private static final int DIMENSION = 1024;
+
+    @Test
+    void quantizedVectorStaysCloseToOriginal() {
+        Random random = new Random(42);
+        for (int i = 0; i < 20; i++) {
+            float[] vector = gaussian(random, DIMENSION);
+
+            double cosine = QuantizedVector.quantize(vector).cosine(vector, QuantizedVector.norm(vector));
+
+            assertThat(cosine).isGreaterThan(0.999);
+        }
+    }
+
+    @Test
+    void cosineMatchesFloatComputation() {
+        Random random = new Random(7);
+        for (int i = 0; i < 50; i++) {
+            float[] stored = gaussian(random, DIMENSION);
+            float[] query = mix(stored, gaussian(random, DIMENSION), random.nextFloat());
+
+            double approximate = QuantizedVector.quantize(stored).cosine(query, QuantizedVector.norm(query));
+
+            assertThat(approximate).isCloseTo(exactCosine(stored, query), within(0.005));
+        }
+    }
+
+    @Test
+    void cosineOfKnownDirections() {
+        float[] x = {1f, 0f, 0f};
+
+        assertThat(QuantizedVector.quantize(x).cosine(x, 1f)).isCloseTo(1.0, within(1e-6));
+        assertThat(QuantizedVector.quantize(x).cosine(new float[]{0f, 2f, 0f}, 2f)).isCloseTo(0.0, within(1e-6));
+        assertThat(QuantizedVector.quantize(x).cosine(new float[]{-3f, 0f, 0f}, 3f)).isCloseTo(-1.0, within(1e-6));
+    }
+
+    @Test
+    void cosineDoesNotDependOnVectorScale() {
+        Random random = new Random(3);
+        float[] vector = gaussian(random, DIMENSION);
+        float[] scaled = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            scaled[i] = vector[i] * 1000f;
+        }
+        float[] query = gaussian(random, DIMENSION);
+        float queryNorm = QuantizedVector.norm(query);
+
+        assertThat(QuantizedVector.quantize(scaled).cosine(query, queryNorm))
+                .isCloseTo(QuantizedVector.quantize(vector).cosine(query, queryNorm), within(1e-4));
+    }
+
+    @Test
+    void returnsNaNForMismatchedDimensionOrZeroVector() {
+        QuantizedVector vector = QuantizedVector.quantize(new float[]{0.5f, 0.5f});
+
+        assertThat(vector.cosine(new float[]{1f, 0f, 0f}, 1f)).isNaN();
+        assertThat(vector.cosine(new float[]{0f, 0f}, 0f)).isNaN();
+        assertThat(QuantizedVector.quantize(new float[]{0f, 0f}).cosine(new float[]{1f, 0f}, 1f)).isNaN();
+    }
+
+    @Test
+    void parsesPgvectorText() {
+        assertThat(QuantizedVector.parse("[0.5, -2,3e-2]")).containsExactly(0.5f, -2f, 0.03f);
+        assertThat(QuantizedVector.parse(" [1] ")).containsExactly(1f);
+        assertThat(QuantizedVector.parse("[]")).isEmpty();
+        assertThat(QuantizedVector.quantize(QuantizedVector.parse("[0.1,0.2,0.3]")).dimension()).isEqualTo(3);
+    }
+
+    @Test
+    void normIsEuclideanLength() {
+        assertThat(QuantizedVector.norm(new float[]{3f, 4f})).isEqualTo(5f);
+        assertThat(QuantizedVector.norm(new float[0])).isZero();
+    }
+
+    private static float[] gaussian(Random random, int dimension) {
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private static float[] mix(float[] a, float[] b, float weight) {
+        float[] vector = new float[a.length];
+        for (int i = 0; i < a.length; i++) {
+            vector[i] = weight * a[i] + (1 - weight) * b[i];
+        }
+        return vector;
+    }
+
+    private static double exactCosine(float[] a, float[] b) {
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += (double) a[i] * b[i];
+            normA += (double) a[i] * a[i];
+            normB += (double) b[i] * b[i];
+        }
+        return dot / (Math.sqrt(normA) * Math.sqrt(normB));
+    }
+}
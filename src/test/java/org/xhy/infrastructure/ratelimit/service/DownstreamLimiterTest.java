@@ -0,0 +1,101 @@
+package org.xhy.infrastructure.ratelimit.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xhy.infrastructure.config.ExecutionProperties;
+import org.xhy.infrastructure.exception.RateLimitException;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** DownstreamLimiter 测试 请求线程等待超时失败，后台任务排队直到拿到许可 */
+class DownstreamLimiterTest {
+
+    private static final String DOWNSTREAM = ExecutionProperties.DOWNSTREAM_OCR;
+
+    private final ExecutorService threads = Executors.newCachedThreadPool();
+    private final CountDownLatch holding = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private DownstreamLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        ExecutionProperties properties = new ExecutionProperties();
+        properties.setAcquireTimeout(50);
+        properties.setPermits(Map.of(DOWNSTREAM, 1));
+        limiter = new DownstreamLimiter(properties, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        threads.shutdownNow();
+    }
+
+    @Test
+    void requestCallFailsWhenPermitIsNotReleasedInTime() throws Exception {
+        holdOnlyPermit();
+
+        assertThatThrownBy(() -> limiter.call(DOWNSTREAM, null, () -> "late"))
+                .isInstanceOf(RateLimitException.class);
+    }
+
+    @Test
+    void backgroundCallWaitsPastTimeoutUntilPermitIsReleased() throws Exception {
+        holdOnlyPermit();
+        CompletableFuture<String> result = new CompletableFuture<>();
+        threads.execute(DownstreamLimiter.background(() -> {
+            try {
+                result.complete(limiter.call(DOWNSTREAM, null, () -> "done"));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }));
+
+        // 远超等待超时仍在排队
+        Thread.sleep(200);
+        assertThat(result).isNotDone();
+
+        release.countDown();
+        assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("done");
+    }
+
+    @Test
+    void backgroundMarkerDoesNotLeakToThreadAfterTask() throws Exception {
+        DownstreamLimiter.background(() -> {
+        }).run();
+        holdOnlyPermit();
+
+        assertThatThrownBy(() -> limiter.call(DOWNSTREAM, null, () -> "late"))
+                .isInstanceOf(RateLimitException.class);
+    }
+
+    @Test
+    void instancesHaveSeparatePermits() throws Exception {
+        holdOnlyPermit();
+
+        assertThat(limiter.call(DOWNSTREAM, "other-host", () -> "ok")).isEqualTo("ok");
+    }
+
+    /** 在另一线程占住唯一的许可，直到测试放行 */
+    private void holdOnlyPermit() throws InterruptedException {
+        threads.execute(() -> limiter.run(DOWNSTREAM, null, () -> {
+            holding.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertThat(holding.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+}
@@ -0,0 +1,148 @@
+package org.xhy.infrastructure.ratelimit.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xhy.infrastructure.exception.RateLimitException;
+import org.xhy.infrastructure.ratelimit.config.RateLimitConfig;
+import org.xhy.infrastructure.ratelimit.store.LocalRateLimitStore;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** WidgetAdmissionService 测试 令牌桶、每日额度与并发名额的准入顺序，以及失败时的额度退回 */
+class WidgetAdmissionServiceTest {
+
+    private static final String WIDGET_ID = "w1";
+    private static final String IP = "203.0.113.7";
+
+    private RateLimitConfig rateLimitConfig;
+    private RateLimitConfig.Widget config;
+    private WidgetAdmissionService service;
+
+    @BeforeEach
+    void setUp() {
+        rateLimitConfig = new RateLimitConfig();
+        config = rateLimitConfig.getWidget();
+        config.setIpBurst(100);
+        config.setVisitorBurst(100);
+        config.setMaxConcurrentStreamsPerWidget(1);
+        config.setMaxQueuedPerWidget(1);
+        config.setQueueTimeoutMillis(50);
+        newService();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.destroy();
+    }
+
+    @Test
+    void admitsAndCountsDailyCalls() {
+        WidgetAdmission admission = service.admit(WIDGET_ID, null, IP, "v1");
+
+        assertThat(service.getDailyCalls(WIDGET_ID)).isEqualTo(1);
+        admission.release();
+        service.admit(WIDGET_ID, null, IP, "v1").release();
+        assertThat(service.getDailyCalls(WIDGET_ID)).isEqualTo(2);
+    }
+
+    @Test
+    void ipBucketLimitsAllVisitorsOfOneIp() {
+        config.setIpBurst(2);
+        config.setIpPermitsPerMinute(0);
+        newService();
+
+        service.admit(WIDGET_ID, null, IP, "v1").release();
+        service.admit(WIDGET_ID, null, IP, "v2").release();
+
+        // 更换访客ID不能绕过IP限流
+        assertThatThrownBy(() -> service.admit(WIDGET_ID, null, IP, "v3")).isInstanceOf(RateLimitException.class);
+        service.admit(WIDGET_ID, null, "198.51.100.1", "v3").release();
+        assertThat(service.getDailyCalls(WIDGET_ID)).isEqualTo(3);
+    }
+
+    @Test
+    void visitorBucketIsPerVisitor() {
+        config.setVisitorBurst(1);
+        config.setVisitorPermitsPerMinute(0);
+        newService();
+
+        service.admit(WIDGET_ID, null, IP, "v1").release();
+
+        assertThatThrownBy(() -> service.admit(WIDGET_ID, null, IP, "v1")).isInstanceOf(RateLimitException.class);
+        service.admit(WIDGET_ID, null, IP, "v2").release();
+    }
+
+    @Test
+    void exhaustedDailyLimitFailsWithoutWaitingForSlot() {
+        config.setQueueTimeoutMillis(3000);
+        newService();
+        WidgetAdmission holding = service.admit(WIDGET_ID, 1, IP, "v1");
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> service.admit(WIDGET_ID, 1, IP, "v2")).isInstanceOf(RateLimitException.class)
+                .hasMessageContaining("今日调用次数已达上限");
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1000);
+        assertThat(service.getDailyCalls(WIDGET_ID)).isEqualTo(1);
+        holding.release();
+    }
+
+    @Test
+    void busySlotRefundsDailyQuota() {
+        WidgetAdmission holding = service.admit(WIDGET_ID, 2, IP, "v1");
+
+        assertThatThrownBy(() -> service.admit(WIDGET_ID, 2, IP, "v2")).isInstanceOf(RateLimitException.class)
+                .hasMessageContaining("访问人数较多");
+
+        // 排队超时未占用额度，释放名额后仍能用满每日额度
+        assertThat(service.getDailyCalls(WIDGET_ID)).isEqualTo(1);
+        holding.release();
+        service.admit(WIDGET_ID, 2, IP, "v2").release();
+        assertThat(service.getDailyCalls(WIDGET_ID)).isEqualTo(2);
+    }
+
+    @Test
+    void fullNodeRefundsDailyQuotaAndWidgetSlot() {
+        config.setMaxConcurrentStreams(1);
+        config.setMaxConcurrentStreamsPerWidget(5);
+        newService();
+        WidgetAdmission holding = service.admit("other", null, IP, "v1");
+
+        assertThatThrownBy(() -> service.admit(WIDGET_ID, null, IP, "v2")).isInstanceOf(RateLimitException.class);
+
+        assertThat(service.getDailyCalls(WIDGET_ID)).isZero();
+        holding.release();
+        service.admit(WIDGET_ID, null, IP, "v2").release();
+    }
+
+    @Test
+    void refundReturnsDailyQuotaAndSlotOnce() {
+        WidgetAdmission admission = service.admit(WIDGET_ID, 1, IP, "v1");
+
+        admission.refund();
+        admission.refund();
+
+        assertThat(service.getDailyCalls(WIDGET_ID)).isZero();
+        service.admit(WIDGET_ID, 1, IP, "v1").release();
+    }
+
+    @Test
+    void disabledAdmissionIsUnlimited() {
+        config.setEnabled(false);
+        newService();
+
+        assertThat(service.admit(WIDGET_ID, 0, IP, "v1")).isSameAs(WidgetAdmission.UNLIMITED);
+        assertThat(service.getDailyCalls(WIDGET_ID)).isZero();
+    }
+
+    private void newService() {
+        if (service != null) {
+            service.destroy();
+        }
+        service = new WidgetAdmissionService(rateLimitConfig, new LocalRateLimitStore(rateLimitConfig));
+    }
+}
@@ -0,0 +1,115 @@
+package org.xhy.infrastructure.repository.injector;
+
+import com.baomidou.mybatisplus.annotation.FieldFill;
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableLogic;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** UpsertById 测试 注入到独立的MyBatis配置后按实体生成SQL，校验冲突时的处理子句 */
+class UpsertByIdTest {
+
+    private MappedStatement statement;
+
+    @BeforeEach
+    void setUp() {
+        MybatisConfiguration configuration = new MybatisConfiguration();
+        MapperBuilderAssistant assistant = new MapperBuilderAssistant(configuration, "UpsertByIdTest");
+        assistant.setCurrentNamespace(ItemMapper.class.getName());
+        TableInfo tableInfo = TableInfoHelper.initTableInfo(assistant, Item.class);
+        new UpsertById().inject(assistant, ItemMapper.class, Item.class, tableInfo);
+        statement = configuration.getMappedStatement(ItemMapper.class.getName() + "." + UpsertById.METHOD_NAME);
+    }
+
+    @Test
+    void nonNullFieldsAreOverwrittenOnConflict() {
+        Item item = new Item();
+        item.setId("1");
+        item.setName("name");
+        item.setCreatedAt(LocalDateTime.now());
+
+        String sql = sql(item);
+
+        assertThat(sql).contains("ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name");
+        assertThat(sql).doesNotContain("created_at = EXCLUDED").doesNotContain("deleted_at = EXCLUDED")
+                .doesNotContain("DO NOTHING");
+    }
+
+    @Test
+    void allUpdatableFieldsNullFallsBackToDoNothing() {
+        Item item = new Item();
+        item.setId("1");
+        item.setCreatedAt(LocalDateTime.now());
+
+        String sql = sql(item);
+
+        assertThat(sql).endsWith("ON CONFLICT (id) DO NOTHING").doesNotContain("DO UPDATE");
+    }
+
+    private String sql(Item item) {
+        return statement.getBoundSql(item).getSql().replaceAll("\\s+", " ").trim();
+    }
+
+    interface ItemMapper extends BaseMapper<Item> {
+    }
+
+    @TableName("upsert_item")
+    static class Item {
+
+        @TableId(type = IdType.ASSIGN_ID)
+        private String id;
+
+        private String name;
+
+        @TableField(fill = FieldFill.INSERT)
+        private LocalDateTime createdAt;
+
+        @TableLogic
+        private LocalDateTime deletedAt;
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+
+        public void setCreatedAt(LocalDateTime createdAt) {
+            this.createdAt = createdAt;
+        }
+
+        public LocalDateTime getDeletedAt() {
+            return deletedAt;
+        }
+
+        public void setDeletedAt(LocalDateTime deletedAt) {
+            this.deletedAt = deletedAt;
+        }
+    }
+}
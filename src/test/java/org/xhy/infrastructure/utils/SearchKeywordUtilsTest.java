@@ -0,0 +1,52 @@
+package org.xhy.infrastructure.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** SearchKeywordUtils 关键词规整与 LIKE 模式转义测试 */
+class SearchKeywordUtilsTest {
+
+    @Test
+    void normalizeTrimsAndCollapsesWhitespace() {
+        assertThat(SearchKeywordUtils.normalize("  天气 \t\n 助手  ", 50)).isEqualTo("天气 助手");
+    }
+
+    @Test
+    void normalizeReturnsNullForBlankInput() {
+        assertThat(SearchKeywordUtils.normalize(null, 50)).isNull();
+        assertThat(SearchKeywordUtils.normalize(" \t\n", 50)).isNull();
+    }
+
+    @Test
+    void normalizeTruncatesToMaxLength() {
+        assertThat(SearchKeywordUtils.normalize("abcdef", 4)).isEqualTo("abcd");
+        assertThat(SearchKeywordUtils.normalize("abcd", 4)).isEqualTo("abcd");
+    }
+
+    @Test
+    void normalizeDoesNotLeaveTrailingSpaceAfterTruncation() {
+        assertThat(SearchKeywordUtils.normalize("ab   cd", 3)).isEqualTo("ab");
+    }
+
+    @Test
+    void normalizeDoesNotSplitSurrogatePair() {
+        String emoji = "😀";
+
+        assertThat(SearchKeywordUtils.normalize("a" + emoji + "b", 2)).isEqualTo("a");
+        assertThat(SearchKeywordUtils.normalize("a" + emoji + "b", 3)).isEqualTo("a" + emoji);
+        assertThat(SearchKeywordUtils.normalize(emoji, 1)).isNull();
+    }
+
+    @Test
+    void escapeLikeEscapesWildcardsAndBackslash() {
+        assertThat(SearchKeywordUtils.escapeLike("100%_a\\b")).isEqualTo("100\\%\\_a\\\\b");
+        assertThat(SearchKeywordUtils.escapeLike("plain")).isEqualTo("plain");
+    }
+
+    @Test
+    void patternsWrapEscapedKeyword() {
+        assertThat(SearchKeywordUtils.containsPattern("50%")).isEqualTo("%50\\%%");
+        assertThat(SearchKeywordUtils.prefixPattern("my_agent")).isEqualTo("my\\_agent%");
+    }
+}